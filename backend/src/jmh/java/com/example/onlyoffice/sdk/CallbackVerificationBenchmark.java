@@ -0,0 +1,68 @@
+package com.example.onlyoffice.sdk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onlyoffice.manager.security.DefaultJwtManager;
+import com.onlyoffice.model.documenteditor.Callback;
+import com.onlyoffice.model.settings.SettingsConstants;
+import com.onlyoffice.service.documenteditor.callback.DefaultCallbackService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Callback JWT verification cost: SDK path vs precomputed verifier vs verified-token cache hit
+ * <p>
+ * Run with: ./gradlew jmh -Pjmh.includes=CallbackVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CallbackVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-must-be-at-least-32-characters";
+
+    private DefaultCallbackService sdkService;
+    private CallbackTokenVerifier verifier;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        CustomSettingsManager settingsManager = new CustomSettingsManager();
+        settingsManager.setSetting(SettingsConstants.SECURITY_KEY, SECRET);
+
+        DefaultJwtManager jwtManager = new DefaultJwtManager(settingsManager);
+        sdkService = new DefaultCallbackService(jwtManager, settingsManager);
+        verifier = new CallbackTokenVerifier(settingsManager, new ObjectMapper());
+
+        token = jwtManager.createToken(Map.of(
+                "status", 6,
+                "key", "benchmark-doc_v3",
+                "url", "http://documentserver/cache/files/benchmark-doc/output.docx",
+                "users", new String[]{"user-1"}));
+    }
+
+    @Benchmark
+    public Callback sdkVerifyCallback() throws Exception {
+        return sdkService.verifyCallback(callback(), null);
+    }
+
+    @Benchmark
+    public Callback precomputedVerify() {
+        return verifier.verifyToken(token, false);
+    }
+
+    @Benchmark
+    public Callback cachedVerify() {
+        return verifier.verify(callback(), null);
+    }
+
+    private Callback callback() {
+        Callback callback = new Callback();
+        callback.setToken(token);
+        return callback;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.onlyoffice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Document Server에서 저장된 파일을 내려받는 공유 HTTP 클라이언트 설정.
+ * <p>
+ * callback마다 새 {@code URLConnection}을 여는 대신 하나의 {@link HttpClient}를 재사용하여
+ * 저장이 몰릴 때 Document Server로의 TCP/TLS 연결 수립 비용을 줄입니다.
+ * <p>
+ * - version: HTTP_2이면 서버가 지원할 때 HTTP/2를 사용 (https는 ALPN, http는 h2c upgrade). 지원하지 않으면 HTTP/1.1로 동작
+ * - connect-timeout-ms: 새 연결 수립 timeout
+ * <p>
+ * 유휴 연결을 pool에 유지하는 시간은 JDK 클라이언트가 JVM 전역 system property
+ * ({@code jdk.httpclient.keepalive.timeout}, 초 단위, 기본 30초)로 한 번만 읽습니다.
+ * 같은 JVM의 다른 HttpClient에도 영향을 주므로 bean에서 바꾸지 않고 JVM 기동 옵션
+ * ({@code -Djdk.httpclient.keepalive.timeout=60})으로 지정합니다.
+ */
+@Slf4j
+@Configuration
+public class DocumentServerHttpClientConfig {
+
+    @Value("${callback.download.version:HTTP_2}")
+    private HttpClient.Version version;
+
+    @Value("${callback.download.connect-timeout-ms:10000}")
+    private long connectTimeoutMs;
+
+    @Bean
+    public HttpClient documentServerHttpClient() {
+        log.info("Initializing Document Server HTTP client: version={}, connectTimeoutMs={}, keepAlive={}s",
+                version, connectTimeoutMs, System.getProperty("jdk.httpclient.keepalive.timeout", "30"));
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+}
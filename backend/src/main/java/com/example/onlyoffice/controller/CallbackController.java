@@ -1,7 +1,9 @@
 package com.example.onlyoffice.controller;
 
+import com.example.onlyoffice.exception.CallbackRejectedException;
 import com.example.onlyoffice.exception.DocumentNotFoundException;
 import com.example.onlyoffice.sdk.CustomSettingsManager;
+import com.example.onlyoffice.service.CallbackInboxService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.onlyoffice.model.documenteditor.Callback;
 import com.onlyoffice.service.documenteditor.callback.CallbackService;
@@ -27,6 +29,9 @@ import java.util.Map;
  * - Type-safe Callback model
  * <p>
  * Business logic implemented in CustomCallbackService
+ * <p>
+ * With callback.ack-mode=async, SAVE/FORCESAVE callbacks are persisted to the
+ * callback inbox and acknowledged immediately (CallbackInboxService)
  */
 @Slf4j
 @RestController
@@ -36,6 +41,7 @@ public class CallbackController {
     private final CallbackService callbackService;  // SDK CallbackService (CustomCallbackService)
     private final CustomSettingsManager settingsManager;  // For getting security header name
     private final ObjectMapper objectMapper;
+    private final CallbackInboxService callbackInboxService;
 
     /**
      * ONLYOFFICE Document Server callback handler
@@ -43,8 +49,10 @@ public class CallbackController {
      * Flow:
      * 1. Parse JSON body to Callback object
      * 2. SDK verifies JWT token
-     * 3. SDK routes to appropriate handler based on Status
-     * 4. CustomCallbackService executes business logic
+     * 3. (async ack mode) SAVE/FORCESAVE are written to the inbox and acknowledged at once
+     * 4. (sync ack mode) SAVE/FORCESAVE are journaled, then processed inline
+     * 5. SDK routes to appropriate handler based on Status
+     * 6. CustomCallbackService executes business logic
      */
     @PostMapping("/callback")
     public ResponseEntity<Map<String, Object>> callback(HttpServletRequest request, @RequestBody String body) {
@@ -70,9 +78,24 @@ public class CallbackController {
             // SDK verifies JWT and validates callback
             callbackService.verifyCallback(callback, authHeader);
 
+            // Async ack: durable inbox + background worker, request thread is released immediately
+            if (callbackInboxService.shouldEnqueue(callback)) {
+                callbackInboxService.enqueue(callback, fileKey);
+                return ResponseEntity.ok(Map.of("error", 0));
+            }
+
+            // Journal SAVE/FORCESAVE before processing so they are replayed after a crash
+            Long journalId = callbackInboxService.journal(callback, fileKey);
+
             // SDK routes to appropriate handler (handlerSave, handlerForcesave, etc.)
             // fileKey is passed as the fileId parameter
-            callbackService.processCallback(callback, fileKey);
+            try {
+                callbackService.processCallback(callback, fileKey);
+            } catch (Exception e) {
+                callbackInboxService.markJournalFailed(journalId, e);
+                throw e;
+            }
+            callbackInboxService.markJournalDone(journalId);
 
             return ResponseEntity.ok(Map.of("error", 0));
 
@@ -80,6 +103,10 @@ public class CallbackController {
             log.warn("Lock timeout for callback, ONLYOFFICE should retry: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                     .body(Map.of("error", 1, "message", "Document is locked, please retry"));
+        } catch (CallbackRejectedException e) {
+            log.warn("Callback queue is full, ONLYOFFICE should retry: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", 1, "message", "Callback queue is full, please retry"));
         } catch (DocumentNotFoundException | IllegalArgumentException e) {
             log.error("Callback failed (non-retryable): {}", e.getMessage());
             return ResponseEntity.ok(Map.of("error", 1));
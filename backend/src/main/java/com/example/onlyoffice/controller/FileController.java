@@ -2,27 +2,47 @@ package com.example.onlyoffice.controller;
 
 import com.example.onlyoffice.entity.Document;
 import com.example.onlyoffice.exception.DocumentNotFoundException;
+import com.example.onlyoffice.service.DocumentContentCache;
 import com.example.onlyoffice.service.DocumentService;
-import com.example.onlyoffice.service.MinioStorageService;
+import com.example.onlyoffice.service.FileDeliveryService;
 import com.example.onlyoffice.util.KeyUtils;
 import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Validated
@@ -31,9 +51,13 @@ import java.nio.charset.StandardCharsets;
 public class FileController {
 
     private static final int BUFFER_SIZE = 65536; // 64KB buffer for optimal streaming
+    private static final int MAX_POOLED_BUFFERS = 64; // 최대 4MB 유지
+    private static final String ACCEPT_RANGES_BYTES = "bytes";
 
     private final DocumentService documentService;
-    private final MinioStorageService storageService;
+    private final DocumentContentCache contentCache;
+    private final FileDeliveryService fileDelivery;
+    private final StreamBufferPool bufferPool = new StreamBufferPool(BUFFER_SIZE, MAX_POOLED_BUFFERS);
 
     /**
      * 파일 다운로드 엔드포인트
@@ -41,47 +65,342 @@ public class FileController {
      * StreamingResponseBody를 사용하여 리소스 누수를 방지합니다.
      * try-with-resources를 통해 모든 시나리오(정상 완료, 클라이언트 연결 끊김,
      * 네트워크 타임아웃 등)에서 스트림이 안전하게 닫힙니다.
+     * <p>
+     * 조건부 요청과 Range 요청을 지원하여 이미 받은 내용을 다시 내려받지 않게 합니다.
+     * <ul>
+     *   <li>If-None-Match / If-Modified-Since가 현재 버전과 일치하면 본문 없이 304</li>
+     *   <li>Range 요청은 206 (여러 구간이면 multipart/byteranges), 만족할 수 없으면 416</li>
+     *   <li>If-Range가 현재 버전과 다르면 Range를 무시하고 전체를 200으로 전송</li>
+     * </ul>
+     * redirect/direct 전달 모드에서는 본문 대신 presigned MinIO URL로 302 응답합니다 ({@link FileDeliveryService}).
      *
-     * @param fileKey 파일 고유 식별자 (UUID)
-     * @return StreamingResponseBody로 래핑된 파일 스트림
+     * @param fileKey     파일 고유 식별자 (UUID)
+     * @param rangeHeader Range 요청 헤더 (없으면 전체 전송)
+     * @param ifRange     If-Range 요청 헤더 (ETag 또는 HTTP date)
+     * @param webRequest  조건부 요청 처리용
+     * @return StreamingResponseBody로 래핑된 파일 스트림 (304이면 null, redirect 모드이면 302)
      */
     @GetMapping("/files/{fileKey}")
     public ResponseEntity<StreamingResponseBody> downloadFile(
-            @PathVariable @Pattern(regexp = KeyUtils.UUID_REGEX, message = "Invalid fileKey format") String fileKey) {
-        Document doc = documentService.findByFileKey(fileKey)
-                .orElseThrow(() -> new DocumentNotFoundException("Document not found for fileKey: " + fileKey));
+            @PathVariable @Pattern(regexp = KeyUtils.UUID_REGEX, message = "Invalid fileKey format") String fileKey,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            WebRequest webRequest) {
+        Document doc = findDocument(fileKey);
+        String eTag = eTag(doc);
+        long lastModified = lastModified(doc);
+
+        if (webRequest.checkNotModified(eTag, lastModified)) {
+            log.debug("File not modified for fileKey: {}, eTag: {}", fileKey, eTag);
+            return null;
+        }
 
-        String storagePath = doc.getStoragePath();
+        if (fileDelivery.redirectsDownloads()) {
+            Optional<String> presignedUrl = fileDelivery.presignedUrl(doc);
+            if (presignedUrl.isPresent()) {
+                log.debug("Redirecting file download to storage for fileKey: {}", fileKey);
+                return ResponseEntity.status(HttpStatus.FOUND)
+                        .location(URI.create(presignedUrl.get()))
+                        .build();
+            }
+        }
+
+        long fileSize = doc.getFileSize();
         log.debug("Starting file download for fileKey: {}, fileName: {}", fileKey, doc.getFileName());
 
-        ContentDisposition contentDisposition = ContentDisposition.attachment()
-                .filename(doc.getFileName(), StandardCharsets.UTF_8)
-                .build();
+        if (rangeHeader != null && fileSize > 0 && ifRangeMatches(ifRange, eTag, lastModified)) {
+            List<ByteRange> ranges = parseRanges(rangeHeader, fileSize);
+            if (ranges.isEmpty()) {
+                log.debug("Unsatisfiable range for fileKey: {}, range: {}", fileKey, rangeHeader);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize)
+                        .header(HttpHeaders.ACCEPT_RANGES, ACCEPT_RANGES_BYTES)
+                        .eTag(eTag)
+                        .build();
+            }
+            if (ranges.size() == 1) {
+                return singleRange(doc, eTag, lastModified, ranges.get(0));
+            }
+            return multipleRanges(doc, eTag, lastModified, ranges);
+        }
 
         StreamingResponseBody streamingBody = outputStream -> {
-            streamFileContent(fileKey, storagePath, outputStream);
+            streamFileContent(doc, outputStream);
         };
 
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .headers(fileHeaders(doc, eTag, lastModified))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(fileSize)
+                .body(streamingBody);
+    }
+
+    /**
+     * 파일 메타데이터 엔드포인트 (HEAD)
+     * <p>
+     * DB에 저장된 메타데이터만으로 응답하며 스토리지에 접근하지 않습니다.
+     * GET과 같은 조건부 요청 처리를 적용합니다.
+     *
+     * @param fileKey    파일 고유 식별자 (UUID)
+     * @param webRequest 조건부 요청 처리용
+     * @return 본문 없는 응답 (304이면 null)
+     */
+    @RequestMapping(value = "/files/{fileKey}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> fileMetadata(
+            @PathVariable @Pattern(regexp = KeyUtils.UUID_REGEX, message = "Invalid fileKey format") String fileKey,
+            WebRequest webRequest) {
+        Document doc = findDocument(fileKey);
+        String eTag = eTag(doc);
+        long lastModified = lastModified(doc);
+
+        if (webRequest.checkNotModified(eTag, lastModified)) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .headers(fileHeaders(doc, eTag, lastModified))
                 .contentType(MediaType.APPLICATION_OCTET_STREAM)
                 .contentLength(doc.getFileSize())
+                .build();
+    }
+
+    private Document findDocument(String fileKey) {
+        return documentService.findByFileKey(fileKey)
+                .orElseThrow(() -> new DocumentNotFoundException("Document not found for fileKey: " + fileKey));
+    }
+
+    /**
+     * 단일 구간 응답 (206, Content-Range)
+     */
+    private ResponseEntity<StreamingResponseBody> singleRange(Document doc, String eTag, long lastModified,
+                                                              ByteRange range) {
+        String fileKey = doc.getFileKey();
+
+        StreamingResponseBody streamingBody = outputStream -> {
+            try {
+                long totalBytes = writeRange(doc, range, outputStream);
+                outputStream.flush();
+                log.debug("Range streaming completed for fileKey: {}, range: {}, totalBytes: {}",
+                        fileKey, range, totalBytes);
+            } catch (IOException e) {
+                throw streamFailure(fileKey, e);
+            }
+        };
+
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(fileHeaders(doc, eTag, lastModified))
+                .header(HttpHeaders.CONTENT_RANGE, range.contentRange(doc.getFileSize()))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(range.length())
                 .body(streamingBody);
     }
 
+    /**
+     * 여러 구간 응답 (206, multipart/byteranges)
+     * <p>
+     * 구간마다 스토리지에서 해당 구간만 읽어 part로 전송합니다.
+     * part 헤더를 미리 만들어 두므로 Content-Length를 정확히 계산할 수 있습니다.
+     */
+    private ResponseEntity<StreamingResponseBody> multipleRanges(Document doc, String eTag, long lastModified,
+                                                                 List<ByteRange> ranges) {
+        String fileKey = doc.getFileKey();
+        long fileSize = doc.getFileSize();
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (ByteRange range : ranges) {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + MediaType.APPLICATION_OCTET_STREAM_VALUE + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + range.contentRange(fileSize) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + range.length();
+        }
+        byte[] closeDelimiter = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closeDelimiter.length;
+
+        StreamingResponseBody streamingBody = outputStream -> {
+            long totalBytes = 0;
+            for (int i = 0; i < ranges.size(); i++) {
+                ByteRange range = ranges.get(i);
+                try {
+                    outputStream.write(partHeaders.get(i));
+                    totalBytes += writeRange(doc, range, outputStream);
+                } catch (IOException e) {
+                    throw streamFailure(fileKey, e);
+                }
+            }
+            try {
+                outputStream.write(closeDelimiter);
+                outputStream.flush();
+            } catch (IOException e) {
+                throw streamFailure(fileKey, e);
+            }
+            log.debug("Multi-range streaming completed for fileKey: {}, ranges: {}, totalBytes: {}",
+                    fileKey, ranges.size(), totalBytes);
+        };
+
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(fileHeaders(doc, eTag, lastModified))
+                .contentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary))
+                .contentLength(contentLength)
+                .body(streamingBody);
+    }
+
+    /**
+     * 모든 파일 응답에 공통으로 붙는 헤더 (Content-Disposition, Accept-Ranges, ETag, Last-Modified)
+     */
+    private HttpHeaders fileHeaders(Document doc, String eTag, long lastModified) {
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename(doc.getFileName(), StandardCharsets.UTF_8)
+                .build();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(contentDisposition);
+        headers.set(HttpHeaders.ACCEPT_RANGES, ACCEPT_RANGES_BYTES);
+        headers.setETag(eTag);
+        if (lastModified >= 0) {
+            headers.setLastModified(lastModified);
+        }
+        return headers;
+    }
+
+    /**
+     * 저장된 내용의 strong ETag.
+     * <p>
+     * callback 저장으로 계산된 content hash가 있으면 그것을, 없으면 editor key(fileKey + editorVersion)를 사용합니다.
+     * 저장 callback은 새 storage 경로에 쓰고 editorVersion을 올리므로 두 값 모두 내용이 바뀔 때만 바뀝니다.
+     */
+    private String eTag(Document doc) {
+        String version = doc.getContentHash() != null ? doc.getContentHash() : doc.getEditorKey();
+        return "\"" + version + "\"";
+    }
+
+    private long lastModified(Document doc) {
+        if (doc.getUpdatedAt() == null) {
+            return -1;
+        }
+        return doc.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * If-Range가 없거나 현재 버전과 일치하는지 확인합니다.
+     * ETag는 strong 비교, HTTP date는 초 단위로 Last-Modified와 정확히 같아야 합니다.
+     */
+    private boolean ifRangeMatches(String ifRange, String eTag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(eTag);
+        }
+        if (lastModified < 0) {
+            return false;
+        }
+        try {
+            long ifRangeDate = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant().toEpochMilli();
+            return ifRangeDate == lastModified / 1000 * 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Range 헤더를 파일 크기 기준의 구간 목록으로 변환합니다.
+     * <p>
+     * 형식이 잘못되었거나, 만족할 수 없는 구간이 있거나, 구간 합계가 파일 크기를 넘으면 빈 목록을 반환합니다.
+     * 구간 합계 제한은 겹치는 구간을 반복 요청해 전송량을 부풀리는 것을 막습니다.
+     */
+    private List<ByteRange> parseRanges(String rangeHeader, long fileSize) {
+        try {
+            List<ByteRange> ranges = new ArrayList<>();
+            long total = 0;
+            for (HttpRange httpRange : HttpRange.parseRanges(rangeHeader)) {
+                long start = httpRange.getRangeStart(fileSize);
+                long end = httpRange.getRangeEnd(fileSize);
+                ByteRange range = new ByteRange(start, end);
+                if (range.length() <= 0) {
+                    return List.of();
+                }
+                total += range.length();
+                ranges.add(range);
+            }
+            return total > fileSize ? List.of() : ranges;
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
     /**
      * 파일 내용을 출력 스트림으로 전송합니다.
      * <p>
      * try-with-resources를 사용하여 입력 스트림이 항상 닫히도록 보장합니다.
      * 이는 MinIO 연결 풀 고갈을 방지합니다.
+     * 내용은 로컬 캐시({@link DocumentContentCache})를 거쳐 읽습니다.
+     * 캐시에 있으면 {@link FileChannel#transferTo}로 전송하여 heap 버퍼 복사를 생략하고,
+     * 없으면 MinIO 스트림을 pool에서 빌린 버퍼로 복사합니다.
      *
-     * @param fileKey      파일 고유 식별자 (로깅용)
-     * @param storagePath  스토리지 경로
+     * @param doc          대상 문서
      * @param outputStream HTTP 응답 출력 스트림
      */
-    private void streamFileContent(String fileKey, String storagePath, OutputStream outputStream) {
-        try (InputStream inputStream = storageService.downloadFile(storagePath)) {
-            byte[] buffer = new byte[BUFFER_SIZE];
+    private void streamFileContent(Document doc, OutputStream outputStream) {
+        String fileKey = doc.getFileKey();
+        try {
+            long totalBytes = writeContent(doc, outputStream);
+            outputStream.flush();
+            log.debug("File streaming completed for fileKey: {}, totalBytes: {}", fileKey, totalBytes);
+        } catch (IOException e) {
+            throw streamFailure(fileKey, e);
+        }
+    }
+
+    private long writeContent(Document doc, OutputStream outputStream) throws IOException {
+        try (FileChannel local = contentCache.openLocal(doc)) {
+            if (local != null) {
+                return transfer(local, 0, local.size(), outputStream);
+            }
+        }
+        try (InputStream inputStream = contentCache.open(doc)) {
+            return copy(inputStream, outputStream);
+        }
+    }
+
+    private long writeRange(Document doc, ByteRange range, OutputStream outputStream) throws IOException {
+        try (FileChannel local = contentCache.openLocal(doc)) {
+            if (local != null) {
+                return transfer(local, range.start(), range.length(), outputStream);
+            }
+        }
+        try (InputStream inputStream = contentCache.openRange(doc, range.start(), range.length())) {
+            return copy(inputStream, outputStream);
+        }
+    }
+
+    /**
+     * 로컬 파일의 구간을 출력 스트림으로 전송합니다.
+     * <p>
+     * Servlet 출력은 socket channel이 아니므로 커널 sendfile까지는 가지 않지만,
+     * 요청마다 heap 버퍼를 할당하지 않고 JDK의 thread별 direct 버퍼를 재사용합니다.
+     */
+    private static long transfer(FileChannel source, long position, long count, OutputStream outputStream)
+            throws IOException {
+        WritableByteChannel target = Channels.newChannel(outputStream);
+        long transferred = 0;
+        while (transferred < count) {
+            long written = source.transferTo(position + transferred, count - transferred, target);
+            if (written <= 0) {
+                throw new EOFException("Cached file ended at " + (position + transferred) + " of " + count);
+            }
+            transferred += written;
+        }
+        return transferred;
+    }
+
+    private long copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+        byte[] buffer = bufferPool.acquire();
+        try {
             int bytesRead;
             long totalBytes = 0;
 
@@ -89,16 +408,19 @@ public class FileController {
                 outputStream.write(buffer, 0, bytesRead);
                 totalBytes += bytesRead;
             }
-            outputStream.flush();
-            log.debug("File streaming completed for fileKey: {}, totalBytes: {}", fileKey, totalBytes);
-        } catch (IOException e) {
-            if (isClientDisconnect(e)) {
-                log.debug("Client disconnected during download for fileKey: {}", fileKey);
-            } else {
-                log.error("Stream failed for fileKey: {} - {}", fileKey, e.getMessage());
-            }
-            throw new UncheckedIOException("Failed to stream file: " + fileKey, e);
+            return totalBytes;
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private UncheckedIOException streamFailure(String fileKey, IOException e) {
+        if (isClientDisconnect(e)) {
+            log.debug("Client disconnected during download for fileKey: {}", fileKey);
+        } else {
+            log.error("Stream failed for fileKey: {} - {}", fileKey, e.getMessage());
         }
+        return new UncheckedIOException("Failed to stream file: " + fileKey, e);
     }
 
     /**
@@ -119,4 +441,17 @@ public class FileController {
                         || message.contains("Connection reset")));
     }
 
+    /**
+     * 요청된 바이트 구간 (start, end 모두 포함)
+     */
+    private record ByteRange(long start, long end) {
+
+        long length() {
+            return end - start + 1;
+        }
+
+        String contentRange(long fileSize) {
+            return "bytes " + start + "-" + end + "/" + fileSize;
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package com.example.onlyoffice.controller;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 다운로드 스트리밍용 복사 버퍼 pool.
+ *
+ * <p>요청마다 64KB 버퍼를 새로 할당하지 않고 반환된 버퍼를 재사용하여 young-gen 할당을 줄입니다.
+ * 다운로드를 대기시키지 않도록 pool이 비어 있으면 새로 할당하고, 반환 시 {@code maxPooled}개를 넘는 버퍼는 버립니다.
+ * 따라서 pool이 붙잡고 있는 메모리는 최대 {@code maxPooled * bufferSize}입니다.</p>
+ */
+class StreamBufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final Queue<byte[]> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    StreamBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * 버퍼를 빌립니다. 재사용할 버퍼가 없으면 새로 할당합니다.
+     */
+    byte[] acquire() {
+        byte[] buffer = free.poll();
+        if (buffer == null) {
+            return new byte[bufferSize];
+        }
+        pooled.decrementAndGet();
+        return buffer;
+    }
+
+    void release(byte[] buffer) {
+        if (pooled.incrementAndGet() <= maxPooled) {
+            free.offer(buffer);
+        } else {
+            pooled.decrementAndGet();
+        }
+    }
+
+    /**
+     * 재사용을 기다리는 버퍼 수 (테스트용)
+     */
+    int pooledCount() {
+        return pooled.get();
+    }
+}
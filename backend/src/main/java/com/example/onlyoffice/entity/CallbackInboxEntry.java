@@ -0,0 +1,100 @@
+package com.example.onlyoffice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Document Server callback을 즉시 응답(ack)한 뒤 비동기로 처리하기 위한 durable inbox 항목.
+ *
+ * <p>같은 fileKey의 항목은 id 순서대로 하나씩 처리되어 기존 callback 큐의 문서별 순서 보장을 유지합니다.</p>
+ *
+ * @see com.example.onlyoffice.service.CallbackInboxService
+ */
+@Entity
+@Table(
+        name = "callback_inbox",
+        indexes = {
+                // Worker polling: 문서별 head 항목 조회
+                @Index(name = "idx_callback_inbox_state_file_key", columnList = "state, file_key, id"),
+                @Index(name = "idx_callback_inbox_next_attempt_at", columnList = "next_attempt_at"),
+                // 보존 기간이 지난 종료 항목 삭제
+                @Index(name = "idx_callback_inbox_state_updated_at", columnList = "state, updated_at")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+public class CallbackInboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "file_key", nullable = false, length = 255)
+    private String fileKey;
+
+    /**
+     * Document Server가 보낸 document key (fileKey_vN)
+     */
+    @Column(name = "document_key", length = 255)
+    private String documentKey;
+
+    /**
+     * Callback status 이름 (SAVE, FORCESAVE 등)
+     */
+    @Column(name = "callback_status", nullable = false, length = 30)
+    private String callbackStatus;
+
+    /**
+     * 원본 Callback JSON. worker가 역직렬화하여 CallbackService에 전달합니다.
+     */
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false, length = 20)
+    @Builder.Default
+    private CallbackInboxState state = CallbackInboxState.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public void markProcessing() {
+        this.state = CallbackInboxState.PROCESSING;
+        this.attempts++;
+    }
+
+    /**
+     * 오류 메시지를 {@code last_error} 컬럼 길이에 맞게 자릅니다.
+     */
+    public static String truncateError(String error) {
+        if (error == null || error.length() <= 1000) {
+            return error;
+        }
+        return error.substring(0, 1000);
+    }
+}
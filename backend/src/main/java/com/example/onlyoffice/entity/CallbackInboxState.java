@@ -0,0 +1,27 @@
+package com.example.onlyoffice.entity;
+
+/**
+ * Callback inbox 항목의 처리 상태를 나타내는 열거형.
+ * JPA @Enumerated(EnumType.STRING)과 함께 사용하여 데이터베이스에 읽기 쉬운 값으로 저장됩니다.
+ */
+public enum CallbackInboxState {
+    /**
+     * 처리 대기 중 (최초 접수 또는 재시도 대기)
+     */
+    PENDING,
+
+    /**
+     * worker가 처리 중. 프로세스가 중단되면 이 상태로 남으며 재기동 후 다시 처리됩니다.
+     */
+    PROCESSING,
+
+    /**
+     * 처리 완료
+     */
+    DONE,
+
+    /**
+     * 재시도 불가능한 오류 또는 최대 시도 횟수 초과
+     */
+    FAILED
+}
@@ -0,0 +1,40 @@
+package com.example.onlyoffice.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 문서별 callback 처리 lease.
+ *
+ * <p>여러 backend 인스턴스가 같은 DB를 공유할 때, 한 시점에 한 인스턴스만 해당 문서의 저장 callback을
+ * 처리하도록 합니다. 행은 문서마다 하나이며 해제 시 삭제하지 않고 {@code leaseUntil}만 현재 시각으로 당겨
+ * 다음 획득이 UPDATE 한 번으로 끝나도록 합니다.</p>
+ *
+ * @see com.example.onlyoffice.service.CallbackLeaseService
+ */
+@Entity
+@Table(name = "callback_lease")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class CallbackLease {
+
+    @Id
+    @Column(name = "file_key", length = 255)
+    private String fileKey;
+
+    /**
+     * 현재(또는 마지막) 보유자 토큰 (인스턴스 id + 획득 순번)
+     */
+    @Column(name = "owner_id", nullable = false, length = 100)
+    private String ownerId;
+
+    /**
+     * 이 시각이 지나면 다른 인스턴스가 가져갈 수 있음 (보유자가 죽은 경우 포함)
+     */
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+}
@@ -71,6 +71,13 @@ public class Document {
     @Column(name = "storage_path", nullable = false, length = 500)
     private String storagePath;
 
+    /**
+     * 저장된 내용의 SHA-256 (hex). callback 저장 시 계산되며, 같은 내용의 저장을 건너뛰는 데 사용합니다.
+     */
+    @Size(max = 64, message = "Content hash must be 64 characters or less")
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @NotNull(message = "Status is required")
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false, length = 20)
@@ -0,0 +1,54 @@
+package com.example.onlyoffice.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 더 이상 문서가 가리키지 않아 삭제 예정인 스토리지 객체.
+ *
+ * <p>저장 callback은 새 내용을 staging 객체로 받은 뒤 짧은 트랜잭션에서 {@code storagePath}만 바꿉니다.
+ * 교체된 이전 객체와, 커밋되지 못한 staging 객체(다운로드 실패, 프로세스 종료)가 이 테이블에 기록되고
+ * {@code deleteAfter}가 지나면 {@link com.example.onlyoffice.service.OrphanedObjectCollector}가 삭제합니다.</p>
+ *
+ * @see com.example.onlyoffice.service.DocumentRevisionService
+ */
+@Entity
+@Table(
+        name = "orphaned_object",
+        indexes = {
+                @Index(name = "idx_orphaned_object_delete_after", columnList = "delete_after")
+        }
+)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrphanedObject {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "storage_path", nullable = false, unique = true, length = 500)
+    private String storagePath;
+
+    /**
+     * 이 시각이 지나면 삭제 (이전 경로로 스트리밍 중인 요청이 끝날 시간을 남김)
+     */
+    @Column(name = "delete_after", nullable = false)
+    private LocalDateTime deleteAfter;
+
+    public OrphanedObject(String storagePath, LocalDateTime deleteAfter) {
+        this.storagePath = storagePath;
+        this.deleteAfter = deleteAfter;
+    }
+
+    /**
+     * 삭제에 실패한 객체를 나중에 다시 시도하도록 미룹니다.
+     */
+    public void postpone(LocalDateTime deleteAfter) {
+        this.deleteAfter = deleteAfter;
+    }
+}
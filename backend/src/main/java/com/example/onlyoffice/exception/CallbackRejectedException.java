@@ -0,0 +1,11 @@
+package com.example.onlyoffice.exception;
+
+/**
+ * Callback 큐가 설정된 한도(대기 작업 수, 처리 중 바이트)를 넘어 작업을 받지 않을 때 발생.
+ * Document Server가 나중에 재시도하도록 503으로 응답합니다.
+ */
+public class CallbackRejectedException extends RuntimeException {
+    public CallbackRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.onlyoffice.repository;
+
+import com.example.onlyoffice.entity.CallbackInboxEntry;
+import com.example.onlyoffice.entity.CallbackInboxState;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Callback inbox 저장소.
+ *
+ * <p>처리 상태 변경(가져가기, 완료, 재시도 예약)은 조건부 단일 UPDATE로 수행합니다. 여러 worker와 인스턴스가
+ * 같은 항목을 다뤄도 조건을 만족한 한 쪽만 행을 바꾸고, 오래된 사본으로 다른 처리자의 결과를 덮어쓰지 않습니다.
+ * lease와 재시도 시각은 {@link CallbackLeaseRepository}와 같이 DB 시계({@code LOCALTIMESTAMP})로 계산합니다.</p>
+ *
+ * @see com.example.onlyoffice.entity.CallbackInboxEntry
+ */
+@Repository
+public interface CallbackInboxRepository extends JpaRepository<CallbackInboxEntry, Long> {
+
+    /**
+     * 처리할 항목이 있는 fileKey 목록을 조회합니다.
+     * 실제 처리 여부는 문서별 head 항목의 nextAttemptAt으로 다시 판단합니다.
+     *
+     * @param states 미완료 상태 목록
+     * @param now    기준 시각
+     */
+    @Query("SELECT DISTINCT e.fileKey FROM CallbackInboxEntry e WHERE e.state IN :states AND e.nextAttemptAt <= :now")
+    List<String> findDueFileKeys(@Param("states") Collection<CallbackInboxState> states,
+                                 @Param("now") LocalDateTime now,
+                                 Pageable pageable);
+
+    /**
+     * 문서의 가장 오래된 미완료 항목(head)을 조회합니다.
+     * head가 끝나기 전에는 뒤의 항목을 처리하지 않아 문서별 순서가 유지됩니다.
+     */
+    Optional<CallbackInboxEntry> findFirstByFileKeyAndStateInOrderByIdAsc(String fileKey,
+                                                                          Collection<CallbackInboxState> states);
+
+    /**
+     * 처리할 차례인 항목을 가져갑니다. PROCESSING으로 바꾸고 시도 횟수를 늘리며 처리 중 lease를 설정합니다.
+     * 재시도 시각이나 다른 처리자의 lease가 남아 있으면 바꾸지 않으므로, 동시에 시도해도 하나만 성공합니다.
+     *
+     * @param seconds 지금(DB 시각)부터 lease를 유지할 시간
+     * @return 가져왔으면 1, 이미 종료되었거나 아직 차례가 아니면 0
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE callback_inbox SET state = 'PROCESSING', attempts = attempts + 1, "
+            + "next_attempt_at = LOCALTIMESTAMP + CAST(:seconds AS INTEGER) * INTERVAL '1' SECOND, "
+            + "updated_at = LOCALTIMESTAMP "
+            + "WHERE id = :id AND state IN ('PENDING', 'PROCESSING') AND next_attempt_at <= LOCALTIMESTAMP",
+            nativeQuery = true)
+    int claim(@Param("id") long id,
+              @Param("seconds") long seconds);
+
+    /**
+     * 가져간 항목의 lease를 지금(DB 시각)부터 다시 설정합니다.
+     *
+     * @param attempts 가져갈 때의 시도 횟수 (다른 처리자가 다시 가져갔으면 달라짐)
+     * @return 설정했으면 1, 다른 처리자에게 넘어갔으면 0
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE callback_inbox "
+            + "SET next_attempt_at = LOCALTIMESTAMP + CAST(:seconds AS INTEGER) * INTERVAL '1' SECOND "
+            + "WHERE id = :id AND state = 'PROCESSING' AND attempts = :attempts",
+            nativeQuery = true)
+    int extendLease(@Param("id") long id,
+                    @Param("attempts") int attempts,
+                    @Param("seconds") long seconds);
+
+    /**
+     * 가져간 항목을 종료 상태(DONE, FAILED)로 바꿉니다.
+     *
+     * @param attempts 가져갈 때의 시도 횟수 (다른 처리자가 다시 가져갔으면 달라짐)
+     * @return 바꿨으면 1, 다른 처리자에게 넘어갔으면 0
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CallbackInboxEntry e SET e.state = :state, e.lastError = :error, e.updatedAt = LOCAL DATETIME "
+            + "WHERE e.id = :id AND e.state = com.example.onlyoffice.entity.CallbackInboxState.PROCESSING "
+            + "AND e.attempts = :attempts")
+    int finish(@Param("id") long id,
+               @Param("attempts") int attempts,
+               @Param("state") CallbackInboxState state,
+               @Param("error") String error);
+
+    /**
+     * 가져간 항목을 PENDING으로 되돌리고 지금(DB 시각)부터 {@code delayMillis} 뒤에 다시 시도하도록 예약합니다.
+     *
+     * @param attempts 가져갈 때의 시도 횟수 (다른 처리자가 다시 가져갔으면 달라짐)
+     * @return 예약했으면 1, 다른 처리자에게 넘어갔으면 0
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE callback_inbox SET state = 'PENDING', last_error = CAST(:error AS VARCHAR(1000)), "
+            + "next_attempt_at = LOCALTIMESTAMP + CAST(:delayMillis AS INTEGER) * INTERVAL '0.001' SECOND, "
+            + "updated_at = LOCALTIMESTAMP "
+            + "WHERE id = :id AND state = 'PROCESSING' AND attempts = :attempts",
+            nativeQuery = true)
+    int scheduleRetry(@Param("id") long id,
+                      @Param("attempts") int attempts,
+                      @Param("delayMillis") long delayMillis,
+                      @Param("error") String error);
+
+    /**
+     * 보존 기간이 지난 종료 항목을 한 번의 DELETE로 삭제합니다.
+     *
+     * @param states 종료 상태 목록 (DONE, FAILED)
+     * @param cutoff 이 시각 이전에 마지막으로 갱신된 항목만 삭제
+     * @return 삭제한 항목 수
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM CallbackInboxEntry e WHERE e.state IN :states AND e.updatedAt < :cutoff")
+    int deleteByStateInAndUpdatedAtBefore(@Param("states") Collection<CallbackInboxState> states,
+                                          @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * 문서의 항목을 접수 순서대로 조회합니다 (모니터링/테스트용).
+     */
+    List<CallbackInboxEntry> findAllByFileKeyOrderByIdAsc(String fileKey);
+}
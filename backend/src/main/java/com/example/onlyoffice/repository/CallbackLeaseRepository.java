@@ -0,0 +1,83 @@
+package com.example.onlyoffice.repository;
+
+import com.example.onlyoffice.entity.CallbackLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 문서별 callback lease 저장소.
+ *
+ * <p>모든 변경은 단일 SQL 문과 자체 트랜잭션으로 수행되어, 대기 중에 DB 커넥션이나 행 락을 잡고 있지 않습니다.</p>
+ *
+ * <p>만료 시각의 계산과 비교는 모두 DB 시계({@code LOCALTIMESTAMP})로 합니다. 인스턴스마다 시계가 어긋나도
+ * 한 인스턴스가 아직 유효한 lease를 만료된 것으로 보고 가져가는 일이 없습니다.
+ * 구문은 PostgreSQL과 H2(테스트)에서 모두 동작하는 표준 SQL만 사용합니다.</p>
+ *
+ * @see com.example.onlyoffice.entity.CallbackLease
+ */
+@Repository
+public interface CallbackLeaseRepository extends JpaRepository<CallbackLease, String> {
+
+    /**
+     * 만료된 lease를 가져옵니다. 두 인스턴스가 동시에 시도해도 행 갱신은 하나만 성공합니다.
+     *
+     * @param seconds 지금(DB 시각)부터 lease를 유지할 시간
+     * @return 획득했으면 1, 아직 다른 보유자가 있거나 행이 없으면 0
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE callback_lease SET owner_id = :owner, "
+            + "lease_until = LOCALTIMESTAMP + CAST(:seconds AS INTEGER) * INTERVAL '1' SECOND "
+            + "WHERE file_key = :fileKey AND lease_until <= LOCALTIMESTAMP",
+            nativeQuery = true)
+    int claimExpired(@Param("fileKey") String fileKey,
+                     @Param("owner") String owner,
+                     @Param("seconds") long seconds);
+
+    /**
+     * 문서의 첫 lease 행을 생성합니다. 동시에 생성하면 PK 충돌로 하나만 성공합니다.
+     *
+     * @param seconds 지금(DB 시각)부터 lease를 유지할 시간
+     * @throws org.springframework.dao.DataIntegrityViolationException 이미 행이 있는 경우
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO callback_lease (file_key, owner_id, lease_until) "
+            + "VALUES (:fileKey, :owner, LOCALTIMESTAMP + CAST(:seconds AS INTEGER) * INTERVAL '1' SECOND)",
+            nativeQuery = true)
+    int insertLease(@Param("fileKey") String fileKey,
+                    @Param("owner") String owner,
+                    @Param("seconds") long seconds);
+
+    /**
+     * 보유 중인 lease의 만료 시각을 지금(DB 시각)부터 다시 늘립니다.
+     * 이미 다른 보유자에게 넘어갔으면 아무것도 바꾸지 않습니다.
+     *
+     * @return 연장했으면 1, lease를 잃었으면 0
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE callback_lease "
+            + "SET lease_until = LOCALTIMESTAMP + CAST(:seconds AS INTEGER) * INTERVAL '1' SECOND "
+            + "WHERE file_key = :fileKey AND owner_id = :owner",
+            nativeQuery = true)
+    int renew(@Param("fileKey") String fileKey,
+              @Param("owner") String owner,
+              @Param("seconds") long seconds);
+
+    /**
+     * 보유 중인 lease를 즉시 만료시킵니다. 이미 다른 보유자에게 넘어갔으면 아무것도 바꾸지 않습니다.
+     *
+     * @return 해제했으면 1
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE callback_lease SET lease_until = LOCALTIMESTAMP WHERE file_key = :fileKey AND owner_id = :owner",
+            nativeQuery = true)
+    int release(@Param("fileKey") String fileKey,
+                @Param("owner") String owner);
+}
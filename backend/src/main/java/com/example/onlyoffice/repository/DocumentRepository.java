@@ -10,6 +10,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -41,7 +42,12 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     /**
      * UUID 기반 fileKey로 문서를 조회합니다.
      * fileKey는 고유하므로 정확히 하나의 문서를 반환합니다.
+     *
+     * @implNote 트랜잭션 없이(NOT_SUPPORTED) 호출되는 callback 저장 경로에서도 조회가 끝나면 연결을 반환하도록
+     * 자체 읽기 전용 트랜잭션에서 실행합니다. 트랜잭션 밖에서 공유 EntityManager로 조회하면
+     * 다운로드가 끝날 때까지 연결을 붙잡아, 저장이 몰릴 때 커밋 트랜잭션이 연결을 얻지 못합니다.
      */
+    @Transactional(readOnly = true)
     Optional<Document> findByFileKey(String fileKey);
 
     /**
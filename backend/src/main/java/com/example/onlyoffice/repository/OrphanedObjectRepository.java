@@ -0,0 +1,48 @@
+package com.example.onlyoffice.repository;
+
+import com.example.onlyoffice.entity.OrphanedObject;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 삭제 예정 스토리지 객체 저장소.
+ *
+ * <p>변경 쿼리는 호출자의 트랜잭션에 참여하고, 트랜잭션 밖에서 호출되면 자체 트랜잭션으로 실행됩니다.</p>
+ *
+ * @see com.example.onlyoffice.entity.OrphanedObject
+ */
+@Repository
+public interface OrphanedObjectRepository extends JpaRepository<OrphanedObject, Long> {
+
+    /**
+     * 삭제 시각이 지난 객체를 오래된 순으로 조회합니다.
+     */
+    @Query("SELECT o FROM OrphanedObject o WHERE o.deleteAfter <= :now ORDER BY o.deleteAfter")
+    List<OrphanedObject> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * 삭제 예정에서 제외합니다 (staging 객체가 문서의 현재 내용으로 커밋된 경우).
+     *
+     * @return 제외한 행 수
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM OrphanedObject o WHERE o.storagePath = :storagePath")
+    int deleteByStoragePath(@Param("storagePath") String storagePath);
+
+    /**
+     * 삭제 시각을 앞당깁니다 (커밋되지 못한 staging 객체).
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrphanedObject o SET o.deleteAfter = :deleteAfter WHERE o.storagePath = :storagePath")
+    int reschedule(@Param("storagePath") String storagePath, @Param("deleteAfter") LocalDateTime deleteAfter);
+}
@@ -0,0 +1,183 @@
+package com.example.onlyoffice.sdk;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onlyoffice.manager.settings.SettingsManager;
+import com.onlyoffice.model.documenteditor.Callback;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies ONLYOFFICE callback JWTs with precomputed key material and a short-lived result cache
+ * <p>
+ * The SDK path (DefaultCallbackService.verifyCallback -> DefaultJwtManager.verify) rebuilds the HMAC
+ * algorithm and verifier for every request and parses the payload twice (org.json, then Jackson).
+ * Here the HMAC key, the JWT parser and the Jackson mapper are built once and shared (all thread-safe).
+ * <p>
+ * Document Server retries and multi-status sequences often resend the same token, so verified
+ * callbacks are cached by the SHA-256 of the token:
+ * - An entry lives for at most ttl-seconds and never past the token's exp claim
+ * - The cache holds at most max-entries; expired entries are purged when it is full,
+ *   and new tokens are verified without caching while it stays full
+ * - ttl-seconds=0 disables the cache
+ * <p>
+ * Token lookup follows the SDK: the body token first, then the Authorization header
+ * (header tokens wrap the callback in a "payload" claim).
+ * Returned callbacks may be shared between requests and must not be modified.
+ */
+@Slf4j
+@Component
+public class CallbackTokenVerifier {
+
+    private static final String HEADER_PAYLOAD_CLAIM = "payload";
+
+    private final SettingsManager settingsManager;
+    private final ObjectMapper callbackMapper;
+    private final Map<String, VerifiedToken> cache = new ConcurrentHashMap<>();
+
+    private volatile JwtParser parser;
+
+    @Value("${callback.jwt-cache.ttl-seconds:60}")
+    private long cacheTtlSeconds = 60;
+
+    @Value("${callback.jwt-cache.max-entries:10000}")
+    private int cacheMaxEntries = 10000;
+
+    public CallbackTokenVerifier(SettingsManager settingsManager, ObjectMapper objectMapper) {
+        this.settingsManager = settingsManager;
+        // JWT payloads carry iat/exp and other claims that are not Callback fields
+        this.callbackMapper = objectMapper.copy()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Verify the callback token and return the callback decoded from the token payload
+     * (same contract as DefaultCallbackService.verifyCallback)
+     *
+     * @param callback            callback parsed from the request body
+     * @param authorizationHeader value of the security header (may be null)
+     * @return verified callback, or the given callback when security is disabled
+     * @throws SecurityException            if no token is present or the payload is malformed
+     * @throws io.jsonwebtoken.JwtException if the signature or expiry check fails
+     * @throws IllegalArgumentException     if the payload cannot be mapped to a Callback
+     */
+    public Callback verify(Callback callback, String authorizationHeader) {
+        if (!settingsManager.isSecurityEnabled()) {
+            return callback;
+        }
+
+        String token = callback.getToken();
+        boolean fromHeader = false;
+        String prefix = settingsManager.getSecurityPrefix();
+        if ((token == null || token.isEmpty())
+                && authorizationHeader != null && authorizationHeader.startsWith(prefix)) {
+            token = authorizationHeader.substring(prefix.length());
+            fromHeader = true;
+        }
+        if (token == null || token.isEmpty()) {
+            throw new SecurityException("Not found authorization token");
+        }
+
+        if (cacheTtlSeconds <= 0) {
+            return verifyToken(token, fromHeader);
+        }
+
+        String cacheKey = cacheKey(token, fromHeader);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = cache.get(cacheKey);
+        if (cached != null && cached.expiresAtMs() > now) {
+            return cached.callback();
+        }
+
+        Claims claims = parse(token);
+        Callback verified = decode(claims, fromHeader);
+        store(cacheKey, new VerifiedToken(verified, expiresAt(claims, now)), now);
+        return verified;
+    }
+
+    /**
+     * Verify the signature and expiry and decode the callback without consulting the cache
+     */
+    Callback verifyToken(String token, boolean fromHeader) {
+        return decode(parse(token), fromHeader);
+    }
+
+    private Claims parse(String token) {
+        return parser().parseSignedClaims(token).getPayload();
+    }
+
+    private JwtParser parser() {
+        JwtParser current = parser;
+        if (current == null) {
+            // Built lazily: the settings manager is populated in its own @PostConstruct
+            byte[] secret = settingsManager.getSecurityKey().getBytes(StandardCharsets.UTF_8);
+            Long leeway = settingsManager.getDocsIntegrationSdkProperties()
+                    .getDocumentServer().getSecurity().getLeeway();
+            current = Jwts.parser()
+                    .verifyWith(Keys.hmacShaKeyFor(secret))
+                    .clockSkewSeconds(leeway != null ? leeway : 0)
+                    .build();
+            parser = current;
+        }
+        return current;
+    }
+
+    private Callback decode(Claims claims, boolean fromHeader) {
+        Object payload = fromHeader ? claims.get(HEADER_PAYLOAD_CLAIM) : claims;
+        if (!(payload instanceof Map<?, ?>)) {
+            throw new SecurityException("Token does not contain a callback payload");
+        }
+        return callbackMapper.convertValue(payload, Callback.class);
+    }
+
+    private long expiresAt(Claims claims, long now) {
+        long ttlLimit = now + TimeUnit.SECONDS.toMillis(cacheTtlSeconds);
+        Date expiration = claims.getExpiration();
+        return expiration == null ? ttlLimit : Math.min(ttlLimit, expiration.getTime());
+    }
+
+    private void store(String cacheKey, VerifiedToken entry, long now) {
+        if (cache.size() >= cacheMaxEntries) {
+            cache.values().removeIf(cached -> cached.expiresAtMs() <= now);
+            if (cache.size() >= cacheMaxEntries) {
+                log.debug("Callback token cache is full ({} entries), skipping cache", cacheMaxEntries);
+                return;
+            }
+        }
+        cache.put(cacheKey, entry);
+    }
+
+    private static String cacheKey(String token, boolean fromHeader) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return (fromHeader ? "h:" : "b:") + HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Number of cached tokens (monitoring/test)
+     */
+    int cacheSize() {
+        return cache.size();
+    }
+
+    private record VerifiedToken(Callback callback, long expiresAtMs) {
+    }
+}
@@ -1,25 +1,38 @@
 package com.example.onlyoffice.sdk;
 
+import com.example.onlyoffice.entity.Document;
+import com.example.onlyoffice.service.CallbackLeaseService;
 import com.example.onlyoffice.service.CallbackQueueService;
 import com.example.onlyoffice.service.DocumentService;
+import com.example.onlyoffice.service.EditingSessionRegistry;
+import com.example.onlyoffice.service.SaveCallback;
 import com.onlyoffice.manager.security.JwtManager;
 import com.onlyoffice.model.documenteditor.Callback;
 import com.onlyoffice.service.documenteditor.callback.DefaultCallbackService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+
 /**
  * Custom implementation of ONLYOFFICE CallbackService
  * Extends DefaultCallbackService to leverage SDK's callback processing features
  * <p>
  * SDK handles:
- * - JWT validation (verifyCallback)
  * - Status-based routing (processCallback)
  * - Standard error handling
  * <p>
  * Custom implementation focuses on:
+ * - JWT validation with precomputed keys and a verified-token cache (CallbackTokenVerifier)
  * - Business logic for each callback status
  * - File saving and versioning with queue-based sequential processing
+ * - Coalescing of queued SAVE/FORCESAVE callbacks (only the newest download URL is fetched)
+ * - Queue admission limits (CallbackRejectedException when the queue is full)
+ * - SAVE before FORCESAVE when the global save slots are full (per-document order is kept)
+ * - EDITING/CLOSED/*_CORRUPTED are handled inline on the request thread and never wait on the queue
+ * - Editing sessions (EditingSessionRegistry): EDITING pre-warms the document's lane and caches its metadata,
+ *   CLOSED and SAVE end the session and release the lane right away
+ * - Cluster-wide per-document lease so only one backend instance saves a document at a time
  * - Pessimistic locking for concurrent callback handling
  */
 @Slf4j
@@ -28,23 +41,44 @@ public class CustomCallbackService extends DefaultCallbackService {
 
     private final DocumentService documentService;
     private final CallbackQueueService callbackQueueService;
+    private final CallbackLeaseService callbackLeaseService;
+    private final CallbackTokenVerifier callbackTokenVerifier;
+    private final EditingSessionRegistry editingSessions;
 
     public CustomCallbackService(
             JwtManager jwtManager,
             CustomSettingsManager settingsManager,
             DocumentService documentService,
-            CallbackQueueService callbackQueueService) {
+            CallbackQueueService callbackQueueService,
+            CallbackLeaseService callbackLeaseService,
+            CallbackTokenVerifier callbackTokenVerifier,
+            EditingSessionRegistry editingSessions) {
         super(jwtManager, settingsManager);
         this.documentService = documentService;
         this.callbackQueueService = callbackQueueService;
+        this.callbackLeaseService = callbackLeaseService;
+        this.callbackTokenVerifier = callbackTokenVerifier;
+        this.editingSessions = editingSessions;
+    }
+
+    /**
+     * Verify the callback JWT
+     * Replaces the SDK path, which rebuilds the HMAC verifier on every request,
+     * with precomputed key material and a short-lived cache of verified tokens
+     */
+    @Override
+    public Callback verifyCallback(Callback callback, String authorizationHeader) {
+        return callbackTokenVerifier.verify(callback, authorizationHeader);
     }
 
     /**
      * Handle SAVE status (status=2)
      * Document editing complete and ready for saving
      * - Queue the save operation for sequential processing
+     * - Supersedes any FORCESAVE still waiting in the queue for the same document
      * - Save file from download URL with pessimistic lock
      * - Increment editor version (triggers new document key)
+     * - End the editing session (Document Server sends SAVE after the last editor leaves)
      *
      * @param fileId now represents fileKey (UUID)
      */
@@ -57,17 +91,18 @@ public class CustomCallbackService extends DefaultCallbackService {
         }
 
         // Queue the callback processing for sequential execution
-        callbackQueueService.submitAndWait(fileId, () -> {
-            documentService.processCallbackSave(downloadUrl, fileId);
-        });
+        callbackQueueService.submitSaveAndWait(fileId, SaveCallback.save(downloadUrl, callback.getKey()),
+                expectedBytes(fileId), callbackLeaseService::runExclusively, save -> applySave(save, fileId));
 
         log.info("Document saved and version incremented for fileKey: {}", fileId);
+        endSession(fileId);
     }
 
     /**
      * Handle FORCESAVE status (status=6)
      * Force save during co-editing session
      * - Queue the save operation for sequential processing
+     * - Merged into a newer FORCESAVE/SAVE if one arrives before this one starts
      * - Save file from download URL with pessimistic lock
      * - Do NOT increment version (co-editing continues)
      *
@@ -82,29 +117,109 @@ public class CustomCallbackService extends DefaultCallbackService {
         }
 
         // Queue the callback processing for sequential execution
-        callbackQueueService.submitAndWait(fileId, () -> {
-            documentService.processCallbackForceSave(downloadUrl, fileId);
-        });
+        callbackQueueService.submitSaveAndWait(fileId, SaveCallback.forceSave(downloadUrl, callback.getKey()),
+                expectedBytes(fileId), callbackLeaseService::runExclusively, save -> applySave(save, fileId));
+
+        log.info("Force save completed for fileKey: {}", fileId);
+    }
+
+    /**
+     * Estimate the size of the incoming file from the currently stored version
+     * (used by the queue's in-flight byte limits)
+     * Uses the size cached when the editing session opened, so saves during a session skip the lookup
+     */
+    private long expectedBytes(String fileKey) {
+        Optional<EditingSessionRegistry.Session> session = editingSessions.find(fileKey);
+        if (session.isPresent()) {
+            return session.get().fileSize();
+        }
+        return documentService.findByFileKey(fileKey)
+                .map(Document::getFileSize)
+                .orElse(0L);
+    }
+
+    /**
+     * Apply the save callback selected by the queue after coalescing
+     * - SAVE: store file and increment editor version
+     * - FORCESAVE: store file only
+     * - Callbacks whose key is no longer the current editor key are skipped (replay-safe)
+     * - Runs while holding the document's cluster-wide lease (other instances wait instead of hitting the row lock);
+     *   the queue takes the lease before the save slot, so waiting for another instance does not hold a slot
+     * - After a FORCESAVE, refresh the session's cached file size so later saves estimate from the new file
+     */
+    private void applySave(SaveCallback save, String fileKey) {
+        switch (save.type()) {
+            case SAVE -> documentService.processCallbackSave(save.downloadUrl(), fileKey, save.documentKey());
+            case FORCESAVE -> {
+                documentService.processCallbackForceSave(save.downloadUrl(), fileKey, save.documentKey());
+                refreshSessionFileSize(fileKey);
+            }
+        }
+    }
 
-        log.info("Force save completed (version unchanged) for fileKey: {}", fileId);
+    /**
+     * Update the editing session with the size of the file just stored
+     * (skipped without a session, since saves outside a session look the size up anyway)
+     */
+    private void refreshSessionFileSize(String fileKey) {
+        if (!editingSessions.isEditing(fileKey)) {
+            return;
+        }
+        documentService.findByFileKey(fileKey)
+                .map(Document::getFileSize)
+                .ifPresent(size -> editingSessions.updateFileSize(fileKey, size));
     }
 
     /**
      * Handle EDITING status (status=1)
-     * Document is currently being edited
+     * Document is currently being edited (sent whenever a user connects or disconnects)
+     * - Open the editing session, caching the stored file size on the first EDITING only
+     *   (FORCESAVE refreshes it after each commit)
+     * - Pre-warm the document's lane so the first FORCESAVE does not pay for creating it
+     *   (best effort: a lane that cannot be created now is created by the first save)
      */
     @Override
     public void handlerEditing(Callback callback, String fileId) throws Exception {
-        log.debug("Document being edited: {}", fileId);
+        long fileSize;
+        Optional<EditingSessionRegistry.Session> session = editingSessions.find(fileId);
+        if (session.isPresent()) {
+            fileSize = session.get().fileSize();
+        } else {
+            Optional<Document> document = documentService.findByFileKey(fileId);
+            if (document.isEmpty()) {
+                log.warn("EDITING callback for unknown document: {}", fileId);
+                return;
+            }
+            fileSize = document.map(Document::getFileSize).orElse(0L);
+        }
+
+        editingSessions.open(fileId, callback.getKey(), fileSize, callback.getUsers());
+        try {
+            callbackQueueService.prewarm(fileId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to prewarm callback lane for fileKey: {} ({})", fileId, e.getMessage());
+        }
+        log.debug("Document being edited: {}, users: {}", fileId, callback.getUsers());
     }
 
     /**
      * Handle CLOSED status (status=4)
      * Document closed without changes
+     * - End the editing session and release the document's lane right away
      */
     @Override
     public void handlerClosed(Callback callback, String fileId) throws Exception {
         log.info("Document closed without changes: {}", fileId);
+        endSession(fileId);
+    }
+
+    /**
+     * Drop the cached session and release the document's lane
+     * (the lane is kept for the idle cleanup if callbacks are still queued for it)
+     */
+    private void endSession(String fileKey) {
+        editingSessions.close(fileKey);
+        callbackQueueService.release(fileKey);
     }
 
     /**
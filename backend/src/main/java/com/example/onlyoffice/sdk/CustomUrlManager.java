@@ -1,5 +1,8 @@
 package com.example.onlyoffice.sdk;
 
+import com.example.onlyoffice.exception.DocumentNotFoundException;
+import com.example.onlyoffice.repository.DocumentRepository;
+import com.example.onlyoffice.service.FileDeliveryService;
 import com.onlyoffice.manager.settings.SettingsManager;
 import com.onlyoffice.manager.url.DefaultUrlManager;
 import lombok.extern.slf4j.Slf4j;
@@ -12,7 +15,8 @@ import org.springframework.web.util.UriComponentsBuilder;
  * Extends DefaultUrlManager to leverage SDK's URL management features
  * <p>
  * Overrides required methods for application-specific URLs:
- * - getFileUrl(): Returns file download URL with fileKey (UUID) path variable
+ * - getFileUrl(): Returns file download URL with fileKey (UUID) path variable,
+ *   or a presigned MinIO URL in direct delivery mode (see FileDeliveryService)
  * - getCallbackUrl(): Returns callback URL with fileKey (UUID) query parameter
  * - getGobackUrl(): Returns redirect URL with fileKey (UUID) query parameter
  * <p>
@@ -30,12 +34,29 @@ public class CustomUrlManager extends DefaultUrlManager {
     @Value("${server.baseUrl}")
     private String serverBaseUrl;
 
-    public CustomUrlManager(SettingsManager settingsManager) {
+    private final DocumentRepository documentRepository;
+    private final FileDeliveryService fileDelivery;
+
+    public CustomUrlManager(SettingsManager settingsManager,
+                            DocumentRepository documentRepository,
+                            FileDeliveryService fileDelivery) {
         super(settingsManager);
+        this.documentRepository = documentRepository;
+        this.fileDelivery = fileDelivery;
     }
 
     @Override
     public String getFileUrl(String fileId) {
+        if (fileDelivery.presignsEditorUrls()) {
+            // Document Server fetches the file straight from MinIO; falls back to /files if presigning fails
+            return documentRepository.findByFileKey(fileId)
+                    .map(doc -> fileDelivery.presignedUrl(doc).orElseGet(() -> streamingFileUrl(fileId)))
+                    .orElseThrow(() -> new DocumentNotFoundException("fileKey: " + fileId));
+        }
+        return streamingFileUrl(fileId);
+    }
+
+    private String streamingFileUrl(String fileId) {
         return UriComponentsBuilder.fromUriString(serverBaseUrl)
                 .path("/files/{fileKey}")
                 .buildAndExpand(fileId)
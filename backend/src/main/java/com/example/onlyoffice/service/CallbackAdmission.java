@@ -0,0 +1,191 @@
+package com.example.onlyoffice.service;
+
+import com.example.onlyoffice.exception.CallbackRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Callback 큐 admission control.
+ *
+ * <p>문서별/전체 기준으로 대기+실행 중인 작업 수와 처리 중 바이트를 추적하고,
+ * 한도를 넘는 제출은 큐에 넣지 않고 즉시 {@link CallbackRejectedException}으로 거부합니다.
+ * 호출자가 60초 timeout까지 기다리는 대신 Document Server가 나중에 재시도하도록 합니다.</p>
+ *
+ * <p><b>규칙:</b></p>
+ * <ul>
+ *   <li>한도 0 이하는 무제한</li>
+ *   <li>바이트 한도는 처리 중인 작업이 없으면 적용하지 않음 → 한도보다 큰 단일 문서도 처리 가능</li>
+ *   <li>{@link Permit}은 작업 완료/실패/취소 시 정확히 한 번 반환</li>
+ *   <li>전체 대기 한도 중 {@code saveReserve}개는 FORCESAVE가 쓰지 못함 → FORCESAVE가 몰려도 SAVE는 admission됨</li>
+ * </ul>
+ *
+ * @see CallbackQueueService
+ */
+@Slf4j
+class CallbackAdmission {
+
+    private final ConcurrentHashMap<String, Usage> documentUsage = new ConcurrentHashMap<>();
+    private final AtomicInteger totalQueued = new AtomicInteger();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final Map<Reason, Counter> rejections = new EnumMap<>(Reason.class);
+
+    private volatile Limits limits = Limits.UNLIMITED;
+
+    CallbackAdmission(MeterRegistry meterRegistry) {
+        for (Reason reason : Reason.values()) {
+            rejections.put(reason, Counter.builder("callback.queue.rejections")
+                    .description("Callbacks rejected by queue admission control")
+                    .tag("reason", reason.tag)
+                    .register(meterRegistry));
+        }
+        Gauge.builder("callback.queue.admitted", totalQueued, AtomicInteger::get)
+                .description("Callbacks queued or running across all documents")
+                .register(meterRegistry);
+        Gauge.builder("callback.queue.inflight.bytes", totalBytes, AtomicLong::get)
+                .description("Expected bytes of callbacks queued or running")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    void configure(Limits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * 한도 안이면 작업을 등록하고 permit을 발급합니다.
+     *
+     * @param fileKey       문서 식별자
+     * @param expectedBytes 작업이 처리할 예상 바이트 (모르면 0)
+     * @param deferrable    true이면 SAVE용 예약분을 쓰지 못함 (FORCESAVE)
+     * @return 작업 완료 시 반환할 permit
+     * @throws CallbackRejectedException 한도를 넘는 경우
+     */
+    Permit acquire(String fileKey, long expectedBytes, boolean deferrable) {
+        Limits current = limits;
+        long bytes = Math.max(expectedBytes, 0);
+
+        Reason[] rejected = new Reason[1];
+        documentUsage.compute(fileKey, (key, usage) -> {
+            Usage u = usage != null ? usage : new Usage();
+            if (current.maxQueuedPerDocument() > 0 && u.queued >= current.maxQueuedPerDocument()) {
+                rejected[0] = Reason.DOCUMENT_DEPTH;
+            } else if (current.maxBytesPerDocument() > 0 && u.queued > 0
+                    && u.bytes + bytes > current.maxBytesPerDocument()) {
+                rejected[0] = Reason.DOCUMENT_BYTES;
+            } else {
+                u.queued++;
+                u.bytes += bytes;
+            }
+            return u.queued == 0 ? null : u;
+        });
+        if (rejected[0] != null) {
+            throw reject(rejected[0], fileKey);
+        }
+
+        // 전체 한도는 낙관적으로 증가 후 초과 시 되돌림
+        int queued = totalQueued.incrementAndGet();
+        long inFlightBytes = totalBytes.addAndGet(bytes);
+        Reason globalReason = null;
+        if (current.maxQueuedTotal() > 0 && queued > current.maxQueuedTotal()) {
+            globalReason = Reason.GLOBAL_DEPTH;
+        } else if (deferrable && current.maxQueuedTotal() > 0
+                && queued > current.maxQueuedTotal() - current.saveReserve()) {
+            globalReason = Reason.SAVE_RESERVE;
+        } else if (current.maxBytesTotal() > 0 && queued > 1 && inFlightBytes > current.maxBytesTotal()) {
+            globalReason = Reason.GLOBAL_BYTES;
+        }
+
+        Permit permit = new Permit(fileKey, bytes);
+        if (globalReason != null) {
+            permit.release();
+            throw reject(globalReason, fileKey);
+        }
+        return permit;
+    }
+
+    private CallbackRejectedException reject(Reason reason, String fileKey) {
+        rejections.get(reason).increment();
+        log.warn("Callback rejected by admission control ({}) for fileKey: {}", reason.tag, fileKey);
+        return new CallbackRejectedException("Callback queue limit exceeded (" + reason.tag + ") for fileKey: " + fileKey);
+    }
+
+    /**
+     * @return 전체 대기+실행 중 작업 수
+     */
+    int totalQueued() {
+        return totalQueued.get();
+    }
+
+    /**
+     * @return 문서의 대기+실행 중 작업 수
+     */
+    int queued(String fileKey) {
+        Usage usage = documentUsage.get(fileKey);
+        return usage == null ? 0 : usage.queued;
+    }
+
+    /**
+     * Admission 한도. 0 이하는 무제한.
+     *
+     * @param saveReserve {@code maxQueuedTotal} 중 FORCESAVE가 쓰지 못하는 자리 수
+     */
+    record Limits(int maxQueuedPerDocument, int maxQueuedTotal, long maxBytesPerDocument, long maxBytesTotal,
+                  int saveReserve) {
+        static final Limits UNLIMITED = new Limits(0, 0, 0, 0, 0);
+    }
+
+    /**
+     * 등록된 작업 하나. {@link #release()}는 여러 번 호출해도 한 번만 반영됩니다.
+     */
+    final class Permit {
+        private final String fileKey;
+        private final long bytes;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String fileKey, long bytes) {
+            this.fileKey = fileKey;
+            this.bytes = bytes;
+        }
+
+        void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            totalQueued.decrementAndGet();
+            totalBytes.addAndGet(-bytes);
+            documentUsage.computeIfPresent(fileKey, (key, usage) -> {
+                usage.queued--;
+                usage.bytes -= bytes;
+                return usage.queued == 0 ? null : usage;
+            });
+        }
+    }
+
+    private static final class Usage {
+        private int queued;
+        private long bytes;
+    }
+
+    private enum Reason {
+        DOCUMENT_DEPTH("document_depth"),
+        DOCUMENT_BYTES("document_bytes"),
+        GLOBAL_DEPTH("global_depth"),
+        GLOBAL_BYTES("global_bytes"),
+        SAVE_RESERVE("save_reserve");
+
+        private final String tag;
+
+        Reason(String tag) {
+            this.tag = tag;
+        }
+    }
+}
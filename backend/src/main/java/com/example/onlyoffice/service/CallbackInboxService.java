@@ -0,0 +1,436 @@
+package com.example.onlyoffice.service;
+
+import com.example.onlyoffice.entity.CallbackInboxEntry;
+import com.example.onlyoffice.entity.CallbackInboxState;
+import com.example.onlyoffice.exception.DocumentNotFoundException;
+import com.example.onlyoffice.repository.CallbackInboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onlyoffice.model.documenteditor.Callback;
+import com.onlyoffice.model.documenteditor.callback.Status;
+import com.onlyoffice.service.documenteditor.callback.CallbackService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Callback을 durable inbox 테이블에 기록하고 background worker로 처리하는 서비스.
+ * 같은 테이블이 동기 처리되는 callback의 journal 역할도 합니다.
+ *
+ * <p><b>Ack 모드 ({@code callback.ack-mode}):</b></p>
+ * <ul>
+ *   <li>{@code sync}: 기존 방식. 요청 스레드가 저장 완료까지 대기 후 응답</li>
+ *   <li>{@code async}: SAVE/FORCESAVE callback을 inbox에 기록하고 즉시 {@code {"error":0}} 응답.
+ *       요청 스레드가 MinIO/Document Server 속도에 묶이지 않음</li>
+ * </ul>
+ *
+ * <p><b>처리 순서:</b> 문서마다 한 번에 하나의 worker만 동작하며, 가장 오래된 미완료 항목(head)부터
+ * id 순서로 처리합니다. head가 재시도 대기 중이면 같은 문서의 뒤 항목도 대기합니다(head-of-line).
+ * 실제 저장은 {@link CallbackService#processCallback}을 통해 {@link CallbackQueueService}의
+ * 문서별 lane에서 실행되므로 동기 callback과의 순서도 유지됩니다.</p>
+ *
+ * <p><b>재시도:</b> 일시적 오류는 지수 backoff로 재시도하고, 재시도 불가능한 오류
+ * (문서 없음, 잘못된 요청)나 최대 시도 횟수 초과 시 FAILED로 표시하여 뒤 항목을 진행합니다.</p>
+ *
+ * <p><b>Journal (sync 모드):</b> 요청 스레드가 처리하는 SAVE/FORCESAVE도 처리 전에 PROCESSING으로 기록하고
+ * 처리 후 DONE/FAILED로 표시합니다. 처리 중인 journal 항목은 worker가 건드리지 않지만 head-of-line으로
+ * 취급되어 같은 문서의 뒤 inbox 항목은 그 처리가 끝날 때까지 대기합니다.</p>
+ *
+ * <p><b>처리 중 lease:</b> 처리를 시작한 항목(journal 항목과 worker가 가져간 항목)은 {@code nextAttemptAt}을
+ * DB 시각 기준 {@code journal-lease-seconds} 뒤로 미룹니다. worker는 재시도 시각이나 lease가 지난 경우에만
+ * 바뀌는 조건부 UPDATE로 항목을 가져가므로, 여러 worker나 인스턴스가 같은 head를 동시에 봐도 하나만 처리합니다.
+ * 완료/재시도 기록도 가져갈 때의 시도 횟수가 그대로일 때만 반영되어, lease가 지나 다른 처리자가 다시 가져간 항목을
+ * 이전 처리자가 덮어쓰지 않습니다. 따라서 lease는 저장 한 번에 걸리는 시간보다 길어야 합니다.</p>
+ *
+ * <p><b>장애 복구:</b> 기동 완료 시({@link ApplicationReadyEvent}) 이전 프로세스에서 끝나지 않은 항목
+ * (PENDING, PROCESSING) 중 재시도 시각과 lease가 지난 항목을 문서별로 id 순서대로 다시 처리합니다.
+ * lease가 남은 항목은 polling이 lease 만료 후 처리합니다. 이미 커밋된 SAVE를 다시 처리해도
+ * {@link DocumentService#processCallbackSave(String, String, String)}가 callback key를 현재 editor key와
+ * 비교하여 건너뛰므로 editorVersion이 두 번 증가하지 않습니다.</p>
+ *
+ * <p><b>Polling 주기:</b> async 모드는 {@code poll-interval-ms}마다 재시도 대기 항목을 찾습니다.
+ * sync 모드의 inbox는 journal일 뿐이고 실패한 callback은 Document Server가 다시 보내므로,
+ * polling은 죽은 인스턴스가 남긴 journal 항목의 복구만 담당합니다. 그런 항목은 lease가 지나야 처리할 수 있으므로
+ * sync 모드에서는 {@code journal-lease-seconds}마다 한 번만 DB를 조회합니다.</p>
+ *
+ * <p><b>보존 기간:</b> DONE/FAILED 항목은 {@code retention-hours}가 지나면 {@code purge-interval-ms}마다
+ * 삭제되어 테이블이 callback 수만큼 계속 커지지 않습니다.</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CallbackInboxService {
+
+    private static final Set<CallbackInboxState> OPEN_STATES =
+            EnumSet.of(CallbackInboxState.PENDING, CallbackInboxState.PROCESSING);
+    private static final Set<CallbackInboxState> FINISHED_STATES =
+            EnumSet.of(CallbackInboxState.DONE, CallbackInboxState.FAILED);
+
+    private final CallbackInboxRepository inboxRepository;
+    private final CallbackService callbackService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${callback.ack-mode:sync}")
+    private AckMode ackMode = AckMode.SYNC;
+
+    @Value("${callback.inbox.max-attempts:10}")
+    private int maxAttempts = 10;
+
+    @Value("${callback.inbox.initial-backoff-ms:1000}")
+    private long initialBackoffMs = 1000;
+
+    @Value("${callback.inbox.max-backoff-ms:300000}")
+    private long maxBackoffMs = 300000;
+
+    @Value("${callback.inbox.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${callback.inbox.journal-lease-seconds:120}")
+    private long journalLeaseSeconds = 120;
+
+    @Value("${callback.inbox.retention-hours:168}")
+    private long retentionHours = 168;
+
+    // sync 모드에서 다음 복구 polling 시각 (System.nanoTime 기준, 0이면 아직 정하지 않음)
+    private volatile long nextRecoveryPollNanos;
+
+    // 현재 worker가 drain 중인 문서 (문서당 worker 하나)
+    private final Set<String> draining = ConcurrentHashMap.newKeySet();
+
+    // 요청 스레드가 동기 처리 중인 journal 항목 id -> 기록할 때의 시도 횟수
+    private final Map<Long, Integer> inlineEntries = new ConcurrentHashMap<>();
+
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("callback-inbox-", 0).factory());
+
+    /**
+     * 요청 스레드에서 처리하지 않고 inbox로 넘길 callback인지 판단합니다.
+     * 로깅만 하는 status(EDITING, CLOSED 등)는 비용이 없으므로 항상 동기 처리합니다.
+     *
+     * @param callback 검증된 callback
+     * @return async 모드이고 저장 계열 callback이면 true
+     */
+    public boolean shouldEnqueue(Callback callback) {
+        return ackMode == AckMode.ASYNC && isSaveCallback(callback);
+    }
+
+    /**
+     * 동기 처리할 callback을 처리 전에 journal에 기록합니다.
+     * 저장 계열이 아닌 callback은 기록하지 않습니다.
+     *
+     * @param callback 검증된 callback
+     * @param fileKey  문서 식별자
+     * @return journal 항목 id (기록하지 않았으면 null)
+     * @throws JsonProcessingException callback 직렬화 실패 시
+     */
+    public Long journal(Callback callback, String fileKey) throws JsonProcessingException {
+        if (!isSaveCallback(callback)) {
+            return null;
+        }
+        CallbackInboxEntry entry = newEntry(callback, fileKey);
+        entry.markProcessing();
+        // 요청 스레드가 처리하는 동안 polling worker가 가져가지 않도록 lease 이후로 미룸
+        entry.setNextAttemptAt(LocalDateTime.now().plusSeconds(journalLeaseSeconds));
+        entry = inboxRepository.save(entry);
+        // 위 시각은 이 인스턴스의 시계이므로 바로 DB 시각 기준으로 다시 설정
+        inboxRepository.extendLease(entry.getId(), entry.getAttempts(), journalLeaseSeconds);
+        inlineEntries.put(entry.getId(), entry.getAttempts());
+
+        log.debug("Callback journaled: id={}, status={}, fileKey={}",
+                entry.getId(), entry.getCallbackStatus(), fileKey);
+        return entry.getId();
+    }
+
+    /**
+     * 동기 처리가 커밋된 journal 항목을 완료로 표시합니다.
+     *
+     * @param entryId {@link #journal}이 반환한 id (null이면 무시)
+     */
+    public void markJournalDone(Long entryId) {
+        completeJournal(entryId, CallbackInboxState.DONE, null);
+    }
+
+    /**
+     * 동기 처리가 실패한 journal 항목을 FAILED로 표시합니다.
+     * 실패 응답을 받은 Document Server가 callback을 다시 보내므로 replay 대상에서 제외합니다.
+     *
+     * @param entryId {@link #journal}이 반환한 id (null이면 무시)
+     * @param error   처리 중 발생한 예외
+     */
+    public void markJournalFailed(Long entryId, Exception error) {
+        completeJournal(entryId, CallbackInboxState.FAILED, error.getMessage());
+    }
+
+    private void completeJournal(Long entryId, CallbackInboxState state, String error) {
+        if (entryId == null) {
+            return;
+        }
+        Integer attempts = inlineEntries.get(entryId);
+        try {
+            if (attempts != null) {
+                finish(entryId, attempts, state, error);
+            }
+        } finally {
+            inlineEntries.remove(entryId);
+        }
+    }
+
+    /**
+     * Callback을 inbox에 기록하고 해당 문서의 worker를 깨웁니다.
+     * 이 메서드가 반환되면 callback은 DB에 커밋된 상태이므로 Document Server에 응답해도 안전합니다.
+     *
+     * @param callback 검증된 callback
+     * @param fileKey  문서 식별자
+     * @return 저장된 inbox 항목
+     * @throws JsonProcessingException callback 직렬화 실패 시
+     */
+    public CallbackInboxEntry enqueue(Callback callback, String fileKey) throws JsonProcessingException {
+        CallbackInboxEntry entry = inboxRepository.save(newEntry(callback, fileKey));
+
+        log.info("Callback accepted into inbox: id={}, status={}, fileKey={}",
+                entry.getId(), entry.getCallbackStatus(), fileKey);
+
+        dispatch(fileKey);
+        return entry;
+    }
+
+    private CallbackInboxEntry newEntry(Callback callback, String fileKey) throws JsonProcessingException {
+        return CallbackInboxEntry.builder()
+                .fileKey(fileKey)
+                .documentKey(callback.getKey())
+                .callbackStatus(callback.getStatus().name())
+                .payload(objectMapper.writeValueAsString(callback))
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static boolean isSaveCallback(Callback callback) {
+        return callback.getStatus() == Status.SAVE || callback.getStatus() == Status.FORCESAVE;
+    }
+
+    /**
+     * 기동 완료 시 이전 프로세스에서 끝나지 않은 항목을 문서별로 replay합니다.
+     * 재시도 대기나 처리 중 lease가 남은 head는 건너뛰므로, rolling restart 중 다른 인스턴스가
+     * 처리하고 있는 항목을 가져가지 않습니다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayUnfinished() {
+        List<String> fileKeys = inboxRepository.findDueFileKeys(
+                OPEN_STATES, LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (fileKeys.isEmpty()) {
+            return;
+        }
+        log.info("Replaying unfinished callbacks for {} documents", fileKeys.size());
+        fileKeys.forEach(this::dispatch);
+    }
+
+    /**
+     * 처리할 항목이 있는 문서의 worker를 주기적으로 시작합니다.
+     * 재시도 대기 항목과 재기동 전에 남은 항목을 처리합니다.
+     * sync 모드에서는 {@code journal-lease-seconds}마다 한 번만 조회합니다.
+     */
+    @Scheduled(fixedDelayString = "${callback.inbox.poll-interval-ms:1000}")
+    public void pollInbox() {
+        if (ackMode == AckMode.SYNC && !isRecoveryPollDue()) {
+            return;
+        }
+        List<String> fileKeys = inboxRepository.findDueFileKeys(
+                OPEN_STATES, LocalDateTime.now(), PageRequest.of(0, batchSize));
+        fileKeys.forEach(this::dispatch);
+    }
+
+    /**
+     * sync 모드의 복구 polling 차례인지 확인하고, 차례이면 다음 시각을 정합니다.
+     * 기동 직후는 {@link #replayUnfinished}가 처리하므로 첫 조회는 lease 한 주기 뒤입니다.
+     */
+    private boolean isRecoveryPollDue() {
+        long now = System.nanoTime();
+        long due = nextRecoveryPollNanos;
+        if (due != 0 && now - due < 0) {
+            return false;
+        }
+        nextRecoveryPollNanos = now + TimeUnit.SECONDS.toNanos(journalLeaseSeconds);
+        return due != 0;
+    }
+
+    /**
+     * 보존 기간이 지난 DONE/FAILED 항목을 삭제합니다. {@code retention-hours}가 0이면 삭제하지 않습니다.
+     */
+    @Scheduled(fixedDelayString = "${callback.inbox.purge-interval-ms:3600000}")
+    public void purgeFinished() {
+        if (retentionHours <= 0) {
+            return;
+        }
+        int deleted = purgeFinishedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("Purged {} finished callback inbox entries older than {} hours", deleted, retentionHours);
+        }
+    }
+
+    /**
+     * 기준 시각 이전에 마지막으로 갱신된 DONE/FAILED 항목을 삭제합니다.
+     *
+     * @return 삭제한 항목 수
+     */
+    int purgeFinishedBefore(LocalDateTime cutoff) {
+        return inboxRepository.deleteByStateInAndUpdatedAtBefore(FINISHED_STATES, cutoff);
+    }
+
+    /**
+     * 문서의 worker가 동작 중이 아니면 새로 시작합니다.
+     */
+    private void dispatch(String fileKey) {
+        if (!draining.add(fileKey)) {
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    drain(fileKey);
+                } catch (Exception e) {
+                    log.error("Inbox worker failed for fileKey: {}", fileKey, e);
+                } finally {
+                    draining.remove(fileKey);
+                }
+            });
+        } catch (RuntimeException e) {
+            // shutdown 중 - 다음 기동 시 polling이 처리
+            draining.remove(fileKey);
+            log.warn("Inbox worker not started for fileKey: {} ({})", fileKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 문서의 미완료 항목을 id 순서로 처리합니다.
+     * head가 재시도 대기 상태이거나 처리 중 lease가 남아 있으면(요청 스레드나 다른 인스턴스가 처리 중)
+     * 가져가지 못하므로 중단하고 다음 polling에서 이어서 처리합니다.
+     */
+    private void drain(String fileKey) {
+        while (!Thread.currentThread().isInterrupted()) {
+            CallbackInboxEntry head = inboxRepository
+                    .findFirstByFileKeyAndStateInOrderByIdAsc(fileKey, OPEN_STATES)
+                    .orElse(null);
+            if (head == null || inlineEntries.containsKey(head.getId())) {
+                return;
+            }
+            CallbackInboxEntry claimed = claim(head.getId());
+            if (claimed == null || !process(claimed)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 항목을 가져옵니다. 다른 처리자가 먼저 가져갔거나 아직 재시도 시각/lease가 남았으면 null을 반환합니다.
+     */
+    CallbackInboxEntry claim(long entryId) {
+        if (inboxRepository.claim(entryId, journalLeaseSeconds) != 1) {
+            return null;
+        }
+        return inboxRepository.findById(entryId).orElse(null);
+    }
+
+    /**
+     * 가져간 inbox 항목 하나를 처리합니다.
+     *
+     * @return 항목이 종료 상태(DONE/FAILED)가 되어 다음 항목으로 진행 가능하면 true
+     */
+    private boolean process(CallbackInboxEntry entry) {
+        try {
+            Callback callback = objectMapper.readValue(entry.getPayload(), Callback.class);
+            callbackService.processCallback(callback, entry.getFileKey());
+
+            log.info("Inbox callback processed: id={}, status={}, fileKey={}, attempts={}",
+                    entry.getId(), entry.getCallbackStatus(), entry.getFileKey(), entry.getAttempts());
+            return finish(entry.getId(), entry.getAttempts(), CallbackInboxState.DONE, null);
+
+        } catch (DocumentNotFoundException | IllegalArgumentException | JsonProcessingException e) {
+            log.error("Inbox callback failed (non-retryable): id={}, fileKey={}: {}",
+                    entry.getId(), entry.getFileKey(), e.getMessage());
+            return finish(entry.getId(), entry.getAttempts(), CallbackInboxState.FAILED, e.getMessage());
+
+        } catch (Exception e) {
+            if (entry.getAttempts() >= maxAttempts) {
+                log.error("Inbox callback failed after {} attempts: id={}, fileKey={}",
+                        entry.getAttempts(), entry.getId(), entry.getFileKey(), e);
+                return finish(entry.getId(), entry.getAttempts(), CallbackInboxState.FAILED, e.getMessage());
+            }
+
+            long backoffMs = backoffMillis(entry.getAttempts());
+            log.warn("Inbox callback failed, retrying in {}ms: id={}, fileKey={}, attempt={}: {}",
+                    backoffMs, entry.getId(), entry.getFileKey(), entry.getAttempts(), e.getMessage());
+            inboxRepository.scheduleRetry(entry.getId(), entry.getAttempts(), backoffMs,
+                    CallbackInboxEntry.truncateError(e.getMessage()));
+            return false;
+        }
+    }
+
+    /**
+     * 가져간 항목을 종료 상태로 기록합니다. lease가 지나 다른 처리자가 다시 가져간 항목은 건드리지 않습니다.
+     *
+     * @return 기록했으면 true
+     */
+    private boolean finish(long entryId, int attempts, CallbackInboxState state, String error) {
+        if (inboxRepository.finish(entryId, attempts, state, CallbackInboxEntry.truncateError(error)) == 1) {
+            return true;
+        }
+        log.warn("Inbox entry was taken over by another worker after its lease expired, result not recorded: id={}, state={}",
+                entryId, state);
+        return false;
+    }
+
+    /**
+     * 지수 backoff 대기 시간 (initial × 2^(attempts-1), 최대 maxBackoffMs).
+     */
+    private long backoffMillis(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(initialBackoffMs << shift, maxBackoffMs);
+    }
+
+    /**
+     * 애플리케이션 종료 시 worker를 중단합니다.
+     * 처리 중이던 항목은 PROCESSING 상태로 남아 다음 기동 시 다시 처리됩니다.
+     */
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Inbox workers did not terminate in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Callback 응답 방식.
+     */
+    public enum AckMode {
+        /**
+         * 저장 완료 후 응답 (기존 방식)
+         */
+        SYNC,
+
+        /**
+         * inbox 기록 후 즉시 응답, background worker가 처리
+         */
+        ASYNC
+    }
+}
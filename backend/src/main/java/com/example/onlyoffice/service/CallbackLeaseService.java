@@ -0,0 +1,195 @@
+package com.example.onlyoffice.service;
+
+import com.example.onlyoffice.exception.CallbackRejectedException;
+import com.example.onlyoffice.repository.CallbackLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 여러 backend 인스턴스 사이에서 문서별 저장 callback을 직렬화하는 DB lease 서비스.
+ *
+ * <p>{@link CallbackQueueService}의 lane은 한 JVM 안에서만 순서를 보장합니다. load balancer 뒤에서 두 인스턴스가
+ * 같은 문서의 callback을 동시에 처리하면 {@code findWithLockByFileKey}의 3초 락 대기에서 한쪽이 실패(503)합니다.
+ * 저장 작업 전체를 {@code callback_lease} 행으로 감싸면 다른 인스턴스는 락 timeout 대신 lease 해제를 기다립니다.</p>
+ *
+ * <p><b>동작:</b></p>
+ * <ul>
+ *   <li>획득: 만료된 행을 UPDATE로 가져오고, 행이 없으면 INSERT (PK 충돌 시 다른 인스턴스가 승리)</li>
+ *   <li>대기: 짧은 트랜잭션으로 polling (지수 증가, 최대 {@code max-poll-interval-ms}). 대기 중 DB 커넥션을 점유하지 않음</li>
+ *   <li>STRIPED lane 모드: 대기하지 않고 한 번만 시도한 뒤 거절 (lane thread가 polling하면 같은 lane의 다른 문서가 모두 멈춤)</li>
+ *   <li>연장: 작업이 실행되는 동안 {@code duration-seconds}의 1/3마다 만료 시각을 다시 늘림 (heartbeat)</li>
+ *   <li>해제: 보유자 토큰이 일치할 때만 {@code leaseUntil}을 현재 시각으로 당김</li>
+ *   <li>보유자가 죽으면 heartbeat가 멈추므로 {@code duration-seconds} 후 다른 인스턴스가 가져감</li>
+ * </ul>
+ *
+ * <p>만료 시각은 DB 시계로 계산하고 비교하므로 인스턴스 간 시계 차이가 상호 배제를 깨지 않습니다.
+ * heartbeat가 lease를 잃은 것을 발견하면(GC 정지나 DB 장애로 연장이 늦어 다른 인스턴스가 가져간 경우)
+ * 실행 중인 저장의 {@link CallbackScope}를 취소하여 다운로드/업로드를 중단시킵니다.
+ * 문서 행의 비관적 락은 그대로 유지되어 중단 직전의 경합에 대한 마지막 안전장치가 됩니다.</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CallbackLeaseService {
+
+    private static final long INITIAL_POLL_INTERVAL_MS = 10;
+    private static final long MIN_RENEW_INTERVAL_MS = 200;
+
+    private final CallbackLeaseRepository leaseRepository;
+
+    @Value("${callback.lease.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${callback.lease.duration-seconds:90}")
+    private long leaseSeconds = 90;
+
+    @Value("${callback.lease.wait-timeout-seconds:30}")
+    private long waitTimeoutSeconds = 30;
+
+    @Value("${callback.lease.max-poll-interval-ms:500}")
+    private long maxPollIntervalMs = 500;
+
+    /**
+     * {@link CallbackQueueService}의 lane 구성 방식. STRIPED이면 lease를 기다리지 않습니다.
+     */
+    @Value("${callback.executor.mode:per-document}")
+    private CallbackQueueService.LaneMode laneMode = CallbackQueueService.LaneMode.PER_DOCUMENT;
+
+    // 인스턴스 식별자. 획득마다 순번을 붙여 같은 인스턴스의 이전 보유 토큰과도 구분
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("callback-lease-heartbeat").daemon().factory());
+
+    /**
+     * 문서 lease를 보유한 상태로 작업을 실행합니다. 비활성화되어 있으면 바로 실행합니다.
+     * 작업이 실행되는 동안 lease는 주기적으로 연장됩니다.
+     *
+     * <p>STRIPED lane 모드에서는 다른 인스턴스가 lease를 보유 중이면 기다리지 않고 바로 거절합니다.
+     * 이 메서드는 lane thread에서 실행되므로, 기다리면 같은 lane에 해시된 다른 문서의 저장까지
+     * {@code wait-timeout-seconds} 동안 멈춥니다. 거절된 callback은 Document Server가 다시 보냅니다.</p>
+     *
+     * @param fileKey 문서 식별자
+     * @param task    실행할 작업
+     * @throws CallbackRejectedException 대기 시간 안에 lease를 얻지 못한 경우, STRIPED 모드에서 lease가 사용 중인 경우
+     *                                   (Document Server 재시도 대상)
+     */
+    public void runExclusively(String fileKey, Runnable task) {
+        if (!enabled) {
+            task.run();
+            return;
+        }
+
+        long waitStart = System.nanoTime();
+        String owner = acquire(fileKey);
+        SaveTimings.record(SaveTimings.Phase.LEASE, System.nanoTime() - waitStart);
+        ScheduledFuture<?> renewal = startHeartbeat(fileKey, owner, CallbackScope.current());
+        try {
+            task.run();
+        } finally {
+            renewal.cancel(false);
+            release(fileKey, owner);
+        }
+    }
+
+    private String acquire(String fileKey) {
+        String owner = instanceId + "#" + sequence.incrementAndGet();
+        long waitNanos = laneMode == CallbackQueueService.LaneMode.STRIPED ? 0 : TimeUnit.SECONDS.toNanos(waitTimeoutSeconds);
+        long deadline = System.nanoTime() + waitNanos;
+        long pollIntervalMs = INITIAL_POLL_INTERVAL_MS;
+
+        while (!tryAcquire(fileKey, owner)) {
+            if (System.nanoTime() >= deadline) {
+                log.warn("Timed out waiting for callback lease for fileKey: {} (waited up to {} ms)",
+                        fileKey, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+                throw new CallbackRejectedException("Callback lease is held by another instance for fileKey: " + fileKey);
+            }
+            try {
+                Thread.sleep(pollIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CallbackRejectedException("Interrupted while waiting for callback lease for fileKey: " + fileKey);
+            }
+            pollIntervalMs = Math.min(pollIntervalMs * 2, maxPollIntervalMs);
+        }
+
+        log.debug("Callback lease acquired: fileKey={}, owner={}", fileKey, owner);
+        return owner;
+    }
+
+    private boolean tryAcquire(String fileKey, String owner) {
+        if (leaseRepository.claimExpired(fileKey, owner, leaseSeconds) == 1) {
+            return true;
+        }
+        if (leaseRepository.existsById(fileKey)) {
+            return false;
+        }
+        try {
+            return leaseRepository.insertLease(fileKey, owner, leaseSeconds) == 1;
+        } catch (DataIntegrityViolationException e) {
+            // 다른 인스턴스가 먼저 행을 생성함 → 다음 polling에서 만료 여부로 판단
+            return false;
+        }
+    }
+
+    /**
+     * 작업이 끝날 때까지 {@code duration-seconds}의 1/3마다 lease를 연장합니다.
+     * 한두 번의 연장이 DB 오류로 실패해도 만료 전에 다음 연장이 성공하면 lease는 유지됩니다.
+     *
+     * @param scope 작업의 취소 범위 (lease를 잃으면 취소). lane 밖에서 실행되면 null
+     */
+    private ScheduledFuture<?> startHeartbeat(String fileKey, String owner, CallbackScope scope) {
+        long intervalMs = Math.max(TimeUnit.SECONDS.toMillis(leaseSeconds) / 3, MIN_RENEW_INTERVAL_MS);
+        return heartbeat.scheduleWithFixedDelay(
+                () -> renew(fileKey, owner, scope), intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void renew(String fileKey, String owner, CallbackScope scope) {
+        int renewed;
+        try {
+            renewed = leaseRepository.renew(fileKey, owner, leaseSeconds);
+        } catch (DataAccessException e) {
+            log.warn("Failed to renew callback lease for fileKey: {} (owner: {})", fileKey, owner, e);
+            return;
+        }
+        if (renewed == 0) {
+            log.error("Callback lease for fileKey: {} was taken over while saving (owner: {}); aborting the save",
+                    fileKey, owner);
+            if (scope != null) {
+                scope.cancel();
+            }
+            // 예외로 끝내 이후의 연장 스케줄을 멈춤
+            throw new IllegalStateException("Callback lease lost for fileKey: " + fileKey);
+        }
+        log.debug("Callback lease renewed: fileKey={}, owner={}", fileKey, owner);
+    }
+
+    private void release(String fileKey, String owner) {
+        try {
+            if (leaseRepository.release(fileKey, owner) == 0) {
+                log.warn("Callback lease for fileKey: {} expired before release (owner: {})", fileKey, owner);
+            }
+        } catch (DataAccessException e) {
+            // 해제하지 못해도 lease 만료 후 다른 인스턴스가 가져감
+            log.error("Failed to release callback lease for fileKey: {}", fileKey, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.onlyoffice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Callback 큐 Micrometer 지표.
+ *
+ * <p>lane 크기 산정과 hot document 탐지를 위해 다음을 기록합니다.
+ * admission 거부 횟수는 {@link CallbackAdmission}이 {@code callback.queue.rejections}로 기록합니다.</p>
+ * <ul>
+ *   <li>{@code callback.queue.wait}: 제출부터 lane에서 실행이 시작될 때까지 (status별)</li>
+ *   <li>{@code callback.queue.execution}: lane에서의 실행 시간 (status별)</li>
+ *   <li>{@code callback.queue.timeouts}: 호출자가 대기 시간을 넘긴 횟수 (status별)</li>
+ *   <li>{@code callback.queue.submit.retries}: shutdown 중인 executor 때문에 제출을 다시 시도한 횟수</li>
+ *   <li>{@code callback.queue.executors}: 문서별 executor 수 ({@link ExecutorState}별)</li>
+ *   <li>{@code callback.queue.document.depth}: 제출 시점 문서의 대기+실행 중 작업 수 분포</li>
+ *   <li>{@code callback.queue.gate.wait}: lane에서 차례가 온 저장 작업이 {@link SavePriorityGate}에서 기다린 시간 (status별)</li>
+ *   <li>{@code callback.queue.gate.waiting}/{@code callback.queue.gate.running}: gate 대기/실행 중 저장 작업 수</li>
+ *   <li>{@code callback.save.phase}: 저장 작업의 단계별 시간 ({@link SaveTimings.Phase}, type별).
+ *       저장이 느릴 때 queue, gate, lease, 다운로드, 스토리지, 행 락, 커밋 중 어디서 시간을 썼는지 구분합니다.</li>
+ * </ul>
+ *
+ * @see CallbackQueueService
+ */
+class CallbackQueueMetrics {
+
+    /**
+     * 저장 callback이 아닌 작업의 status 태그 값.
+     */
+    static final String OTHER_STATUS = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> waitTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> executionTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> timeouts = new ConcurrentHashMap<>();
+    private final Map<String, Timer> gateWaitTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> phaseTimers = new ConcurrentHashMap<>();
+    private final Counter submitRetries;
+    private final DistributionSummary documentDepth;
+
+    CallbackQueueMetrics(MeterRegistry meterRegistry, Map<String, ManagedExecutor> executors, SavePriorityGate saveGate) {
+        this.meterRegistry = meterRegistry;
+        this.submitRetries = Counter.builder("callback.queue.submit.retries")
+                .description("Submissions retried because the document executor was shutting down")
+                .register(meterRegistry);
+        this.documentDepth = DistributionSummary.builder("callback.queue.document.depth")
+                .description("Callbacks queued or running for the document at submission time")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        registerExecutorGauge(executors, "active", ExecutorState.Active.class);
+        registerExecutorGauge(executors, "idle", ExecutorState.Idle.class);
+        registerExecutorGauge(executors, "shutting_down", ExecutorState.ShuttingDown.class);
+
+        Gauge.builder("callback.queue.gate.waiting", saveGate, SavePriorityGate::waiting)
+                .description("Save callbacks waiting for a global execution slot")
+                .register(meterRegistry);
+        Gauge.builder("callback.queue.gate.running", saveGate, SavePriorityGate::running)
+                .description("Save callbacks holding a global execution slot")
+                .register(meterRegistry);
+    }
+
+    private void registerExecutorGauge(Map<String, ManagedExecutor> executors, String state,
+                                       Class<? extends ExecutorState> type) {
+        // scrape 시점에만 map을 순회하므로 submit 경로에는 비용이 없음
+        Gauge.builder("callback.queue.executors", executors,
+                        map -> map.values().stream().filter(m -> type.isInstance(m.currentState())).count())
+                .description("Per-document callback executors by state")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    void recordWait(String status, long nanos) {
+        waitTimers.computeIfAbsent(status, s -> Timer.builder("callback.queue.wait")
+                        .description("Time a callback spent queued before its lane started it")
+                        .tag("status", s)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordExecution(String status, long nanos) {
+        executionTimers.computeIfAbsent(status, s -> Timer.builder("callback.queue.execution")
+                        .description("Time a callback spent running on its lane")
+                        .tag("status", s)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordGateWait(String status, long nanos) {
+        gateWaitTimers.computeIfAbsent(status, s -> Timer.builder("callback.queue.gate.wait")
+                        .description("Time a save callback waited for a global execution slot")
+                        .tag("status", s)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 저장 작업에서 기록된 단계의 시간을 남깁니다 (실행되지 않은 단계는 건너뜀).
+     */
+    void recordSavePhases(String type, SaveTimings timings) {
+        for (Map.Entry<SaveTimings.Phase, Long> entry : timings.snapshot().entrySet()) {
+            String phase = entry.getKey().tag();
+            phaseTimers.computeIfAbsent(phase + ":" + type, k -> Timer.builder("callback.save.phase")
+                            .description("Time a save callback spent in each phase")
+                            .tag("phase", phase)
+                            .tag("type", type)
+                            .publishPercentileHistogram()
+                            .register(meterRegistry))
+                    .record(entry.getValue(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void recordTimeout(String status) {
+        timeouts.computeIfAbsent(status, s -> Counter.builder("callback.queue.timeouts")
+                        .description("Callbacks whose caller gave up waiting")
+                        .tag("status", s)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    void recordSubmitRetry() {
+        submitRetries.increment();
+    }
+
+    void recordDocumentDepth(int queued) {
+        documentDepth.record(queued);
+    }
+}
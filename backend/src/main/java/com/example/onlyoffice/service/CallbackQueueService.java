@@ -1,12 +1,19 @@
 package com.example.onlyoffice.service;
 
+import com.example.onlyoffice.exception.CallbackRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
@@ -14,20 +21,92 @@ public class CallbackQueueService {
 
     private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
     private static final long DEFAULT_TASK_TIMEOUT_SECONDS = 60;
+    // 인스턴스 간 배타 구간이 없는 저장 작업용
+    private static final BiConsumer<String, Runnable> NO_GUARD = (fileKey, work) -> work.run();
 
     @Value("${callback.executor.idle-timeout-minutes:30}")
     private long idleTimeoutMinutes;
 
-    @Value("${callback.executor.cleanup-interval-minutes:5}")
-    private long cleanupIntervalMinutes;
-
     @Value("${callback.executor.max-submit-retries:3}")
     private int maxSubmitRetries = 3;
 
+    /**
+     * 문서별 lane을 virtual thread로 실행할지 여부.
+     * 비활성화하면 기존처럼 문서마다 platform thread를 하나씩 생성합니다.
+     */
+    @Value("${callback.executor.virtual-threads:true}")
+    private boolean virtualThreads = true;
+
+    /**
+     * Lane 구성 방식.
+     * {@code per-document}: 문서마다 전용 executor (기본값),
+     * {@code striped}: fileKey를 고정 개수의 lane에 해시 분배.
+     */
+    @Value("${callback.executor.mode:per-document}")
+    private LaneMode laneMode = LaneMode.PER_DOCUMENT;
+
+    @Value("${callback.executor.stripe-count:16}")
+    private int stripeCount = 16;
+
+    /**
+     * Admission 한도 (0 이하는 무제한). 대기+실행 중인 작업 기준.
+     */
+    @Value("${callback.admission.max-queued-per-document:0}")
+    private int maxQueuedPerDocument;
+
+    @Value("${callback.admission.max-queued-total:0}")
+    private int maxQueuedTotal;
+
+    @Value("${callback.admission.max-inflight-bytes-per-document:0}")
+    private long maxInflightBytesPerDocument;
+
+    @Value("${callback.admission.max-inflight-bytes-total:0}")
+    private long maxInflightBytesTotal;
+
+    /**
+     * {@code max-queued-total} 중 FORCESAVE가 쓰지 못하고 SAVE를 위해 남겨 두는 자리 수.
+     */
+    @Value("${callback.admission.save-reserve:0}")
+    private int saveReserve;
+
+    /**
+     * 모든 문서에서 동시에 실행되는 저장 callback 수 (0 이하는 무제한).
+     * 자리가 나면 대기 중인 SAVE가 FORCESAVE보다 먼저 실행됩니다.
+     * STRIPED 모드에서는 lane 수가 이미 동시 실행을 제한하므로 적용하지 않습니다.
+     */
+    @Value("${callback.scheduling.max-concurrent-saves:0}")
+    private int maxConcurrentSaves;
+
+    /**
+     * 제출부터 완료까지 이 시간(ms) 이상 걸린 저장 callback은 단계별 시간과 함께 경고 로그를 남깁니다 (0 이하는 끔).
+     */
+    @Value("${callback.slow-log.threshold-ms:10000}")
+    private long slowSaveThresholdMs = 10_000;
+
+    private final CallbackAdmission admission;
+
+    private final CallbackQueueMetrics metrics;
+
+    private final SavePriorityGate saveGate = new SavePriorityGate();
+
+    // STRIPED 모드에서만 생성됨 (PER_DOCUMENT 모드에서는 null)
+    private StripedCallbackLanes stripedLanes;
+
     // Single map containing managed executors with atomic state transitions
     // Replaces previous dual-map approach (documentQueues + lastAccessTime)
     private final ConcurrentHashMap<String, ManagedExecutor> documentExecutors = new ConcurrentHashMap<>();
 
+    // 문서별 executor의 idle 만료 예정 시각 (만료된 항목만 정리 작업이 확인)
+    private final DelayQueue<IdleDeadline> idleDeadlines = new DelayQueue<>();
+
+    // 문서별로 아직 실행되지 않은 저장 callback (병합 대상)
+    private final ConcurrentHashMap<String, PendingSave> pendingSaves = new ConcurrentHashMap<>();
+
+    public CallbackQueueService(MeterRegistry meterRegistry) {
+        this.admission = new CallbackAdmission(meterRegistry);
+        this.metrics = new CallbackQueueMetrics(meterRegistry, documentExecutors, saveGate);
+    }
+
     /**
      * Callback 작업을 문서별 큐에 제출하고 완료까지 대기합니다.
      *
@@ -62,49 +141,372 @@ public class CallbackQueueService {
      * @param unit    시간 단위
      * @param <T>     반환 타입
      * @return 작업 결과
-     * @throws Exception        작업 실행 중 발생한 예외
-     * @throws TimeoutException 타임아웃 발생 시
+     * @throws Exception                 작업 실행 중 발생한 예외
+     * @throws TimeoutException          타임아웃 발생 시
+     * @throws CallbackRejectedException 큐 한도 초과 시 (즉시 실패)
      */
     public <T> T submitAndWait(String fileKey, Callable<T> task, long timeout, TimeUnit unit) throws Exception {
         log.debug("Queueing callback for fileKey: {}", fileKey);
 
-        for (int attempt = 0; attempt < maxSubmitRetries; attempt++) {
-            ManagedExecutor managed = documentExecutors.computeIfAbsent(fileKey, key ->
-                    new ManagedExecutor(key, createExecutor(key))
-            );
+        Future<T> future = submit(fileKey, CallbackQueueMetrics.OTHER_STATUS, 0, false, task);
+        return awaitResult(fileKey, CallbackQueueMetrics.OTHER_STATUS, future, timeout, unit, () -> future.cancel(true));
+    }
 
-            Future<T> future = managed.trySubmit(task);
+    /**
+     * 저장 callback을 문서별 큐에 제출하고 완료까지 대기합니다.
+     *
+     * @param fileKey   문서 식별자
+     * @param save      저장 callback
+     * @param processor 최종적으로 선택된 저장 callback을 처리하는 작업
+     * @throws Exception 작업 실행 중 발생한 예외
+     * @see #submitSaveAndWait(String, SaveCallback, long, BiConsumer, Consumer, long, TimeUnit)
+     */
+    public void submitSaveAndWait(String fileKey, SaveCallback save, Consumer<SaveCallback> processor) throws Exception {
+        submitSaveAndWait(fileKey, save, 0, processor);
+    }
 
-            if (future != null) {
-                try {
-                    T result = future.get(timeout, unit);
-                    log.debug("Callback completed successfully for fileKey: {}", fileKey);
-                    return result;
-                } catch (ExecutionException e) {
-                    log.error("Callback execution failed for fileKey: {}", fileKey, e.getCause());
-                    Throwable cause = e.getCause();
-                    if (cause instanceof Exception) {
-                        throw (Exception) cause;
-                    }
-                    throw new RuntimeException("Callback execution failed", cause);
-                } catch (TimeoutException e) {
-                    log.error("Callback timed out for fileKey: {} after {} {}", fileKey, timeout, unit);
-                    future.cancel(true);
-                    throw e;
-                } catch (InterruptedException e) {
-                    log.warn("Callback interrupted for fileKey: {}", fileKey);
-                    Thread.currentThread().interrupt();
-                    future.cancel(true);
-                    throw e;
+    /**
+     * 저장 callback을 예상 크기와 함께 문서별 큐에 제출하고 완료까지 대기합니다.
+     *
+     * @param fileKey       문서 식별자
+     * @param save          저장 callback
+     * @param expectedBytes 다운로드/업로드할 예상 바이트 (in-flight 바이트 한도 계산용, 모르면 0)
+     * @param processor     최종적으로 선택된 저장 callback을 처리하는 작업
+     * @throws Exception 작업 실행 중 발생한 예외
+     * @see #submitSaveAndWait(String, SaveCallback, long, BiConsumer, Consumer, long, TimeUnit)
+     */
+    public void submitSaveAndWait(String fileKey, SaveCallback save, long expectedBytes,
+                                  Consumer<SaveCallback> processor) throws Exception {
+        submitSaveAndWait(fileKey, save, expectedBytes, NO_GUARD, processor);
+    }
+
+    /**
+     * 저장 callback을 인스턴스 간 배타 구간(guard)과 함께 문서별 큐에 제출하고 완료까지 대기합니다.
+     *
+     * @param fileKey       문서 식별자
+     * @param save          저장 callback
+     * @param expectedBytes 다운로드/업로드할 예상 바이트 (in-flight 바이트 한도 계산용, 모르면 0)
+     * @param guard         저장 작업을 감싸 실행하는 배타 구간 (예: {@link CallbackLeaseService#runExclusively})
+     * @param processor     최종적으로 선택된 저장 callback을 처리하는 작업
+     * @throws Exception 작업 실행 중 발생한 예외
+     * @see #submitSaveAndWait(String, SaveCallback, long, BiConsumer, Consumer, long, TimeUnit)
+     */
+    public void submitSaveAndWait(String fileKey, SaveCallback save, long expectedBytes,
+                                  BiConsumer<String, Runnable> guard, Consumer<SaveCallback> processor) throws Exception {
+        submitSaveAndWait(fileKey, save, expectedBytes, guard, processor, DEFAULT_TASK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 저장 callback을 지정한 대기 시간으로 문서별 큐에 제출하고 완료까지 대기합니다.
+     *
+     * @see #submitSaveAndWait(String, SaveCallback, long, BiConsumer, Consumer, long, TimeUnit)
+     */
+    public void submitSaveAndWait(String fileKey, SaveCallback save, long expectedBytes,
+                                  Consumer<SaveCallback> processor, long timeout, TimeUnit unit) throws Exception {
+        submitSaveAndWait(fileKey, save, expectedBytes, NO_GUARD, processor, timeout, unit);
+    }
+
+    /**
+     * 저장 callback을 문서별 큐에 제출하되, 같은 문서에 아직 실행되지 않은 저장 callback이 있으면
+     * 새 작업을 만들지 않고 그 작업에 병합합니다.
+     *
+     * <p><b>Coalescing:</b></p>
+     * <ul>
+     *   <li>대기 중인 FORCESAVE는 이후 도착한 FORCESAVE/SAVE로 대체되어 최신 URL만 다운로드</li>
+     *   <li>병합된 모든 호출자는 같은 작업의 결과를 응답받음</li>
+     *   <li>SAVE는 병합 대상이 되지 않으므로 editorVersion은 SAVE마다 정확히 한 번 증가</li>
+     * </ul>
+     *
+     * <p><b>우선순위:</b> lane에서 차례가 온 저장 작업은 {@link SavePriorityGate}를 통과해야 실행됩니다.
+     * 전체 동시 실행 수({@code max-concurrent-saves})가 찼을 때는 다른 문서의 FORCESAVE보다 SAVE가 먼저 자리를 얻고,
+     * gate를 기다리는 동안에도 병합은 계속됩니다. admission에서도 FORCESAVE는 {@code save-reserve}만큼 남은 자리를 쓰지 못합니다.
+     * gate 자리는 {@code guard}(인스턴스 간 lease) 안에서 얻으므로, 다른 인스턴스의 lease를 기다리는 작업은
+     * 자리를 차지하지 않습니다. STRIPED 모드에서는 gate를 사용하지 않습니다 (한 lane이 gate에서 기다리면
+     * 같은 lane에 해시된 다른 문서까지 멈추기 때문).</p>
+     *
+     * <p>병합된 callback은 새 작업을 만들지 않으므로 admission 한도에 걸리지 않습니다.</p>
+     *
+     * <p><b>단계별 시간:</b> 저장 작업은 실행되는 동안 {@link SaveTimings}를 lane thread에 bind하여 queue, gate, lease,
+     * 다운로드, 스토리지, 행 락, 커밋 시간을 모으고 {@code callback.save.phase}로 남깁니다.
+     * 전체 시간이 {@code slow-log.threshold-ms} 이상이면 단계별 시간을 경고 로그로 남깁니다.</p>
+     *
+     * @param fileKey       문서 식별자
+     * @param save          저장 callback
+     * @param expectedBytes 다운로드/업로드할 예상 바이트 (모르면 0)
+     * @param guard         저장 작업을 감싸 실행하는 배타 구간. gate 대기와 처리가 이 안에서 실행됨
+     * @param processor     최종적으로 선택된 저장 callback을 처리하는 작업
+     * @param timeout       대기 시간
+     * @param unit          시간 단위
+     * @throws Exception                 작업 실행 중 발생한 예외
+     * @throws TimeoutException          타임아웃 발생 시
+     * @throws CallbackRejectedException 큐 한도 초과 시
+     * @see PendingSave
+     */
+    public void submitSaveAndWait(String fileKey, SaveCallback save, long expectedBytes,
+                                  BiConsumer<String, Runnable> guard, Consumer<SaveCallback> processor,
+                                  long timeout, TimeUnit unit) throws Exception {
+        log.debug("Queueing {} callback for fileKey: {}", save.type(), fileKey);
+        String status = save.type().name().toLowerCase();
+
+        // 병합 판단과 lane 제출을 같은 compute 안에서 수행해야 제출 순서가 뒤바뀌지 않음
+        PendingSave pending = pendingSaves.compute(fileKey, (key, existing) -> {
+            if (existing != null && existing.tryMerge(save)) {
+                log.info("Coalesced {} callback into pending save for fileKey: {} (merged: {})",
+                        save.type(), key, existing.mergedCount());
+                return existing;
+            }
+            PendingSave created = new PendingSave(save);
+            boolean deferrable = save.type() == SaveCallback.Type.FORCESAVE;
+            long queuedNanos = System.nanoTime();
+            created.attach(submit(key, status, expectedBytes, deferrable, () -> {
+                SaveTimings timings = new SaveTimings();
+                timings.add(SaveTimings.Phase.QUEUE, System.nanoTime() - queuedNanos);
+                boolean succeeded = false;
+                try (SaveTimings.Scope scope = timings.bind()) {
+                    guard.accept(key, () -> runGated(key, created, timings, processor));
+                    succeeded = true;
+                } finally {
+                    recordSaveTimings(key, created, timings, System.nanoTime() - queuedNanos, succeeded);
                 }
-            } else {
-                log.info("Executor shutting down for fileKey: {}, attempt {}/{}", fileKey, attempt + 1, maxSubmitRetries);
-                documentExecutors.remove(fileKey, managed);
+                return null;
+            }));
+            return created;
+        });
+
+        awaitResult(fileKey, status, pending.future(), timeout, unit, () -> abandon(fileKey, pending));
+    }
+
+    /**
+     * 저장 gate 자리를 얻은 뒤 병합을 닫고 최종 callback을 처리합니다.
+     * gate를 기다리는 동안에도 병합은 계속되며, 자리를 얻을 때의 종류(SAVE/FORCESAVE)로 우선순위가 정해집니다.
+     */
+    private void runGated(String fileKey, PendingSave pending, SaveTimings timings, Consumer<SaveCallback> processor) {
+        long waitStart = System.nanoTime();
+        try (SavePriorityGate.Slot slot = saveGate.acquire(pending::currentType)) {
+            long gateWait = System.nanoTime() - waitStart;
+            timings.add(SaveTimings.Phase.GATE, gateWait);
+            metrics.recordGateWait(pending.currentType().name().toLowerCase(), gateWait);
+            processor.accept(startPendingSave(fileKey, pending));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CallbackRejectedException("Interrupted while waiting for a save slot for fileKey: " + fileKey);
+        }
+    }
+
+    /**
+     * 대기를 포기한 호출자를 병합된 저장 작업에서 분리합니다.
+     * 마지막 호출자일 때만 작업을 취소하므로, 먼저 timeout된 호출자가 뒤에 병합된 호출자의 저장을 취소하지 않습니다.
+     * 병합과 같은 compute 안에서 판단하므로 분리와 동시에 병합되는 호출자도 취소된 작업에 붙지 않습니다.
+     */
+    private void abandon(String fileKey, PendingSave pending) {
+        int[] left = new int[1];
+        pendingSaves.compute(fileKey, (key, current) -> {
+            pending.leave();
+            left[0] = pending.waiters();
+            return left[0] == 0 && current == pending ? null : current;
+        });
+        if (left[0] == 0) {
+            pending.future().cancel(true);
+        } else {
+            log.info("Caller stopped waiting, merged save continues for fileKey: {} ({} waiters left)",
+                    fileKey, left[0]);
+        }
+    }
+
+    /**
+     * 저장 작업의 단계별 시간을 지표로 남기고, 제출부터 완료까지가 {@code slow-log.threshold-ms} 이상이면
+     * 단계별 시간을 담은 구조화 로그({@code key=value})를 남깁니다.
+     */
+    private void recordSaveTimings(String fileKey, PendingSave pending, SaveTimings timings, long totalNanos,
+                                   boolean succeeded) {
+        String type = pending.currentType().name().toLowerCase();
+        metrics.recordSavePhases(type, timings);
+
+        long totalMillis = TimeUnit.NANOSECONDS.toMillis(totalNanos);
+        if (slowSaveThresholdMs > 0 && totalMillis >= slowSaveThresholdMs) {
+            log.warn("Slow callback save: fileKey={} type={} outcome={} merged={} totalMs={} {}",
+                    fileKey, type, succeeded ? "success" : "failure", pending.mergedCount(), totalMillis,
+                    timings.describe());
+        }
+    }
+
+    /**
+     * Lane에서 저장 작업이 시작될 때 더 이상 병합되지 않도록 pending map에서 분리합니다.
+     *
+     * @param fileKey 문서 식별자
+     * @param pending 시작할 저장 작업
+     * @return 병합 결과 최종적으로 처리할 callback
+     */
+    private SaveCallback startPendingSave(String fileKey, PendingSave pending) {
+        SaveCallback[] selected = new SaveCallback[1];
+        pendingSaves.compute(fileKey, (key, current) -> {
+            selected[0] = pending.start();
+            return current == pending ? null : current;
+        });
+        return selected[0];
+    }
+
+    /**
+     * 제출된 작업의 완료를 대기하고, 작업 예외를 호출자에게 그대로 전달합니다.
+     * timeout이나 interrupt로 대기를 포기하면 {@code abandon}을 실행합니다.
+     * 작업이 다른 호출자에 의해 취소된 경우도 timeout으로 취급합니다.
+     *
+     * @param fileKey 문서 식별자 (로깅용)
+     * @param status  지표 태그용 callback status
+     * @param future  대기할 작업
+     * @param timeout 대기 시간
+     * @param unit    시간 단위
+     * @param abandon 대기를 포기할 때 실행할 작업 (작업 취소 등)
+     * @param <T>     반환 타입
+     * @return 작업 결과
+     * @throws Exception        작업 실행 중 발생한 예외
+     * @throws TimeoutException 타임아웃 발생 또는 작업이 취소된 경우
+     */
+    private <T> T awaitResult(String fileKey, String status, Future<T> future, long timeout, TimeUnit unit,
+                              Runnable abandon) throws Exception {
+        try {
+            T result = future.get(timeout, unit);
+            log.debug("Callback completed successfully for fileKey: {}", fileKey);
+            return result;
+        } catch (ExecutionException e) {
+            log.error("Callback execution failed for fileKey: {}", fileKey, e.getCause());
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
             }
+            throw new RuntimeException("Callback execution failed", cause);
+        } catch (TimeoutException e) {
+            log.error("Callback timed out for fileKey: {} after {} {}", fileKey, timeout, unit);
+            metrics.recordTimeout(status);
+            abandon.run();
+            throw e;
+        } catch (CancellationException e) {
+            log.error("Callback cancelled for fileKey: {}", fileKey);
+            metrics.recordTimeout(status);
+            TimeoutException timeoutException = new TimeoutException("Callback cancelled for fileKey: " + fileKey);
+            timeoutException.initCause(e);
+            throw timeoutException;
+        } catch (InterruptedException e) {
+            log.warn("Callback interrupted for fileKey: {}", fileKey);
+            Thread.currentThread().interrupt();
+            abandon.run();
+            throw e;
+        }
+    }
+
+    /**
+     * Admission control을 통과한 작업을 fileKey의 lane에 제출합니다.
+     *
+     * <p>반환되는 Future는 작업이 완료·실패·취소되는 시점에 admission permit을 반환하므로,
+     * timeout으로 취소되어 lane에서 실행되지 않는 작업도 한도를 계속 점유하지 않습니다.</p>
+     *
+     * @param fileKey       문서 식별자
+     * @param status        지표 태그용 callback status
+     * @param expectedBytes 작업이 처리할 예상 바이트
+     * @param deferrable    true이면 SAVE용 admission 예약분을 쓰지 못함
+     * @param task          실행할 작업
+     * @param <T>           반환 타입
+     * @return 제출된 작업의 Future
+     * @throws CallbackRejectedException 큐 한도 초과 시
+     * @throws IllegalStateException     재시도 후에도 제출하지 못한 경우
+     */
+    private <T> Future<T> submit(String fileKey, String status, long expectedBytes, boolean deferrable,
+                                 Callable<T> task) {
+        CallbackAdmission.Permit permit = admission.acquire(fileKey, expectedBytes, deferrable);
+        metrics.recordDocumentDepth(admission.queued(fileKey));
+        AdmittedTask<T> admitted = new AdmittedTask<>(task, permit, metrics, status);
+        try {
+            submitToLane(fileKey, Executors.callable(admitted));
+        } catch (RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+        return admitted;
+    }
+
+    /**
+     * 작업을 fileKey의 lane에 제출합니다.
+     *
+     * <p>PER_DOCUMENT 모드에서는 문서별 executor에 제출하며, executor가 shutdown 중이면
+     * 새 executor를 생성하여 최대 {@code maxSubmitRetries}회 재시도합니다.
+     * STRIPED 모드에서는 해시된 lane에 바로 제출합니다.</p>
+     *
+     * @param fileKey 문서 식별자
+     * @param task    실행할 작업
+     * @throws IllegalStateException 재시도 후에도 제출하지 못한 경우
+     */
+    private void submitToLane(String fileKey, Callable<Object> task) {
+        if (stripedLanes != null) {
+            stripedLanes.submit(fileKey, task);
+            return;
+        }
+
+        for (int attempt = 0; attempt < maxSubmitRetries; attempt++) {
+            ManagedExecutor managed = documentExecutors.computeIfAbsent(fileKey, key -> {
+                ManagedExecutor created = new ManagedExecutor(key, createExecutor(key));
+                scheduleIdleDeadline(key, created, System.currentTimeMillis());
+                return created;
+            });
+
+            if (managed.trySubmit(task) != null) {
+                return;
+            }
+
+            log.info("Executor shutting down for fileKey: {}, attempt {}/{}", fileKey, attempt + 1, maxSubmitRetries);
+            metrics.recordSubmitRetry();
+            documentExecutors.remove(fileKey, managed);
         }
         throw new IllegalStateException("Failed to submit callback task after " + maxSubmitRetries + " retries for fileKey: " + fileKey);
     }
 
+    /**
+     * 편집 세션이 시작된 문서의 lane을 미리 준비합니다.
+     *
+     * <p>executor를 만들고 빈 작업을 제출하여 worker thread까지 띄워 두므로, 첫 FORCESAVE가 lane 생성 비용을
+     * 기다리지 않습니다. 이미 있는 executor는 idle 만료 시각이 늦춰집니다. admission 한도와 지표에는 포함되지 않습니다.
+     * STRIPED 모드의 lane은 항상 떠 있으므로 아무 일도 하지 않습니다.</p>
+     *
+     * @param fileKey 문서 식별자
+     */
+    public void prewarm(String fileKey) {
+        if (stripedLanes != null) {
+            return;
+        }
+        submitToLane(fileKey, () -> null);
+        log.debug("Prewarmed callback lane for fileKey: {}", fileKey);
+    }
+
+    /**
+     * 편집 세션이 끝난 문서의 executor를 idle 시간을 기다리지 않고 회수합니다.
+     *
+     * <p>대기·실행 중인 작업이 있으면 회수하지 않고 idle cleanup에 맡깁니다. 상태를 관찰한 뒤 대기 작업을 확인하고
+     * 관찰한 상태에서만 shutdown하므로, 그 사이 제출된 작업이 회수된 executor에 남지 않습니다.
+     * timeout으로 취소되어 아직 정리 중인 작업은 대기 작업으로 세지 않지만, 문서 lease와 행 락이 동시 저장을 막습니다.</p>
+     *
+     * @param fileKey 문서 식별자
+     * @return executor를 회수했으면 true (STRIPED 모드에서는 항상 false)
+     */
+    public boolean release(String fileKey) {
+        if (stripedLanes != null) {
+            return false;
+        }
+        ManagedExecutor managed = documentExecutors.get(fileKey);
+        if (managed == null) {
+            return false;
+        }
+        ExecutorState observed = managed.currentState();
+        if (admission.queued(fileKey) > 0 || pendingSaves.containsKey(fileKey)) {
+            log.debug("Keeping callback lane with queued work for closed document fileKey: {}", fileKey);
+            return false;
+        }
+        if (!managed.tryRelease(observed)) {
+            return false;
+        }
+        documentExecutors.remove(fileKey, managed);
+        log.info("Released executor for closed document fileKey: {}", fileKey);
+        return true;
+    }
+
     /**
      * 반환값이 없는 Callback 작업을 문서별 큐에 제출하고 완료까지 대기합니다.
      *
@@ -122,16 +524,44 @@ public class CallbackQueueService {
     /**
      * 문서별 executor를 생성합니다.
      *
+     * <p>Worker는 기본적으로 virtual thread입니다. 큐가 비어 대기하는 동안
+     * carrier thread를 점유하지 않으므로, 수천 개 문서가 동시에 열려 있어도
+     * OS thread 수는 carrier pool 크기로 제한됩니다. 싱글 스레드 executor이므로
+     * 문서별 FIFO 순서와 {@link ManagedExecutor} 상태 머신 동작은 동일합니다.</p>
+     *
      * @param fileKey 문서 식별자
      * @return 문서별 싱글 스레드 executor
      */
     private ExecutorService createExecutor(String fileKey) {
-        log.info("Creating single-thread executor for fileKey: {}", fileKey);
-        return Executors.newSingleThreadExecutor(r -> {
-            Thread thread = new Thread(r, "callback-" + fileKey);
-            thread.setDaemon(false);
-            return thread;
-        });
+        String threadName = "callback-" + fileKey;
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name(threadName).factory()
+                : Thread.ofPlatform().name(threadName).daemon(false).factory();
+
+        log.info("Creating single-thread executor for fileKey: {} (virtual: {})", fileKey, virtualThreads);
+        return Executors.newSingleThreadExecutor(threadFactory);
+    }
+
+    /**
+     * Admission 한도와 저장 동시 실행 한도를 적용하고, STRIPED 모드이면 고정 개수의 lane을 미리 생성합니다.
+     */
+    @PostConstruct
+    public void init() {
+        admission.configure(new CallbackAdmission.Limits(
+                maxQueuedPerDocument, maxQueuedTotal, maxInflightBytesPerDocument, maxInflightBytesTotal, saveReserve));
+        if (laneMode == LaneMode.STRIPED) {
+            // lane 하나가 gate에서 기다리면 같은 lane의 다른 문서도 멈추므로, lane 수로만 동시 실행을 제한
+            if (maxConcurrentSaves > 0) {
+                log.info("max-concurrent-saves ({}) is ignored in striped mode; stripe-count ({}) bounds concurrent saves",
+                        maxConcurrentSaves, stripeCount);
+            }
+            saveGate.configure(0);
+        } else {
+            saveGate.configure(maxConcurrentSaves);
+        }
+        if (laneMode == LaneMode.STRIPED && stripedLanes == null) {
+            stripedLanes = new StripedCallbackLanes(stripeCount, virtualThreads);
+        }
     }
 
     /**
@@ -142,6 +572,10 @@ public class CallbackQueueService {
         log.info("Shutting down CallbackQueueService with {} document queues...", documentExecutors.size());
 
         try {
+            if (stripedLanes != null) {
+                stripedLanes.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+
             // Shutdown all executors in parallel
             documentExecutors.values().parallelStream().forEach(managed -> {
                 try {
@@ -153,6 +587,7 @@ public class CallbackQueueService {
             });
 
             documentExecutors.clear();
+            idleDeadlines.clear();
         } catch (Exception e) {
             log.error("Error during shutdown", e);
         }
@@ -161,57 +596,89 @@ public class CallbackQueueService {
     }
 
     /**
-     * 30분 이상 idle한 executor를 정리하는 scheduled job (5분마다 실행).
+     * idle 만료 시각이 지난 executor를 정리하는 scheduled job.
+     *
+     * <p>전체 map을 순회하지 않고 {@link IdleDeadline} 큐에서 만료된 항목만 꺼내 확인하므로,
+     * 한 번의 실행 비용은 열린 문서 수가 아니라 만료된 항목 수에 비례합니다.
+     * 덕분에 짧은 주기로 실행하여 idle 시간을 넘긴 executor를 거의 바로 회수합니다.</p>
      *
      * <p><b>동시성 안전성:</b></p>
      * <ul>
      *   <li>Atomic state machine: ACTIVE → IDLE → SHUTTING_DOWN 상태 전환</li>
      *   <li>ACTIVE 상태인 executor는 shutdown할 수 없음 (submit과의 race 방지)</li>
-     *   <li>CAS 기반 원자적 상태 전환으로 race condition 완전히 제거</li>
+     *   <li>만료 전에 다시 사용된 executor는 마지막 접근 시각 기준으로 재예약</li>
+     *   <li>이미 교체/제거된 executor의 항목은 무시</li>
+     *   <li>종료를 기다리지 않음: 취소된 작업이 socket read에 묶여 있어도 공유 scheduler thread를 점유하지 않음</li>
      * </ul>
+     *
+     * <p>STRIPED 모드의 lane은 소멸하지 않으므로 정리 대상이 없습니다.</p>
      */
-    @Scheduled(fixedDelayString = "${callback.executor.cleanup-interval-minutes:5}", timeUnit = TimeUnit.MINUTES)
+    @Scheduled(fixedDelayString = "${callback.executor.eviction-tick-ms:1000}")
     public void cleanupIdleExecutors() {
+        if (stripedLanes != null) {
+            return;
+        }
+
         long now = System.currentTimeMillis();
         long idleThresholdMs = TimeUnit.MINUTES.toMillis(idleTimeoutMinutes);
 
         int cleanupCount = 0;
+        // 이번 실행 중 재예약한 항목은 다음 실행에서 확인 (idle 시간 0일 때 무한 반복 방지)
+        List<IdleDeadline> rescheduled = new ArrayList<>();
 
-        for (var iterator = documentExecutors.entrySet().iterator(); iterator.hasNext(); ) {
-            var entry = iterator.next();
-            String fileKey = entry.getKey();
-            ManagedExecutor managed = entry.getValue();
+        IdleDeadline deadline;
+        while ((deadline = idleDeadlines.poll()) != null) {
+            String fileKey = deadline.fileKey();
+            ManagedExecutor managed = deadline.executor();
+            if (documentExecutors.get(fileKey) != managed) {
+                continue;
+            }
 
             // Two atomic steps to safely cleanup
             // Step 1: Try to mark as IDLE if inactive for threshold
-            if (managed.tryMarkIdle(now, idleThresholdMs)) {
-                // Step 2: Try to shutdown (only succeeds if truly IDLE)
-                if (managed.tryShutdown()) {
-                    try {
-                        managed.forceShutdown(5, TimeUnit.SECONDS);
-                        iterator.remove();
-                        cleanupCount++;
-                        log.info("Cleaned up idle executor for fileKey: {}", fileKey);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        log.warn("Cleanup interrupted for fileKey: {}", fileKey);
-                        break;
-                    }
-                }
+            // Step 2: Try to shutdown (only succeeds if truly IDLE)
+            // tryShutdown은 shutdown()만 호출하고 종료를 기다리지 않음 (tryRelease와 같이 lane thread가 스스로 종료)
+            if (managed.tryMarkIdle(now, idleThresholdMs) && managed.tryShutdown()) {
+                documentExecutors.remove(fileKey, managed);
+                cleanupCount++;
+                log.info("Cleaned up idle executor for fileKey: {}", fileKey);
+            } else if (!managed.isShutdown()) {
+                rescheduled.add(idleDeadline(fileKey, managed, managed.currentState().lastAccessTimeMs()));
             }
         }
+        idleDeadlines.addAll(rescheduled);
 
         if (cleanupCount > 0) {
             log.info("Cleanup completed: {} idle executors removed", cleanupCount);
         }
     }
 
+    private void scheduleIdleDeadline(String fileKey, ManagedExecutor managed, long lastAccessTimeMs) {
+        idleDeadlines.add(idleDeadline(fileKey, managed, lastAccessTimeMs));
+    }
+
+    private IdleDeadline idleDeadline(String fileKey, ManagedExecutor managed, long lastAccessTimeMs) {
+        // tryMarkIdle은 threshold를 "초과"해야 idle로 판정하므로 1ms 뒤로 예약
+        long deadlineMs = lastAccessTimeMs + TimeUnit.MINUTES.toMillis(idleTimeoutMinutes) + 1;
+        return new IdleDeadline(fileKey, managed, deadlineMs);
+    }
+
+    /**
+     * 예약된 idle 만료 항목 수 (테스트용).
+     */
+    int scheduledEvictionCount() {
+        return idleDeadlines.size();
+    }
+
     /**
      * 생성된 executor 개수 조회 (모니터링/테스트용).
      *
-     * @return 현재 관리 중인 executor 개수
+     * @return 현재 관리 중인 executor 개수 (STRIPED 모드에서는 lane 개수)
      */
     public int getQueueCount() {
+        if (stripedLanes != null) {
+            return stripedLanes.size();
+        }
         return documentExecutors.size();
     }
 
@@ -221,6 +688,9 @@ public class CallbackQueueService {
      * @return 모두 종료되면 true
      */
     public boolean allQueuesShutdown() {
+        if (stripedLanes != null && !stripedLanes.isShutdown()) {
+            return false;
+        }
         return documentExecutors.values().stream().allMatch(ManagedExecutor::isShutdown);
     }
 
@@ -232,4 +702,73 @@ public class CallbackQueueService {
     public boolean isEmpty() {
         return documentExecutors.isEmpty();
     }
+
+    /**
+     * Admission permit을 보유한 작업. 완료·실패·취소 어느 경우든 {@link #done()}에서 permit을 반환합니다.
+     * lane에서 실행될 때 대기 시간과 실행 시간을 기록합니다.
+     *
+     * <p>실행 중에는 작업의 {@link CallbackScope}를 lane thread에 bind합니다. timeout 등으로 취소되면
+     * lane thread 인터럽트와 함께 범위에 등록된 자원(Document Server 응답 스트림 등)을 닫아,
+     * 인터럽트에 반응하지 않는 socket read에 lane이 묶이지 않게 합니다.</p>
+     */
+    private static final class AdmittedTask<T> extends FutureTask<T> {
+
+        private final CallbackAdmission.Permit permit;
+        private final CallbackQueueMetrics metrics;
+        private final String status;
+        private final long submittedNanos = System.nanoTime();
+        private final CallbackScope scope = new CallbackScope();
+
+        AdmittedTask(Callable<T> task, CallbackAdmission.Permit permit, CallbackQueueMetrics metrics, String status) {
+            super(task);
+            this.permit = permit;
+            this.metrics = metrics;
+            this.status = status;
+        }
+
+        @Override
+        public void run() {
+            // timeout으로 이미 취소된 작업은 실행되지 않으므로 기록하지 않음
+            if (isDone()) {
+                return;
+            }
+            long startNanos = System.nanoTime();
+            metrics.recordWait(status, startNanos - submittedNanos);
+            try (CallbackScope.Binding binding = scope.bind()) {
+                super.run();
+            } finally {
+                metrics.recordExecution(status, System.nanoTime() - startNanos);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (isDone()) {
+                return false;
+            }
+            // 자원을 먼저 닫아야 인터럽트로 깨어난 read가 이어 받기를 시도하지 않음
+            scope.cancel();
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        protected void done() {
+            permit.release();
+        }
+    }
+
+    /**
+     * Callback lane 구성 방식.
+     */
+    public enum LaneMode {
+        /**
+         * 문서별 전용 executor. 문서 간 완전 병렬, idle cleanup 필요.
+         */
+        PER_DOCUMENT,
+
+        /**
+         * fileKey를 고정 개수의 serial lane에 해시 분배. thread/메모리 사용량 일정.
+         */
+        STRIPED
+    }
 }
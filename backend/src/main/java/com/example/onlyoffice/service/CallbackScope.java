@@ -0,0 +1,132 @@
+package com.example.onlyoffice.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * lane에서 실행되는 callback 작업 하나의 취소 범위.
+ *
+ * <p>작업이 timeout으로 취소되면 lane thread를 인터럽트하는 것만으로는 부족합니다.
+ * Document Server 응답 본문 read나 MinIO 전송은 인터럽트에 반응하지 않을 수 있어 lane이 socket read에 묶여 있게 됩니다.
+ * 그래서 작업이 실행 중에 연 자원(응답 스트림 등)을 이 범위에 등록하고, 취소되면 등록된 자원을 한꺼번에 닫아
+ * 하위 작업(다운로드, 업로드)이 즉시 실패하고 lane이 다음 callback으로 넘어가게 합니다.</p>
+ *
+ * <ul>
+ *   <li>작업이 실행되는 동안 lane thread에 bind되므로, 하위 서비스는 {@link #onCancel}로 signature 변경 없이 등록</li>
+ *   <li>자원은 등록의 역순으로 닫힘 (나중에 연 자원부터)</li>
+ *   <li>이미 취소된 범위에 등록하면 바로 닫힘</li>
+ *   <li>bind되지 않은 thread(직접 호출, 테스트)에서는 등록해도 아무 일도 일어나지 않음</li>
+ * </ul>
+ *
+ * <p>Java 21의 {@code StructuredTaskScope}는 preview API라 사용하지 않습니다. 하위 작업이 lane thread에서
+ * 순차로 실행되므로, 자원 단위 취소로 같은 효과(함께 취소, 스트림 정리, multipart abort)를 얻습니다.</p>
+ *
+ * @see CallbackQueueService
+ */
+@Slf4j
+final class CallbackScope {
+
+    private static final ThreadLocal<CallbackScope> CURRENT = new ThreadLocal<>();
+    private static final Registration NOOP = () -> {
+    };
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private boolean cancelled;
+
+    /**
+     * 현재 thread의 범위가 취소되면 닫을 자원을 등록합니다.
+     *
+     * @return 자원을 정상적으로 닫기 전에 닫아야 하는 등록 (취소 시 중복으로 닫지 않도록 해제)
+     */
+    static Registration onCancel(AutoCloseable resource) {
+        CallbackScope scope = CURRENT.get();
+        return scope != null ? scope.register(resource) : NOOP;
+    }
+
+    /**
+     * @return 현재 thread의 범위가 취소되었으면 true (bind된 범위가 없으면 false)
+     */
+    static boolean isCurrentCancelled() {
+        CallbackScope scope = CURRENT.get();
+        return scope != null && scope.isCancelled();
+    }
+
+    /**
+     * @return 현재 thread에 bind된 범위 (없으면 null). 다른 thread에서 취소하려는 경우에 사용
+     */
+    static CallbackScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 반환된 binding을 닫을 때까지 이 범위를 현재 thread에 bind합니다.
+     */
+    Binding bind() {
+        CallbackScope previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * 범위를 취소하고 등록된 자원을 역순으로 닫습니다. 두 번째 호출부터는 아무 일도 하지 않습니다.
+     */
+    void cancel() {
+        List<AutoCloseable> toClose;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            toClose = new ArrayList<>(resources);
+            resources.clear();
+        }
+        for (int i = toClose.size() - 1; i >= 0; i--) {
+            closeQuietly(toClose.get(i));
+        }
+    }
+
+    synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    private Registration register(AutoCloseable resource) {
+        synchronized (this) {
+            if (!cancelled) {
+                resources.add(resource);
+                return () -> unregister(resource);
+            }
+        }
+        closeQuietly(resource);
+        return NOOP;
+    }
+
+    private synchronized void unregister(AutoCloseable resource) {
+        resources.remove(resource);
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception e) {
+            log.debug("Failed to close resource of cancelled callback", e);
+        }
+    }
+
+    interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -1,93 +1,444 @@
 package com.example.onlyoffice.service;
 
-import lombok.RequiredArgsConstructor;
+import com.example.onlyoffice.exception.CallbackRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import java.io.FilterInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
-import java.net.URLConnection;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * URL에서 파일을 다운로드하여 MinIO 스토리지에 저장하는 기본 구현체.
  *
  * <p>ONLYOFFICE Document Server callback에서 제공하는 URL로부터
  * 편집된 문서를 다운로드하여 저장합니다.</p>
+ *
+ * <p>다운로드는 공유 {@link HttpClient}(연결 pool, 가능하면 HTTP/2)를 사용하며,
+ * 저장이 몰릴 때 Document Server를 과부하시키지 않도록 host별 동시 다운로드 수를 제한합니다.</p>
+ * <ul>
+ *   <li>{@code response-timeout-ms}: 요청 전송부터 응답 헤더 수신까지의 timeout</li>
+ *   <li>{@code read-timeout-ms}: 본문을 읽는 중 데이터가 오지 않는 최대 시간 (0 = 제한 없음)</li>
+ *   <li>{@code max-concurrent-per-host}: host별 동시 다운로드 수 (0 = 제한 없음)</li>
+ *   <li>{@code permit-timeout-ms}: 동시 다운로드 허용을 기다리는 최대 시간. 그동안 callback lane이 묶이므로
+ *       callback 대기 시간(60초)보다 충분히 짧아야 하며, 넘으면 {@link CallbackRejectedException}으로
+ *       거부되어 503 응답(Document Server 재시도)이 됨</li>
+ *   <li>{@code max-resume-attempts}: 연결이 끊기거나 멈췄을 때 Range 요청으로 이어 받는 최대 횟수 (0 = 이어 받지 않음)</li>
+ * </ul>
+ *
+ * <p>본문은 스토리지로 넘기면서 SHA-256을 계산하여 {@link DownloadResult#contentHash()}로 반환합니다.</p>
+ *
+ * <p>callback 작업이 timeout으로 취소되면 응답 본문을 닫아 read에 묶인 lane을 바로 풀고, 이어 받기도 하지 않습니다
+ * ({@link CallbackScope}).</p>
+ *
+ * <p>저장 callback에서 호출되면 허용 대기, 응답 헤더와 본문을 기다린 시간을 {@link SaveTimings.Phase#DOWNLOAD},
+ * 나머지 전송 시간을 {@link SaveTimings.Phase#STORAGE}로 기록합니다.</p>
+ *
+ * @see DownloadMetrics
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class DefaultUrlDownloadService implements UrlDownloadService {
 
     private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
-    private static final int CONNECTION_TIMEOUT_MS = 10_000; // 10 seconds
-    private static final int READ_TIMEOUT_MS = 60_000; // 60 seconds
+    private static final long MAX_WATCHDOG_INTERVAL_MS = 1_000;
+    private static final String CONTENT_HASH_ALGORITHM = "SHA-256";
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-\\d+/(\\d+|\\*)");
 
     private final MinioStorageService storageService;
+    private final HttpClient httpClient;
+    private final DownloadMetrics metrics;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService readWatchdog = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("download-watchdog").daemon().factory());
+
+    @Value("${callback.download.response-timeout-ms:60000}")
+    private long responseTimeoutMs = 60_000;
+
+    @Value("${callback.download.read-timeout-ms:60000}")
+    private long readTimeoutMs = 60_000;
+
+    @Value("${callback.download.max-concurrent-per-host:16}")
+    private int maxConcurrentPerHost = 16;
+
+    @Value("${callback.download.permit-timeout-ms:30000}")
+    private long permitTimeoutMs = 30_000;
+
+    @Value("${callback.download.max-resume-attempts:3}")
+    private int maxResumeAttempts = 3;
+
+    @Value("${callback.download.resume-backoff-ms:200}")
+    private long resumeBackoffMs = 200;
+
+    public DefaultUrlDownloadService(MinioStorageService storageService, HttpClient httpClient,
+                                     MeterRegistry meterRegistry) {
+        this.storageService = storageService;
+        this.httpClient = httpClient;
+        this.metrics = new DownloadMetrics(meterRegistry);
+    }
 
     @Override
     public DownloadResult downloadAndSave(String downloadUrl, String storagePath) {
         log.info("Downloading file from {} to {}", downloadUrl, storagePath);
 
         try {
-            URLConnection connection = URI.create(downloadUrl).toURL().openConnection();
-            connection.setConnectTimeout(CONNECTION_TIMEOUT_MS);
-            connection.setReadTimeout(READ_TIMEOUT_MS);
-            long contentLength = connection.getContentLengthLong();
-            String contentType = connection.getContentType();
-            if (!StringUtils.hasText(contentType)) {
-                contentType = DEFAULT_CONTENT_TYPE;
+            URI uri = URI.create(downloadUrl);
+            Semaphore permits = acquirePermit(uri);
+            try {
+                DownloadResult result = download(uri, storagePath);
+                log.info("File downloaded and saved successfully. storagePath: {}, size: {}", storagePath, result.fileSize());
+                return result;
+            } finally {
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        } catch (CallbackRejectedException e) {
+            // 503으로 응답하여 Document Server가 재시도하도록 그대로 전달
+            log.warn("Download from {} rejected: {}", downloadUrl, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (CallbackScope.isCurrentCancelled()) {
+                log.warn("Download from {} cancelled with its callback: {}", downloadUrl, e.toString());
+            } else {
+                log.error("Error downloading file from {}", downloadUrl, e);
             }
+            throw new RuntimeException("Failed to download and save file from URL", e);
+        }
+    }
 
-            try (ByteCountingInputStream inputStream = new ByteCountingInputStream(connection.getInputStream())) {
-                storageService.uploadStream(inputStream, contentLength, contentType, storagePath);
+    private DownloadResult download(URI uri, String storagePath) throws IOException, InterruptedException {
+        long sendStart = System.nanoTime();
+        HttpResponse<InputStream> response = send(newRequest(uri).build());
+        SaveTimings.record(SaveTimings.Phase.DOWNLOAD, System.nanoTime() - sendStart);
 
-                long uploadedSize = inputStream.getBytesRead();
-                long fileSize = uploadedSize > 0 ? uploadedSize : (contentLength > 0 ? contentLength : 0);
+        int status = response.statusCode();
+        if (status < 200 || status >= 300) {
+            response.body().close();
+            throw new IOException("Unexpected HTTP status " + status + " from " + uri);
+        }
 
-                log.info("File downloaded and saved successfully. storagePath: {}, size: {}", storagePath, fileSize);
-                return new DownloadResult(fileSize);
+        long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        String contentType = response.headers().firstValue("Content-Type")
+                .filter(StringUtils::hasText)
+                .orElse(DEFAULT_CONTENT_TYPE);
+
+        try (ResumableBodyStream inputStream = new ResumableBodyStream(uri, response, contentLength);
+             CallbackScope.Registration cancellation = CallbackScope.onCancel(inputStream)) {
+            // 스토리지로 넘기는 바이트를 그대로 hash (이어 받은 구간도 한 번만 계산됨)
+            MessageDigest digest = newContentDigest();
+            long transferStart = System.nanoTime();
+            String outcome = DownloadMetrics.FAILURE;
+            ScheduledFuture<?> watchdog = watch(inputStream);
+            try {
+                storageService.uploadStream(new DigestInputStream(inputStream, digest), contentLength, contentType, storagePath);
+                outcome = DownloadMetrics.SUCCESS;
+            } catch (RuntimeException e) {
+                if (inputStream.isTimedOut()) {
+                    throw new HttpTimeoutException("No data received from " + uri + " for " + readTimeoutMs + "ms");
+                }
+                throw e;
+            } finally {
+                if (watchdog != null) {
+                    watchdog.cancel(false);
+                }
+                long transferNanos = System.nanoTime() - transferStart;
+                metrics.recordTransfer(outcome, transferNanos);
+                // 업로드는 본문을 읽는 동안 함께 진행되므로 read에서 기다린 시간만 다운로드로 봄
+                SaveTimings.record(SaveTimings.Phase.DOWNLOAD, inputStream.getReadNanos());
+                SaveTimings.record(SaveTimings.Phase.STORAGE, transferNanos - inputStream.getReadNanos());
             }
-        } catch (Exception e) {
-            log.error("Error downloading file from {}", downloadUrl, e);
-            throw new RuntimeException("Failed to download and save file from URL", e);
+
+            long uploadedSize = inputStream.getBytesRead();
+            long fileSize = uploadedSize > 0 ? uploadedSize : (contentLength > 0 ? contentLength : 0);
+            metrics.recordSize(fileSize);
+            return new DownloadResult(fileSize, HexFormat.of().formatHex(digest.digest()));
+        }
+    }
+
+    private static MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance(CONTENT_HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // 모든 Java 구현체는 SHA-256을 제공해야 함
+            throw new IllegalStateException(CONTENT_HASH_ALGORITHM + " is not available", e);
         }
     }
 
+    private HttpRequest.Builder newRequest(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(responseTimeoutMs))
+                .GET();
+    }
+
+    private HttpResponse<InputStream> send(HttpRequest request) throws IOException, InterruptedException {
+        long sendStart = System.nanoTime();
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        metrics.recordTimeToFirstByte(response.version().name().toLowerCase(), System.nanoTime() - sendStart);
+        return response;
+    }
+
     /**
-     * 읽은 바이트 수를 추적하는 InputStream 래퍼.
+     * host별 동시 다운로드 허용을 얻습니다. 제한이 없으면 {@code null}을 반환합니다.
      */
-    private static class ByteCountingInputStream extends FilterInputStream {
+    private Semaphore acquirePermit(URI uri) throws InterruptedException {
+        if (maxConcurrentPerHost <= 0) {
+            return null;
+        }
+
+        String host = uri.getHost() + ":" + uri.getPort();
+        Semaphore permits = hostPermits.computeIfAbsent(host, h -> new Semaphore(maxConcurrentPerHost, true));
+        long waitStart = System.nanoTime();
+        boolean acquired = permits.tryAcquire(permitTimeoutMs, TimeUnit.MILLISECONDS);
+        long waited = System.nanoTime() - waitStart;
+        metrics.recordPermitWait(waited);
+        SaveTimings.record(SaveTimings.Phase.DOWNLOAD, waited);
+        if (!acquired) {
+            throw new CallbackRejectedException("Too many concurrent downloads from " + host);
+        }
+        return permits;
+    }
+
+    /**
+     * 본문 읽기가 {@code read-timeout-ms} 동안 진행되지 않으면 현재 응답 본문을 닫아 대기 중인 read를 깨웁니다.
+     * JDK 클라이언트에는 소켓 read timeout이 없어 멈춘 응답이 callback lane을 계속 점유할 수 있기 때문입니다.
+     * 깨어난 read는 끊긴 연결과 같이 Range 요청으로 이어 받기를 시도합니다.
+     */
+    private ScheduledFuture<?> watch(ResumableBodyStream inputStream) {
+        if (readTimeoutMs <= 0) {
+            return null;
+        }
+        long intervalMs = Math.min(readTimeoutMs, MAX_WATCHDOG_INTERVAL_MS);
+        return readWatchdog.scheduleAtFixedRate(
+                () -> inputStream.abortIfIdle(TimeUnit.MILLISECONDS.toNanos(readTimeoutMs)),
+                intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readWatchdog.shutdownNow();
+    }
 
+    /**
+     * 읽은 바이트 수를 추적하고, 연결이 끊기거나 멈추면 읽은 위치부터 Range 요청으로 이어 받는 응답 본문 스트림.
+     *
+     * <p>이어 받기는 같은 스트림 안에서 일어나므로 이미 스토리지(multipart part)로 넘긴 바이트는 그대로 유지됩니다.
+     * 서버가 206과 요청한 위치의 Content-Range로 응답할 때만 이어 붙이며, Range를 무시하거나(200)
+     * 원본이 바뀐 경우(If-Range 불일치) 원래 오류로 실패합니다.</p>
+     */
+    private class ResumableBodyStream extends InputStream {
+
+        private final URI uri;
+        private final long totalLength;
+        private final String validator;
+
+        private volatile InputStream current;
+        private volatile long lastProgressNanos = System.nanoTime();
+        private volatile boolean stalled;
+        private volatile boolean closed;
         private long bytesRead;
+        private long readNanos;
+        private int resumes;
+        private boolean timedOut;
 
-        protected ByteCountingInputStream(InputStream in) {
-            super(in);
+        ResumableBodyStream(URI uri, HttpResponse<InputStream> response, long totalLength) {
+            this.uri = uri;
+            this.current = response.body();
+            this.totalLength = totalLength;
+            this.validator = rangeValidator(response);
         }
 
         @Override
         public int read() throws IOException {
-            int result = super.read();
-            if (result >= 0) {
-                bytesRead++;
-            }
-            return result;
+            byte[] one = new byte[1];
+            int result = read(one, 0, 1);
+            return result < 0 ? -1 : one[0] & 0xFF;
         }
 
         @Override
         public int read(byte[] b, int off, int len) throws IOException {
-            int result = super.read(b, off, len);
-            if (result > 0) {
-                bytesRead += result;
+            if (len == 0) {
+                return 0;
+            }
+            long readStart = System.nanoTime();
+            try {
+                return readResuming(b, off, len);
+            } finally {
+                readNanos += System.nanoTime() - readStart;
+            }
+        }
+
+        private int readResuming(byte[] b, int off, int len) throws IOException {
+            while (true) {
+                try {
+                    int result = current.read(b, off, len);
+                    lastProgressNanos = System.nanoTime();
+                    if (result < 0 && totalLength >= 0 && bytesRead < totalLength) {
+                        throw new EOFException("Body ended at byte " + bytesRead + " of " + totalLength);
+                    }
+                    if (result > 0) {
+                        bytesRead += result;
+                    }
+                    return result;
+                } catch (IOException e) {
+                    if (closed) {
+                        throw e;
+                    }
+                    resume(e);
+                }
+            }
+        }
+
+        /**
+         * 남은 재시도 횟수 안에서 {@code bytesRead}부터 다시 요청합니다. 이어 받을 수 없으면 원래 오류를 던집니다.
+         */
+        private void resume(IOException cause) throws IOException {
+            boolean stalledFailure = stalled;
+            IOException failure = cause;
+
+            while (resumes < maxResumeAttempts && !closed) {
+                stalled = false;
+                closeQuietly(current);
+                resumes++;
+                metrics.recordResume();
+                log.warn("Download from {} interrupted at byte {} ({}), resuming with Range request (attempt {}/{})",
+                        uri, bytesRead, failure.toString(), resumes, maxResumeAttempts);
+                pause(resumeBackoffMs * resumes);
+
+                HttpRequest.Builder request = newRequest(uri).header("Range", "bytes=" + bytesRead + "-");
+                if (validator != null) {
+                    request.header("If-Range", validator);
+                }
+                lastProgressNanos = System.nanoTime();
+                HttpResponse<InputStream> response;
+                try {
+                    response = send(request.build());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while resuming download from " + uri);
+                } catch (IOException e) {
+                    failure = e;
+                    stalledFailure = false;
+                    continue;
+                }
+
+                if (isContinuation(response)) {
+                    current = response.body();
+                    lastProgressNanos = System.nanoTime();
+                    return;
+                }
+                closeQuietly(response.body());
+                log.warn("Cannot resume download from {}: status {}, Content-Range {}", uri, response.statusCode(),
+                        response.headers().firstValue("Content-Range").orElse("-"));
+                break;
+            }
+
+            if (stalledFailure) {
+                timedOut = true;
+                HttpTimeoutException timeout = new HttpTimeoutException(
+                        "No data received from " + uri + " for " + readTimeoutMs + "ms");
+                timeout.initCause(failure);
+                throw timeout;
+            }
+            throw failure;
+        }
+
+        private boolean isContinuation(HttpResponse<InputStream> response) {
+            if (response.statusCode() != 206) {
+                return false;
+            }
+            Matcher range = CONTENT_RANGE.matcher(response.headers().firstValue("Content-Range").orElse(""));
+            if (!range.matches() || Long.parseLong(range.group(1)) != bytesRead) {
+                return false;
             }
-            return result;
+            return totalLength < 0 || "*".equals(range.group(2)) || Long.parseLong(range.group(2)) == totalLength;
+        }
+
+        private void pause(long millis) throws InterruptedIOException {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while resuming download from " + uri);
+            }
+        }
+
+        /**
+         * 마지막 데이터 수신 후 {@code idleNanos}가 지났으면 현재 응답 본문만 닫습니다 (read에서 이어 받기 시도).
+         */
+        void abortIfIdle(long idleNanos) {
+            if (closed || System.nanoTime() - lastProgressNanos < idleNanos) {
+                return;
+            }
+            stalled = true;
+            lastProgressNanos = System.nanoTime();
+            closeQuietly(current);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            current.close();
+        }
+
+        boolean isTimedOut() {
+            return timedOut;
         }
 
         long getBytesRead() {
             return bytesRead;
         }
+
+        /**
+         * 본문(이어 받기 요청 포함)을 기다린 누적 시간
+         */
+        long getReadNanos() {
+            return readNanos;
+        }
+    }
+
+    /**
+     * If-Range에 사용할 validator. 약한 ETag는 If-Range에 쓸 수 없으므로 Last-Modified를 사용합니다.
+     */
+    private static String rangeValidator(HttpResponse<?> response) {
+        return response.headers().firstValue("ETag")
+                .filter(etag -> !etag.startsWith("W/"))
+                .or(() -> response.headers().firstValue("Last-Modified"))
+                .orElse(null);
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            log.debug("Failed to close download stream", e);
+        }
     }
 }
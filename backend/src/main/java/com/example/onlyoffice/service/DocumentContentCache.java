@@ -0,0 +1,696 @@
+package com.example.onlyoffice.service;
+
+import com.example.onlyoffice.entity.Document;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * MinIO 앞에 두는 노드 로컬 read-through 디스크 캐시.
+ *
+ * <p>같은 문서를 여러 번 여는 경우(인기 템플릿 등) MinIO 왕복 없이 로컬 디스크에서 내용을 전송합니다.
+ * 키는 {@code storagePath + editorVersion}이며, 저장 callback은 새 storage 경로에 쓰므로 내용이 바뀌면 키도 바뀝니다.</p>
+ *
+ * <ul>
+ *   <li>hit: 로컬 파일을 읽음. {@link #openLocal(Document)}는 {@link FileChannel}을 돌려주어 호출자가 {@code transferTo}로 전송</li>
+ *   <li>miss: 백그라운드 virtual thread 하나가 MinIO 객체를 임시(spool) 파일에 받고, 요청들은 그 파일을 따라 읽음.
+ *       끝까지 받아 크기가 일치하면 캐시에 추가. 요청이 중간에 끊겨도 받은 바이트가 있으면 다운로드는 계속되고,
+ *       아직 한 바이트도 받지 못한 채 마지막 요청이 떠나면 MinIO 스트림을 닫아 중단</li>
+ *   <li>single-flight: 같은 키의 다운로드가 진행 중이면 새 요청(구간 요청 포함)은 MinIO를 다시 호출하지 않고
+ *       spool 파일에 붙어 처음부터(구간이면 해당 위치부터) 읽음. 아직 받지 못한 부분은 도착할 때까지 대기.
+ *       다운로드가 실패하면 붙어 있는 요청 모두 {@link IOException}으로 실패</li>
+ *   <li>용량: 캐시 항목과 받고 있는 spool 파일을 합친 바이트 기준 {@code max-bytes}. 다운로드를 시작할 때 문서 크기만큼
+ *       자리를 예약하고, 넘으면 가장 오래 사용되지 않은 항목부터 삭제 (LRU). {@code max-bytes}보다 큰 파일은 캐시하지 않음</li>
+ *   <li>동시 다운로드: 최대 {@code max-inflight}개. 한도가 찼거나 진행 중인 spool만으로 용량이 차면
+ *       공유 없이 MinIO에서 직접 읽음</li>
+ *   <li>무효화: 저장 callback 커밋과 문서 삭제 시 {@link DocumentService}가 {@link #invalidate(String)} 호출</li>
+ *   <li>항목 목록은 메모리에만 있으므로 기동 시 캐시 디렉터리를 비움</li>
+ * </ul>
+ *
+ * <p>항목 삭제와 파일 열기는 같은 lock에서 수행하므로 연 뒤 삭제된 파일도 끝까지 읽을 수 있습니다 (POSIX).</p>
+ *
+ * <p><b>지표:</b></p>
+ * <ul>
+ *   <li>{@code storage.cache.requests}: 조회 수 (result=hit|miss|coalesced). coalesced는 진행 중인 다운로드에 붙은 요청</li>
+ *   <li>{@code storage.cache.evictions}: 삭제된 항목 수 (cause=size|invalidated)</li>
+ *   <li>{@code storage.cache.size}, {@code storage.cache.entries}: 현재 바이트 수와 항목 수 (spool 제외)</li>
+ *   <li>{@code storage.cache.inflight}: 진행 중인 MinIO 다운로드 수</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class DocumentContentCache {
+
+    private static final String ENTRY_SUFFIX = ".bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int FETCH_BUFFER_SIZE = 65536;
+
+    private final MinioStorageService storageService;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter sizeEvictions;
+    private final Counter invalidations;
+
+    // access-order: 순회 순서가 LRU 순서. entries와 totalBytes는 this lock으로 보호
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    // 받고 있는 spool 파일에 예약한 바이트, this lock으로 보호
+    private long spoolBytes;
+    // 진행 중인 MinIO 다운로드 (key -> fetch), this lock으로 보호
+    private final Map<String, Fetch> inflight = new HashMap<>();
+    private Path directory;
+
+    @Value("${storage.cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${storage.cache.path:${java.io.tmpdir}/onlyoffice-content-cache}")
+    private String path;
+
+    @Value("${storage.cache.max-bytes:1073741824}")
+    private long maxBytes = 1024L * 1024 * 1024;
+
+    @Value("${storage.cache.max-inflight:16}")
+    private int maxInflight = 16;
+
+    public DocumentContentCache(MinioStorageService storageService, MeterRegistry meterRegistry) {
+        this.storageService = storageService;
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.coalesced = requests(meterRegistry, "coalesced");
+        this.sizeEvictions = evictions(meterRegistry, "size");
+        this.invalidations = evictions(meterRegistry, "invalidated");
+        Gauge.builder("storage.cache.size", this, DocumentContentCache::cachedBytes)
+                .description("Bytes held in the local content cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("storage.cache.entries", this, DocumentContentCache::entryCount)
+                .description("Documents held in the local content cache")
+                .register(meterRegistry);
+        Gauge.builder("storage.cache.inflight", this, DocumentContentCache::inflightCount)
+                .description("MinIO downloads shared by concurrent readers")
+                .register(meterRegistry);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("storage.cache.requests")
+                .description("Local content cache lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter evictions(MeterRegistry meterRegistry, String cause) {
+        return Counter.builder("storage.cache.evictions")
+                .description("Entries removed from the local content cache")
+                .tag("cause", cause)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Local content cache disabled");
+            return;
+        }
+        directory = Path.of(path);
+        try {
+            Files.createDirectories(directory);
+            int removed = 0;
+            try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory)) {
+                for (Path leftover : leftovers) {
+                    if (Files.isRegularFile(leftover) && Files.deleteIfExists(leftover)) {
+                        removed++;
+                    }
+                }
+            }
+            log.info("Local content cache at {} (max {} bytes, removed {} leftover files)", directory, maxBytes, removed);
+        } catch (IOException e) {
+            log.warn("Local content cache disabled, cannot prepare {}", directory, e);
+            enabled = false;
+        }
+    }
+
+    /**
+     * 문서의 현재 내용을 엽니다. 캐시에 있으면 로컬 파일을 반환합니다.
+     * 없으면 진행 중인 다운로드에 붙거나 새 다운로드를 시작하여 spool 파일을 따라 읽는 스트림을 반환하며,
+     * 다운로드가 끝나면 캐시에 추가됩니다.
+     *
+     * @param document 대상 문서
+     * @return 문서 내용 스트림 (caller must close)
+     * @throws com.example.onlyoffice.exception.StorageException MinIO 다운로드 실패 시
+     */
+    public InputStream open(Document document) {
+        if (!enabled) {
+            return storageService.downloadFile(document.getStoragePath());
+        }
+
+        String key = cacheKey(document);
+        SpoolInputStream leader;
+        synchronized (this) {
+            FileChannel cached = openCached(key);
+            if (cached != null) {
+                hits.increment();
+                return Channels.newInputStream(cached);
+            }
+            Fetch running = inflight.get(key);
+            if (running != null) {
+                SpoolInputStream follower = attach(running, 0);
+                if (follower != null) {
+                    coalesced.increment();
+                    return follower;
+                }
+            }
+            misses.increment();
+            leader = cacheable(document) && reserveSpool(document.getFileSize()) ? begin(key, document) : null;
+        }
+
+        if (leader == null) {
+            return storageService.downloadFile(document.getStoragePath());
+        }
+        start(leader, document.getStoragePath());
+        return leader;
+    }
+
+    /**
+     * 문서 내용의 일부 구간을 엽니다. 캐시에 있으면 로컬 파일에서 읽고, 같은 문서의 다운로드가 진행 중이면 거기에 붙으며,
+     * 둘 다 아니면 MinIO에서 해당 구간만 읽습니다. 구간 요청으로는 다운로드를 시작하지 않습니다.
+     *
+     * @param document 대상 문서
+     * @param offset   시작 바이트 위치
+     * @param length   읽을 바이트 수
+     * @return 구간 스트림 (caller must close)
+     */
+    public InputStream openRange(Document document, long offset, long length) {
+        if (enabled) {
+            String key = cacheKey(document);
+            synchronized (this) {
+                FileChannel cached = openCached(key);
+                if (cached != null) {
+                    hits.increment();
+                    try {
+                        return new BoundedInputStream(Channels.newInputStream(cached.position(offset)), length);
+                    } catch (IOException e) {
+                        closeQuietly(cached);
+                        throw new UncheckedIOException("Failed to read cached content: " + document.getFileKey(), e);
+                    }
+                }
+                Fetch running = inflight.get(key);
+                if (running != null) {
+                    SpoolInputStream follower = attach(running, offset);
+                    if (follower != null) {
+                        coalesced.increment();
+                        return new BoundedInputStream(follower, length);
+                    }
+                }
+                misses.increment();
+            }
+        }
+        return storageService.downloadFile(document.getStoragePath(), offset, length);
+    }
+
+    /**
+     * 캐시된 문서 파일을 channel로 엽니다. {@link FileChannel#transferTo}로 복사 없이 전송할 때 사용합니다.
+     * miss이면 MinIO에서 읽지 않고 null을 반환하므로 호출자는 {@link #open}/{@link #openRange}로 대체합니다
+     * (miss 지표는 그쪽에서 기록).
+     *
+     * @param document 대상 문서
+     * @return 읽기 전용 channel (caller must close), 캐시에 없으면 null
+     */
+    public FileChannel openLocal(Document document) {
+        if (!enabled) {
+            return null;
+        }
+        FileChannel cached = openCached(cacheKey(document));
+        if (cached != null) {
+            hits.increment();
+        }
+        return cached;
+    }
+
+    /**
+     * 문서의 모든 캐시 항목을 삭제합니다. 저장 callback 커밋과 문서 삭제 후 호출합니다.
+     *
+     * @param fileKey 문서 식별자
+     */
+    public synchronized void invalidate(String fileKey) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.fileKey().equals(fileKey)) {
+                it.remove();
+                delete(entry);
+                invalidations.increment();
+                log.debug("Invalidated cached content for fileKey: {}", fileKey);
+            }
+        }
+        // 진행 중인 다운로드는 붙어 있는 요청에는 계속 전달하되 끝나도 캐시에 넣지 않음
+        inflight.values().removeIf(fetch -> fetch.fileKey.equals(fileKey));
+    }
+
+    private synchronized FileChannel openCached(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return FileChannel.open(entry.path(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            log.warn("Dropping unreadable cache entry {}", entry.path(), e);
+            entries.remove(key);
+            delete(entry);
+            return null;
+        }
+    }
+
+    private boolean cacheable(Document document) {
+        return document.getFileSize() != null && document.getFileSize() <= maxBytes;
+    }
+
+    /**
+     * 새 다운로드의 spool 자리를 예약합니다. 필요하면 LRU 항목을 삭제하여 캐시와 spool 합계를 {@code max-bytes} 안으로 맞춥니다.
+     * lock을 잡은 상태에서 호출합니다.
+     *
+     * @return 동시 다운로드 한도 안이고 spool을 둘 자리가 있으면 true
+     */
+    private boolean reserveSpool(long size) {
+        if (inflight.size() >= maxInflight || spoolBytes + size > maxBytes) {
+            log.debug("Not sharing download, {} in flight with {} spool bytes", inflight.size(), spoolBytes);
+            return false;
+        }
+        evictUntil(maxBytes - spoolBytes - size, null);
+        spoolBytes += size;
+        return true;
+    }
+
+    /**
+     * 새 다운로드를 등록하고 첫 요청이 읽을 스트림을 반환합니다. spool 파일을 만들 수 없으면 null (공유 없이 MinIO에서 직접 읽음).
+     * lock을 잡은 상태에서 호출합니다.
+     */
+    private SpoolInputStream begin(String key, Document document) {
+        Path temp = directory.resolve(fileName(key) + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            Files.createFile(temp);
+        } catch (IOException e) {
+            log.warn("Not caching {}, cannot create a temp file", document.getFileKey(), e);
+            spoolBytes -= document.getFileSize();
+            return null;
+        }
+        Fetch fetch = new Fetch(key, document.getFileKey(), temp, document.getFileSize());
+        SpoolInputStream leader = attach(fetch, 0);
+        if (leader == null) {
+            spoolBytes -= fetch.expectedSize;
+            deleteQuietly(temp);
+            return null;
+        }
+        inflight.put(key, fetch);
+        return leader;
+    }
+
+    // caller holds the lock, so the spool file is not yet moved or deleted. null if the fetch was aborted
+    private SpoolInputStream attach(Fetch fetch, long position) {
+        if (!fetch.addReader()) {
+            return null;
+        }
+        try {
+            return new SpoolInputStream(fetch, FileChannel.open(fetch.temp, StandardOpenOption.READ), position);
+        } catch (IOException e) {
+            log.warn("Cannot read spool file {}", fetch.temp, e);
+            fetch.removeReader();
+            return null;
+        }
+    }
+
+    /**
+     * MinIO 객체를 열고 spool 파일로 받는 작업을 백그라운드에서 시작합니다.
+     * 객체를 열지 못하면 다운로드를 실패로 끝내고 예외를 호출자에게 전달합니다.
+     */
+    private void start(SpoolInputStream leader, String storagePath) {
+        Fetch fetch = leader.fetch;
+        InputStream source;
+        try {
+            source = storageService.downloadFile(storagePath);
+        } catch (RuntimeException e) {
+            complete(fetch, new IOException("Failed to open " + storagePath, e));
+            closeQuietly(leader);
+            throw e;
+        }
+        fetch.attachSource(source);
+        Thread.ofVirtual().name("content-fetch-" + fetch.fileKey).start(() -> pump(fetch, source));
+    }
+
+    private void pump(Fetch fetch, InputStream source) {
+        IOException failure = null;
+        try (source; OutputStream out = Files.newOutputStream(fetch.temp)) {
+            byte[] buffer = new byte[FETCH_BUFFER_SIZE];
+            long total = 0;
+            int n;
+            while ((n = source.read(buffer)) != -1 && !fetch.isAborted()) {
+                out.write(buffer, 0, n);
+                total += n;
+                fetch.advance(total);
+            }
+            if (fetch.isAborted()) {
+                failure = new IOException("Download of " + fetch.fileKey + " aborted, no readers left");
+            } else if (total != fetch.expectedSize) {
+                failure = new IOException("Read " + total + " bytes of " + fetch.fileKey
+                        + " but expected " + fetch.expectedSize);
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException(e);
+        }
+        if (fetch.isAborted()) {
+            log.debug("Shared download of {} aborted before any bytes arrived, no readers left", fetch.fileKey);
+        } else if (failure != null) {
+            log.warn("Shared download failed for {}", fetch.fileKey, failure);
+        }
+        complete(fetch, failure);
+    }
+
+    /**
+     * 다운로드를 끝냅니다. 성공했고 무효화되지 않았으면 캐시에 등록한 뒤 대기 중인 요청을 깨우므로,
+     * 요청이 EOF를 받은 시점에는 다음 요청이 캐시 hit이 됩니다.
+     */
+    private void complete(Fetch fetch, IOException failure) {
+        synchronized (this) {
+            spoolBytes -= fetch.expectedSize;
+            if (inflight.remove(fetch.key, fetch) && failure == null) {
+                commit(fetch.key, fetch.fileKey, fetch.temp, fetch.expectedSize);
+            } else {
+                deleteQuietly(fetch.temp);
+            }
+        }
+        fetch.finish(failure);
+    }
+
+    /**
+     * 끝까지 기록된 임시 파일을 캐시 항목으로 등록하고, 용량을 넘으면 LRU 항목부터 삭제합니다.
+     */
+    private synchronized void commit(String key, String fileKey, Path temp, long size) {
+        if (entries.containsKey(key)) {
+            deleteQuietly(temp);
+            return;
+        }
+        Path target = directory.resolve(fileName(key) + ENTRY_SUFFIX);
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Failed to add {} to the local content cache", fileKey, e);
+            deleteQuietly(temp);
+            return;
+        }
+        entries.put(key, new Entry(fileKey, target, size));
+        totalBytes += size;
+        evictUntil(maxBytes - spoolBytes, key);
+    }
+
+    /**
+     * 캐시 항목 합계가 {@code limit} 이하가 될 때까지 LRU 항목부터 삭제합니다. lock을 잡은 상태에서 호출합니다.
+     *
+     * @param keep 삭제하지 않을 항목 (방금 추가한 항목, 없으면 null)
+     */
+    private void evictUntil(long limit, String keep) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (totalBytes > limit && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            it.remove();
+            delete(eldest.getValue());
+            sizeEvictions.increment();
+        }
+    }
+
+    // caller holds the lock
+    private void delete(Entry entry) {
+        totalBytes -= entry.size();
+        deleteQuietly(entry.path());
+    }
+
+    synchronized long cachedBytes() {
+        return totalBytes;
+    }
+
+    synchronized int entryCount() {
+        return entries.size();
+    }
+
+    synchronized int inflightCount() {
+        return inflight.size();
+    }
+
+    private static String cacheKey(Document document) {
+        return document.getStoragePath() + "@v" + document.getEditorVersion();
+    }
+
+    private static String fileName(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete cache file {}", path, e);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.debug("Failed to close cached content stream", e);
+        }
+    }
+
+    private record Entry(String fileKey, Path path, long size) {
+    }
+
+    /**
+     * spool 파일로 받고 있는 MinIO 다운로드 하나. 받은 바이트 수, 완료 여부, 읽는 요청 수는 이 객체의 monitor로 보호합니다.
+     */
+    private static final class Fetch {
+
+        private final String key;
+        private final String fileKey;
+        private final Path temp;
+        private final long expectedSize;
+        private long written;
+        private boolean done;
+        private IOException failure;
+        private int readers;
+        private boolean aborted;
+        private InputStream source;
+
+        Fetch(String key, String fileKey, Path temp, long expectedSize) {
+            this.key = key;
+            this.fileKey = fileKey;
+            this.temp = temp;
+            this.expectedSize = expectedSize;
+        }
+
+        /**
+         * @return 요청을 붙였으면 true, 이미 중단된 다운로드이면 false
+         */
+        synchronized boolean addReader() {
+            if (aborted) {
+                return false;
+            }
+            readers++;
+            return true;
+        }
+
+        /**
+         * 요청이 떠납니다. 마지막 요청이 떠날 때까지 한 바이트도 받지 못했으면 다운로드를 중단합니다
+         * (MinIO 스트림을 닫아 멈춘 read도 깨움). 받은 바이트가 있으면 캐시를 위해 끝까지 받습니다.
+         */
+        void removeReader() {
+            InputStream toClose;
+            synchronized (this) {
+                if (--readers > 0 || done || aborted || written > 0) {
+                    return;
+                }
+                aborted = true;
+                toClose = source;
+            }
+            if (toClose != null) {
+                closeQuietly(toClose);
+            }
+        }
+
+        synchronized boolean isAborted() {
+            return aborted;
+        }
+
+        void attachSource(InputStream source) {
+            synchronized (this) {
+                if (!aborted) {
+                    this.source = source;
+                    return;
+                }
+            }
+            closeQuietly(source);
+        }
+
+        synchronized void advance(long written) {
+            this.written = written;
+            notifyAll();
+        }
+
+        synchronized void finish(IOException failure) {
+            this.done = true;
+            this.failure = failure;
+            notifyAll();
+        }
+
+        /**
+         * {@code position} 이후 바이트가 도착하거나 다운로드가 끝날 때까지 대기합니다.
+         *
+         * @return 지금까지 받은 바이트 수 ({@code position} 이하이면 다운로드 완료 = EOF)
+         * @throws IOException 다운로드가 실패한 경우
+         */
+        synchronized long awaitBeyond(long position) throws IOException {
+            try {
+                while (written <= position && !done) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for " + fileKey);
+            }
+            if (failure != null) {
+                throw new IOException("Shared download failed for " + fileKey, failure);
+            }
+            return written;
+        }
+    }
+
+    /**
+     * 진행 중인 다운로드의 spool 파일을 받은 만큼 따라 읽는 스트림. 요청마다 자기 channel과 위치를 가집니다.
+     */
+    private static final class SpoolInputStream extends InputStream {
+
+        private final Fetch fetch;
+        private final FileChannel channel;
+        private long position;
+        private boolean closed;
+
+        SpoolInputStream(Fetch fetch, FileChannel channel, long position) {
+            this.fetch = fetch;
+            this.channel = channel;
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (len == 0) {
+                return 0;
+            }
+            long available = fetch.awaitBeyond(position);
+            if (position >= available) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, available - position)), position);
+            if (n < 0) {
+                throw new EOFException("Spool file for " + fetch.fileKey + " ended at " + position);
+            }
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.close();
+            } finally {
+                fetch.removeReader();
+            }
+        }
+    }
+
+    /**
+     * 최대 {@code remaining} 바이트만 읽는 스트림.
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.onlyoffice.service;
+
+import com.example.onlyoffice.entity.Document;
+import com.example.onlyoffice.entity.OrphanedObject;
+import com.example.onlyoffice.exception.DocumentNotFoundException;
+import com.example.onlyoffice.repository.DocumentRepository;
+import com.example.onlyoffice.repository.OrphanedObjectRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * 저장 callback의 staging 객체를 문서의 현재 내용으로 교체하는 서비스.
+ *
+ * <p>callback 저장은 두 단계로 나뉩니다.</p>
+ * <ol>
+ *   <li>{@link DocumentService}가 락 없이 새 내용을 staging 경로로 다운로드</li>
+ *   <li>{@link #commit}이 짧은 트랜잭션에서 행 락을 잡고 {@code storagePath}/{@code editorVersion}만 갱신</li>
+ * </ol>
+ *
+ * <p>staging 경로는 다운로드 전에 {@link OrphanedObject}로 등록되어, 커밋 전에 프로세스가 죽어도
+ * {@code staging-grace-seconds} 후 정리됩니다. 커밋하면 staging 경로는 등록에서 빠지고 교체된 이전 경로가
+ * {@code grace-seconds} 후 삭제되도록 같은 트랜잭션에서 등록됩니다.</p>
+ *
+ * <p>staging 객체의 SHA-256이 현재 내용과 같으면 교체하지 않고 staging 객체를 버립니다. FORCESAVE는 행도
+ * 갱신하지 않아 {@code updatedAt}/{@code version}이 바뀌지 않으며, SAVE는 세션 종료를 반영하도록 editorVersion만
+ * 올립니다. 건너뛴 크기는 {@code callback.save.unchanged.bytes}로 집계합니다.</p>
+ *
+ * @see OrphanedObjectCollector
+ */
+@Slf4j
+@Service
+@Transactional
+public class DocumentRevisionService {
+
+    /**
+     * {@link #commit} 결과
+     */
+    public enum CommitResult {
+        /** staging 객체가 문서의 현재 내용이 됨 */
+        COMMITTED,
+        /** 현재 내용과 같아 교체하지 않음 (staging 객체는 버려야 함) */
+        UNCHANGED,
+        /** 다운로드 중 다른 저장이 먼저 커밋됨 (staging 객체는 버려야 함) */
+        SUPERSEDED
+    }
+
+    /**
+     * 행 락을 잡은 뒤에는 DB 갱신만 하므로 callback 대기 시간(60초)과 무관하게 짧게 유지.
+     */
+    private static final int COMMIT_TRANSACTION_TIMEOUT_SECONDS = 5;
+
+    private final DocumentRepository documentRepository;
+    private final OrphanedObjectRepository orphanedObjectRepository;
+    private final MinioStorageService storageService;
+    private final Counter unchangedSaves;
+    private final Counter unchangedBytes;
+
+    @Value("${storage.gc.grace-seconds:600}")
+    private long graceSeconds = 600;
+
+    @Value("${storage.gc.staging-grace-seconds:3600}")
+    private long stagingGraceSeconds = 3600;
+
+    public DocumentRevisionService(DocumentRepository documentRepository,
+                                   OrphanedObjectRepository orphanedObjectRepository,
+                                   MinioStorageService storageService,
+                                   MeterRegistry meterRegistry) {
+        this.documentRepository = documentRepository;
+        this.orphanedObjectRepository = orphanedObjectRepository;
+        this.storageService = storageService;
+        this.unchangedSaves = Counter.builder("callback.save.unchanged")
+                .description("Callback saves skipped because the content matched the current version")
+                .register(meterRegistry);
+        this.unchangedBytes = Counter.builder("callback.save.unchanged.bytes")
+                .description("Bytes of callback saves skipped because the content matched the current version")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 다운로드를 시작하기 전에 staging 경로를 삭제 예정으로 등록합니다.
+     * 커밋되지 않은 채 남으면 {@code staging-grace-seconds} 후 정리됩니다.
+     */
+    public void registerStaging(String stagingPath) {
+        orphanedObjectRepository.save(
+                new OrphanedObject(stagingPath, LocalDateTime.now().plusSeconds(stagingGraceSeconds)));
+    }
+
+    /**
+     * staging 객체를 문서의 현재 내용으로 교체합니다.
+     *
+     * <p>다운로드하는 동안 다른 저장이 먼저 커밋되어 editorVersion이 바뀌었으면 오래된 내용이므로 교체하지 않습니다.</p>
+     *
+     * @param expectedVersion 다운로드를 시작할 때 읽은 editorVersion
+     * @param download        staging 객체의 크기(0 이하면 기존 값 유지)와 내용 hash
+     * @param newVersion      true이면 editorVersion 증가 (SAVE), false이면 유지 (FORCESAVE)
+     * @return {@link CommitResult#COMMITTED}가 아니면 staging 객체는 사용되지 않음
+     */
+    @Transactional(timeout = COMMIT_TRANSACTION_TIMEOUT_SECONDS)
+    public CommitResult commit(String fileKey, int expectedVersion, String stagingPath,
+                               UrlDownloadService.DownloadResult download, boolean newVersion) {
+        long lockStart = System.nanoTime();
+        Document document = documentRepository.findWithLockByFileKey(fileKey)
+                .orElseThrow(() -> new DocumentNotFoundException("Document not found for fileKey: " + fileKey));
+        SaveTimings.record(SaveTimings.Phase.LOCK, System.nanoTime() - lockStart);
+
+        if (document.getEditorVersion() != expectedVersion) {
+            log.info("Discarding staged content superseded during download. fileKey: {}, expected version: {}, current: {}",
+                    fileKey, expectedVersion, document.getEditorVersion());
+            return CommitResult.SUPERSEDED;
+        }
+
+        if (download.contentHash() != null && download.contentHash().equals(document.getContentHash())) {
+            unchangedSaves.increment();
+            unchangedBytes.increment(Math.max(download.fileSize(), 0));
+            log.info("Content unchanged, keeping current object. fileKey: {}, hash: {}", fileKey, download.contentHash());
+            if (newVersion) {
+                document.incrementEditorVersion();
+                documentRepository.save(document);
+            }
+            return CommitResult.UNCHANGED;
+        }
+
+        String previousPath = document.getStoragePath();
+        document.setStoragePath(stagingPath);
+        document.setContentHash(download.contentHash());
+        if (download.fileSize() > 0) {
+            document.setFileSize(download.fileSize());
+        }
+        if (newVersion) {
+            document.incrementEditorVersion();
+        }
+        documentRepository.save(document);
+
+        orphanedObjectRepository.deleteByStoragePath(stagingPath);
+        if (!previousPath.equals(stagingPath)) {
+            orphanedObjectRepository.save(
+                    new OrphanedObject(previousPath, LocalDateTime.now().plusSeconds(graceSeconds)));
+        }
+        return CommitResult.COMMITTED;
+    }
+
+    /**
+     * 커밋하지 않을 staging 객체를 바로 삭제합니다.
+     * 스토리지 삭제에 실패하면 등록을 남겨 {@link OrphanedObjectCollector}가 다시 시도하게 합니다.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void discard(String stagingPath) {
+        try {
+            storageService.deleteFile(stagingPath);
+            orphanedObjectRepository.deleteByStoragePath(stagingPath);
+        } catch (Exception e) {
+            log.warn("Failed to discard staging object {}, leaving it to garbage collection", stagingPath, e);
+            orphanedObjectRepository.reschedule(stagingPath, LocalDateTime.now());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.onlyoffice.service;
 
 import com.example.onlyoffice.entity.Document;
 import com.example.onlyoffice.entity.DocumentStatus;
+import com.example.onlyoffice.exception.CallbackRejectedException;
 import com.example.onlyoffice.exception.DocumentDeleteException;
 import com.example.onlyoffice.exception.DocumentNotFoundException;
 import com.example.onlyoffice.exception.DocumentUploadException;
@@ -13,6 +14,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
@@ -21,6 +23,7 @@ import java.io.InputStream;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.UUID;
 
 @Slf4j
 @Service
@@ -32,17 +35,13 @@ public class DocumentService {
     private static final String DEFAULT_UPLOADER = "anonymous";
     private static final Sort ACTIVE_DOCUMENT_SORT = Sort.by(Sort.Direction.DESC, "createdAt");
 
-    /**
-     * ONLYOFFICE Document Server는 60초 내 응답을 기대함.
-     * 5초 버퍼를 추가하여 네트워크 지연 및 파일 다운로드 시간 허용.
-     */
-    private static final int CALLBACK_TRANSACTION_TIMEOUT_SECONDS = 65;
-
     private final DocumentRepository documentRepository;
     private final FileSecurityService fileSecurityService;
     private final MinioStorageService storageService;
     private final UrlDownloadService urlDownloadService;
     private final DocumentManager documentManager;
+    private final DocumentRevisionService revisionService;
+    private final DocumentContentCache contentCache;
 
     @Transactional(readOnly = true)
     public Optional<Document> findByFileKey(String fileKey) {
@@ -110,6 +109,7 @@ public class DocumentService {
 
         // Hibernate 7 @SoftDelete: delete() sets deleted_at automatically
         documentRepository.delete(document);
+        contentCache.invalidate(document.getFileKey());
 
         try {
             storageService.deleteFile(storagePath);
@@ -131,49 +131,129 @@ public class DocumentService {
         return storageService.downloadFile(document.getStoragePath());
     }
 
-    @Transactional(timeout = CALLBACK_TRANSACTION_TIMEOUT_SECONDS)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void processCallbackSave(String downloadUrl, String fileKey) {
-        Document document = getDocumentWithLockOrThrow(fileKey);
+        processCallbackSave(downloadUrl, fileKey, null);
+    }
+
+    /**
+     * SAVE callback 처리. documentKey가 현재 editor key와 다르면 이미 반영된 세션의
+     * callback(journal replay, Document Server 재전송)이므로 editorVersion을 다시 올리지 않고 건너뜁니다.
+     *
+     * <p>다운로드는 트랜잭션과 행 락 없이 staging 경로로 받고, 교체와 버전 증가만 짧은 트랜잭션에서 수행합니다.</p>
+     *
+     * @param documentKey callback의 key (null이면 검사하지 않음)
+     * @see DocumentRevisionService#commit
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void processCallbackSave(String downloadUrl, String fileKey, String documentKey) {
+        Document document = getDocumentOrThrow(fileKey);
 
-        log.info("Processing SAVE callback with lock for fileKey: {}", fileKey);
+        if (isStaleCallback(document, documentKey)) {
+            log.info("Skipping already applied SAVE callback. fileKey: {}, key: {}, current version: {}",
+                    fileKey, documentKey, document.getEditorVersion());
+            return;
+        }
 
-        saveDocumentFromUrl(downloadUrl, document);
+        log.info("Processing SAVE callback for fileKey: {}", fileKey);
 
         int oldVersion = document.getEditorVersion();
-        document.incrementEditorVersion();
-        documentRepository.save(document);
-
-        log.info("SAVE callback completed. fileKey: {}, version: {} -> {}",
-                fileKey, oldVersion, document.getEditorVersion());
+        if (saveRevisionFromUrl(downloadUrl, document, true)) {
+            log.info("SAVE callback completed. fileKey: {}, version: {} -> {}",
+                    fileKey, oldVersion, oldVersion + 1);
+        }
     }
 
-    @Transactional(timeout = CALLBACK_TRANSACTION_TIMEOUT_SECONDS)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void processCallbackForceSave(String downloadUrl, String fileKey) {
-        Document document = getDocumentWithLockOrThrow(fileKey);
+        processCallbackForceSave(downloadUrl, fileKey, null);
+    }
+
+    /**
+     * FORCESAVE callback 처리. documentKey가 현재 editor key와 다르면 이미 SAVE로 종료된 세션의
+     * callback이므로, 최신 내용을 이전 스냅샷으로 덮어쓰지 않도록 건너뜁니다.
+     *
+     * @param documentKey callback의 key (null이면 검사하지 않음)
+     * @see DocumentRevisionService#commit
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void processCallbackForceSave(String downloadUrl, String fileKey, String documentKey) {
+        Document document = getDocumentOrThrow(fileKey);
+
+        if (isStaleCallback(document, documentKey)) {
+            log.info("Skipping FORCESAVE callback for a closed session. fileKey: {}, key: {}, current version: {}",
+                    fileKey, documentKey, document.getEditorVersion());
+            return;
+        }
 
-        log.info("Processing FORCESAVE callback with lock for fileKey: {}", fileKey);
+        log.info("Processing FORCESAVE callback for fileKey: {}", fileKey);
 
-        saveDocumentFromUrl(downloadUrl, document);
+        if (saveRevisionFromUrl(downloadUrl, document, false)) {
+            log.info("FORCESAVE callback completed. fileKey: {}, version unchanged: {}",
+                    fileKey, document.getEditorVersion());
+        }
+    }
 
-        log.info("FORCESAVE callback completed. fileKey: {}, version unchanged: {}",
-                fileKey, document.getEditorVersion());
+    /**
+     * callback key를 현재 editor key와 비교합니다.
+     * SAVE가 커밋되면 editorVersion이 증가하므로 이전 세션의 key는 더 이상 일치하지 않습니다.
+     * 다운로드 중 다른 저장이 커밋되는 경우는 {@link DocumentRevisionService#commit}이 행 락을 잡고 다시 확인합니다.
+     */
+    private boolean isStaleCallback(Document document, String documentKey) {
+        if (documentKey == null) {
+            return false;
+        }
+        return !documentKey.equals(KeyUtils.generateEditorKey(document.getFileKey(), document.getEditorVersion()));
     }
 
-    private void saveDocumentFromUrl(String downloadUrl, Document document) {
-        log.info("Downloading file from {} for fileKey {}", downloadUrl, document.getFileKey());
+    /**
+     * 새 내용을 staging 경로로 다운로드한 뒤 문서의 현재 내용으로 교체합니다.
+     * 교체하지 않으면(내용이 같거나 다른 저장이 먼저 커밋됨) staging 객체를 삭제합니다.
+     *
+     * @param newVersion true이면 editorVersion 증가 (SAVE)
+     * @return 저장이 반영되었으면 true, 다운로드 중 다른 저장이 먼저 커밋되어 건너뛰었으면 false
+     */
+    private boolean saveRevisionFromUrl(String downloadUrl, Document document, boolean newVersion) {
+        String fileKey = document.getFileKey();
+        String stagingPath = buildRevisionPath(fileKey, document.getFileName());
+        log.info("Downloading file from {} for fileKey {} to {}", downloadUrl, fileKey, stagingPath);
 
+        revisionService.registerStaging(stagingPath);
+        DocumentRevisionService.CommitResult result = null;
         try {
-            UrlDownloadService.DownloadResult result = urlDownloadService.downloadAndSave(
-                    downloadUrl, document.getStoragePath());
-
-            if (result.fileSize() > 0) {
-                document.setFileSize(result.fileSize());
+            UrlDownloadService.DownloadResult download = urlDownloadService.downloadAndSave(downloadUrl, stagingPath);
+            result = commitTimed(fileKey, document.getEditorVersion(), stagingPath, download, newVersion);
+            if (result == DocumentRevisionService.CommitResult.COMMITTED) {
+                contentCache.invalidate(fileKey);
+                log.info("File saved successfully for fileKey: {}", fileKey);
             }
-            documentRepository.save(document);
-            log.info("File saved successfully for fileKey: {}", document.getFileKey());
+            return result != DocumentRevisionService.CommitResult.SUPERSEDED;
+        } catch (DocumentNotFoundException | CallbackRejectedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error downloading file from {}", downloadUrl, e);
             throw new RuntimeException("Failed to save document from URL", e);
+        } finally {
+            if (result != DocumentRevisionService.CommitResult.COMMITTED) {
+                revisionService.discard(stagingPath);
+            }
+        }
+    }
+
+    /**
+     * {@link DocumentRevisionService#commit}을 호출하고, 행 락 대기를 뺀 시간(쓰기와 트랜잭션 커밋)을
+     * {@link SaveTimings.Phase#COMMIT}으로 기록합니다. 트랜잭션은 proxy에서 커밋되므로 호출 밖에서 측정합니다.
+     */
+    private DocumentRevisionService.CommitResult commitTimed(String fileKey, int expectedVersion, String stagingPath,
+                                                             UrlDownloadService.DownloadResult download,
+                                                             boolean newVersion) {
+        long lockBefore = SaveTimings.recorded(SaveTimings.Phase.LOCK);
+        long start = System.nanoTime();
+        try {
+            return revisionService.commit(fileKey, expectedVersion, stagingPath, download, newVersion);
+        } finally {
+            long lockWait = SaveTimings.recorded(SaveTimings.Phase.LOCK) - lockBefore;
+            SaveTimings.record(SaveTimings.Phase.COMMIT, System.nanoTime() - start - lockWait);
         }
     }
 
@@ -192,11 +272,6 @@ public class DocumentService {
                 .orElseThrow(() -> new DocumentNotFoundException("Document not found for fileKey: " + fileKey));
     }
 
-    private Document getDocumentWithLockOrThrow(String fileKey) {
-        return documentRepository.findWithLockByFileKey(fileKey)
-                .orElseThrow(() -> new DocumentNotFoundException("Document not found for fileKey: " + fileKey));
-    }
-
     private String extractExtension(String filename) {
         int dotIndex = filename.lastIndexOf('.');
         if (dotIndex == -1) {
@@ -232,6 +307,13 @@ public class DocumentService {
         return DEFAULT_STORAGE_PREFIX + "/" + fileKey + "/" + sanitizedFilename;
     }
 
+    /**
+     * 저장 callback마다 새 경로를 사용하여 교체 전까지 기존 객체를 건드리지 않습니다.
+     */
+    private String buildRevisionPath(String fileKey, String fileName) {
+        return DEFAULT_STORAGE_PREFIX + "/" + fileKey + "/" + UUID.randomUUID() + "/" + fileName;
+    }
+
     private String resolveCreatedBy(String createdBy) {
         return StringUtils.hasText(createdBy) ? createdBy : DEFAULT_UPLOADER;
     }
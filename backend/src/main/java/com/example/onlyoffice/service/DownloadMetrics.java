@@ -0,0 +1,84 @@
+package com.example.onlyoffice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Document Server 다운로드 Micrometer 지표.
+ *
+ * <ul>
+ *   <li>{@code callback.download.permit.wait}: host별 동시 다운로드 허용을 기다린 시간</li>
+ *   <li>{@code callback.download.ttfb}: 요청 전송부터 응답 헤더 수신까지 (HTTP version별).
+ *       JDK 클라이언트는 연결 수립 시간을 따로 노출하지 않으므로 새 연결이 필요한 요청은 connect/TLS 시간이 포함됩니다.
+ *       pool된 연결을 재사용한 요청과의 차이가 연결 수립 비용입니다.</li>
+ *   <li>{@code callback.download.transfer}: 응답 본문을 스토리지로 옮기는 시간 (outcome별)</li>
+ *   <li>{@code callback.download.size}: 다운로드한 파일 크기 분포</li>
+ *   <li>{@code callback.download.resumes}: 끊기거나 멈춘 본문을 Range 요청으로 이어 받은 시도 횟수</li>
+ * </ul>
+ *
+ * @see DefaultUrlDownloadService
+ */
+class DownloadMetrics {
+
+    static final String SUCCESS = "success";
+    static final String FAILURE = "failure";
+
+    private final MeterRegistry meterRegistry;
+    private final Timer permitWait;
+    private final Map<String, Timer> ttfbTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> transferTimers = new ConcurrentHashMap<>();
+    private final DistributionSummary size;
+    private final Counter resumes;
+
+    DownloadMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.permitWait = Timer.builder("callback.download.permit.wait")
+                .description("Time a download waited for a per-host concurrency permit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.size = DistributionSummary.builder("callback.download.size")
+                .description("Bytes downloaded from Document Server per saved file")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.resumes = Counter.builder("callback.download.resumes")
+                .description("Range requests issued to resume an interrupted download")
+                .register(meterRegistry);
+    }
+
+    void recordPermitWait(long nanos) {
+        permitWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordTimeToFirstByte(String version, long nanos) {
+        ttfbTimers.computeIfAbsent(version, v -> Timer.builder("callback.download.ttfb")
+                        .description("Time from sending the request to receiving response headers (includes connect for new connections)")
+                        .tag("version", v)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordTransfer(String outcome, long nanos) {
+        transferTimers.computeIfAbsent(outcome, o -> Timer.builder("callback.download.transfer")
+                        .description("Time spent streaming the response body into storage")
+                        .tag("outcome", o)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordSize(long bytes) {
+        size.record(bytes);
+    }
+
+    void recordResume() {
+        resumes.increment();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.onlyoffice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 현재 편집 중인 문서의 in-memory 목록.
+ *
+ * <p>Document Server의 EDITING(status 1) callback으로 세션을 열고, CLOSED(status 4) 또는 SAVE(status 2)로 닫습니다.
+ * 세션에는 열 때 읽은 문서 메타데이터(파일 크기)를 함께 보관하여, 세션 중 저장 callback이 예상 바이트를
+ * 구하려고 매번 DB를 읽지 않게 합니다. FORCESAVE가 커밋되면 {@link #updateFileSize}로 새 크기를 반영합니다.</p>
+ *
+ * <ul>
+ *   <li>인스턴스마다 따로 관리됩니다. 다른 인스턴스로 간 callback의 세션은 보이지 않음</li>
+ *   <li>세션을 닫는 callback이 유실될 수 있으므로 {@code max-age-hours} 동안 EDITING이 없던 세션은 만료</li>
+ *   <li>{@code callback.sessions.active}: 열린 세션 수</li>
+ * </ul>
+ *
+ * @see CallbackQueueService#prewarm(String)
+ * @see CallbackQueueService#release(String)
+ */
+@Slf4j
+@Service
+public class EditingSessionRegistry {
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+
+    @Value("${callback.sessions.max-age-hours:24}")
+    private long maxAgeHours = 24;
+
+    public EditingSessionRegistry(MeterRegistry meterRegistry) {
+        Gauge.builder("callback.sessions.active", sessions, Map::size)
+                .description("Documents with an open editing session")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 세션을 열거나, 이미 열려 있으면 editor key와 사용자 목록을 갱신합니다.
+     *
+     * @param fileKey     문서 식별자
+     * @param documentKey 세션의 editor key
+     * @param fileSize    세션 시작 시점의 저장된 파일 크기
+     * @param users       편집 중인 사용자 ID (없으면 null)
+     * @return 열린 세션
+     */
+    public Session open(String fileKey, String documentKey, long fileSize, List<String> users) {
+        Instant now = Instant.now();
+        List<String> editors = users != null ? List.copyOf(users) : List.of();
+        return sessions.compute(fileKey, (key, existing) -> existing == null
+                ? new Session(key, documentKey, fileSize, editors, now, now)
+                : new Session(key, documentKey, existing.fileSize(), editors, existing.openedAt(), now));
+    }
+
+    /**
+     * 열린 세션의 파일 크기를 갱신합니다. 세션 중 FORCESAVE가 커밋되어 저장된 파일이 바뀐 뒤 호출합니다.
+     *
+     * @param fileKey  문서 식별자
+     * @param fileSize 새로 저장된 파일 크기
+     * @return 열린 세션이 있었으면 true
+     */
+    public boolean updateFileSize(String fileKey, long fileSize) {
+        return sessions.computeIfPresent(fileKey, (key, existing) -> new Session(key, existing.documentKey(),
+                fileSize, existing.users(), existing.openedAt(), existing.lastSeenAt())) != null;
+    }
+
+    /**
+     * 세션을 닫습니다.
+     *
+     * @return 열린 세션이 있었으면 true
+     */
+    public boolean close(String fileKey) {
+        return sessions.remove(fileKey) != null;
+    }
+
+    public Optional<Session> find(String fileKey) {
+        return Optional.ofNullable(sessions.get(fileKey));
+    }
+
+    public boolean isEditing(String fileKey) {
+        return sessions.containsKey(fileKey);
+    }
+
+    /**
+     * @return 열린 세션 목록 (스냅샷)
+     */
+    public List<Session> activeSessions() {
+        return List.copyOf(sessions.values());
+    }
+
+    /**
+     * {@code max-age-hours} 동안 EDITING callback이 없던 세션을 정리합니다.
+     * CLOSED/SAVE callback이 유실되어도 목록이 계속 커지지 않게 하는 안전장치입니다.
+     *
+     * @return 정리한 세션 수
+     */
+    @Scheduled(fixedDelayString = "${callback.sessions.sweep-interval-ms:60000}")
+    public int expireStale() {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(maxAgeHours));
+        int expired = 0;
+        for (Session session : sessions.values()) {
+            if (session.lastSeenAt().isBefore(cutoff) && sessions.remove(session.fileKey(), session)) {
+                expired++;
+                log.info("Expired editing session without a closing callback: fileKey={}, openedAt={}",
+                        session.fileKey(), session.openedAt());
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 편집 세션 하나.
+     *
+     * @param fileKey     문서 식별자
+     * @param documentKey 마지막 EDITING callback의 editor key
+     * @param fileSize    현재 저장된 파일 크기 (세션을 열 때 읽고 FORCESAVE마다 갱신, 저장 callback의 예상 바이트)
+     * @param users       마지막 EDITING callback 기준 편집 중인 사용자
+     * @param openedAt    세션을 연 시각
+     * @param lastSeenAt  마지막 EDITING callback 시각
+     */
+    public record Session(String fileKey, String documentKey, long fileSize, List<String> users,
+                          Instant openedAt, Instant lastSeenAt) {
+    }
+}
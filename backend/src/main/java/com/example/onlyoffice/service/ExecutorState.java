@@ -17,7 +17,8 @@ import java.util.concurrent.ExecutorService;
  *   <li>Active → Idle: 비활성 시간 threshold 초과 후</li>
  *   <li>Idle → Active: 새로운 작업 도착 시 (재활성화)</li>
  *   <li>Idle → ShuttingDown: Cleanup 단계 중</li>
- *   <li>Active → (ShuttingDown으로 직접 전환 불가)</li>
+ *   <li>Active/Idle → ShuttingDown: 편집 세션 종료 후 대기 작업이 없을 때 ({@link ManagedExecutor#tryRelease})</li>
+ *   <li>Active → (idle cleanup으로는 ShuttingDown 직접 전환 불가)</li>
  * </ul>
  *
  * <p><b>설계 이점:</b></p>
@@ -0,0 +1,143 @@
+package com.example.onlyoffice.service;
+
+import com.example.onlyoffice.entity.Document;
+import com.example.onlyoffice.exception.StorageException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 파일 내용을 Document Server와 브라우저에 전달하는 방식을 결정하는 서비스.
+ *
+ * <p><b>전달 모드 ({@code minio.delivery.mode}):</b></p>
+ * <ul>
+ *   <li>{@code stream}: 기존 방식. {@code /files/{fileKey}}가 MinIO 내용을 JVM을 거쳐 스트리밍</li>
+ *   <li>{@code redirect}: {@code /files/{fileKey}}가 presigned MinIO URL로 302 응답.
+ *       editor config의 URL은 그대로이고 본문은 MinIO가 직접 전송</li>
+ *   <li>{@code direct}: editor config의 file URL 자체를 presigned MinIO URL로 전달하여 redirect 왕복도 생략.
+ *       {@code /files/{fileKey}}는 redirect 모드처럼 동작</li>
+ * </ul>
+ *
+ * <p>redirect/direct 모드에서는 MinIO endpoint({@code minio.endpoint})가 Document Server와 브라우저에서 접근 가능해야 합니다.
+ * presigned URL 서명에 host가 포함되므로 URL을 다른 host로 바꿔 쓸 수 없습니다.</p>
+ *
+ * <p><b>Presigned URL 캐시:</b> storage 경로별로 생성한 URL을 재사용합니다. 저장 callback은 새 경로에 쓰므로
+ * 내용이 바뀌면 자연히 새 URL이 생성됩니다. 만료까지 {@code refresh-margin-seconds}보다 적게 남은 URL은
+ * 내주지 않고 다시 생성하여, 받은 쪽이 최소한 그만큼은 쓸 수 있게 합니다.
+ * 캐시가 {@code cache-max-entries}에 도달하면 만료 임박 항목을 정리하고, 그래도 가득 차 있으면 캐시 없이 생성합니다.</p>
+ *
+ * <p>URL 생성에 실패하면 빈 값을 반환하여 호출자가 스트리밍으로 대체합니다.</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileDeliveryService {
+
+    private final MinioStorageService storageService;
+    private final Map<String, PresignedUrl> cache = new ConcurrentHashMap<>();
+
+    @Value("${minio.delivery.mode:stream}")
+    private DeliveryMode mode = DeliveryMode.STREAM;
+
+    @Value("${minio.delivery.refresh-margin-seconds:300}")
+    private long refreshMarginSeconds = 300;
+
+    @Value("${minio.delivery.cache-max-entries:10000}")
+    private int cacheMaxEntries = 10000;
+
+    /**
+     * @return {@code /files/{fileKey}} GET을 presigned URL로 redirect해야 하면 true
+     */
+    public boolean redirectsDownloads() {
+        return mode != DeliveryMode.STREAM;
+    }
+
+    /**
+     * @return editor config의 file URL을 presigned URL로 전달해야 하면 true
+     */
+    public boolean presignsEditorUrls() {
+        return mode == DeliveryMode.DIRECT;
+    }
+
+    /**
+     * 문서의 현재 내용을 가리키는 presigned URL을 반환합니다.
+     *
+     * @param document 대상 문서
+     * @return presigned URL (생성 실패 시 빈 값)
+     */
+    public Optional<String> presignedUrl(Document document) {
+        String storagePath = document.getStoragePath();
+        long now = System.currentTimeMillis();
+        PresignedUrl cached = cache.get(storagePath);
+        if (cached != null && cached.usableAt(now)) {
+            return Optional.of(cached.url());
+        }
+
+        try {
+            String url = storageService.generatePresignedUrl(storagePath, document.getFileName());
+            long expiryMs = TimeUnit.SECONDS.toMillis(storageService.getPresignedUrlExpiry());
+            // 마진이 유효 시간의 절반을 넘으면 생성한 URL을 한 번도 재사용하지 못하므로 절반으로 제한
+            long marginMs = Math.min(TimeUnit.SECONDS.toMillis(refreshMarginSeconds), expiryMs / 2);
+            store(storagePath, new PresignedUrl(url, now + expiryMs - marginMs), now);
+            return Optional.of(url);
+        } catch (StorageException e) {
+            log.warn("Falling back to streaming, presigned URL unavailable for fileKey: {}", document.getFileKey());
+            return Optional.empty();
+        }
+    }
+
+    private void store(String storagePath, PresignedUrl entry, long now) {
+        if (cache.size() >= cacheMaxEntries) {
+            cache.values().removeIf(cached -> !cached.usableAt(now));
+            if (cache.size() >= cacheMaxEntries) {
+                log.debug("Presigned URL cache is full ({} entries), skipping cache", cacheMaxEntries);
+                return;
+            }
+        }
+        cache.put(storagePath, entry);
+    }
+
+    /**
+     * 캐시된 URL 수 (모니터링/테스트용)
+     */
+    int cacheSize() {
+        return cache.size();
+    }
+
+    /**
+     * @param url        presigned URL
+     * @param reuseUntil 이 시각(epoch ms)까지만 재사용 (실제 만료 시각 - refresh margin)
+     */
+    private record PresignedUrl(String url, long reuseUntil) {
+
+        boolean usableAt(long now) {
+            return now < reuseUntil;
+        }
+    }
+
+    /**
+     * 파일 내용 전달 방식.
+     */
+    public enum DeliveryMode {
+        /**
+         * JVM이 MinIO 내용을 스트리밍 (기본값)
+         */
+        STREAM,
+
+        /**
+         * {@code /files/{fileKey}}가 presigned URL로 302
+         */
+        REDIRECT,
+
+        /**
+         * editor config에 presigned URL을 직접 전달
+         */
+        DIRECT
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.onlyoffice.service;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 문서별 executor의 idle 만료 예정 시각.
+ *
+ * <p>{@link java.util.concurrent.DelayQueue}에 deadline 순으로 정렬되어, 정리 작업은 만료된 항목만
+ * 꺼내 확인합니다. 만료 전에 executor가 다시 사용되었으면 마지막 접근 시각 기준으로 새 deadline을
+ * 예약합니다(lazy rescheduling). 따라서 submit 경로에서는 큐를 건드리지 않습니다.</p>
+ *
+ * @param fileKey    문서 식별자
+ * @param executor   대상 executor (map의 현재 executor와 다르면 이미 교체된 항목)
+ * @param deadlineMs idle 판정 시각 (epoch 밀리초)
+ * @see CallbackQueueService#cleanupIdleExecutors()
+ */
+record IdleDeadline(String fileKey, ManagedExecutor executor, long deadlineMs) implements Delayed {
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(deadlineMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        if (other instanceof IdleDeadline that) {
+            return Long.compare(deadlineMs, that.deadlineMs);
+        }
+        return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+    }
+}
@@ -193,6 +193,30 @@ class ManagedExecutor {
         }
     }
 
+    /**
+     * 관찰한 상태에서 바뀌지 않았으면 idle 시간을 기다리지 않고 바로 shutdown.
+     * 편집 세션이 끝난 문서의 executor를 즉시 회수할 때 사용.
+     *
+     * <p>호출자는 상태를 관찰한 뒤 대기 중인 작업이 없음을 확인하고 호출합니다. 그 사이 작업이 제출되었다면
+     * {@link #trySubmit}이 상태를 새 record로 바꾸므로 CAS가 실패하여 shutdown하지 않습니다.</p>
+     *
+     * @param observed 호출자가 관찰한 상태 ({@link #currentState()})
+     * @return SHUTTING_DOWN으로 전환했으면 true
+     */
+    boolean tryRelease(ExecutorState observed) {
+        if (observed instanceof ExecutorState.ShuttingDown) {
+            return false;
+        }
+        ExecutorState shutdown = new ExecutorState.ShuttingDown(observed.lastAccessTimeMs(), observed.executor());
+        if (!state.compareAndSet(observed, shutdown)) {
+            log.trace("Release CAS 실패, 관찰 후 작업이 제출됨 (fileKey: {})", fileKey);
+            return false;
+        }
+        observed.executor().shutdown();
+        log.debug("세션 종료로 executor shutdown 시작 (fileKey: {})", fileKey);
+        return true;
+    }
+
     /**
      * 상태와 관계없이 executor를 강제 shutdown.
      * {@link CallbackQueueService#shutdown()} 통해 애플리케이션 shutdown 시 사용.
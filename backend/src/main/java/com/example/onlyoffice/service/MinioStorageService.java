@@ -8,12 +8,16 @@ import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
 import org.springframework.resilience.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -21,9 +25,8 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class MinioStorageService {
 
-    private static final long DEFAULT_MULTIPART_SIZE = 10 * 1024 * 1024;
-
     private final MinioClient minioClient;
+    private final PipelinedMultipartUploader multipartUploader;
 
     @Value("${minio.bucket}")
     private String bucket;
@@ -77,26 +80,31 @@ public class MinioStorageService {
     /**
      * InputStream을 MinIO에 업로드 (크기가 불명확한 스트림도 지원)
      *
-     * <p>재시도 정책: 네트워크 장애 등으로 실패 시 최대 3회 재시도 (1초 간격)</p>
+     * <p>크기를 모르면 {@link PipelinedMultipartUploader}가 part를 채우는 동안 앞선 part를 동시에 올립니다.</p>
+     *
+     * <p>재시도하지 않습니다. 스트림은 한 번만 읽을 수 있어, 실패 후 다시 올리면 이미 읽힌 앞부분이 빠진 채
+     * 남은 바이트만 저장됩니다. 실패는 호출자에게 전달하고 재시도는 스트림을 처음부터 다시 여는 쪽
+     * (callback이면 Document Server)이 맡습니다.</p>
      *
      * @param inputStream 업로드할 InputStream
      * @param size        총 바이트 수 (모를 경우 -1)
      * @param contentType MIME 타입
      * @param objectName  MinIO object key
-     * @throws StorageException 재시도 후에도 실패 시
+     * @throws StorageException      업로드 실패 시
+     * @throws CancellationException callback 작업이 취소되어 스트림이 닫힌 경우
      */
-    @Retryable(maxRetries = 2, includes = Exception.class, delay = 1000)
     public void uploadStream(InputStream inputStream, long size, String contentType, String objectName) {
         try {
+            if (size < 0) {
+                long uploaded = multipartUploader.upload(inputStream, contentType, objectName);
+                log.info("File uploaded to MinIO: {}/{} ({} bytes, size unknown up front)", bucket, objectName, uploaded);
+                return;
+            }
+
             PutObjectArgs.Builder builder = PutObjectArgs.builder()
                     .bucket(bucket)
-                    .object(objectName);
-
-            if (size >= 0) {
-                builder.stream(inputStream, size, -1);
-            } else {
-                builder.stream(inputStream, -1, DEFAULT_MULTIPART_SIZE);
-            }
+                    .object(objectName)
+                    .stream(inputStream, size, -1);
 
             if (StringUtils.hasText(contentType)) {
                 builder.contentType(contentType);
@@ -105,6 +113,15 @@ public class MinioStorageService {
             minioClient.putObject(builder.build());
             log.info("File uploaded to MinIO: {}/{}", bucket, objectName);
         } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (CallbackScope.isCurrentCancelled()) {
+                log.warn("Upload to MinIO cancelled with its callback: {}", objectName);
+                CancellationException cancelled = new CancellationException("Upload cancelled: " + objectName);
+                cancelled.initCause(e);
+                throw cancelled;
+            }
             log.error("Failed to upload stream to MinIO: {}", objectName, e);
             throw new StorageException("Failed to upload file: " + objectName, e);
         }
@@ -118,13 +135,33 @@ public class MinioStorageService {
      * @throws StorageException if download fails or object not found
      */
     public InputStream downloadFile(String objectName) {
+        return getObject(GetObjectArgs.builder()
+                .bucket(bucket)
+                .object(objectName)
+                .build(), objectName);
+    }
+
+    /**
+     * MinIO에서 파일의 일부 구간을 다운로드 (HTTP Range 요청 처리용)
+     *
+     * @param objectName The object key/path in MinIO
+     * @param offset     시작 바이트 위치 (0부터)
+     * @param length     읽을 바이트 수
+     * @return InputStream of the requested byte range (caller must close)
+     * @throws StorageException if download fails or object not found
+     */
+    public InputStream downloadFile(String objectName, long offset, long length) {
+        return getObject(GetObjectArgs.builder()
+                .bucket(bucket)
+                .object(objectName)
+                .offset(offset)
+                .length(length)
+                .build(), objectName);
+    }
+
+    private InputStream getObject(GetObjectArgs args, String objectName) {
         try {
-            return minioClient.getObject(
-                    GetObjectArgs.builder()
-                            .bucket(bucket)
-                            .object(objectName)
-                            .build()
-            );
+            return minioClient.getObject(args);
         } catch (ErrorResponseException e) {
             if (e.errorResponse().code().equals("NoSuchKey")) {
                 throw new StorageException("File not found: " + objectName);
@@ -168,6 +205,28 @@ public class MinioStorageService {
      * @throws StorageException if URL generation fails
      */
     public String generatePresignedUrl(String objectName) {
+        return generatePresignedUrl(objectName, Map.of());
+    }
+
+    /**
+     * 다운로드용 Presigned URL 생성
+     * <p>
+     * MinIO가 응답에 Content-Disposition을 붙이도록 서명하므로, 브라우저가 URL로 받아도 원본 파일명으로 저장됩니다.
+     *
+     * @param objectName       The object key/path in MinIO
+     * @param downloadFileName 응답 Content-Disposition에 사용할 파일명
+     * @return Presigned URL valid for configured duration (default 1 hour)
+     * @throws StorageException if URL generation fails
+     */
+    public String generatePresignedUrl(String objectName, String downloadFileName) {
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename(downloadFileName, StandardCharsets.UTF_8)
+                .build();
+        return generatePresignedUrl(objectName,
+                Map.of("response-content-disposition", contentDisposition.toString()));
+    }
+
+    private String generatePresignedUrl(String objectName, Map<String, String> extraQueryParams) {
         try {
             String url = minioClient.getPresignedObjectUrl(
                     GetPresignedObjectUrlArgs.builder()
@@ -175,6 +234,7 @@ public class MinioStorageService {
                             .bucket(bucket)
                             .object(objectName)
                             .expiry(presignedUrlExpiry, TimeUnit.SECONDS)
+                            .extraQueryParams(extraQueryParams)
                             .build()
             );
             log.debug("Generated presigned URL for {}, expiry: {} seconds", objectName, presignedUrlExpiry);
@@ -185,6 +245,13 @@ public class MinioStorageService {
         }
     }
 
+    /**
+     * Presigned URL 유효 시간 (초)
+     */
+    public int getPresignedUrlExpiry() {
+        return presignedUrlExpiry;
+    }
+
     /**
      * 객체 존재 여부 확인
      *
@@ -0,0 +1,64 @@
+package com.example.onlyoffice.service;
+
+import com.example.onlyoffice.entity.OrphanedObject;
+import com.example.onlyoffice.repository.OrphanedObjectRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 삭제 시각이 지난 {@link OrphanedObject}를 스토리지에서 지우는 주기 작업.
+ *
+ * <p>객체마다 스토리지 삭제 후 행을 지우므로 트랜잭션 없이 실행합니다. 삭제에 실패한 객체는
+ * {@code retry-delay-seconds} 뒤로 미뤄 다음 주기에 다시 시도합니다. 여러 인스턴스가 동시에 실행해도
+ * 같은 객체를 두 번 지우는 것은 무해합니다.</p>
+ *
+ * @see DocumentRevisionService
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrphanedObjectCollector {
+
+    private final OrphanedObjectRepository orphanedObjectRepository;
+    private final MinioStorageService storageService;
+
+    @Value("${storage.gc.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${storage.gc.retry-delay-seconds:300}")
+    private long retryDelaySeconds = 300;
+
+    /**
+     * 삭제 시각이 지난 객체를 한 번에 최대 {@code batch-size}개 삭제합니다.
+     *
+     * @return 삭제한 객체 수
+     */
+    @Scheduled(fixedDelayString = "${storage.gc.interval-ms:60000}")
+    public int collect() {
+        List<OrphanedObject> due = orphanedObjectRepository.findDue(LocalDateTime.now(), PageRequest.of(0, batchSize));
+        int deleted = 0;
+        for (OrphanedObject object : due) {
+            try {
+                storageService.deleteFile(object.getStoragePath());
+                orphanedObjectRepository.delete(object);
+                deleted++;
+            } catch (Exception e) {
+                log.warn("Failed to collect orphaned object {}, retrying in {}s",
+                        object.getStoragePath(), retryDelaySeconds, e);
+                object.postpone(LocalDateTime.now().plusSeconds(retryDelaySeconds));
+                orphanedObjectRepository.save(object);
+            }
+        }
+        if (deleted > 0) {
+            log.info("Collected {} orphaned storage objects", deleted);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.onlyoffice.service;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Multipart 업로드 part 버퍼 pool.
+ *
+ * <p>동시에 빌려줄 수 있는 버퍼 수를 {@code maxBuffers}로 제한하여 업로드 전체의 part 버퍼 메모리를
+ * {@code maxBuffers * bufferSize}로 묶습니다. 버퍼가 모두 사용 중이면 스트림을 읽는 쪽이 대기하므로
+ * 자연스럽게 backpressure가 걸립니다. 버퍼는 처음 필요할 때 할당되고 반환되면 재사용됩니다.</p>
+ *
+ * @see PipelinedMultipartUploader
+ */
+class PartBufferPool {
+
+    private final int bufferSize;
+    private final Semaphore available;
+    private final Queue<byte[]> free = new ConcurrentLinkedQueue<>();
+
+    PartBufferPool(int bufferSize, int maxBuffers) {
+        this.bufferSize = bufferSize;
+        this.available = new Semaphore(maxBuffers, true);
+    }
+
+    /**
+     * 버퍼를 빌립니다. 모두 사용 중이면 반환될 때까지 대기합니다.
+     */
+    byte[] acquire() throws InterruptedException {
+        available.acquire();
+        byte[] buffer = free.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    void release(byte[] buffer) {
+        free.offer(buffer);
+        available.release();
+    }
+
+    int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * 할당되어 재사용을 기다리는 버퍼 수 (테스트용)
+     */
+    int pooledCount() {
+        return free.size();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.onlyoffice.service;
+
+import java.util.concurrent.Future;
+
+/**
+ * Lane에 제출되었지만 아직 실행되지 않은 저장 callback.
+ *
+ * <p>같은 문서에 대한 후속 저장 callback은 새 작업을 큐에 넣는 대신 이 객체에 병합되어
+ * 가장 최신 다운로드 URL 하나만 처리됩니다. 병합된 모든 호출자는 같은 {@link Future}를 기다리므로
+ * 실제 처리 결과(성공/실패)를 그대로 응답받습니다.</p>
+ *
+ * <p><b>병합 규칙:</b></p>
+ * <ul>
+ *   <li>FORCESAVE + FORCESAVE → 최신 URL의 FORCESAVE 한 번</li>
+ *   <li>FORCESAVE + SAVE → 최신 URL의 SAVE 한 번 (editorVersion 1회 증가)</li>
+ *   <li>SAVE + (무엇이든) → 병합 불가: SAVE는 세션을 종료하므로 이후 callback은 별도 처리</li>
+ *   <li>실행이 시작되었거나 취소된 작업 → 병합 불가</li>
+ * </ul>
+ *
+ * <p><b>대기 호출자:</b> 병합된 호출자 수를 세어, 대기를 포기한 호출자가 마지막일 때만 작업을 취소합니다.
+ * 먼저 timeout된 호출자가 뒤에 병합된 호출자의 저장을 취소하지 않기 위해서입니다.</p>
+ *
+ * <p><b>동시성:</b> 모든 상태 변경은 {@link CallbackQueueService}의 pending map
+ * {@code compute} 블록 안에서만 일어나므로 별도 동기화가 필요 없습니다.
+ * {@link #currentType()}만 {@link SavePriorityGate}가 compute 밖에서 읽습니다.</p>
+ *
+ * @see CallbackQueueService#submitSaveAndWait
+ */
+class PendingSave {
+
+    private volatile SaveCallback latest;
+    private boolean started;
+    private int mergedCount;
+    private int waiters = 1;
+    private Future<Void> future;
+
+    PendingSave(SaveCallback initial) {
+        this.latest = initial;
+    }
+
+    /**
+     * 아직 시작되지 않았고 병합 규칙을 만족하면 새 callback으로 교체.
+     *
+     * @param next 새로 도착한 저장 callback
+     * @return 병합되었으면 true
+     */
+    boolean tryMerge(SaveCallback next) {
+        if (started || waiters == 0 || future == null || future.isDone() || latest.type() == SaveCallback.Type.SAVE) {
+            return false;
+        }
+        latest = next;
+        mergedCount++;
+        waiters++;
+        return true;
+    }
+
+    /**
+     * 호출자 하나가 대기를 포기했음을 기록. 남은 호출자가 없으면 작업을 취소해야 합니다.
+     */
+    void leave() {
+        waiters--;
+    }
+
+    /**
+     * 결과를 기다리는 호출자 수 (처음 제출한 호출자 + 병합된 호출자 - 포기한 호출자)
+     */
+    int waiters() {
+        return waiters;
+    }
+
+    /**
+     * 실행 시작을 표시하고 처리할 최종 callback을 반환.
+     * 이후에는 병합이 일어나지 않습니다.
+     *
+     * @return 처리할 callback
+     */
+    SaveCallback start() {
+        started = true;
+        return latest;
+    }
+
+    /**
+     * 현재 처리 예정인 저장 종류. 병합으로 FORCESAVE가 SAVE로 바뀔 수 있습니다.
+     */
+    SaveCallback.Type currentType() {
+        return latest.type();
+    }
+
+    int mergedCount() {
+        return mergedCount;
+    }
+
+    Future<Void> future() {
+        return future;
+    }
+
+    void attach(Future<Void> future) {
+        this.future = future;
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.onlyoffice.service;
+
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.PutObjectArgs;
+import io.minio.messages.Part;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 크기를 모르는 스트림을 part 단위로 동시에 올리는 MinIO multipart 업로더.
+ *
+ * <p>{@code PutObjectArgs.stream(in, -1, partSize)}는 part를 하나씩 읽고 올리기를 반복하므로
+ * Document Server에서 받는 시간과 MinIO로 올리는 시간이 더해집니다. 여기서는 앞선 part가 올라가는 동안
+ * 다음 part 버퍼를 채워 두 구간을 겹칩니다.</p>
+ * <ul>
+ *   <li>part 버퍼는 {@link PartBufferPool}에서 빌리고 part 업로드가 끝나면 반환 (전체 메모리 상한)</li>
+ *   <li>업로드 하나가 동시에 올리는 part 수는 {@code parallelism}으로 제한</li>
+ *   <li>스트림이 첫 part 안에서 끝나면 multipart 없이 단일 PUT으로 저장</li>
+ *   <li>모든 part가 성공해야 complete하고, 하나라도 실패하면 abort하여 불완전한 객체가 보이지 않음</li>
+ *   <li>callback 작업이 취소되면 진행 중인 part를 기다리지 않고 바로 반환하며, abort는 part가 끝난 뒤 비동기로 수행</li>
+ * </ul>
+ *
+ * @see MinioStorageService#uploadStream
+ */
+@Slf4j
+@Component
+public class PipelinedMultipartUploader {
+
+    private static final int MIN_PART_SIZE_MB = 5;
+
+    private final MinioAsyncClient minioAsyncClient;
+    private final PartBufferPool bufferPool;
+
+    @Value("${minio.bucket}")
+    private String bucket;
+
+    @Value("${minio.multipart.parallelism:4}")
+    private int parallelism = 4;
+
+    @Autowired
+    public PipelinedMultipartUploader(MinioAsyncClient minioAsyncClient,
+                                      @Value("${minio.multipart.part-size-mb:8}") int partSizeMb,
+                                      @Value("${minio.multipart.buffer-pool-size:8}") int bufferPoolSize) {
+        this(minioAsyncClient, new PartBufferPool(partSizeMb * 1024 * 1024, bufferPoolSize));
+        if (partSizeMb < MIN_PART_SIZE_MB) {
+            // S3 multipart는 마지막 part를 제외하고 5MB 이상이어야 함
+            throw new IllegalArgumentException("minio.multipart.part-size-mb must be at least " + MIN_PART_SIZE_MB);
+        }
+    }
+
+    PipelinedMultipartUploader(MinioAsyncClient minioAsyncClient, PartBufferPool bufferPool) {
+        this.minioAsyncClient = minioAsyncClient;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * 스트림을 끝까지 읽어 객체로 저장합니다.
+     *
+     * @param inputStream 업로드할 스트림 (크기 미상)
+     * @param contentType MIME 타입 (없으면 null)
+     * @param objectName  MinIO object key
+     * @return 업로드한 바이트 수
+     * @throws Exception 읽기 또는 업로드 실패 시 (multipart 업로드는 abort됨)
+     */
+    public long upload(InputStream inputStream, String contentType, String objectName) throws Exception {
+        int partSize = bufferPool.bufferSize();
+        byte[] first = bufferPool.acquire();
+        int firstLength;
+        try {
+            firstLength = inputStream.readNBytes(first, 0, partSize);
+        } catch (IOException e) {
+            bufferPool.release(first);
+            throw e;
+        }
+
+        if (firstLength < partSize) {
+            try {
+                putSingleObject(first, firstLength, contentType, objectName);
+            } finally {
+                bufferPool.release(first);
+            }
+            return firstLength;
+        }
+
+        String uploadId;
+        try {
+            uploadId = minioAsyncClient.createMultipartUploadAsync(bucket, null, objectName, headers(contentType), null)
+                    .get().result().uploadId();
+        } catch (Exception e) {
+            bufferPool.release(first);
+            throw e;
+        }
+
+        Semaphore window = new Semaphore(parallelism);
+        window.acquire();
+        List<CompletableFuture<Part>> parts = new ArrayList<>();
+        try {
+            long total = 0;
+            byte[] buffer = first;
+            int length = firstLength;
+            while (true) {
+                parts.add(uploadPart(objectName, uploadId, parts.size() + 1, buffer, length, window));
+                total += length;
+                if (length < partSize || parts.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+                    break;
+                }
+
+                window.acquire();
+                buffer = acquireBuffer(window);
+                try {
+                    length = inputStream.readNBytes(buffer, 0, partSize);
+                } catch (IOException e) {
+                    release(buffer, window);
+                    throw e;
+                }
+                if (length == 0) {
+                    release(buffer, window);
+                    break;
+                }
+            }
+
+            CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).get();
+            Part[] completed = parts.stream().map(CompletableFuture::join).toArray(Part[]::new);
+            minioAsyncClient.completeMultipartUploadAsync(bucket, null, objectName, uploadId, completed, null, null).get();
+            log.debug("Multipart upload completed: {} ({} parts, {} bytes)", objectName, completed.length, total);
+            return total;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException || CallbackScope.isCurrentCancelled()) {
+                abortAfterParts(objectName, uploadId, parts);
+            } else {
+                abort(objectName, uploadId, parts);
+            }
+            throw unwrap(e);
+        }
+    }
+
+    private CompletableFuture<Part> uploadPart(String objectName, String uploadId, int partNumber,
+                                               byte[] buffer, int length, Semaphore window) throws Exception {
+        CompletableFuture<Part> part;
+        try {
+            part = minioAsyncClient.uploadPartAsync(bucket, null, objectName, buffer, length, uploadId, partNumber, null, null)
+                    .thenApply(response -> new Part(partNumber, response.etag()));
+        } catch (Exception e) {
+            release(buffer, window);
+            throw e;
+        }
+        // part 요청 본문 전송이 끝나야 응답이 오므로 완료 시점에 버퍼를 재사용해도 안전
+        return part.whenComplete((response, error) -> release(buffer, window));
+    }
+
+    private byte[] acquireBuffer(Semaphore window) throws InterruptedException {
+        try {
+            return bufferPool.acquire();
+        } catch (InterruptedException e) {
+            window.release();
+            throw e;
+        }
+    }
+
+    private void release(byte[] buffer, Semaphore window) {
+        bufferPool.release(buffer);
+        window.release();
+    }
+
+    private void putSingleObject(byte[] data, int length, String contentType, String objectName) throws Exception {
+        PutObjectArgs.Builder builder = PutObjectArgs.builder()
+                .bucket(bucket)
+                .object(objectName)
+                .stream(new ByteArrayInputStream(data, 0, length), length, -1);
+        if (StringUtils.hasText(contentType)) {
+            builder.contentType(contentType);
+        }
+        minioAsyncClient.putObject(builder.build()).get();
+    }
+
+    /**
+     * 취소된 작업의 lane이 진행 중인 part를 기다리지 않도록, part가 모두 끝난 뒤 다른 thread에서 abort합니다.
+     */
+    private void abortAfterParts(String objectName, String uploadId, List<CompletableFuture<Part>> parts) {
+        CompletableFuture.allOf(parts.stream()
+                        .map(part -> part.handle((response, error) -> null))
+                        .toArray(CompletableFuture[]::new))
+                .thenRunAsync(() -> abort(objectName, uploadId, List.of()));
+    }
+
+    private void abort(String objectName, String uploadId, List<CompletableFuture<Part>> parts) {
+        // 진행 중인 part가 끝난 뒤 abort해야 abort 이후에 part가 남지 않음
+        for (CompletableFuture<Part> part : parts) {
+            part.handle((response, error) -> null).join();
+        }
+        try {
+            minioAsyncClient.abortMultipartUploadAsync(bucket, null, objectName, uploadId, null, null).get();
+            log.warn("Multipart upload aborted: {} (uploadId: {})", objectName, uploadId);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Failed to abort multipart upload: {} (uploadId: {})", objectName, uploadId, e);
+        }
+    }
+
+    private static Multimap<String, String> headers(String contentType) {
+        return StringUtils.hasText(contentType)
+                ? ImmutableMultimap.of("Content-Type", contentType)
+                : null;
+    }
+
+    private static Exception unwrap(Exception e) {
+        if (e instanceof ExecutionException && e.getCause() instanceof Exception cause) {
+            return cause;
+        }
+        return e;
+    }
+
+    /**
+     * 재사용을 기다리는 part 버퍼 수 (테스트용)
+     */
+    int pooledBufferCount() {
+        return bufferPool.pooledCount();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.onlyoffice.service;
+
+/**
+ * 저장 계열 callback(SAVE, FORCESAVE) 한 건을 나타내는 레코드.
+ *
+ * <p>{@link CallbackQueueService#submitSaveAndWait}가 같은 문서의 대기 중인 저장 요청을
+ * 병합(coalescing)할 때 사용합니다.</p>
+ *
+ * @param type        저장 종류
+ * @param downloadUrl Document Server가 제공한 편집 결과 다운로드 URL
+ * @param documentKey callback의 document key (이미 반영된 callback 판별용, null이면 검사하지 않음)
+ */
+public record SaveCallback(Type type, String downloadUrl, String documentKey) {
+
+    public static SaveCallback save(String downloadUrl) {
+        return save(downloadUrl, null);
+    }
+
+    public static SaveCallback save(String downloadUrl, String documentKey) {
+        return new SaveCallback(Type.SAVE, downloadUrl, documentKey);
+    }
+
+    public static SaveCallback forceSave(String downloadUrl) {
+        return forceSave(downloadUrl, null);
+    }
+
+    public static SaveCallback forceSave(String downloadUrl, String documentKey) {
+        return new SaveCallback(Type.FORCESAVE, downloadUrl, documentKey);
+    }
+
+    /**
+     * 저장 종류.
+     */
+    public enum Type {
+        /**
+         * status=2, 편집 세션 종료. editorVersion 증가.
+         */
+        SAVE,
+
+        /**
+         * status=6, 편집 중 강제 저장. editorVersion 유지.
+         */
+        FORCESAVE
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.onlyoffice.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 모든 문서의 저장 callback이 동시에 실행되는 수를 제한하고, 자리가 나면 SAVE를 FORCESAVE보다 먼저 들여보내는 gate.
+ *
+ * <p>문서별 lane은 서로 독립적이라 다운로드 slot, MinIO 대역폭 같은 공유 자원은 먼저 도착한 작업이 차지합니다.
+ * 여러 문서의 주기적인 FORCESAVE가 몰리면 세션을 닫는 SAVE(사용자 작업 유실 여부가 걸린 저장)가 그 뒤에서 기다리게 됩니다.
+ * 이 gate는 lane 안에서, 인스턴스 간 lease를 얻은 뒤 저장 작업을 시작하기 직전에 통과하므로:</p>
+ * <ul>
+ *   <li>문서별 순서는 그대로 유지 (lane이 직렬이라 한 문서는 한 번에 하나만 대기)</li>
+ *   <li>자리가 나면 대기 중인 SAVE 중 가장 오래된 것, 없으면 가장 오래된 FORCESAVE에 넘김</li>
+ *   <li>대기 중에도 병합이 계속되므로, FORCESAVE로 대기하다 SAVE가 병합되면 그 시점부터 SAVE로 취급</li>
+ *   <li>다른 인스턴스의 lease를 기다리는 작업은 자리를 차지하지 않음</li>
+ * </ul>
+ *
+ * <p>한도가 0 이하이면 제한하지 않습니다. SAVE가 계속 몰리면 FORCESAVE는 호출자 timeout까지 기다릴 수 있으며,
+ * 이는 의도된 동작입니다 (Document Server가 재시도하고, 다음 SAVE가 같은 내용을 저장).</p>
+ *
+ * <p>per-document lane 모드에서만 사용합니다. striped 모드에서는 한 lane이 gate에서 기다리면 같은 lane에 해시된
+ * 다른 문서까지 멈추므로 적용하지 않고, lane 수가 동시 실행을 제한합니다.</p>
+ *
+ * @see CallbackQueueService#submitSaveAndWait
+ */
+class SavePriorityGate {
+
+    private static final Slot UNLIMITED = () -> {
+    };
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // 도착 순서대로 유지. 부여 시점에 우선순위를 다시 확인
+    private final List<Waiter> waiters = new ArrayList<>();
+    private int maxConcurrent;
+    private int running;
+
+    void configure(int maxConcurrent) {
+        lock.lock();
+        try {
+            this.maxConcurrent = maxConcurrent;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 실행 자리를 얻을 때까지 대기합니다.
+     *
+     * @param type 현재 저장 종류 (대기 중 병합으로 바뀔 수 있으므로 부여할 때마다 다시 조회)
+     * @return 작업이 끝나면 닫아야 하는 slot
+     * @throws InterruptedException 대기 중 인터럽트 (호출자 timeout으로 작업이 취소된 경우)
+     */
+    Slot acquire(Supplier<SaveCallback.Type> type) throws InterruptedException {
+        lock.lock();
+        try {
+            if (maxConcurrent <= 0) {
+                return UNLIMITED;
+            }
+            if (running < maxConcurrent && waiters.isEmpty()) {
+                running++;
+                return this::release;
+            }
+
+            Waiter waiter = new Waiter(type, lock.newCondition());
+            waiters.add(waiter);
+            try {
+                while (!waiter.granted) {
+                    waiter.condition.await();
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    // 자리를 넘겨받은 직후 취소됨 - 다음 대기자에게 넘김
+                    handOff();
+                } else {
+                    waiters.remove(waiter);
+                }
+                throw e;
+            }
+            return this::release;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            handOff();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 반환된 자리를 다음 대기자에게 넘깁니다. 대기자가 없으면 자리를 비웁니다.
+     */
+    private void handOff() {
+        Waiter next = null;
+        Iterator<Waiter> it = waiters.iterator();
+        while (it.hasNext()) {
+            Waiter waiter = it.next();
+            if (next == null) {
+                next = waiter;
+            }
+            if (waiter.type.get() == SaveCallback.Type.SAVE) {
+                next = waiter;
+                break;
+            }
+        }
+        if (next == null) {
+            running--;
+            return;
+        }
+        waiters.remove(next);
+        next.granted = true;
+        next.condition.signal();
+    }
+
+    /**
+     * @return 실행 중인 저장 작업 수
+     */
+    int running() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 자리를 기다리는 저장 작업 수
+     */
+    int waiting() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 얻은 실행 자리. 작업이 끝나면 한 번 닫습니다.
+     */
+    interface Slot extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class Waiter {
+        private final Supplier<SaveCallback.Type> type;
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Supplier<SaveCallback.Type> type, Condition condition) {
+            this.type = type;
+            this.condition = condition;
+        }
+    }
+}
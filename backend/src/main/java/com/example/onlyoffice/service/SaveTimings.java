@@ -0,0 +1,115 @@
+package com.example.onlyoffice.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 저장 callback 하나가 단계별로 쓴 시간.
+ *
+ * <p>lane에서 저장 작업을 실행하는 동안 현재 thread에 bind되므로, 하위 서비스는 signature를 바꾸지 않고
+ * {@link #record}로 자기 단계의 시간을 더합니다. bind되지 않은 thread(직접 호출, 테스트)에서는 기록하지 않습니다.</p>
+ *
+ * @see CallbackQueueService#submitSaveAndWait
+ */
+final class SaveTimings {
+
+    /**
+     * 저장 단계. 다운로드와 스토리지 업로드는 한 스트림에서 겹쳐 실행되므로
+     * 본문을 기다린 시간을 {@link #DOWNLOAD}, 나머지 전송 시간을 {@link #STORAGE}로 나눕니다.
+     */
+    enum Phase {
+        /** 제출부터 lane에서 시작될 때까지 */
+        QUEUE("queue"),
+        /** 전체 동시 저장 자리({@link SavePriorityGate}) 대기 */
+        GATE("gate"),
+        /** 클러스터 문서 lease 대기 */
+        LEASE("lease"),
+        /** Document Server 응답 헤더와 본문 수신 대기 (이어 받기 포함) */
+        DOWNLOAD("download"),
+        /** 받은 본문을 MinIO로 넘기는 시간 */
+        STORAGE("storage"),
+        /** {@code findWithLockByFileKey} 행 락 대기 */
+        LOCK("lock"),
+        /** 행 락 이후 트랜잭션 커밋까지 */
+        COMMIT("commit");
+
+        private final String tag;
+
+        Phase(String tag) {
+            this.tag = tag;
+        }
+
+        String tag() {
+            return tag;
+        }
+    }
+
+    private static final ThreadLocal<SaveTimings> CURRENT = new ThreadLocal<>();
+
+    private final Map<Phase, Long> nanos = new EnumMap<>(Phase.class);
+
+    /**
+     * 현재 thread에 bind된 기록에 시간을 더합니다. bind된 기록이 없으면 무시합니다.
+     */
+    static void record(Phase phase, long elapsedNanos) {
+        SaveTimings current = CURRENT.get();
+        if (current != null) {
+            current.add(phase, elapsedNanos);
+        }
+    }
+
+    /**
+     * 현재 thread에 bind된 기록에 이미 더해진 시간 (bind된 기록이 없으면 0)
+     */
+    static long recorded(Phase phase) {
+        SaveTimings current = CURRENT.get();
+        return current != null ? current.nanos(phase) : 0;
+    }
+
+    /**
+     * 반환된 scope를 닫을 때까지 이 기록을 현재 thread에 bind합니다.
+     */
+    Scope bind() {
+        SaveTimings previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    void add(Phase phase, long elapsedNanos) {
+        nanos.merge(phase, Math.max(elapsedNanos, 0), Long::sum);
+    }
+
+    long nanos(Phase phase) {
+        return nanos.getOrDefault(phase, 0L);
+    }
+
+    /**
+     * 구조화 로그용 {@code phase=ms} 목록 (기록된 단계만)
+     */
+    String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<Phase, Long> entry : nanos.entrySet()) {
+            if (!sb.isEmpty()) {
+                sb.append(' ');
+            }
+            sb.append(entry.getKey().tag()).append("Ms=").append(TimeUnit.NANOSECONDS.toMillis(entry.getValue()));
+        }
+        return sb.toString();
+    }
+
+    Map<Phase, Long> snapshot() {
+        return Map.copyOf(nanos);
+    }
+
+    interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.onlyoffice.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 고정된 개수의 serial lane에 fileKey를 해시하여 분배하는 callback 실행기.
+ *
+ * <p><b>동시성 모델:</b></p>
+ * <ul>
+ *   <li>같은 fileKey는 항상 같은 lane으로 → 문서별 FIFO 순서 보장</li>
+ *   <li>lane 수가 고정 → 문서 수와 무관하게 thread/메모리 사용량 일정</li>
+ *   <li>lane이 소멸하지 않음 → {@link ExecutorState} 기반 idle cleanup 불필요</li>
+ * </ul>
+ *
+ * <p><b>Trade-off:</b> 서로 다른 문서라도 같은 lane에 해시되면 앞선 callback이 끝날 때까지
+ * 대기합니다(head-of-line blocking). 문서 수가 매우 많고 callback이 짧은 환경에 적합합니다.</p>
+ *
+ * @see CallbackQueueService
+ */
+@Slf4j
+class StripedCallbackLanes {
+
+    private final ExecutorService[] lanes;
+
+    /**
+     * 지정된 개수의 serial lane을 생성.
+     *
+     * @param stripeCount    lane 개수 (1 이상)
+     * @param virtualThreads lane worker를 virtual thread로 실행할지 여부
+     */
+    StripedCallbackLanes(int stripeCount, boolean virtualThreads) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("stripeCount must be positive: " + stripeCount);
+        }
+        this.lanes = new ExecutorService[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            String threadName = "callback-stripe-" + i;
+            ThreadFactory threadFactory = virtualThreads
+                    ? Thread.ofVirtual().name(threadName).factory()
+                    : Thread.ofPlatform().name(threadName).daemon(false).factory();
+            lanes[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+        log.info("Created {} striped callback lanes (virtual: {})", stripeCount, virtualThreads);
+    }
+
+    /**
+     * fileKey가 해시되는 lane에 작업을 제출.
+     *
+     * @param fileKey 문서 식별자
+     * @param task    실행할 작업
+     * @param <T>     작업 반환 타입
+     * @return 작업 Future
+     */
+    <T> Future<T> submit(String fileKey, Callable<T> task) {
+        return lanes[laneIndex(fileKey)].submit(task);
+    }
+
+    /**
+     * fileKey가 배정되는 lane 인덱스.
+     * hashCode 상위 비트를 섞어 연속된 키가 한쪽 lane에 몰리지 않도록 함.
+     *
+     * @param fileKey 문서 식별자
+     * @return 0 이상 lane 개수 미만의 인덱스
+     */
+    int laneIndex(String fileKey) {
+        int h = fileKey.hashCode();
+        h ^= (h >>> 16);
+        return Math.floorMod(h, lanes.length);
+    }
+
+    /**
+     * @return lane 개수
+     */
+    int size() {
+        return lanes.length;
+    }
+
+    /**
+     * 모든 lane을 graceful하게 종료하고, timeout 초과 시 강제 종료.
+     *
+     * @param timeout 종료 대기 최대 시간
+     * @param unit    시간 단위
+     * @throws InterruptedException 대기 중 인터럽트 발생 시
+     */
+    void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ExecutorService lane : lanes) {
+            long remaining = deadline - System.nanoTime();
+            if (!lane.awaitTermination(Math.max(remaining, 0), TimeUnit.NANOSECONDS)) {
+                log.warn("Striped lane가 graceful하게 종료되지 않음, 강제 shutdown 수행");
+                lane.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * @return 모든 lane이 shutdown 상태이면 true
+     */
+    boolean isShutdown() {
+        for (ExecutorService lane : lanes) {
+            if (!lane.isShutdown()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -21,7 +21,13 @@ public interface UrlDownloadService {
     /**
      * 다운로드 결과를 담는 레코드.
      *
-     * @param fileSize 다운로드된 파일의 크기 (bytes)
+     * @param fileSize    다운로드된 파일의 크기 (bytes)
+     * @param contentHash 다운로드하면서 계산한 내용의 SHA-256 (hex, 계산하지 않았으면 null)
      */
-    record DownloadResult(long fileSize) {}
+    record DownloadResult(long fileSize, String contentHash) {
+
+        public DownloadResult(long fileSize) {
+            this(fileSize, null);
+        }
+    }
 }
@@ -1,7 +1,9 @@
 package com.example.onlyoffice.controller;
 
+import com.example.onlyoffice.exception.CallbackRejectedException;
 import com.example.onlyoffice.exception.DocumentNotFoundException;
 import com.example.onlyoffice.sdk.CustomSettingsManager;
+import com.example.onlyoffice.service.CallbackInboxService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.onlyoffice.model.documenteditor.Callback;
 import com.onlyoffice.model.documenteditor.callback.Status;
@@ -11,6 +13,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.assertj.MockMvcTester;
@@ -39,6 +42,9 @@ class CallbackControllerTest {
     @MockitoBean
     private CustomSettingsManager settingsManager;
 
+    @MockitoBean
+    private CallbackInboxService callbackInboxService;
+
     private static final String CALLBACK_URL = "/callback";
     private static final String FILE_KEY = "550e8400-e29b-41d4-a716-446655440000";
     private static final String DOCUMENT_KEY = "550e8400-e29b-41d4-a716-446655440000_v1";
@@ -351,6 +357,177 @@ class CallbackControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("callback - queue admission")
+    class QueueAdmission {
+
+        @Test
+        @DisplayName("큐 한도 초과 시 503 반환 (ONLYOFFICE 재시도 유도)")
+        void shouldReturn503WhenQueueIsFull() throws Exception {
+            // given
+            Callback callback = createCallback(Status.FORCESAVE, DOWNLOAD_URL);
+            String callbackJson = objectMapper.writeValueAsString(callback);
+
+            when(settingsManager.getSecurityHeader()).thenReturn("Authorization");
+            doThrow(new CallbackRejectedException("Callback queue limit exceeded (document_depth) for fileKey: " + FILE_KEY))
+                    .when(callbackService).processCallback(any(Callback.class), eq(FILE_KEY));
+
+            // when
+            MvcTestResult result = mvc.post().uri(CALLBACK_URL)
+                    .param("fileKey", FILE_KEY)
+                    .header("Authorization", JWT_TOKEN)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(callbackJson)
+                    .exchange();
+
+            // then
+            assertThat(result).hasStatus(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(result).bodyJson().extractingPath("$.error").isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Document Server host의 동시 다운로드 허용을 얻지 못하면 503 반환")
+        void shouldReturn503WhenDownloadPermitsAreExhausted() throws Exception {
+            // given
+            Callback callback = createCallback(Status.SAVE, DOWNLOAD_URL);
+            String callbackJson = objectMapper.writeValueAsString(callback);
+
+            when(settingsManager.getSecurityHeader()).thenReturn("Authorization");
+            when(callbackInboxService.journal(any(Callback.class), eq(FILE_KEY))).thenReturn(7L);
+            doThrow(new CallbackRejectedException("Too many concurrent downloads from localhost:9980"))
+                    .when(callbackService).processCallback(any(Callback.class), eq(FILE_KEY));
+
+            // when
+            MvcTestResult result = mvc.post().uri(CALLBACK_URL)
+                    .param("fileKey", FILE_KEY)
+                    .header("Authorization", JWT_TOKEN)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(callbackJson)
+                    .exchange();
+
+            // then
+            assertThat(result).hasStatus(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(result).bodyJson().extractingPath("$.error").isEqualTo(1);
+            verify(callbackInboxService).markJournalFailed(eq(7L), any(CallbackRejectedException.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("callback - sync journal")
+    class SyncJournal {
+
+        @Test
+        @DisplayName("동기 처리 전 journal에 기록하고 처리 후 완료로 표시")
+        void shouldJournalBeforeProcessingAndMarkDone() throws Exception {
+            // given
+            Callback callback = createCallback(Status.SAVE, DOWNLOAD_URL);
+            String callbackJson = objectMapper.writeValueAsString(callback);
+
+            when(settingsManager.getSecurityHeader()).thenReturn("Authorization");
+            when(callbackInboxService.journal(any(Callback.class), eq(FILE_KEY))).thenReturn(42L);
+
+            // when
+            MvcTestResult result = mvc.post().uri(CALLBACK_URL)
+                    .param("fileKey", FILE_KEY)
+                    .header("Authorization", JWT_TOKEN)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(callbackJson)
+                    .exchange();
+
+            // then
+            assertThat(result).bodyJson().extractingPath("$.error").isEqualTo(0);
+
+            var inOrder = inOrder(callbackInboxService, callbackService);
+            inOrder.verify(callbackInboxService).journal(any(Callback.class), eq(FILE_KEY));
+            inOrder.verify(callbackService).processCallback(any(Callback.class), eq(FILE_KEY));
+            inOrder.verify(callbackInboxService).markJournalDone(42L);
+        }
+
+        @Test
+        @DisplayName("처리 실패 시 journal 항목을 실패로 표시")
+        void shouldMarkJournalFailedWhenProcessingFails() throws Exception {
+            // given
+            Callback callback = createCallback(Status.SAVE, DOWNLOAD_URL);
+            String callbackJson = objectMapper.writeValueAsString(callback);
+            RuntimeException failure = new RuntimeException("Storage failure");
+
+            when(settingsManager.getSecurityHeader()).thenReturn("Authorization");
+            when(callbackInboxService.journal(any(Callback.class), eq(FILE_KEY))).thenReturn(42L);
+            doThrow(failure).when(callbackService).processCallback(any(Callback.class), anyString());
+
+            // when
+            MvcTestResult result = mvc.post().uri(CALLBACK_URL)
+                    .param("fileKey", FILE_KEY)
+                    .header("Authorization", JWT_TOKEN)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(callbackJson)
+                    .exchange();
+
+            // then
+            assertThat(result).bodyJson().extractingPath("$.error").isEqualTo(1);
+            verify(callbackInboxService).markJournalFailed(42L, failure);
+            verify(callbackInboxService, never()).markJournalDone(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("callback - async ack mode")
+    class AsyncAck {
+
+        @Test
+        @DisplayName("inbox 대상 callback은 기록 후 즉시 error=0 응답하고 직접 처리하지 않음")
+        void shouldEnqueueAndAcknowledgeImmediately() throws Exception {
+            // given
+            Callback callback = createCallback(Status.SAVE, DOWNLOAD_URL);
+            String callbackJson = objectMapper.writeValueAsString(callback);
+
+            when(settingsManager.getSecurityHeader()).thenReturn("Authorization");
+            when(callbackInboxService.shouldEnqueue(any(Callback.class))).thenReturn(true);
+
+            // when
+            MvcTestResult result = mvc.post().uri(CALLBACK_URL)
+                    .param("fileKey", FILE_KEY)
+                    .header("Authorization", JWT_TOKEN)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(callbackJson)
+                    .exchange();
+
+            // then
+            assertThat(result).hasStatusOk();
+            assertThat(result).bodyJson().extractingPath("$.error").isEqualTo(0);
+
+            verify(callbackService).verifyCallback(any(Callback.class), eq(JWT_TOKEN));
+            verify(callbackInboxService).enqueue(any(Callback.class), eq(FILE_KEY));
+            verify(callbackService, never()).processCallback(any(Callback.class), anyString());
+        }
+
+        @Test
+        @DisplayName("inbox 기록 실패 시 error=1 응답 (Document Server 재시도)")
+        void shouldReturnErrorWhenEnqueueFails() throws Exception {
+            // given
+            Callback callback = createCallback(Status.FORCESAVE, DOWNLOAD_URL);
+            String callbackJson = objectMapper.writeValueAsString(callback);
+
+            when(settingsManager.getSecurityHeader()).thenReturn("Authorization");
+            when(callbackInboxService.shouldEnqueue(any(Callback.class))).thenReturn(true);
+            when(callbackInboxService.enqueue(any(Callback.class), anyString()))
+                    .thenThrow(new RuntimeException("Database unavailable"));
+
+            // when
+            MvcTestResult result = mvc.post().uri(CALLBACK_URL)
+                    .param("fileKey", FILE_KEY)
+                    .header("Authorization", JWT_TOKEN)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(callbackJson)
+                    .exchange();
+
+            // then
+            assertThat(result).hasStatusOk();
+            assertThat(result).bodyJson().extractingPath("$.error").isEqualTo(1);
+            verify(callbackService, never()).processCallback(any(Callback.class), anyString());
+        }
+    }
+
     /**
      * Helper method to create Callback object
      */
@@ -0,0 +1,194 @@
+package com.example.onlyoffice.controller;
+
+import com.example.onlyoffice.entity.Document;
+import com.example.onlyoffice.entity.DocumentStatus;
+import com.example.onlyoffice.repository.DocumentRepository;
+import com.example.onlyoffice.service.MinioStorageService;
+import com.example.onlyoffice.support.DocumentServerSimulator;
+import com.example.onlyoffice.support.DocumentServerSimulator.CallbackResult;
+import com.example.onlyoffice.util.KeyUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Document Server simulator로 {@code /callback} 저장 경로 전체에 부하를 거는 harness.
+ *
+ * <p>서명한 callback이 실제 HTTP로 들어와 JWT 검증, CallbackQueueService, DocumentService, 다운로드,
+ * DB 반영까지 거칩니다. 스토리지만 받은 바이트를 세고 버리는 mock으로 대체합니다.
+ * CallbackQueueService/DocumentService 변경 전후에 같은 workload를 돌려 표준 출력의 보고서를 비교합니다.
+ * 보고서 끝에는 저장 단계별 시간({@code callback.save.phase})이 붙습니다.</p>
+ *
+ * <p><b>Workload</b>: 문서 {@value #DOCUMENT_COUNT}개의 편집 세션을 동시에 실행합니다.
+ * 세션마다 EDITING → FORCESAVE {@value #FORCE_SAVES_PER_SESSION}개 → SAVE이며,
+ * {@value #CLOSED_EVERY}번째 세션마다 변경 없이 CLOSED로 닫습니다.
+ * 파일은 {@value #PAYLOAD_BYTES}바이트, 첫 바이트까지 {@value #FIRST_BYTE_LATENCY_MILLIS}ms 지연입니다.</p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@DisplayName("Callback 부하 harness (Document Server simulator)")
+class CallbackLoadHarnessTest {
+
+    private static final int DOCUMENT_COUNT = 24;
+    private static final int FORCE_SAVES_PER_SESSION = 3;
+    private static final int CLOSED_EVERY = 4;
+    private static final int PAYLOAD_BYTES = 256 * 1024;
+    private static final long FIRST_BYTE_LATENCY_MILLIS = 20;
+    private static final long THINK_TIME_MILLIS = 10;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${onlyoffice.secret}")
+    private String secret;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private MinioStorageService storageService;
+
+    private final AtomicLong bytesStored = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        documentRepository.deleteAll();
+        doAnswer(invocation -> {
+            try (InputStream in = invocation.getArgument(0)) {
+                bytesStored.addAndGet(in.transferTo(OutputStream.nullOutputStream()));
+            }
+            return null;
+        }).when(storageService).uploadStream(any(InputStream.class), anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("동시 편집 세션의 callback이 모두 성공하고, 내려받은 바이트가 모두 스토리지에 도달한다")
+    void reportThroughputLatencyAndLockTimeouts() throws Exception {
+        // given
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < DOCUMENT_COUNT; i++) {
+            documents.add(documentRepository.save(Document.builder()
+                    .fileName("load-" + i + ".docx")
+                    .fileKey(KeyUtils.generateFileKey())
+                    .fileType("docx")
+                    .documentType("word")
+                    .fileSize((long) PAYLOAD_BYTES)
+                    .storagePath("documents/load-" + i + "/load-" + i + ".docx")
+                    .status(DocumentStatus.ACTIVE)
+                    .build()));
+        }
+
+        // when
+        List<CallbackResult> results = Collections.synchronizedList(new ArrayList<>());
+        long start;
+        long elapsedNanos;
+        try (DocumentServerSimulator simulator = new DocumentServerSimulator("http://127.0.0.1:" + port, secret,
+                PAYLOAD_BYTES, Duration.ofMillis(FIRST_BYTE_LATENCY_MILLIS))) {
+            start = System.nanoTime();
+            try (ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<List<CallbackResult>>> futures = new ArrayList<>();
+                for (int i = 0; i < documents.size(); i++) {
+                    Document document = documents.get(i);
+                    boolean closeWithChanges = (i + 1) % CLOSED_EVERY != 0;
+                    futures.add(sessions.submit(() -> simulator.runSession(document.getFileKey(),
+                            KeyUtils.generateEditorKey(document.getFileKey(), document.getEditorVersion()),
+                            FORCE_SAVES_PER_SESSION, closeWithChanges, Duration.ofMillis(THINK_TIME_MILLIS))));
+                }
+                for (Future<List<CallbackResult>> future : futures) {
+                    results.addAll(future.get(120, TimeUnit.SECONDS));
+                }
+            }
+            elapsedNanos = System.nanoTime() - start;
+
+            report(results, elapsedNanos, simulator);
+            reportPhases();
+
+            // then
+            assertThat(results).hasSize(DOCUMENT_COUNT * (FORCE_SAVES_PER_SESSION + 2));
+            assertThat(results).allSatisfy(result -> assertThat(result.succeeded())
+                    .as("status %d -> HTTP %d %s", result.status(), result.httpStatus(), result.message())
+                    .isTrue());
+            assertThat(bytesStored.get()).isEqualTo(simulator.bytesServed());
+            // 병합된 FORCESAVE는 내려받지 않으므로 다운로드 수는 저장 callback 수를 넘지 않음
+            long saveSessions = DOCUMENT_COUNT - DOCUMENT_COUNT / CLOSED_EVERY;
+            assertThat(simulator.downloads())
+                    .isBetween(saveSessions, (long) DOCUMENT_COUNT * FORCE_SAVES_PER_SESSION + saveSessions);
+        }
+
+        for (int i = 0; i < documents.size(); i++) {
+            Document saved = documentRepository.findByFileKey(documents.get(i).getFileKey()).orElseThrow();
+            boolean closeWithChanges = (i + 1) % CLOSED_EVERY != 0;
+            assertThat(saved.getEditorVersion()).isEqualTo(closeWithChanges ? 1 : 0);
+            assertThat(saved.getStoragePath()).isNotEqualTo(documents.get(i).getStoragePath());
+        }
+    }
+
+    private static void report(List<CallbackResult> results, long elapsedNanos, DocumentServerSimulator simulator) {
+        System.out.printf("%-10s %8s %8s %10s %10s%n", "status", "count", "ok", "p50(ms)", "p99(ms)");
+        for (int status : List.of(DocumentServerSimulator.EDITING, DocumentServerSimulator.FORCESAVE,
+                DocumentServerSimulator.SAVE, DocumentServerSimulator.CLOSED)) {
+            List<CallbackResult> byStatus = results.stream().filter(result -> result.status() == status).toList();
+            List<Long> sorted = byStatus.stream().map(CallbackResult::latencyNanos).sorted().toList();
+            System.out.printf("%-10d %8d %8d %10.1f %10.1f%n", status, byStatus.size(),
+                    byStatus.stream().filter(CallbackResult::succeeded).count(),
+                    percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99));
+        }
+
+        List<Long> all = results.stream().map(CallbackResult::latencyNanos).sorted().toList();
+        System.out.printf("callbacks/s=%.0f p50=%.1fms p99=%.1fms lockTimeouts=%d rejected=%d downloads=%d bytesMoved=%d%n",
+                results.size() / (elapsedNanos / 1_000_000_000.0),
+                percentileMillis(all, 0.50), percentileMillis(all, 0.99),
+                results.stream().filter(CallbackResult::lockTimeout).count(),
+                results.stream().filter(CallbackResult::rejected).count(),
+                simulator.downloads(), simulator.bytesServed());
+    }
+
+    /**
+     * 저장 단계별 누적/최대 시간 ({@code callback.save.phase})
+     */
+    private void reportPhases() {
+        System.out.printf("%-10s %-10s %8s %10s %10s%n", "phase", "type", "count", "mean(ms)", "max(ms)");
+        for (Timer timer : meterRegistry.find("callback.save.phase").timers()) {
+            System.out.printf("%-10s %-10s %8d %10.1f %10.1f%n", timer.getId().getTag("phase"),
+                    timer.getId().getTag("type"), timer.count(),
+                    timer.mean(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private static double percentileMillis(List<Long> sortedNanos, double percentile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(index, 0)) / 1_000_000.0;
+    }
+}
@@ -3,8 +3,11 @@ package com.example.onlyoffice.controller;
 import com.example.onlyoffice.entity.Document;
 import com.example.onlyoffice.entity.DocumentStatus;
 import com.example.onlyoffice.exception.GlobalExceptionHandler;
+import com.example.onlyoffice.service.DocumentContentCache;
 import com.example.onlyoffice.service.DocumentService;
+import com.example.onlyoffice.service.FileDeliveryService;
 import com.example.onlyoffice.service.MinioStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,8 +37,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * StreamingResponseBody 사용 시 스트림이 모든 시나리오에서
  * 올바르게 닫히는지 검증합니다.
  */
-@WebMvcTest(FileController.class)
-@Import(GlobalExceptionHandler.class)
+@WebMvcTest(controllers = FileController.class, properties = "storage.cache.enabled=false")
+@Import({GlobalExceptionHandler.class, DocumentContentCache.class, SimpleMeterRegistry.class})
 @DisplayName("FileController Streaming Tests")
 class FileControllerStreamingTest {
 
@@ -48,6 +51,9 @@ class FileControllerStreamingTest {
     @MockitoBean
     private MinioStorageService storageService;
 
+    @MockitoBean
+    private FileDeliveryService fileDeliveryService;
+
     private static final String FILE_KEY = "550e8400-e29b-41d4-a716-446655440000";
 
     @Test
@@ -4,11 +4,17 @@ import com.example.onlyoffice.entity.Document;
 import com.example.onlyoffice.entity.DocumentStatus;
 import com.example.onlyoffice.exception.DocumentNotFoundException;
 import com.example.onlyoffice.exception.GlobalExceptionHandler;
+import com.example.onlyoffice.service.DocumentContentCache;
 import com.example.onlyoffice.service.DocumentService;
+import com.example.onlyoffice.service.FileDeliveryService;
 import com.example.onlyoffice.service.MinioStorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.context.annotation.Import;
@@ -16,20 +22,29 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(FileController.class)
-@Import(GlobalExceptionHandler.class)
+@WebMvcTest(controllers = FileController.class, properties = "storage.cache.enabled=false")
+@Import({GlobalExceptionHandler.class, DocumentContentCache.class, SimpleMeterRegistry.class})
 @DisplayName("FileController")
 class FileControllerTest {
 
@@ -42,6 +57,12 @@ class FileControllerTest {
     @MockitoBean
     private MinioStorageService storageService;
 
+    @MockitoBean
+    private FileDeliveryService fileDeliveryService;
+
+    @Autowired
+    private DocumentContentCache contentCache;
+
     private static final String FILE_KEY = "550e8400-e29b-41d4-a716-446655440000";
     private static final String NON_EXISTENT_FILE_KEY = "00000000-0000-0000-0000-000000000000";
     private static final String STORAGE_PATH = "documents/" + FILE_KEY + "/test.docx";
@@ -198,6 +219,388 @@ class FileControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("GET /files/{fileKey} - Range 요청")
+    class RangeRequests {
+
+        private final byte[] fileBytes = "0123456789abcdefghij".getBytes();
+
+        @Test
+        @DisplayName("단일 구간 요청 시 206과 Content-Range 반환, 해당 구간만 스토리지에서 읽음")
+        void shouldReturnPartialContentForSingleRange() throws Exception {
+            // given
+            Document document = createDocument(1L, "test.docx", FILE_KEY, fileBytes.length);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+            when(storageService.downloadFile(document.getStoragePath(), 5L, 5L))
+                    .thenReturn(new ByteArrayInputStream(fileBytes, 5, 5));
+
+            // when
+            MvcResult mvcResult = mockMvc.perform(get("/files/{fileKey}", FILE_KEY)
+                            .header(HttpHeaders.RANGE, "bytes=5-9"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // then
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 5-9/20"))
+                    .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                    .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 5))
+                    .andExpect(content().bytes("56789".getBytes()));
+            verify(storageService, never()).downloadFile(document.getStoragePath());
+        }
+
+        @Test
+        @DisplayName("suffix 구간 요청 시 파일 끝부분 반환")
+        void shouldReturnSuffixRange() throws Exception {
+            // given
+            Document document = createDocument(1L, "test.docx", FILE_KEY, fileBytes.length);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+            when(storageService.downloadFile(document.getStoragePath(), 17L, 3L))
+                    .thenReturn(new ByteArrayInputStream(fileBytes, 17, 3));
+
+            // when
+            MvcResult mvcResult = mockMvc.perform(get("/files/{fileKey}", FILE_KEY)
+                            .header(HttpHeaders.RANGE, "bytes=-3"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // then
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 17-19/20"))
+                    .andExpect(content().bytes("hij".getBytes()));
+        }
+
+        @Test
+        @DisplayName("여러 구간 요청 시 multipart/byteranges로 반환")
+        void shouldReturnMultipartForMultipleRanges() throws Exception {
+            // given
+            Document document = createDocument(1L, "test.docx", FILE_KEY, fileBytes.length);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+            when(storageService.downloadFile(document.getStoragePath(), 0L, 2L))
+                    .thenReturn(new ByteArrayInputStream(fileBytes, 0, 2));
+            when(storageService.downloadFile(document.getStoragePath(), 10L, 3L))
+                    .thenReturn(new ByteArrayInputStream(fileBytes, 10, 3));
+
+            // when
+            MvcResult mvcResult = mockMvc.perform(get("/files/{fileKey}", FILE_KEY)
+                            .header(HttpHeaders.RANGE, "bytes=0-1,10-12"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // then
+            MvcResult result = mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isPartialContent())
+                    .andReturn();
+
+            String contentType = result.getResponse().getContentType();
+            assertThat(contentType).startsWith("multipart/byteranges; boundary=");
+            String boundary = contentType.substring(contentType.indexOf("boundary=") + "boundary=".length());
+            String body = result.getResponse().getContentAsString();
+            assertThat(body).isEqualTo(
+                    "\r\n--" + boundary + "\r\n"
+                            + "Content-Type: application/octet-stream\r\n"
+                            + "Content-Range: bytes 0-1/20\r\n\r\n"
+                            + "01"
+                            + "\r\n--" + boundary + "\r\n"
+                            + "Content-Type: application/octet-stream\r\n"
+                            + "Content-Range: bytes 10-12/20\r\n\r\n"
+                            + "abc"
+                            + "\r\n--" + boundary + "--\r\n");
+            assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_LENGTH))
+                    .isEqualTo(String.valueOf(body.length()));
+        }
+
+        @Test
+        @DisplayName("만족할 수 없는 구간 요청 시 416과 파일 크기 반환")
+        void shouldReturn416ForUnsatisfiableRange() throws Exception {
+            // given
+            Document document = createDocument(1L, "test.docx", FILE_KEY, fileBytes.length);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+
+            // when & then
+            mockMvc.perform(get("/files/{fileKey}", FILE_KEY)
+                            .header(HttpHeaders.RANGE, "bytes=100-200"))
+                    .andExpect(status().isRequestedRangeNotSatisfiable())
+                    .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */20"));
+            verifyNoInteractions(storageService);
+        }
+
+        @Test
+        @DisplayName("구간 합계가 파일 크기를 넘으면 416 반환")
+        void shouldReturn416WhenRangesExceedFileSize() throws Exception {
+            // given
+            Document document = createDocument(1L, "test.docx", FILE_KEY, fileBytes.length);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+
+            // when & then
+            mockMvc.perform(get("/files/{fileKey}", FILE_KEY)
+                            .header(HttpHeaders.RANGE, "bytes=0-19,0-19"))
+                    .andExpect(status().isRequestedRangeNotSatisfiable());
+            verifyNoInteractions(storageService);
+        }
+
+        @Test
+        @DisplayName("If-Range가 현재 ETag와 다르면 전체 파일을 200으로 반환")
+        void shouldIgnoreRangeWhenIfRangeDoesNotMatch() throws Exception {
+            // given
+            Document document = createDocument(1L, "test.docx", FILE_KEY, fileBytes.length);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+            when(storageService.downloadFile(document.getStoragePath()))
+                    .thenReturn(new ByteArrayInputStream(fileBytes));
+
+            // when
+            MvcResult mvcResult = mockMvc.perform(get("/files/{fileKey}", FILE_KEY)
+                            .header(HttpHeaders.RANGE, "bytes=5-9")
+                            .header(HttpHeaders.IF_RANGE, "\"" + FILE_KEY + "_v-old\""))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // then
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk())
+                    .andExpect(content().bytes(fileBytes));
+        }
+
+        @Test
+        @DisplayName("If-Range가 현재 ETag와 같으면 구간 반환")
+        void shouldHonorRangeWhenIfRangeMatches() throws Exception {
+            // given
+            Document document = createDocument(1L, "test.docx", FILE_KEY, fileBytes.length);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+            when(storageService.downloadFile(document.getStoragePath(), 0L, 5L))
+                    .thenReturn(new ByteArrayInputStream(fileBytes, 0, 5));
+
+            // when
+            MvcResult mvcResult = mockMvc.perform(get("/files/{fileKey}", FILE_KEY)
+                            .header(HttpHeaders.RANGE, "bytes=0-4")
+                            .header(HttpHeaders.IF_RANGE, "\"" + document.getEditorKey() + "\""))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // then
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isPartialContent())
+                    .andExpect(content().bytes("01234".getBytes()));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET/HEAD /files/{fileKey} - 조건부 요청")
+    class ConditionalRequests {
+
+        @Test
+        @DisplayName("응답에 editor key 기반 ETag와 Last-Modified 포함")
+        void shouldExposeValidators() throws Exception {
+            // given
+            byte[] fileBytes = "content".getBytes();
+            Document document = createDocument(1L, "test.docx", FILE_KEY, fileBytes.length);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+            when(storageService.downloadFile(document.getStoragePath()))
+                    .thenReturn(new ByteArrayInputStream(fileBytes));
+
+            // when
+            MvcResult mvcResult = mockMvc.perform(get("/files/{fileKey}", FILE_KEY))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // then
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"" + FILE_KEY + "_v0\""))
+                    .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                    .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"));
+        }
+
+        @Test
+        @DisplayName("content hash가 있으면 ETag로 사용하고 If-None-Match 일치 시 304 반환")
+        void shouldReturn304WhenContentHashMatches() throws Exception {
+            // given
+            Document document = createDocument(1L, "test.docx", FILE_KEY, 7);
+            document.setContentHash("abc123");
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+
+            // when & then
+            mockMvc.perform(get("/files/{fileKey}", FILE_KEY)
+                            .header(HttpHeaders.IF_NONE_MATCH, "\"abc123\""))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"abc123\""))
+                    .andExpect(content().bytes(new byte[0]));
+            verifyNoInteractions(storageService);
+        }
+
+        @Test
+        @DisplayName("If-Modified-Since가 Last-Modified 이후면 304 반환")
+        void shouldReturn304WhenNotModifiedSince() throws Exception {
+            // given
+            Document document = createDocument(1L, "test.docx", FILE_KEY, 7);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+            long later = document.getUpdatedAt().plusMinutes(1)
+                    .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+            // when & then
+            mockMvc.perform(get("/files/{fileKey}", FILE_KEY)
+                            .header(HttpHeaders.IF_MODIFIED_SINCE, later))
+                    .andExpect(status().isNotModified());
+            verifyNoInteractions(storageService);
+        }
+
+        @Test
+        @DisplayName("HEAD 요청은 메타데이터만으로 응답하고 스토리지에 접근하지 않음")
+        void shouldAnswerHeadFromMetadata() throws Exception {
+            // given
+            Document document = createDocument(1L, "test.docx", FILE_KEY, 4096);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+
+            // when & then
+            mockMvc.perform(head("/files/{fileKey}", FILE_KEY))
+                    .andExpect(status().isOk())
+                    .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4096))
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"" + FILE_KEY + "_v0\""))
+                    .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                    .andExpect(header().exists(HttpHeaders.CONTENT_DISPOSITION));
+            verifyNoInteractions(storageService);
+        }
+
+        @Test
+        @DisplayName("HEAD 요청도 If-None-Match 일치 시 304 반환")
+        void shouldReturn304ForHeadWhenETagMatches() throws Exception {
+            // given
+            Document document = createDocument(1L, "test.docx", FILE_KEY, 4096);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+
+            // when & then
+            mockMvc.perform(head("/files/{fileKey}", FILE_KEY)
+                            .header(HttpHeaders.IF_NONE_MATCH, "\"" + FILE_KEY + "_v0\""))
+                    .andExpect(status().isNotModified());
+        }
+
+        @Test
+        @DisplayName("존재하지 않는 파일 HEAD 요청 시 404 반환")
+        void shouldReturn404ForHeadWhenFileNotFound() throws Exception {
+            // given
+            when(documentService.findByFileKey(NON_EXISTENT_FILE_KEY)).thenReturn(Optional.empty());
+
+            // when & then
+            mockMvc.perform(head("/files/{fileKey}", NON_EXISTENT_FILE_KEY))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /files/{fileKey} - presigned URL redirect")
+    class PresignedRedirect {
+
+        private static final String PRESIGNED_URL = "http://minio:9000/onlyoffice-documents/documents/test.docx?X-Amz-Signature=abc";
+
+        @Test
+        @DisplayName("redirect 모드에서는 presigned URL로 302 응답하고 스토리지를 읽지 않음")
+        void shouldRedirectToPresignedUrl() throws Exception {
+            // given
+            Document document = createDocument(1L, "test.docx", FILE_KEY, 1024);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+            when(fileDeliveryService.redirectsDownloads()).thenReturn(true);
+            when(fileDeliveryService.presignedUrl(document)).thenReturn(Optional.of(PRESIGNED_URL));
+
+            // when & then
+            mockMvc.perform(get("/files/{fileKey}", FILE_KEY))
+                    .andExpect(status().isFound())
+                    .andExpect(header().string(HttpHeaders.LOCATION, PRESIGNED_URL));
+            verifyNoInteractions(storageService);
+        }
+
+        @Test
+        @DisplayName("presigned URL을 만들 수 없으면 스트리밍으로 대체")
+        void shouldFallBackToStreamingWhenPresigningFails() throws Exception {
+            // given
+            byte[] fileBytes = "content".getBytes();
+            Document document = createDocument(1L, "test.docx", FILE_KEY, fileBytes.length);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+            when(fileDeliveryService.redirectsDownloads()).thenReturn(true);
+            when(fileDeliveryService.presignedUrl(document)).thenReturn(Optional.empty());
+            when(storageService.downloadFile(document.getStoragePath()))
+                    .thenReturn(new ByteArrayInputStream(fileBytes));
+
+            // when
+            MvcResult mvcResult = mockMvc.perform(get("/files/{fileKey}", FILE_KEY))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // then
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk())
+                    .andExpect(content().bytes(fileBytes));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /files/{fileKey} - 로컬 캐시")
+    class LocalCache {
+
+        private final byte[] fileBytes = "0123456789abcdefghij".getBytes();
+
+        @TempDir
+        Path cacheDir;
+
+        @BeforeEach
+        void enableCache() {
+            ReflectionTestUtils.setField(contentCache, "enabled", true);
+            ReflectionTestUtils.setField(contentCache, "path", cacheDir.toString());
+            contentCache.init();
+        }
+
+        @AfterEach
+        void disableCache() {
+            contentCache.invalidate(FILE_KEY);
+            ReflectionTestUtils.setField(contentCache, "enabled", false);
+        }
+
+        @Test
+        @DisplayName("캐시된 파일은 스토리지를 읽지 않고 로컬 파일에서 전송")
+        void shouldServeCachedFileFromDisk() throws Exception {
+            // given
+            Document document = createDocument(1L, "test.docx", FILE_KEY, fileBytes.length);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+            when(storageService.downloadFile(document.getStoragePath()))
+                    .thenReturn(new ByteArrayInputStream(fileBytes));
+            download(get("/files/{fileKey}", FILE_KEY));
+
+            // when
+            MvcResult result = download(get("/files/{fileKey}", FILE_KEY));
+
+            // then
+            assertThat(result.getResponse().getContentAsByteArray()).isEqualTo(fileBytes);
+            verify(storageService, times(1)).downloadFile(document.getStoragePath());
+        }
+
+        @Test
+        @DisplayName("캐시된 파일의 구간 요청도 로컬 파일에서 전송")
+        void shouldServeCachedRangeFromDisk() throws Exception {
+            // given
+            Document document = createDocument(1L, "test.docx", FILE_KEY, fileBytes.length);
+            when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+            when(storageService.downloadFile(document.getStoragePath()))
+                    .thenReturn(new ByteArrayInputStream(fileBytes));
+            download(get("/files/{fileKey}", FILE_KEY));
+
+            // when
+            MvcResult result = download(get("/files/{fileKey}", FILE_KEY).header(HttpHeaders.RANGE, "bytes=5-9"));
+
+            // then
+            assertThat(result.getResponse().getStatus()).isEqualTo(206);
+            assertThat(result.getResponse().getContentAsString()).isEqualTo("56789");
+            verify(storageService, never()).downloadFile(document.getStoragePath(), 5L, 5L);
+        }
+
+        private MvcResult download(MockHttpServletRequestBuilder builder) throws Exception {
+            MvcResult mvcResult = mockMvc.perform(builder)
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            return mockMvc.perform(asyncDispatch(mvcResult)).andReturn();
+        }
+    }
+
     private Document createDocument(Long id, String fileName, String fileKey, long fileSize) {
         String extension = fileName.substring(fileName.lastIndexOf('.') + 1);
         String documentType = switch (extension) {
@@ -0,0 +1,229 @@
+package com.example.onlyoffice.sdk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onlyoffice.manager.security.DefaultJwtManager;
+import com.onlyoffice.model.documenteditor.Callback;
+import com.onlyoffice.model.documenteditor.callback.Status;
+import com.onlyoffice.model.settings.SettingsConstants;
+import com.onlyoffice.service.documenteditor.callback.DefaultCallbackService;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("CallbackTokenVerifier")
+class CallbackTokenVerifierTest {
+
+    private static final String SECRET = "test-secret-key-must-be-at-least-32-characters-long";
+    private static final String DOCUMENT_KEY = "sampledocx_v1";
+    private static final String DOWNLOAD_URL = "http://localhost:9980/download/file123";
+
+    private CustomSettingsManager settingsManager;
+    private CallbackTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        settingsManager = new CustomSettingsManager();
+        ReflectionTestUtils.setField(settingsManager, "documentServerUrl", "http://localhost:9980");
+        ReflectionTestUtils.setField(settingsManager, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(settingsManager, "serverBaseUrl", "http://localhost:8080");
+        settingsManager.init();
+
+        verifier = new CallbackTokenVerifier(settingsManager, new ObjectMapper());
+    }
+
+    @Nested
+    @DisplayName("verify")
+    class Verify {
+
+        @Test
+        @DisplayName("body 토큰의 payload로 callback 복원")
+        void shouldDecodeBodyToken() {
+            // given
+            Callback callback = callbackWithToken(sign(callbackClaims(), expiresInSeconds(60)));
+
+            // when
+            Callback verified = verifier.verify(callback, null);
+
+            // then
+            assertThat(verified.getStatus()).isEqualTo(Status.SAVE);
+            assertThat(verified.getKey()).isEqualTo(DOCUMENT_KEY);
+            assertThat(verified.getUrl()).isEqualTo(DOWNLOAD_URL);
+        }
+
+        @Test
+        @DisplayName("body 토큰이 없으면 Authorization header의 payload claim 사용")
+        void shouldDecodeHeaderToken() {
+            // given
+            String token = sign(Map.of("payload", callbackClaims()), expiresInSeconds(60));
+
+            // when
+            Callback verified = verifier.verify(new Callback(), settingsManager.getSecurityPrefix() + token);
+
+            // then
+            assertThat(verified.getKey()).isEqualTo(DOCUMENT_KEY);
+            assertThat(verified.getUrl()).isEqualTo(DOWNLOAD_URL);
+        }
+
+        @Test
+        @DisplayName("SDK JwtManager가 만든 토큰도 SDK와 같은 결과로 검증")
+        void shouldMatchSdkVerification() throws Exception {
+            // given
+            String token = new DefaultJwtManager(settingsManager).createToken(callbackClaims());
+            DefaultCallbackService sdk = new DefaultCallbackService(new DefaultJwtManager(settingsManager), settingsManager);
+
+            // when
+            Callback expected = sdk.verifyCallback(callbackWithToken(token), null);
+            Callback actual = verifier.verify(callbackWithToken(token), null);
+
+            // then
+            assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+        }
+
+        @Test
+        @DisplayName("토큰이 없으면 SecurityException")
+        void shouldRejectMissingToken() {
+            assertThatThrownBy(() -> verifier.verify(new Callback(), null))
+                    .isInstanceOf(SecurityException.class);
+        }
+
+        @Test
+        @DisplayName("서명이 다른 토큰은 거부")
+        void shouldRejectTamperedToken() {
+            // given
+            String forged = Jwts.builder()
+                    .claims(callbackClaims())
+                    .signWith(Keys.hmacShaKeyFor("another-secret-key-that-is-32-characters!".getBytes(StandardCharsets.UTF_8)))
+                    .compact();
+
+            // when / then
+            assertThatThrownBy(() -> verifier.verify(callbackWithToken(forged), null))
+                    .isInstanceOf(JwtException.class);
+            assertThat(verifier.cacheSize()).isZero();
+        }
+
+        @Test
+        @DisplayName("만료된 토큰은 거부")
+        void shouldRejectExpiredToken() {
+            // given - leeway(3초)보다 오래 전에 만료
+            Callback callback = callbackWithToken(sign(callbackClaims(), expiresInSeconds(-60)));
+
+            // when / then
+            assertThatThrownBy(() -> verifier.verify(callback, null))
+                    .isInstanceOf(ExpiredJwtException.class);
+        }
+
+        @Test
+        @DisplayName("보안이 비활성화되면 입력 callback을 그대로 반환")
+        void shouldSkipWhenSecurityDisabled() {
+            // given
+            settingsManager.setSetting(SettingsConstants.SECURITY_KEY, "");
+            Callback callback = new Callback();
+
+            // when / then
+            assertThat(verifier.verify(callback, null)).isSameAs(callback);
+        }
+    }
+
+    @Nested
+    @DisplayName("Verified token cache")
+    class VerifiedTokenCache {
+
+        @Test
+        @DisplayName("같은 토큰은 다시 파싱하지 않고 캐시된 결과 반환")
+        void shouldReuseVerifiedToken() {
+            // given
+            String token = sign(callbackClaims(), expiresInSeconds(60));
+
+            // when
+            Callback first = verifier.verify(callbackWithToken(token), null);
+            Callback second = verifier.verify(callbackWithToken(token), null);
+
+            // then
+            assertThat(second).isSameAs(first);
+            assertThat(verifier.cacheSize()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("토큰의 exp가 지나면 캐시를 사용하지 않음")
+        void shouldNotServeCachedTokenPastExpiry() throws Exception {
+            // given - exp는 초 단위이므로 최대 1초 뒤 만료
+            String token = sign(callbackClaims(), expiresInSeconds(1));
+            Callback first = verifier.verify(callbackWithToken(token), null);
+
+            // when - exp 이후(leeway 안)에는 다시 검증
+            Thread.sleep(1200);
+            Callback second = verifier.verify(callbackWithToken(token), null);
+
+            // then
+            assertThat(second).isNotSameAs(first);
+            assertThat(second.getKey()).isEqualTo(DOCUMENT_KEY);
+        }
+
+        @Test
+        @DisplayName("ttl 0이면 캐시하지 않음")
+        void shouldNotCacheWhenDisabled() {
+            // given
+            ReflectionTestUtils.setField(verifier, "cacheTtlSeconds", 0L);
+            String token = sign(callbackClaims(), expiresInSeconds(60));
+
+            // when
+            Callback first = verifier.verify(callbackWithToken(token), null);
+            Callback second = verifier.verify(callbackWithToken(token), null);
+
+            // then
+            assertThat(second).isNotSameAs(first);
+            assertThat(verifier.cacheSize()).isZero();
+        }
+
+        @Test
+        @DisplayName("최대 개수를 넘으면 새 토큰은 캐시하지 않음")
+        void shouldBoundCacheSize() {
+            // given
+            ReflectionTestUtils.setField(verifier, "cacheMaxEntries", 2);
+
+            // when
+            for (int i = 0; i < 3; i++) {
+                Map<String, Object> claims = Map.of("status", 2, "key", DOCUMENT_KEY + i, "url", DOWNLOAD_URL);
+                verifier.verify(callbackWithToken(sign(claims, expiresInSeconds(60))), null);
+            }
+
+            // then
+            assertThat(verifier.cacheSize()).isEqualTo(2);
+        }
+    }
+
+    private static Map<String, Object> callbackClaims() {
+        return Map.of("status", 2, "key", DOCUMENT_KEY, "url", DOWNLOAD_URL);
+    }
+
+    private static Date expiresInSeconds(long seconds) {
+        return new Date(System.currentTimeMillis() + seconds * 1000);
+    }
+
+    private static String sign(Map<String, ?> claims, Date expiration) {
+        return Jwts.builder()
+                .claims(claims)
+                .expiration(expiration)
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    private static Callback callbackWithToken(String token) {
+        Callback callback = new Callback();
+        callback.setToken(token);
+        return callback;
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.onlyoffice.sdk;
 
+import com.example.onlyoffice.entity.Document;
+import com.example.onlyoffice.service.CallbackLeaseService;
 import com.example.onlyoffice.service.CallbackQueueService;
 import com.example.onlyoffice.service.DocumentService;
+import com.example.onlyoffice.service.EditingSessionRegistry;
+import com.example.onlyoffice.service.SaveCallback;
 import com.onlyoffice.manager.security.JwtManager;
 import com.onlyoffice.model.documenteditor.Callback;
 import com.onlyoffice.model.documenteditor.callback.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,6 +17,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.anyString;
@@ -33,6 +44,14 @@ class CustomCallbackServiceTest {
     @Mock
     private CallbackQueueService callbackQueueService;
 
+    @Mock
+    private CallbackLeaseService callbackLeaseService;
+
+    @Mock
+    private CallbackTokenVerifier callbackTokenVerifier;
+
+    private EditingSessionRegistry editingSessions;
+
     private CustomCallbackService customCallbackService;
 
     private static final String FILE_KEY = "sampledocx";
@@ -41,11 +60,15 @@ class CustomCallbackServiceTest {
 
     @BeforeEach
     void setUp() throws Exception {
+        editingSessions = new EditingSessionRegistry(new SimpleMeterRegistry());
         customCallbackService = new CustomCallbackService(
                 jwtManager,
                 settingsManager,
                 documentService,
-                callbackQueueService
+                callbackQueueService,
+                callbackLeaseService,
+                callbackTokenVerifier,
+                editingSessions
         );
 
         // CallbackQueueService가 즉시 작업을 실행하도록 설정 (lenient로 사용되지 않는 경우도 허용)
@@ -54,6 +77,23 @@ class CustomCallbackServiceTest {
             task.run();
             return null;
         }).when(callbackQueueService).submitAndWait(anyString(), any(Runnable.class));
+
+        // 저장 callback도 병합 없이 guard 안에서 즉시 processor에 전달
+        lenient().doAnswer(invocation -> {
+            String fileKey = invocation.getArgument(0);
+            SaveCallback save = invocation.getArgument(1);
+            BiConsumer<String, Runnable> guard = invocation.getArgument(3);
+            Consumer<SaveCallback> processor = invocation.getArgument(4);
+            guard.accept(fileKey, () -> processor.accept(save));
+            return null;
+        }).when(callbackQueueService).submitSaveAndWait(anyString(), any(SaveCallback.class), anyLong(), any(), any());
+
+        // lease는 즉시 획득한 것으로 처리
+        lenient().doAnswer(invocation -> {
+            Runnable task = invocation.getArgument(1);
+            task.run();
+            return null;
+        }).when(callbackLeaseService).runExclusively(anyString(), any(Runnable.class));
     }
 
     @Test
@@ -66,8 +106,24 @@ class CustomCallbackServiceTest {
         customCallbackService.handlerSave(callback, FILE_KEY);
 
         // then
-        verify(callbackQueueService).submitAndWait(eq(FILE_KEY), any(Runnable.class));
-        verify(documentService).processCallbackSave(DOWNLOAD_URL, FILE_KEY);
+        verify(callbackQueueService).submitSaveAndWait(eq(FILE_KEY), eq(SaveCallback.save(DOWNLOAD_URL, DOCUMENT_KEY)), anyLong(), any(), any());
+        verify(documentService).processCallbackSave(DOWNLOAD_URL, FILE_KEY, DOCUMENT_KEY);
+        verify(callbackLeaseService).runExclusively(eq(FILE_KEY), any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("handlerSave: 저장된 파일 크기를 예상 바이트로 큐에 전달")
+    void shouldPassStoredFileSizeAsExpectedBytes() throws Exception {
+        // given
+        Callback callback = createCallback(Status.SAVE, DOWNLOAD_URL);
+        Document document = Document.builder().fileKey(FILE_KEY).fileSize(2048L).build();
+        when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+
+        // when
+        customCallbackService.handlerSave(callback, FILE_KEY);
+
+        // then
+        verify(callbackQueueService).submitSaveAndWait(eq(FILE_KEY), any(SaveCallback.class), eq(2048L), any(), any());
     }
 
     @Test
@@ -81,8 +137,8 @@ class CustomCallbackServiceTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Download URL is required");
 
-        verify(callbackQueueService, never()).submitAndWait(anyString(), any(Runnable.class));
-        verify(documentService, never()).processCallbackSave(anyString(), anyString());
+        verify(callbackQueueService, never()).submitSaveAndWait(anyString(), any(SaveCallback.class), anyLong(), any(), any());
+        verify(documentService, never()).processCallbackSave(anyString(), anyString(), any());
     }
 
     @Test
@@ -95,10 +151,10 @@ class CustomCallbackServiceTest {
         customCallbackService.handlerForcesave(callback, FILE_KEY);
 
         // then
-        verify(callbackQueueService).submitAndWait(eq(FILE_KEY), any(Runnable.class));
-        verify(documentService).processCallbackForceSave(DOWNLOAD_URL, FILE_KEY);
+        verify(callbackQueueService).submitSaveAndWait(eq(FILE_KEY), eq(SaveCallback.forceSave(DOWNLOAD_URL, DOCUMENT_KEY)), anyLong(), any(), any());
+        verify(documentService).processCallbackForceSave(DOWNLOAD_URL, FILE_KEY, DOCUMENT_KEY);
         // processCallbackSave는 호출되지 않음 (FORCESAVE는 버전 증가 없음)
-        verify(documentService, never()).processCallbackSave(anyString(), anyString());
+        verify(documentService, never()).processCallbackSave(anyString(), anyString(), any());
     }
 
     @Test
@@ -112,13 +168,13 @@ class CustomCallbackServiceTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Download URL is required");
 
-        verify(callbackQueueService, never()).submitAndWait(anyString(), any(Runnable.class));
-        verify(documentService, never()).processCallbackForceSave(anyString(), anyString());
+        verify(callbackQueueService, never()).submitSaveAndWait(anyString(), any(SaveCallback.class), anyLong(), any(), any());
+        verify(documentService, never()).processCallbackForceSave(anyString(), anyString(), any());
     }
 
     @Test
-    @DisplayName("로깅만 하는 핸들러 (EDITING, CLOSED) - 큐 및 DocumentService 호출 없음")
-    void shouldOnlyLogForEditingAndClosedStatus() throws Exception {
+    @DisplayName("세션 핸들러 (EDITING, CLOSED) - 큐에서 대기하거나 저장하지 않음")
+    void shouldNotQueueOrSaveForEditingAndClosedStatus() throws Exception {
         // given
         Callback editingCallback = createCallback(Status.EDITING, null);
         Callback closedCallback = createCallback(Status.CLOSED, null);
@@ -127,10 +183,11 @@ class CustomCallbackServiceTest {
         customCallbackService.handlerEditing(editingCallback, FILE_KEY);
         customCallbackService.handlerClosed(closedCallback, FILE_KEY);
 
-        // then: 큐 및 DocumentService 메서드 호출되지 않음
+        // then: 큐 및 DocumentService 저장 메서드 호출되지 않음
         verify(callbackQueueService, never()).submitAndWait(anyString(), any(Runnable.class));
-        verify(documentService, never()).processCallbackSave(anyString(), anyString());
-        verify(documentService, never()).processCallbackForceSave(anyString(), anyString());
+        verify(callbackQueueService, never()).submitSaveAndWait(anyString(), any(SaveCallback.class), anyLong(), any(), any());
+        verify(documentService, never()).processCallbackSave(anyString(), anyString(), any());
+        verify(documentService, never()).processCallbackForceSave(anyString(), anyString(), any());
 
         // 예외도 발생하지 않음
         assertThatCode(() -> {
@@ -139,6 +196,121 @@ class CustomCallbackServiceTest {
         }).doesNotThrowAnyException();
     }
 
+    @Test
+    @DisplayName("handlerEditing: 세션을 열고 문서 크기를 캐시한 뒤 lane을 미리 준비")
+    void shouldOpenSessionAndPrewarmLaneOnEditing() throws Exception {
+        // given
+        Callback callback = createCallback(Status.EDITING, null);
+        callback.setUsers(List.of("user-1"));
+        Document document = Document.builder().fileKey(FILE_KEY).fileSize(4096L).build();
+        when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+
+        // when
+        customCallbackService.handlerEditing(callback, FILE_KEY);
+        customCallbackService.handlerEditing(callback, FILE_KEY);
+
+        // then: 두 번째 EDITING은 캐시된 메타데이터 사용
+        assertThat(editingSessions.find(FILE_KEY)).hasValueSatisfying(session -> {
+            assertThat(session.documentKey()).isEqualTo(DOCUMENT_KEY);
+            assertThat(session.fileSize()).isEqualTo(4096L);
+            assertThat(session.users()).containsExactly("user-1");
+        });
+        verify(documentService, times(1)).findByFileKey(FILE_KEY);
+        verify(callbackQueueService, times(2)).prewarm(FILE_KEY);
+    }
+
+    @Test
+    @DisplayName("handlerEditing: lane을 미리 준비하지 못해도 세션은 열고 예외를 전파하지 않음")
+    void shouldIgnorePrewarmFailure() throws Exception {
+        // given
+        Document document = Document.builder().fileKey(FILE_KEY).fileSize(4096L).build();
+        when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(document));
+        doThrow(new IllegalStateException("Failed to submit callback task after 3 retries"))
+                .when(callbackQueueService).prewarm(FILE_KEY);
+
+        // when & then
+        assertThatCode(() -> customCallbackService.handlerEditing(createCallback(Status.EDITING, null), FILE_KEY))
+                .doesNotThrowAnyException();
+        assertThat(editingSessions.isEditing(FILE_KEY)).isTrue();
+    }
+
+    @Test
+    @DisplayName("handlerEditing: 없는 문서면 세션을 열지 않음")
+    void shouldIgnoreEditingForUnknownDocument() throws Exception {
+        // given
+        when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.empty());
+
+        // when
+        customCallbackService.handlerEditing(createCallback(Status.EDITING, null), FILE_KEY);
+
+        // then
+        assertThat(editingSessions.isEditing(FILE_KEY)).isFalse();
+        verify(callbackQueueService, never()).prewarm(anyString());
+    }
+
+    @Test
+    @DisplayName("handlerClosed: 세션을 닫고 lane을 바로 회수")
+    void shouldEndSessionAndReleaseLaneOnClosed() throws Exception {
+        // given
+        editingSessions.open(FILE_KEY, DOCUMENT_KEY, 1024L, List.of("user-1"));
+
+        // when
+        customCallbackService.handlerClosed(createCallback(Status.CLOSED, null), FILE_KEY);
+
+        // then
+        assertThat(editingSessions.isEditing(FILE_KEY)).isFalse();
+        verify(callbackQueueService).release(FILE_KEY);
+    }
+
+    @Test
+    @DisplayName("handlerSave: 저장 후 세션을 닫고 lane 회수, 세션 중에는 캐시된 크기를 예상 바이트로 사용")
+    void shouldUseSessionSizeAndEndSessionOnSave() throws Exception {
+        // given
+        editingSessions.open(FILE_KEY, DOCUMENT_KEY, 1024L, List.of("user-1"));
+
+        // when
+        customCallbackService.handlerSave(createCallback(Status.SAVE, DOWNLOAD_URL), FILE_KEY);
+
+        // then
+        verify(callbackQueueService).submitSaveAndWait(eq(FILE_KEY), any(SaveCallback.class), eq(1024L), any(), any());
+        verify(documentService, never()).findByFileKey(anyString());
+        assertThat(editingSessions.isEditing(FILE_KEY)).isFalse();
+        verify(callbackQueueService).release(FILE_KEY);
+    }
+
+    @Test
+    @DisplayName("handlerForcesave: 세션을 유지")
+    void shouldKeepSessionOnForcesave() throws Exception {
+        // given
+        editingSessions.open(FILE_KEY, DOCUMENT_KEY, 1024L, List.of("user-1"));
+
+        // when
+        customCallbackService.handlerForcesave(createCallback(Status.FORCESAVE, DOWNLOAD_URL), FILE_KEY);
+
+        // then
+        assertThat(editingSessions.isEditing(FILE_KEY)).isTrue();
+        verify(callbackQueueService, never()).release(anyString());
+    }
+
+    @Test
+    @DisplayName("handlerForcesave: 커밋 후 세션의 파일 크기를 새로 저장된 크기로 갱신")
+    void shouldRefreshSessionFileSizeAfterForcesave() throws Exception {
+        // given
+        editingSessions.open(FILE_KEY, DOCUMENT_KEY, 1024L, List.of("user-1"));
+        Document saved = Document.builder().fileKey(FILE_KEY).fileSize(8192L).build();
+        when(documentService.findByFileKey(FILE_KEY)).thenReturn(Optional.of(saved));
+
+        // when
+        customCallbackService.handlerForcesave(createCallback(Status.FORCESAVE, DOWNLOAD_URL), FILE_KEY);
+        customCallbackService.handlerForcesave(createCallback(Status.FORCESAVE, DOWNLOAD_URL), FILE_KEY);
+
+        // then: 두 번째 FORCESAVE는 갱신된 크기를 예상 바이트로 사용
+        assertThat(editingSessions.find(FILE_KEY))
+                .hasValueSatisfying(session -> assertThat(session.fileSize()).isEqualTo(8192L));
+        verify(callbackQueueService).submitSaveAndWait(eq(FILE_KEY), any(SaveCallback.class), eq(1024L), any(), any());
+        verify(callbackQueueService).submitSaveAndWait(eq(FILE_KEY), any(SaveCallback.class), eq(8192L), any(), any());
+    }
+
     @Test
     @DisplayName("에러 핸들러 (SAVE_CORRUPTED, FORCESAVE_CORRUPTED) - 큐 및 DocumentService 호출 없음")
     void shouldOnlyLogForCorruptedStatus() throws Exception {
@@ -152,8 +324,9 @@ class CustomCallbackServiceTest {
 
         // then: 큐 및 DocumentService 메서드 호출되지 않음
         verify(callbackQueueService, never()).submitAndWait(anyString(), any(Runnable.class));
-        verify(documentService, never()).processCallbackSave(anyString(), anyString());
-        verify(documentService, never()).processCallbackForceSave(anyString(), anyString());
+        verify(callbackQueueService, never()).submitSaveAndWait(anyString(), any(SaveCallback.class), anyLong(), any(), any());
+        verify(documentService, never()).processCallbackSave(anyString(), anyString(), any());
+        verify(documentService, never()).processCallbackForceSave(anyString(), anyString(), any());
 
         // 예외도 발생하지 않음
         assertThatCode(() -> {
@@ -168,7 +341,7 @@ class CustomCallbackServiceTest {
         // given
         Callback callback = createCallback(Status.SAVE, DOWNLOAD_URL);
         doThrow(new RuntimeException("Queue execution failed"))
-                .when(callbackQueueService).submitAndWait(anyString(), any(Runnable.class));
+                .when(callbackQueueService).submitSaveAndWait(anyString(), any(SaveCallback.class), anyLong(), any(), any());
 
         // when & then
         assertThatThrownBy(() -> customCallbackService.handlerSave(callback, FILE_KEY))
@@ -182,7 +355,7 @@ class CustomCallbackServiceTest {
         // given
         Callback callback = createCallback(Status.FORCESAVE, DOWNLOAD_URL);
         doThrow(new RuntimeException("Queue execution failed"))
-                .when(callbackQueueService).submitAndWait(anyString(), any(Runnable.class));
+                .when(callbackQueueService).submitSaveAndWait(anyString(), any(SaveCallback.class), anyLong(), any(), any());
 
         // when & then
         assertThatThrownBy(() -> customCallbackService.handlerForcesave(callback, FILE_KEY))
@@ -1,18 +1,29 @@
 package com.example.onlyoffice.sdk;
 
+import com.example.onlyoffice.entity.Document;
+import com.example.onlyoffice.exception.DocumentNotFoundException;
+import com.example.onlyoffice.repository.DocumentRepository;
+import com.example.onlyoffice.service.FileDeliveryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.Optional;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @DisplayName("CustomUrlManager")
 class CustomUrlManagerTest {
 
     private CustomUrlManager urlManager;
     private CustomSettingsManager settingsManager;
+    private DocumentRepository documentRepository;
+    private FileDeliveryService fileDeliveryService;
 
     private static final String SERVER_BASE_URL = "http://localhost:8080";
     private static final String DOCUMENT_SERVER_URL = "http://localhost:9980";
@@ -25,7 +36,9 @@ class CustomUrlManagerTest {
         ReflectionTestUtils.setField(settingsManager, "jwtSecret", "test-secret");
         ReflectionTestUtils.setField(settingsManager, "serverBaseUrl", SERVER_BASE_URL);
 
-        urlManager = new CustomUrlManager(settingsManager);
+        documentRepository = mock(DocumentRepository.class);
+        fileDeliveryService = mock(FileDeliveryService.class);
+        urlManager = new CustomUrlManager(settingsManager, documentRepository, fileDeliveryService);
 
         // Set serverBaseUrl using reflection
         ReflectionTestUtils.setField(urlManager, "serverBaseUrl", SERVER_BASE_URL);
@@ -60,6 +73,54 @@ class CustomUrlManagerTest {
             // then
             assertThat(result).isEqualTo("http://localhost:8080/files/abc-123-def-456");
         }
+
+        @Test
+        @DisplayName("direct 전달 모드에서는 presigned MinIO URL 반환")
+        void shouldReturnPresignedUrlInDirectMode() {
+            // given
+            String fileKey = "550e8400-e29b-41d4-a716-446655440000";
+            Document document = Document.builder().fileKey(fileKey).fileName("test.docx")
+                    .storagePath("documents/" + fileKey + "/test.docx").build();
+            when(fileDeliveryService.presignsEditorUrls()).thenReturn(true);
+            when(documentRepository.findByFileKey(fileKey)).thenReturn(Optional.of(document));
+            when(fileDeliveryService.presignedUrl(document)).thenReturn(Optional.of("http://minio:9000/presigned"));
+
+            // when
+            String result = urlManager.getFileUrl(fileKey);
+
+            // then
+            assertThat(result).isEqualTo("http://minio:9000/presigned");
+        }
+
+        @Test
+        @DisplayName("direct 전달 모드에서 presigned URL 생성 실패 시 /files URL로 대체")
+        void shouldFallBackToFilesUrlWhenPresigningFails() {
+            // given
+            String fileKey = "550e8400-e29b-41d4-a716-446655440000";
+            Document document = Document.builder().fileKey(fileKey).fileName("test.docx")
+                    .storagePath("documents/" + fileKey + "/test.docx").build();
+            when(fileDeliveryService.presignsEditorUrls()).thenReturn(true);
+            when(documentRepository.findByFileKey(fileKey)).thenReturn(Optional.of(document));
+            when(fileDeliveryService.presignedUrl(document)).thenReturn(Optional.empty());
+
+            // when
+            String result = urlManager.getFileUrl(fileKey);
+
+            // then
+            assertThat(result).isEqualTo("http://localhost:8080/files/" + fileKey);
+        }
+
+        @Test
+        @DisplayName("direct 전달 모드에서 없는 문서면 DocumentNotFoundException")
+        void shouldThrowWhenDocumentMissingInDirectMode() {
+            // given
+            when(fileDeliveryService.presignsEditorUrls()).thenReturn(true);
+            when(documentRepository.findByFileKey("missing")).thenReturn(Optional.empty());
+
+            // when & then
+            assertThatThrownBy(() -> urlManager.getFileUrl("missing"))
+                    .isInstanceOf(DocumentNotFoundException.class);
+        }
     }
 
     @Nested
@@ -0,0 +1,452 @@
+package com.example.onlyoffice.service;
+
+import com.example.onlyoffice.entity.CallbackInboxEntry;
+import com.example.onlyoffice.entity.CallbackInboxState;
+import com.example.onlyoffice.exception.DocumentNotFoundException;
+import com.example.onlyoffice.repository.CallbackInboxRepository;
+import com.onlyoffice.model.documenteditor.Callback;
+import com.onlyoffice.model.documenteditor.callback.Status;
+import com.onlyoffice.service.documenteditor.callback.CallbackService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+@SpringBootTest(properties = {
+        "callback.ack-mode=async",
+        "callback.inbox.poll-interval-ms=50",
+        "callback.inbox.initial-backoff-ms=50",
+        "callback.inbox.max-attempts=3"
+})
+@ActiveProfiles("test")
+@DisplayName("CallbackInboxService 통합 테스트")
+class CallbackInboxServiceTest {
+
+    private static final String FILE_KEY = "inbox-doc-001";
+
+    @Autowired
+    private CallbackInboxService callbackInboxService;
+
+    @Autowired
+    private CallbackInboxRepository inboxRepository;
+
+    @MockitoBean
+    private CallbackService callbackService;
+
+    @MockitoBean
+    private MinioStorageService storageService;
+
+    private final List<String> processedUrls = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        inboxRepository.deleteAll();
+
+        doAnswer(invocation -> {
+            Callback callback = invocation.getArgument(0);
+            Thread.sleep(10);
+            processedUrls.add(callback.getUrl());
+            return null;
+        }).when(callbackService).processCallback(any(Callback.class), anyString());
+    }
+
+    @Test
+    @DisplayName("async 모드에서는 SAVE/FORCESAVE만 inbox 대상")
+    void shouldEnqueueOnlySaveCallbacks() {
+        assertThat(callbackInboxService.shouldEnqueue(createCallback(Status.SAVE, "u1"))).isTrue();
+        assertThat(callbackInboxService.shouldEnqueue(createCallback(Status.FORCESAVE, "u1"))).isTrue();
+        assertThat(callbackInboxService.shouldEnqueue(createCallback(Status.EDITING, null))).isFalse();
+        assertThat(callbackInboxService.shouldEnqueue(createCallback(Status.CLOSED, null))).isFalse();
+    }
+
+    @Test
+    @DisplayName("같은 문서의 callback을 접수 순서대로 처리하고 DONE으로 표시")
+    void shouldProcessEntriesInOrder() throws Exception {
+        // when
+        callbackInboxService.enqueue(createCallback(Status.FORCESAVE, "u1"), FILE_KEY);
+        callbackInboxService.enqueue(createCallback(Status.FORCESAVE, "u2"), FILE_KEY);
+        callbackInboxService.enqueue(createCallback(Status.SAVE, "u3"), FILE_KEY);
+
+        // then
+        awaitUntil(() -> allInState(CallbackInboxState.DONE, 3));
+        assertThat(processedUrls).containsExactly("u1", "u2", "u3");
+    }
+
+    @Test
+    @DisplayName("일시적 오류는 backoff 후 재시도하며, 그동안 뒤 항목은 대기")
+    void shouldRetryHeadBeforeProcessingNextEntry() throws Exception {
+        // given - 첫 시도만 실패
+        doAnswer(invocation -> {
+            Callback callback = invocation.getArgument(0);
+            processedUrls.add(callback.getUrl());
+            if (processedUrls.size() == 1) {
+                throw new RuntimeException("MinIO unavailable");
+            }
+            return null;
+        }).when(callbackService).processCallback(any(Callback.class), anyString());
+
+        // when
+        callbackInboxService.enqueue(createCallback(Status.FORCESAVE, "u1"), FILE_KEY);
+        callbackInboxService.enqueue(createCallback(Status.SAVE, "u2"), FILE_KEY);
+
+        // then
+        awaitUntil(() -> allInState(CallbackInboxState.DONE, 2));
+        assertThat(processedUrls).containsExactly("u1", "u1", "u2");
+        assertThat(inboxRepository.findAllByFileKeyOrderByIdAsc(FILE_KEY))
+                .extracting(CallbackInboxEntry::getAttempts)
+                .containsExactly(2, 1);
+    }
+
+    @Test
+    @DisplayName("재시도 불가능한 오류는 즉시 FAILED로 표시하고 다음 항목 진행")
+    void shouldFailNonRetryableEntryAndContinue() throws Exception {
+        // given
+        doAnswer(invocation -> {
+            Callback callback = invocation.getArgument(0);
+            processedUrls.add(callback.getUrl());
+            if ("u1".equals(callback.getUrl())) {
+                throw new DocumentNotFoundException(FILE_KEY);
+            }
+            return null;
+        }).when(callbackService).processCallback(any(Callback.class), anyString());
+
+        // when
+        callbackInboxService.enqueue(createCallback(Status.FORCESAVE, "u1"), FILE_KEY);
+        callbackInboxService.enqueue(createCallback(Status.SAVE, "u2"), FILE_KEY);
+
+        // then
+        awaitUntil(() -> inboxRepository.findAllByFileKeyOrderByIdAsc(FILE_KEY).stream()
+                .noneMatch(e -> e.getState() == CallbackInboxState.PENDING
+                        || e.getState() == CallbackInboxState.PROCESSING));
+        assertThat(inboxRepository.findAllByFileKeyOrderByIdAsc(FILE_KEY))
+                .extracting(CallbackInboxEntry::getState)
+                .containsExactly(CallbackInboxState.FAILED, CallbackInboxState.DONE);
+        assertThat(processedUrls).containsExactly("u1", "u2");
+    }
+
+    @Test
+    @DisplayName("최대 시도 횟수를 넘으면 FAILED로 표시")
+    void shouldFailAfterMaxAttempts() throws Exception {
+        // given
+        doAnswer(invocation -> {
+            throw new RuntimeException("Document Server unreachable");
+        }).when(callbackService).processCallback(any(Callback.class), anyString());
+
+        // when
+        callbackInboxService.enqueue(createCallback(Status.FORCESAVE, "u1"), FILE_KEY);
+
+        // then
+        awaitUntil(() -> allInState(CallbackInboxState.FAILED, 1));
+        CallbackInboxEntry entry = inboxRepository.findAllByFileKeyOrderByIdAsc(FILE_KEY).getFirst();
+        assertThat(entry.getAttempts()).isEqualTo(3);
+        assertThat(entry.getLastError()).isEqualTo("Document Server unreachable");
+    }
+
+    @Test
+    @DisplayName("재기동 전에 PROCESSING으로 남은 항목을 polling으로 다시 처리")
+    void shouldRecoverInterruptedEntries() throws Exception {
+        // given - 처리 도중 프로세스가 종료된 상황
+        inboxRepository.save(CallbackInboxEntry.builder()
+                .fileKey(FILE_KEY)
+                .documentKey(FILE_KEY + "_v1")
+                .callbackStatus(Status.FORCESAVE.name())
+                .payload("{\"status\":6,\"key\":\"" + FILE_KEY + "_v1\",\"url\":\"u1\"}")
+                .state(CallbackInboxState.PROCESSING)
+                .attempts(1)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+
+        // when - scheduled polling이 처리
+        awaitUntil(() -> allInState(CallbackInboxState.DONE, 1));
+
+        // then
+        assertThat(processedUrls).containsExactly("u1");
+    }
+
+    @Test
+    @DisplayName("sync 처리용 journal 항목은 처리 중 PROCESSING이며 완료 후 DONE")
+    void shouldJournalInlineCallback() throws Exception {
+        // when
+        Long journalId = callbackInboxService.journal(createCallback(Status.SAVE, "u1"), FILE_KEY);
+
+        // then
+        assertThat(inboxRepository.findById(journalId))
+                .get()
+                .extracting(CallbackInboxEntry::getState)
+                .isEqualTo(CallbackInboxState.PROCESSING);
+
+        callbackInboxService.markJournalDone(journalId);
+
+        assertThat(inboxRepository.findById(journalId))
+                .get()
+                .extracting(CallbackInboxEntry::getState)
+                .isEqualTo(CallbackInboxState.DONE);
+        assertThat(processedUrls).isEmpty();
+    }
+
+    @Test
+    @DisplayName("저장 계열이 아닌 callback은 journal에 기록하지 않음")
+    void shouldNotJournalLoggingOnlyCallback() throws Exception {
+        assertThat(callbackInboxService.journal(createCallback(Status.EDITING, null), FILE_KEY)).isNull();
+        assertThat(inboxRepository.findAllByFileKeyOrderByIdAsc(FILE_KEY)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("요청 스레드가 처리 중인 journal 항목 뒤의 inbox 항목은 완료까지 대기")
+    void shouldWaitForInlineJournalEntry() throws Exception {
+        // given
+        Long journalId = callbackInboxService.journal(createCallback(Status.FORCESAVE, "u1"), FILE_KEY);
+
+        // when
+        callbackInboxService.enqueue(createCallback(Status.SAVE, "u2"), FILE_KEY);
+        Thread.sleep(300);
+
+        // then - journal 항목이 끝나기 전에는 처리되지 않음
+        assertThat(processedUrls).isEmpty();
+
+        callbackInboxService.markJournalDone(journalId);
+        awaitUntil(() -> allInState(CallbackInboxState.DONE, 2));
+        assertThat(processedUrls).containsExactly("u2");
+    }
+
+    @Test
+    @DisplayName("기동 시 lease가 지난 미완료 journal 항목을 문서별 순서대로 replay")
+    void shouldReplayUnfinishedEntriesOnStartup() throws Exception {
+        // given - 이전 프로세스가 처리 도중 종료되어 lease가 만료됨
+        for (String url : List.of("u1", "u2")) {
+            inboxRepository.save(CallbackInboxEntry.builder()
+                    .fileKey(FILE_KEY)
+                    .documentKey(FILE_KEY + "_v1")
+                    .callbackStatus(Status.FORCESAVE.name())
+                    .payload("{\"status\":6,\"key\":\"" + FILE_KEY + "_v1\",\"url\":\"" + url + "\"}")
+                    .state(CallbackInboxState.PROCESSING)
+                    .attempts(1)
+                    .nextAttemptAt(LocalDateTime.now().minusSeconds(1))
+                    .build());
+        }
+
+        // when
+        callbackInboxService.replayUnfinished();
+
+        // then
+        awaitUntil(() -> allInState(CallbackInboxState.DONE, 2));
+        assertThat(processedUrls).containsExactly("u1", "u2");
+    }
+
+    @Test
+    @DisplayName("기동 시 다른 인스턴스가 lease 안에서 처리 중인 journal 항목은 replay하지 않음")
+    void shouldNotReplayEntriesLeasedByAnotherInstance() throws Exception {
+        // given - rolling restart 중 다른 인스턴스가 동기 처리 중인 항목
+        inboxRepository.save(CallbackInboxEntry.builder()
+                .fileKey(FILE_KEY)
+                .documentKey(FILE_KEY + "_v1")
+                .callbackStatus(Status.FORCESAVE.name())
+                .payload("{\"status\":6,\"key\":\"" + FILE_KEY + "_v1\",\"url\":\"u1\"}")
+                .state(CallbackInboxState.PROCESSING)
+                .attempts(1)
+                .nextAttemptAt(LocalDateTime.now().plusMinutes(5))
+                .build());
+
+        // when
+        callbackInboxService.replayUnfinished();
+        Thread.sleep(300);
+
+        // then - replay와 polling 모두 가져가지 않음
+        assertThat(processedUrls).isEmpty();
+        assertThat(allInState(CallbackInboxState.PROCESSING, 1)).isTrue();
+    }
+
+    @Test
+    @DisplayName("보존 기간이 지난 DONE/FAILED 항목만 삭제")
+    void shouldPurgeOnlyFinishedEntries() {
+        // given
+        for (CallbackInboxState state : CallbackInboxState.values()) {
+            inboxRepository.save(CallbackInboxEntry.builder()
+                    .fileKey(FILE_KEY)
+                    .documentKey(FILE_KEY + "_v1")
+                    .callbackStatus(Status.FORCESAVE.name())
+                    .payload("{}")
+                    .state(state)
+                    .nextAttemptAt(LocalDateTime.now().plusMinutes(5))
+                    .build());
+        }
+
+        // when - 모든 항목이 기준 시각 이전에 갱신됨
+        int deleted = callbackInboxService.purgeFinishedBefore(LocalDateTime.now().plusMinutes(1));
+
+        // then
+        assertThat(deleted).isEqualTo(2);
+        assertThat(inboxRepository.findAllByFileKeyOrderByIdAsc(FILE_KEY))
+                .extracting(CallbackInboxEntry::getState)
+                .containsExactlyInAnyOrder(CallbackInboxState.PENDING, CallbackInboxState.PROCESSING);
+    }
+
+    @Test
+    @DisplayName("보존 기간이 지나지 않은 종료 항목은 삭제하지 않음")
+    void shouldKeepRecentFinishedEntries() {
+        // given
+        inboxRepository.save(CallbackInboxEntry.builder()
+                .fileKey(FILE_KEY)
+                .documentKey(FILE_KEY + "_v1")
+                .callbackStatus(Status.FORCESAVE.name())
+                .payload("{}")
+                .state(CallbackInboxState.DONE)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+
+        // when
+        int deleted = callbackInboxService.purgeFinishedBefore(LocalDateTime.now().minusHours(1));
+
+        // then
+        assertThat(deleted).isZero();
+        assertThat(inboxRepository.findAllByFileKeyOrderByIdAsc(FILE_KEY)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("sync 모드에서는 poll-interval마다 inbox를 조회하지 않음")
+    void shouldNotPollEveryIntervalInSyncMode() throws Exception {
+        // given - 처리 가능한 항목이 있지만 sync 모드
+        ReflectionTestUtils.setField(callbackInboxService, "ackMode", CallbackInboxService.AckMode.SYNC);
+        try {
+            inboxRepository.save(CallbackInboxEntry.builder()
+                    .fileKey(FILE_KEY)
+                    .documentKey(FILE_KEY + "_v1")
+                    .callbackStatus(Status.FORCESAVE.name())
+                    .payload("{\"status\":6,\"key\":\"" + FILE_KEY + "_v1\",\"url\":\"u1\"}")
+                    .nextAttemptAt(LocalDateTime.now().minusSeconds(1))
+                    .build());
+
+            // when - 50ms polling이 여러 번 지나감
+            Thread.sleep(300);
+
+            // then - 복구 polling은 journal-lease-seconds 뒤에야 실행
+            assertThat(processedUrls).isEmpty();
+            assertThat(allInState(CallbackInboxState.PENDING, 1)).isTrue();
+        } finally {
+            inboxRepository.deleteAll();
+            ReflectionTestUtils.setField(callbackInboxService, "ackMode", CallbackInboxService.AckMode.ASYNC);
+        }
+    }
+
+    @Test
+    @DisplayName("두 처리자가 같은 head를 동시에 가져가려 하면 하나만 성공")
+    void shouldLetOnlyOneClaimerTakeEntry() throws Exception {
+        // given - polling이 끼어들지 않도록 sync 모드에서 처리 가능한 항목 하나
+        ReflectionTestUtils.setField(callbackInboxService, "ackMode", CallbackInboxService.AckMode.SYNC);
+        ExecutorService claimers = Executors.newFixedThreadPool(2);
+        try {
+            Long id = inboxRepository.save(CallbackInboxEntry.builder()
+                    .fileKey(FILE_KEY)
+                    .documentKey(FILE_KEY + "_v1")
+                    .callbackStatus(Status.FORCESAVE.name())
+                    .payload("{\"status\":6,\"key\":\"" + FILE_KEY + "_v1\",\"url\":\"u1\"}")
+                    .nextAttemptAt(LocalDateTime.now().minusSeconds(1))
+                    .build()).getId();
+
+            // when - 두 인스턴스의 worker가 같은 head를 동시에 가져가려 함
+            CyclicBarrier start = new CyclicBarrier(2);
+            Callable<CallbackInboxEntry> claim = () -> {
+                start.await();
+                return callbackInboxService.claim(id);
+            };
+            Future<CallbackInboxEntry> first = claimers.submit(claim);
+            Future<CallbackInboxEntry> second = claimers.submit(claim);
+
+            // then
+            assertThat(Stream.of(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS))
+                    .filter(Objects::nonNull))
+                    .singleElement()
+                    .satisfies(entry -> {
+                        assertThat(entry.getState()).isEqualTo(CallbackInboxState.PROCESSING);
+                        assertThat(entry.getAttempts()).isEqualTo(1);
+                    });
+        } finally {
+            claimers.shutdownNow();
+            inboxRepository.deleteAll();
+            ReflectionTestUtils.setField(callbackInboxService, "ackMode", CallbackInboxService.AckMode.ASYNC);
+        }
+    }
+
+    @Test
+    @DisplayName("lease가 지나 다른 처리자가 다시 가져간 항목은 이전 처리자의 결과로 덮어쓰지 않음")
+    void shouldNotOverwriteEntryTakenOverByAnotherClaimer() {
+        // given - 처리자 A가 가져간 뒤 lease가 지나 처리자 B가 다시 가져가 완료함
+        ReflectionTestUtils.setField(callbackInboxService, "ackMode", CallbackInboxService.AckMode.SYNC);
+        try {
+            Long id = inboxRepository.save(CallbackInboxEntry.builder()
+                    .fileKey(FILE_KEY)
+                    .documentKey(FILE_KEY + "_v1")
+                    .callbackStatus(Status.FORCESAVE.name())
+                    .payload("{}")
+                    .nextAttemptAt(LocalDateTime.now().minusSeconds(1))
+                    .build()).getId();
+            CallbackInboxEntry claimedByA = callbackInboxService.claim(id);
+
+            CallbackInboxEntry expired = inboxRepository.findById(id).orElseThrow();
+            expired.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+            inboxRepository.save(expired);
+            CallbackInboxEntry claimedByB = callbackInboxService.claim(id);
+            assertThat(inboxRepository.finish(id, claimedByB.getAttempts(), CallbackInboxState.DONE, null)).isEqualTo(1);
+
+            // when - A가 늦게 결과를 기록
+            int updated = inboxRepository.scheduleRetry(id, claimedByA.getAttempts(), 0, "stale");
+
+            // then
+            assertThat(updated).isZero();
+            assertThat(inboxRepository.findById(id))
+                    .get()
+                    .extracting(CallbackInboxEntry::getState)
+                    .isEqualTo(CallbackInboxState.DONE);
+        } finally {
+            inboxRepository.deleteAll();
+            ReflectionTestUtils.setField(callbackInboxService, "ackMode", CallbackInboxService.AckMode.ASYNC);
+        }
+    }
+
+    private boolean allInState(CallbackInboxState state, int expectedCount) {
+        List<CallbackInboxEntry> entries = inboxRepository.findAllByFileKeyOrderByIdAsc(FILE_KEY);
+        return entries.size() == expectedCount && entries.stream().allMatch(e -> e.getState() == state);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Condition not met within 10 seconds");
+    }
+
+    private static Callback createCallback(Status status, String url) {
+        Callback callback = new Callback();
+        callback.setStatus(status);
+        callback.setKey(FILE_KEY + "_v1");
+        callback.setUrl(url);
+        return callback;
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.onlyoffice.service;
+
+import com.example.onlyoffice.DemoApplication;
+import com.example.onlyoffice.exception.CallbackRejectedException;
+import com.example.onlyoffice.repository.CallbackLeaseRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 같은 DB를 공유하는 두 application context(= backend 인스턴스 두 개)로 lease 동작을 검증합니다.
+ */
+@DisplayName("CallbackLeaseService 다중 인스턴스 테스트")
+class CallbackLeaseServiceTest {
+
+    private static final String FILE_KEY = "lease-doc-001";
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    // lease가 1초 만에 만료되는 인스턴스 (heartbeat 검증용)
+    private static ConfigurableApplicationContext shortLeaseNode;
+
+    private CallbackLeaseService leaseA;
+    private CallbackLeaseService leaseB;
+    private CallbackLeaseService shortLease;
+    private CallbackLeaseRepository leaseRepository;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+        shortLeaseNode = startNode("--callback.lease.duration-seconds=1");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeA.close();
+        nodeB.close();
+        shortLeaseNode.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        leaseA = nodeA.getBean(CallbackLeaseService.class);
+        leaseB = nodeB.getBean(CallbackLeaseService.class);
+        shortLease = shortLeaseNode.getBean(CallbackLeaseService.class);
+        leaseRepository = nodeA.getBean(CallbackLeaseRepository.class);
+        leaseRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("두 인스턴스가 같은 문서의 작업을 동시에 실행하지 않음")
+    void shouldSerializeSameDocumentAcrossInstances() throws Exception {
+        // given
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+
+        // when - 두 인스턴스에서 번갈아 동시에 제출
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                CallbackLeaseService lease = i % 2 == 0 ? leaseA : leaseB;
+                futures.add(callers.submit(() -> lease.runExclusively(FILE_KEY, () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(20);
+                    running.decrementAndGet();
+                    completed.incrementAndGet();
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        }
+
+        // then
+        assertThat(completed.get()).isEqualTo(10);
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("다른 인스턴스가 보유 중이면 해제될 때까지 대기 후 실행")
+    void shouldWaitForOtherInstanceToRelease() throws Exception {
+        // given
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch nodeBRan = new CountDownLatch(1);
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> holder = callers.submit(() -> leaseA.runExclusively(FILE_KEY, () -> {
+                holding.countDown();
+                await(release);
+            }));
+            assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // when
+            Future<?> waiter = callers.submit(() -> leaseB.runExclusively(FILE_KEY, nodeBRan::countDown));
+
+            // then - A가 보유하는 동안 B는 실행되지 않음
+            assertThat(nodeBRan.await(300, TimeUnit.MILLISECONDS)).isFalse();
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+            waiter.get(5, TimeUnit.SECONDS);
+            assertThat(nodeBRan.getCount()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("다른 문서는 서로 기다리지 않음")
+    void shouldNotBlockOtherDocuments() throws Exception {
+        // given
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> holder = callers.submit(() -> leaseA.runExclusively(FILE_KEY, () -> {
+                holding.countDown();
+                await(release);
+            }));
+            assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // when / then
+            AtomicInteger ran = new AtomicInteger();
+            leaseB.runExclusively("lease-doc-002", ran::incrementAndGet);
+            assertThat(ran.get()).isEqualTo(1);
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("보유자가 죽어 만료된 lease는 다른 인스턴스가 가져감")
+    void shouldTakeOverExpiredLease() {
+        // given - 종료된 인스턴스가 남긴 lease
+        leaseRepository.insertLease(FILE_KEY, "dead-instance#1", -1);
+
+        // when
+        AtomicInteger ran = new AtomicInteger();
+        leaseB.runExclusively(FILE_KEY, ran::incrementAndGet);
+
+        // then
+        assertThat(ran.get()).isEqualTo(1);
+        assertThat(leaseRepository.findById(FILE_KEY)).get()
+                .satisfies(lease -> assertThat(lease.getOwnerId()).isNotEqualTo("dead-instance#1"));
+    }
+
+    @Test
+    @DisplayName("대기 시간 안에 lease를 얻지 못하면 CallbackRejectedException")
+    void shouldRejectWhenLeaseIsNotReleasedInTime() {
+        // given - 아직 만료되지 않은 다른 인스턴스의 lease
+        leaseRepository.insertLease(FILE_KEY, "busy-instance#1", 60);
+
+        // when / then
+        AtomicInteger ran = new AtomicInteger();
+        assertThatThrownBy(() -> leaseB.runExclusively(FILE_KEY, ran::incrementAndGet))
+                .isInstanceOf(CallbackRejectedException.class);
+        assertThat(ran.get()).isZero();
+    }
+
+    @Test
+    @DisplayName("작업이 실패해도 lease를 해제")
+    void shouldReleaseLeaseWhenTaskFails() {
+        // given
+        assertThatThrownBy(() -> leaseA.runExclusively(FILE_KEY, () -> {
+            throw new IllegalStateException("save failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // when
+        AtomicInteger ran = new AtomicInteger();
+        leaseB.runExclusively(FILE_KEY, ran::incrementAndGet);
+
+        // then
+        assertThat(ran.get()).isEqualTo(1);
+    }
+
+    private static ConfigurableApplicationContext startNode(String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:callback-lease-cluster;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--spring.jpa.show-sql=false",
+                "--callback.lease.wait-timeout-seconds=1",
+                "--callback.lease.max-poll-interval-ms=20"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(LeaseNode.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run(args.toArray(String[]::new));
+    }
+
+    @Test
+    @DisplayName("작업이 lease 기간보다 오래 실행되면 heartbeat가 연장하여 다른 인스턴스가 가져가지 못함")
+    void shouldRenewLeaseWhileTaskRuns() throws Exception {
+        // given - 1초 lease로 2.5초 걸리는 작업
+        CountDownLatch holding = new CountDownLatch(1);
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> holder = callers.submit(() -> shortLease.runExclusively(FILE_KEY, () -> {
+                holding.countDown();
+                sleep(2_500);
+            }));
+            assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+            sleep(1_200);
+
+            // when / then - 최초 만료 시각이 지났어도 다른 인스턴스는 획득하지 못함 (대기 1초)
+            AtomicInteger ran = new AtomicInteger();
+            assertThatThrownBy(() -> leaseB.runExclusively(FILE_KEY, ran::incrementAndGet))
+                    .isInstanceOf(CallbackRejectedException.class);
+            assertThat(ran.get()).isZero();
+
+            holder.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("실행 중에 lease를 잃으면 작업의 취소 범위를 취소")
+    void shouldCancelTaskScopeWhenLeaseIsLost() throws Exception {
+        // given
+        CallbackScope scope = new CallbackScope();
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> holder = callers.submit(() -> {
+                try (CallbackScope.Binding binding = scope.bind()) {
+                    shortLease.runExclusively(FILE_KEY, () -> {
+                        holding.countDown();
+                        await(release);
+                    });
+                }
+            });
+            assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // when - 다른 인스턴스가 lease를 가져감
+            leaseRepository.deleteAll();
+            leaseRepository.insertLease(FILE_KEY, "other-instance#1", 60);
+
+            // then
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+            while (!scope.isCancelled() && System.nanoTime() < deadline) {
+                sleep(20);
+            }
+            assertThat(scope.isCancelled()).isTrue();
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+            assertThat(leaseRepository.findById(FILE_KEY)).get()
+                    .satisfies(lease -> assertThat(lease.getOwnerId()).isEqualTo("other-instance#1"));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Lease에 필요한 JPA 구성만 띄우는 backend 인스턴스.
+     */
+    @Configuration
+    @EnableAutoConfiguration
+    @AutoConfigurationPackage(basePackageClasses = DemoApplication.class)
+    @Import(CallbackLeaseService.class)
+    static class LeaseNode {
+    }
+}
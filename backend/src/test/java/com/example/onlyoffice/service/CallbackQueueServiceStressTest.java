@@ -0,0 +1,138 @@
+package com.example.onlyoffice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CallbackQueueService lane 모드 부하 비교 테스트.
+ *
+ * <p>같은 workload를 PER_DOCUMENT(문서별 executor)와 STRIPED(고정 lane) 모드로 실행하여
+ * 처리량과 p99 지연 시간을 비교합니다. 결과는 표준 출력으로 남깁니다.</p>
+ *
+ * <p><b>Workload</b>: 문서 {@value #DOCUMENT_COUNT}개 × 문서당 callback {@value #CALLBACKS_PER_DOCUMENT}개,
+ * callback당 {@value #WORK_MILLIS}ms I/O 대기를 모두 동시에 제출합니다.
+ * 문서별 순서 보장은 {@link CallbackQueueServiceTest}에서 검증합니다.</p>
+ *
+ * <p>실행 시간이 길고 시간 측정에 의존하므로 {@code benchmark} 태그로 기본 {@code test} 태스크에서 제외합니다.
+ * {@code ./gradlew benchmarkTest}로 실행합니다.</p>
+ */
+@Tag("benchmark")
+@DisplayName("CallbackQueueService 부하 비교 (PER_DOCUMENT vs STRIPED)")
+class CallbackQueueServiceStressTest {
+
+    private static final int DOCUMENT_COUNT = 200;
+    private static final int CALLBACKS_PER_DOCUMENT = 5;
+    private static final long WORK_MILLIS = 2;
+    private static final int STRIPE_COUNT = 16;
+
+    @Test
+    @DisplayName("두 모드 모두 전체 workload를 처리하고, STRIPED는 lane 수가 고정되어 p99가 PER_DOCUMENT보다 길다")
+    void compareThroughputAndP99Latency() throws Exception {
+        // given - JIT warm-up으로 먼저 실행되는 모드가 불리하지 않도록 한 번씩 버림
+        run(CallbackQueueService.LaneMode.PER_DOCUMENT);
+        run(CallbackQueueService.LaneMode.STRIPED);
+
+        // when
+        RunResult perDocument = run(CallbackQueueService.LaneMode.PER_DOCUMENT);
+        RunResult striped = run(CallbackQueueService.LaneMode.STRIPED);
+
+        System.out.printf("%-12s %10s %12s %10s %10s%n", "mode", "lanes", "callbacks/s", "p50(ms)", "p99(ms)");
+        for (RunResult result : List.of(perDocument, striped)) {
+            System.out.printf("%-12s %10d %12.0f %10.1f %10.1f%n",
+                    result.mode(), result.lanes(), result.throughput(), result.p50Millis(), result.p99Millis());
+        }
+
+        // then
+        int totalCallbacks = DOCUMENT_COUNT * CALLBACKS_PER_DOCUMENT;
+        assertThat(perDocument.completed()).isEqualTo(totalCallbacks);
+        assertThat(striped.completed()).isEqualTo(totalCallbacks);
+
+        assertThat(perDocument.lanes()).isEqualTo(DOCUMENT_COUNT);
+        assertThat(striped.lanes()).isEqualTo(STRIPE_COUNT);
+
+        // 고정 lane은 문서 간 병렬성을 제한하므로 I/O 대기 workload의 이론적 하한보다 빠를 수 없음
+        double stripedLowerBoundMillis = (double) totalCallbacks * WORK_MILLIS / STRIPE_COUNT;
+        assertThat(striped.elapsedMillis()).isGreaterThanOrEqualTo(stripedLowerBoundMillis);
+
+        // 문서마다 lane이 있으면 다른 문서 뒤에서 기다리지 않으므로 꼬리 지연이 고정 lane보다 길 수 없음
+        assertThat(perDocument.p99Millis()).isLessThanOrEqualTo(striped.p99Millis());
+    }
+
+    private RunResult run(CallbackQueueService.LaneMode mode) throws Exception {
+        CallbackQueueService service = new CallbackQueueService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "laneMode", mode);
+        ReflectionTestUtils.setField(service, "stripeCount", STRIPE_COUNT);
+        service.init();
+
+        List<Long> latenciesNanos = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int doc = 0; doc < DOCUMENT_COUNT; doc++) {
+                final String fileKey = "stress-doc-" + doc;
+                for (int seq = 0; seq < CALLBACKS_PER_DOCUMENT; seq++) {
+                    futures.add(callers.submit(() -> {
+                        long submittedAt = System.nanoTime();
+                        service.submitAndWait(fileKey, () -> {
+                            Thread.sleep(WORK_MILLIS);
+                            return null;
+                        });
+                        latenciesNanos.add(System.nanoTime() - submittedAt);
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        int lanes = service.getQueueCount();
+        service.shutdown();
+
+        List<Long> sorted = new ArrayList<>(latenciesNanos);
+        Collections.sort(sorted);
+        return new RunResult(
+                mode,
+                lanes,
+                sorted.size(),
+                elapsedNanos / 1_000_000.0,
+                sorted.size() / (elapsedNanos / 1_000_000_000.0),
+                percentileMillis(sorted, 0.50),
+                percentileMillis(sorted, 0.99)
+        );
+    }
+
+    private static double percentileMillis(List<Long> sortedNanos, double percentile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(index, 0)) / 1_000_000.0;
+    }
+
+    private record RunResult(
+            CallbackQueueService.LaneMode mode,
+            int lanes,
+            int completed,
+            double elapsedMillis,
+            double throughput,
+            double p50Millis,
+            double p99Millis
+    ) {
+    }
+}
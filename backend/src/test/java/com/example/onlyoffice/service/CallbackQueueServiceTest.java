@@ -1,16 +1,31 @@
 package com.example.onlyoffice.service;
 
+import com.example.onlyoffice.exception.CallbackRejectedException;
+import com.example.onlyoffice.repository.CallbackLeaseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @DisplayName("CallbackQueueService")
 class CallbackQueueServiceTest {
@@ -19,7 +34,7 @@ class CallbackQueueServiceTest {
 
     @BeforeEach
     void setUp() {
-        callbackQueueService = new CallbackQueueService();
+        callbackQueueService = new CallbackQueueService(new SimpleMeterRegistry());
     }
 
     @AfterEach
@@ -409,8 +424,1232 @@ class CallbackQueueServiceTest {
             // then - active executor should not be removed
             assertThat(callbackQueueService.getQueueCount()).isGreaterThanOrEqualTo(initialCount - 1);
         }
+
+        @Test
+        @DisplayName("should evict executors whose idle deadline has passed")
+        void shouldEvictExpiredExecutors() throws Exception {
+            // given - idle timeout 0: deadline expires right after creation
+            callbackQueueService.submitAndWait("expired1", () -> {
+            });
+            callbackQueueService.submitAndWait("expired2", () -> {
+            });
+            assertThat(callbackQueueService.scheduledEvictionCount()).isEqualTo(2);
+            Thread.sleep(20);
+
+            // when
+            callbackQueueService.cleanupIdleExecutors();
+
+            // then
+            assertThat(callbackQueueService.getQueueCount()).isZero();
+            assertThat(callbackQueueService.scheduledEvictionCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("should not wait for a lane still stuck in a cancelled task")
+        void shouldNotBlockOnStuckLane() throws Exception {
+            // given - the caller timed out, but the task ignores the interrupt (like a blocked socket read)
+            CountDownLatch unstick = new CountDownLatch(1);
+            assertThatThrownBy(() -> callbackQueueService.submitAndWait("stuckDoc", () -> {
+                while (unstick.getCount() > 0) {
+                    try {
+                        unstick.await();
+                    } catch (InterruptedException ignored) {
+                        // keep blocking
+                    }
+                }
+                return null;
+            }, 50, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+            Thread.sleep(20);
+
+            try {
+                // when
+                long start = System.nanoTime();
+                callbackQueueService.cleanupIdleExecutors();
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                // then - evicted without waiting for the lane thread to finish
+                assertThat(elapsedMs).isLessThan(1_000);
+                assertThat(callbackQueueService.getQueueCount()).isZero();
+            } finally {
+                unstick.countDown();
+            }
+        }
+
+        @Test
+        @DisplayName("should keep executors whose idle deadline has not passed")
+        void shouldKeepExecutorsBeforeDeadline() throws Exception {
+            // given
+            ReflectionTestUtils.setField(callbackQueueService, "idleTimeoutMinutes", 30L);
+            callbackQueueService.submitAndWait("fresh", () -> {
+            });
+
+            // when
+            callbackQueueService.cleanupIdleExecutors();
+
+            // then - deadline not polled
+            assertThat(callbackQueueService.getQueueCount()).isEqualTo(1);
+            assertThat(callbackQueueService.scheduledEvictionCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should reschedule instead of evicting when the executor is not idle yet")
+        void shouldRescheduleExecutorNotIdleYet() throws Exception {
+            // given - deadline scheduled with idle timeout 0, then the timeout is raised
+            callbackQueueService.submitAndWait("reused", () -> {
+            });
+            ReflectionTestUtils.setField(callbackQueueService, "idleTimeoutMinutes", 30L);
+            Thread.sleep(20);
+
+            // when - expired deadline is polled, but last access is within the idle timeout
+            callbackQueueService.cleanupIdleExecutors();
+
+            // then - kept and rescheduled from the last access time
+            assertThat(callbackQueueService.getQueueCount()).isEqualTo(1);
+            assertThat(callbackQueueService.scheduledEvictionCount()).isEqualTo(1);
+            assertThat(callbackQueueService.submitAndWait("reused", () -> "ok")).isEqualTo("ok");
+        }
+    }
+
+
+    @Nested
+    @DisplayName("Virtual Thread Lanes")
+    class VirtualThreadLanes {
+
+        @Test
+        @DisplayName("should run callbacks on virtual threads by default")
+        void shouldRunCallbacksOnVirtualThreads() throws Exception {
+            // when
+            Boolean virtual = callbackQueueService.submitAndWait("vtDoc", () -> Thread.currentThread().isVirtual());
+            String threadName = callbackQueueService.submitAndWait("vtDoc", () -> Thread.currentThread().getName());
+
+            // then
+            assertThat(virtual).isTrue();
+            assertThat(threadName).isEqualTo("callback-vtDoc");
+        }
+
+        @Test
+        @DisplayName("should fall back to platform threads when virtual threads are disabled")
+        void shouldUsePlatformThreadsWhenDisabled() throws Exception {
+            // given
+            ReflectionTestUtils.setField(callbackQueueService, "virtualThreads", false);
+
+            // when
+            Boolean virtual = callbackQueueService.submitAndWait("platformDoc", () -> Thread.currentThread().isVirtual());
+
+            // then
+            assertThat(virtual).isFalse();
+        }
+
+        @Test
+        @DisplayName("should keep FIFO order per document on virtual threads")
+        void shouldKeepFifoOrderOnVirtualThreads() throws Exception {
+            // given
+            List<Integer> executionOrder = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch gate = new CountDownLatch(1);
+            List<Future<Object>> futures = new ArrayList<>();
+
+            // when - first task blocks the lane, the rest queue up behind it in submission order
+            try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+                futures.add(callers.submit(() -> callbackQueueService.submitAndWait("fifoDoc", () -> {
+                    gate.await();
+                    executionOrder.add(0);
+                    return null;
+                })));
+                Thread.sleep(50);
+                for (int i = 1; i < 20; i++) {
+                    final int taskId = i;
+                    futures.add(callers.submit(() -> callbackQueueService.submitAndWait("fifoDoc", () -> {
+                        executionOrder.add(taskId);
+                        return null;
+                    })));
+                    Thread.sleep(5);
+                }
+                gate.countDown();
+                for (Future<Object> future : futures) {
+                    future.get(5, TimeUnit.SECONDS);
+                }
+            }
+
+            // then
+            assertThat(executionOrder).isSortedAccordingTo(Integer::compare).hasSize(20);
+        }
+
+        @Test
+        @DisplayName("should keep 10k concurrently active documents without 10k OS threads")
+        void shouldHandleTenThousandActiveDocumentsWithoutTenThousandOsThreads() throws Exception {
+            // given
+            int documentCount = 10_000;
+            CountDownLatch allStarted = new CountDownLatch(documentCount);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger completed = new AtomicInteger(0);
+            int baselineThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+
+            try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+                // when - every document has a callback in flight at the same time
+                for (int i = 0; i < documentCount; i++) {
+                    final String fileKey = "load-doc-" + i;
+                    callers.submit(() -> callbackQueueService.submitAndWait(fileKey, () -> {
+                        allStarted.countDown();
+                        release.await();
+                        completed.incrementAndGet();
+                        return null;
+                    }));
+                }
+
+                boolean started = allStarted.await(60, TimeUnit.SECONDS);
+                int liveThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+
+                // then - all lanes are active, but only carrier threads are backed by the OS
+                assertThat(started).isTrue();
+                assertThat(callbackQueueService.getQueueCount()).isEqualTo(documentCount);
+                assertThat(liveThreads - baselineThreads)
+                        .as("platform threads created for %d active documents", documentCount)
+                        .isLessThan(documentCount / 10);
+
+                release.countDown();
+            }
+
+            assertThat(completed.get()).isEqualTo(documentCount);
+        }
+    }
+
+    @Nested
+    @DisplayName("Striped Lanes")
+    class StripedLanes {
+
+        @BeforeEach
+        void enableStripedMode() {
+            callbackQueueService.shutdown();
+            callbackQueueService = new CallbackQueueService(new SimpleMeterRegistry());
+            ReflectionTestUtils.setField(callbackQueueService, "laneMode", CallbackQueueService.LaneMode.STRIPED);
+            ReflectionTestUtils.setField(callbackQueueService, "stripeCount", 4);
+            callbackQueueService.init();
+        }
+
+        @Test
+        @DisplayName("should keep executor count fixed regardless of document count")
+        void shouldKeepExecutorCountFixed() throws Exception {
+            // when
+            for (int i = 0; i < 100; i++) {
+                callbackQueueService.submitAndWait("stripedDoc" + i, () -> {
+                });
+            }
+
+            // then
+            assertThat(callbackQueueService.getQueueCount()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("should maintain order for same fileKey")
+        void shouldMaintainOrderForSameFileKey() throws Exception {
+            // given
+            List<Integer> executionOrder = Collections.synchronizedList(new ArrayList<>());
+            List<Future<Object>> futures = new ArrayList<>();
+
+            // when
+            try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 20; i++) {
+                    final int taskId = i;
+                    futures.add(callers.submit(() -> callbackQueueService.submitAndWait("stripedDoc", () -> {
+                        executionOrder.add(taskId);
+                        return null;
+                    })));
+                    Thread.sleep(5);
+                }
+                for (Future<Object> future : futures) {
+                    future.get(5, TimeUnit.SECONDS);
+                }
+            }
+
+            // then
+            assertThat(executionOrder).isSortedAccordingTo(Integer::compare).hasSize(20);
+        }
+
+        @Test
+        @DisplayName("should skip idle cleanup in striped mode")
+        void shouldSkipIdleCleanup() throws Exception {
+            // given
+            callbackQueueService.submitAndWait("stripedDoc", () -> {
+            });
+
+            // when
+            callbackQueueService.cleanupIdleExecutors();
+
+            // then - lanes survive cleanup and keep accepting work
+            assertThat(callbackQueueService.getQueueCount()).isEqualTo(4);
+            assertThat(callbackQueueService.submitAndWait("stripedDoc", () -> "ok")).isEqualTo("ok");
+        }
+
+        @Test
+        @DisplayName("should reject a busy lease at once instead of stalling other documents on the stripe")
+        void shouldNotStallStripeOnBusyLease() throws Exception {
+            // given - another instance holds busyDoc's lease, freeDoc hashes to the same stripe
+            String freeDoc = documentOnSameStripe("busyDoc");
+            CallbackLeaseRepository leaseRepository = mock(CallbackLeaseRepository.class);
+            when(leaseRepository.claimExpired(eq("busyDoc"), anyString(), anyLong())).thenReturn(0);
+            when(leaseRepository.existsById("busyDoc")).thenReturn(true);
+            when(leaseRepository.claimExpired(eq(freeDoc), anyString(), anyLong())).thenReturn(1);
+            when(leaseRepository.release(anyString(), anyString())).thenReturn(1);
+            CallbackLeaseService leaseService = new CallbackLeaseService(leaseRepository);
+            ReflectionTestUtils.setField(leaseService, "laneMode", CallbackQueueService.LaneMode.STRIPED);
+            List<String> saved = Collections.synchronizedList(new ArrayList<>());
+
+            try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+                // when
+                long start = System.nanoTime();
+                Future<?> busy = callers.submit(() -> {
+                    callbackQueueService.submitSaveAndWait("busyDoc", SaveCallback.forceSave("u1"), 0,
+                            leaseService::runExclusively, save -> saved.add("busyDoc"), 5, TimeUnit.SECONDS);
+                    return null;
+                });
+                callbackQueueService.submitSaveAndWait(freeDoc, SaveCallback.forceSave("u2"), 0,
+                        leaseService::runExclusively, save -> saved.add(freeDoc), 5, TimeUnit.SECONDS);
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                // then - busyDoc is rejected for a retry and freeDoc does not wait out the 30s lease timeout
+                assertThatThrownBy(() -> busy.get(5, TimeUnit.SECONDS))
+                        .hasCauseInstanceOf(CallbackRejectedException.class);
+                assertThat(saved).containsExactly(freeDoc);
+                assertThat(elapsedMillis).isLessThan(1_000);
+            } finally {
+                leaseService.shutdown();
+            }
+        }
+
+        private String documentOnSameStripe(String fileKey) {
+            StripedCallbackLanes lanes =
+                    (StripedCallbackLanes) ReflectionTestUtils.getField(callbackQueueService, "stripedLanes");
+            int lane = lanes.laneIndex(fileKey);
+            for (int i = 0; ; i++) {
+                if (lanes.laneIndex("stripedDoc" + i) == lane) {
+                    return "stripedDoc" + i;
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("should shutdown all lanes")
+        void shouldShutdownAllLanes() {
+            // when
+            callbackQueueService.shutdown();
+
+            // then
+            assertThat(callbackQueueService.allQueuesShutdown()).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("Save Coalescing")
+    class SaveCoalescing {
+
+        private static final String FILE_KEY = "coalesceDoc";
+
+        private final List<SaveCallback> processed = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private ExecutorService callers;
+
+        @BeforeEach
+        void blockLane() throws Exception {
+            callers = Executors.newVirtualThreadPerTaskExecutor();
+            CountDownLatch gateStarted = new CountDownLatch(1);
+            callers.submit(() -> callbackQueueService.submitAndWait(FILE_KEY, () -> {
+                gateStarted.countDown();
+                gate.await();
+                return null;
+            }));
+            assertThat(gateStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        @AfterEach
+        void releaseLane() {
+            gate.countDown();
+            callers.close();
+        }
+
+        @Test
+        @DisplayName("should process only the latest of consecutive queued FORCESAVEs")
+        void shouldProcessOnlyLatestForceSave() throws Exception {
+            // given
+            List<Future<?>> futures = List.of(
+                    queueSave(SaveCallback.forceSave("u1")),
+                    queueSave(SaveCallback.forceSave("u2")),
+                    queueSave(SaveCallback.forceSave("u3"))
+            );
+
+            // when
+            gate.countDown();
+
+            // then - every caller returns after the single merged run
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            assertThat(processed).containsExactly(SaveCallback.forceSave("u3"));
+        }
+
+        @Test
+        @DisplayName("should upgrade a queued FORCESAVE to the following SAVE")
+        void shouldUpgradeForceSaveToSave() throws Exception {
+            // given
+            Future<?> forceSave = queueSave(SaveCallback.forceSave("u1"));
+            Future<?> save = queueSave(SaveCallback.save("u2"));
+
+            // when
+            gate.countDown();
+            forceSave.get(5, TimeUnit.SECONDS);
+            save.get(5, TimeUnit.SECONDS);
+
+            // then
+            assertThat(processed).containsExactly(SaveCallback.save("u2"));
+        }
+
+        @Test
+        @DisplayName("should not merge anything into a queued SAVE")
+        void shouldNotMergeIntoSave() throws Exception {
+            // given
+            Future<?> first = queueSave(SaveCallback.save("u1"));
+            Future<?> second = queueSave(SaveCallback.forceSave("u2"));
+            Future<?> third = queueSave(SaveCallback.save("u3"));
+
+            // when
+            gate.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            third.get(5, TimeUnit.SECONDS);
+
+            // then - SAVE가 세션을 끝내므로 forcesave u2와 save u3는 병합되어 한 번 실행
+            assertThat(processed).containsExactly(SaveCallback.save("u1"), SaveCallback.save("u3"));
+        }
+
+        @Test
+        @DisplayName("should not merge into a save that has already started")
+        void shouldNotMergeIntoStartedSave() throws Exception {
+            // given
+            gate.countDown();
+            callbackQueueService.submitSaveAndWait(FILE_KEY, SaveCallback.forceSave("u1"), processed::add);
+
+            // when
+            callbackQueueService.submitSaveAndWait(FILE_KEY, SaveCallback.forceSave("u2"), processed::add);
+
+            // then
+            assertThat(processed).containsExactly(SaveCallback.forceSave("u1"), SaveCallback.forceSave("u2"));
+        }
+
+        @Test
+        @DisplayName("should propagate failure to every merged caller")
+        void shouldPropagateFailureToMergedCallers() throws Exception {
+            // given
+            Consumer<SaveCallback> failing = save -> {
+                throw new IllegalStateException("Save failed: " + save.downloadUrl());
+            };
+            Future<?> first = queueSave(SaveCallback.forceSave("u1"), failing);
+            Future<?> second = queueSave(SaveCallback.forceSave("u2"), failing);
+
+            // when
+            gate.countDown();
+
+            // then
+            for (Future<?> future : List.of(first, second)) {
+                assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+                        .isInstanceOf(ExecutionException.class)
+                        .cause()
+                        .isInstanceOf(IllegalStateException.class)
+                        .hasMessage("Save failed: u2");
+            }
+        }
+
+        @Test
+        @DisplayName("should keep the merged save for later callers when an earlier caller times out")
+        void shouldKeepMergedSaveWhenEarlierCallerTimesOut() throws Exception {
+            // given
+            Future<?> first = queueSave(SaveCallback.forceSave("u1"), processed::add, 300);
+            Future<?> second = queueSave(SaveCallback.forceSave("u2"));
+
+            // when - 첫 호출자가 포기한 뒤 lane이 풀림
+            assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .cause()
+                    .isInstanceOf(TimeoutException.class);
+            gate.countDown();
+
+            // then
+            second.get(5, TimeUnit.SECONDS);
+            assertThat(processed).containsExactly(SaveCallback.forceSave("u2"));
+        }
+
+        @Test
+        @DisplayName("should cancel the save when its last caller times out")
+        void shouldCancelWhenLastCallerTimesOut() throws Exception {
+            // given
+            Future<?> only = queueSave(SaveCallback.forceSave("u1"), processed::add, 100);
+            assertThatThrownBy(() -> only.get(5, TimeUnit.SECONDS))
+                    .cause()
+                    .isInstanceOf(TimeoutException.class);
+
+            // when
+            gate.countDown();
+            callbackQueueService.submitAndWait(FILE_KEY, () -> null);
+
+            // then
+            assertThat(processed).isEmpty();
+            assertThat(pendingSave()).isNull();
+        }
+
+        private Future<?> queueSave(SaveCallback save) throws InterruptedException {
+            return queueSave(save, processed::add);
+        }
+
+        private Future<?> queueSave(SaveCallback save, Consumer<SaveCallback> processor) throws InterruptedException {
+            return queueSave(save, processor, TimeUnit.SECONDS.toMillis(60));
+        }
+
+        /**
+         * 호출자 스레드에서 저장 callback을 제출하고, pending map에 반영될 때까지 대기.
+         * 다음 제출이 항상 이 제출 뒤에 도착하도록 보장합니다.
+         */
+        private Future<?> queueSave(SaveCallback save, Consumer<SaveCallback> processor, long timeoutMs)
+                throws InterruptedException {
+            PendingSave before = pendingSave();
+            int mergedBefore = before == null ? 0 : before.mergedCount();
+
+            Future<?> future = callers.submit(() -> {
+                callbackQueueService.submitSaveAndWait(FILE_KEY, save, 0, processor, timeoutMs, TimeUnit.MILLISECONDS);
+                return null;
+            });
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (System.nanoTime() < deadline) {
+                PendingSave current = pendingSave();
+                if (current != null && (current != before || current.mergedCount() > mergedBefore)) {
+                    return future;
+                }
+                Thread.sleep(1);
+            }
+            throw new AssertionError("Save callback was not queued: " + save);
+        }
+
+        @SuppressWarnings("unchecked")
+        private PendingSave pendingSave() {
+            return ((Map<String, PendingSave>) ReflectionTestUtils.getField(callbackQueueService, "pendingSaves"))
+                    .get(FILE_KEY);
+        }
+    }
+
+    @Nested
+    @DisplayName("Save Priority")
+    class SavePriority {
+
+        private SimpleMeterRegistry meterRegistry;
+        private final CountDownLatch hold = new CountDownLatch(1);
+        private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+        private ExecutorService callers;
+
+        @BeforeEach
+        void setUpGate() {
+            callbackQueueService.shutdown();
+            meterRegistry = new SimpleMeterRegistry();
+            callbackQueueService = new CallbackQueueService(meterRegistry);
+            ReflectionTestUtils.setField(callbackQueueService, "maxConcurrentSaves", 1);
+            callbackQueueService.init();
+            callers = Executors.newVirtualThreadPerTaskExecutor();
+        }
+
+        @AfterEach
+        void releaseGate() {
+            hold.countDown();
+            callers.close();
+        }
+
+        @Test
+        @DisplayName("should start a SAVE before FORCESAVEs of other documents that waited longer")
+        void shouldPrioritizeSaveOverForceSave() throws Exception {
+            // given - the only slot is held, two FORCESAVEs wait, then a SAVE arrives
+            occupySlot("busyDoc");
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(queueSave("forceDoc1", SaveCallback.forceSave("f1")));
+            awaitGateWaiting(1);
+            futures.add(queueSave("forceDoc2", SaveCallback.forceSave("f2")));
+            awaitGateWaiting(2);
+            futures.add(queueSave("saveDoc", SaveCallback.save("s1")));
+            awaitGateWaiting(3);
+
+            // when
+            hold.countDown();
+
+            // then
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            assertThat(started).containsExactly("busyDoc", "saveDoc:SAVE", "forceDoc1", "forceDoc2");
+            assertThat(meterRegistry.get("callback.queue.gate.wait").tag("status", "save").timer().count())
+                    .isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should promote a waiting FORCESAVE once a SAVE is merged into it")
+        void shouldPromoteForceSaveMergedWithSave() throws Exception {
+            // given
+            occupySlot("busyDoc");
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(queueSave("otherDoc", SaveCallback.forceSave("o1")));
+            awaitGateWaiting(1);
+            futures.add(queueSave("mergedDoc", SaveCallback.forceSave("m1")));
+            awaitGateWaiting(2);
+
+            // when - SAVE for mergedDoc merges into its waiting FORCESAVE
+            futures.add(queueSave("mergedDoc", SaveCallback.save("m2")));
+            awaitMerged("mergedDoc");
+            hold.countDown();
+
+            // then - one SAVE for mergedDoc, ahead of the older FORCESAVE of otherDoc
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            assertThat(started).containsExactly("busyDoc", "mergedDoc:SAVE", "otherDoc");
+        }
+
+        @Test
+        @DisplayName("should keep per-document order while waiting for a slot")
+        void shouldKeepDocumentOrder() throws Exception {
+            // given - a SAVE ends the session, so the next FORCESAVE is queued behind it on the lane
+            occupySlot("busyDoc");
+            Future<?> save = queueSave("orderedDoc", SaveCallback.save("s1"));
+            awaitGateWaiting(1);
+            Future<?> forceSave = queueSave("orderedDoc", SaveCallback.forceSave("f1"));
+
+            // when
+            hold.countDown();
+
+            // then
+            save.get(5, TimeUnit.SECONDS);
+            forceSave.get(5, TimeUnit.SECONDS);
+            assertThat(started).containsExactly("busyDoc", "orderedDoc:SAVE", "orderedDoc");
+        }
+
+        @Test
+        @DisplayName("should keep admission slots reserved for SAVE")
+        void shouldRejectForceSaveIntoSaveReserve() throws Exception {
+            // given - 3 total slots, 1 reserved for SAVE, 2 in use
+            callbackQueueService.shutdown();
+            meterRegistry = new SimpleMeterRegistry();
+            callbackQueueService = new CallbackQueueService(meterRegistry);
+            ReflectionTestUtils.setField(callbackQueueService, "maxQueuedTotal", 3);
+            ReflectionTestUtils.setField(callbackQueueService, "saveReserve", 1);
+            callbackQueueService.init();
+            occupySlot("busyDoc1");
+            occupySlot("busyDoc2");
+
+            // when/then
+            assertThatThrownBy(() -> callbackQueueService.submitSaveAndWait(
+                    "forceDoc", SaveCallback.forceSave("f1"), save -> {
+                    }))
+                    .isInstanceOf(CallbackRejectedException.class)
+                    .hasMessageContaining("save_reserve");
+
+            Future<?> save = queueSave("saveDoc", SaveCallback.save("s1"));
+            hold.countDown();
+            save.get(5, TimeUnit.SECONDS);
+            assertThat(started).contains("saveDoc:SAVE");
+        }
+
+        @Test
+        @DisplayName("should not hold a slot while waiting inside the guard")
+        void shouldTakeSlotAfterGuard() throws Exception {
+            // given - leaseDoc waits for another instance's lease before it reaches the gate
+            CountDownLatch leaseWaiting = new CountDownLatch(1);
+            CountDownLatch leaseGranted = new CountDownLatch(1);
+            Future<?> leased = callers.submit(() -> {
+                callbackQueueService.submitSaveAndWait("leaseDoc", SaveCallback.forceSave("l1"), 0,
+                        (fileKey, work) -> {
+                            leaseWaiting.countDown();
+                            try {
+                                leaseGranted.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            work.run();
+                        },
+                        save -> started.add("leaseDoc"));
+                return null;
+            });
+            assertThat(leaseWaiting.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // when - another document saves while leaseDoc is still waiting
+            queueSave("freeDoc", SaveCallback.forceSave("f1")).get(5, TimeUnit.SECONDS);
+
+            // then
+            assertThat(started).containsExactly("freeDoc");
+            leaseGranted.countDown();
+            leased.get(5, TimeUnit.SECONDS);
+            assertThat(started).containsExactly("freeDoc", "leaseDoc");
+        }
+
+        @Test
+        @DisplayName("should not gate saves in striped mode")
+        void shouldIgnoreGateInStripedMode() throws Exception {
+            // given - busyDoc and stripedDoc2 hash to different stripes
+            callbackQueueService.shutdown();
+            meterRegistry = new SimpleMeterRegistry();
+            callbackQueueService = new CallbackQueueService(meterRegistry);
+            ReflectionTestUtils.setField(callbackQueueService, "laneMode", CallbackQueueService.LaneMode.STRIPED);
+            ReflectionTestUtils.setField(callbackQueueService, "stripeCount", 16);
+            ReflectionTestUtils.setField(callbackQueueService, "maxConcurrentSaves", 1);
+            callbackQueueService.init();
+            occupySlot("busyDoc");
+
+            // when / then - runs while busyDoc still holds what would be the only slot
+            queueSave("stripedDoc2", SaveCallback.forceSave("s1")).get(5, TimeUnit.SECONDS);
+            assertThat(started).containsExactly("busyDoc", "stripedDoc2");
+        }
+
+        private void occupySlot(String fileKey) throws InterruptedException {
+            CountDownLatch running = new CountDownLatch(1);
+            callers.submit(() -> {
+                callbackQueueService.submitSaveAndWait(fileKey, SaveCallback.forceSave("busy"), save -> {
+                    started.add(fileKey);
+                    running.countDown();
+                    try {
+                        hold.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                return null;
+            });
+            assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        private Future<?> queueSave(String fileKey, SaveCallback callback) {
+            return callers.submit(() -> {
+                callbackQueueService.submitSaveAndWait(fileKey, callback, save ->
+                        started.add(save.type() == SaveCallback.Type.SAVE ? fileKey + ":SAVE" : fileKey));
+                return null;
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private void awaitMerged(String fileKey) throws InterruptedException {
+            Map<String, PendingSave> pending =
+                    (Map<String, PendingSave>) ReflectionTestUtils.getField(callbackQueueService, "pendingSaves");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (pending.get(fileKey) == null || pending.get(fileKey).mergedCount() == 0) {
+                if (System.nanoTime() > deadline) {
+                    throw new AssertionError("Save callback was not merged");
+                }
+                Thread.sleep(1);
+            }
+        }
+
+        private void awaitGateWaiting(int expected) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.get("callback.queue.gate.waiting").gauge().value() < expected) {
+                if (System.nanoTime() > deadline) {
+                    throw new AssertionError("Save callbacks did not reach the gate");
+                }
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Cancellation")
+    class Cancellation {
+
+        @Test
+        @DisplayName("should close resources registered by a timed-out task and free its lane at once")
+        void shouldCloseScopeResourcesOnTimeout() throws Exception {
+            // given - a read that ignores interrupts and only returns once its stream is closed
+            CountDownLatch closed = new CountDownLatch(1);
+
+            // when
+            assertThatThrownBy(() -> callbackQueueService.submitAndWait("cancelDoc", () -> {
+                CallbackScope.onCancel(closed::countDown);
+                while (closed.getCount() > 0) {
+                    Thread.onSpinWait();
+                }
+                return null;
+            }, 100, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+            // then
+            assertThat(closed.await(1, TimeUnit.SECONDS)).isTrue();
+            assertThat(callbackQueueService.submitAndWait("cancelDoc", () -> "next", 1, TimeUnit.SECONDS))
+                    .isEqualTo("next");
+        }
+
+        @Test
+        @DisplayName("should not close resources of a task that completed normally")
+        void shouldReleaseRegistrationOnCompletion() throws Exception {
+            // given
+            AtomicInteger closes = new AtomicInteger();
+
+            // when
+            callbackQueueService.submitAndWait("doneDoc", () -> {
+                try (CallbackScope.Registration registration = CallbackScope.onCancel(closes::incrementAndGet)) {
+                    return null;
+                }
+            });
+
+            // then
+            assertThat(closes.get()).isZero();
+            assertThat(CallbackScope.isCurrentCancelled()).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Editing Session Lifecycle")
+    class SessionLifecycle {
+
+        @Test
+        @DisplayName("should create the lane on prewarm without counting it as admitted work")
+        void shouldPrewarmLane() throws Exception {
+            // when
+            callbackQueueService.prewarm("editingDoc");
+
+            // then
+            assertThat(callbackQueueService.getQueueCount()).isEqualTo(1);
+            assertThat(callbackQueueService.release("editingDoc")).isTrue();
+        }
+
+        @Test
+        @DisplayName("should release an idle lane at once and recreate it for the next callback")
+        void shouldReleaseIdleLane() throws Exception {
+            // given
+            ReflectionTestUtils.setField(callbackQueueService, "idleTimeoutMinutes", 30L);
+            callbackQueueService.submitAndWait("closedDoc", () -> {
+            });
+
+            // when
+            boolean released = callbackQueueService.release("closedDoc");
+
+            // then
+            assertThat(released).isTrue();
+            assertThat(callbackQueueService.getQueueCount()).isZero();
+            assertThat(callbackQueueService.release("closedDoc")).isFalse();
+            assertThat(callbackQueueService.submitAndWait("closedDoc", () -> "reopened")).isEqualTo("reopened");
+        }
+
+        @Test
+        @DisplayName("should keep a lane that still has queued work")
+        void shouldKeepLaneWithQueuedWork() throws Exception {
+            // given
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch finish = new CountDownLatch(1);
+            CompletableFuture<Object> running = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return callbackQueueService.submitAndWait("busyDoc", () -> {
+                        started.countDown();
+                        finish.await();
+                        return "done";
+                    });
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            });
+            assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+            // when
+            boolean released = callbackQueueService.release("busyDoc");
+
+            // then
+            assertThat(released).isFalse();
+            assertThat(callbackQueueService.getQueueCount()).isEqualTo(1);
+            finish.countDown();
+            assertThat(running.get(1, TimeUnit.SECONDS)).isEqualTo("done");
+        }
+
+        @Test
+        @DisplayName("should leave striped lanes alone")
+        void shouldIgnoreStripedLanes() {
+            // given
+            callbackQueueService.shutdown();
+            callbackQueueService = new CallbackQueueService(new SimpleMeterRegistry());
+            ReflectionTestUtils.setField(callbackQueueService, "laneMode", CallbackQueueService.LaneMode.STRIPED);
+            ReflectionTestUtils.setField(callbackQueueService, "stripeCount", 2);
+            callbackQueueService.init();
+
+            // when
+            callbackQueueService.prewarm("stripedDoc");
+
+            // then
+            assertThat(callbackQueueService.getQueueCount()).isEqualTo(2);
+            assertThat(callbackQueueService.release("stripedDoc")).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Save Phase Timings")
+    @ExtendWith(OutputCaptureExtension.class)
+    class SavePhaseTimings {
+
+        private SimpleMeterRegistry meterRegistry;
+
+        @BeforeEach
+        void setUpMetrics() {
+            callbackQueueService.shutdown();
+            meterRegistry = new SimpleMeterRegistry();
+            callbackQueueService = new CallbackQueueService(meterRegistry);
+            ReflectionTestUtils.setField(callbackQueueService, "maxConcurrentSaves", 1);
+            callbackQueueService.init();
+        }
+
+        @Test
+        @DisplayName("should record queue, gate and processor-reported phases per save type")
+        void shouldRecordPhaseTimers() throws Exception {
+            // when
+            callbackQueueService.submitSaveAndWait("phaseDoc", SaveCallback.save("url", "key"), save -> {
+                SaveTimings.record(SaveTimings.Phase.DOWNLOAD, TimeUnit.MILLISECONDS.toNanos(30));
+                SaveTimings.record(SaveTimings.Phase.COMMIT, TimeUnit.MILLISECONDS.toNanos(5));
+            });
+
+            // then
+            assertThat(phaseTimer("download", "save").totalTime(TimeUnit.MILLISECONDS)).isEqualTo(30);
+            assertThat(phaseTimer("commit", "save").totalTime(TimeUnit.MILLISECONDS)).isEqualTo(5);
+            assertThat(phaseTimer("queue", "save").count()).isEqualTo(1);
+            assertThat(phaseTimer("gate", "save").count()).isEqualTo(1);
+            assertThat(meterRegistry.find("callback.save.phase").tag("phase", "lock").timer()).isNull();
+        }
+
+        @Test
+        @DisplayName("should not expose a save's timings to later tasks on the same lane")
+        void shouldUnbindTimingsAfterSave() throws Exception {
+            // given
+            callbackQueueService.submitSaveAndWait("phaseDoc", SaveCallback.forceSave("url", "key"),
+                    save -> SaveTimings.record(SaveTimings.Phase.STORAGE, 1_000));
+
+            // when
+            Long recorded = callbackQueueService.submitAndWait("phaseDoc",
+                    () -> SaveTimings.recorded(SaveTimings.Phase.STORAGE));
+
+            // then
+            assertThat(recorded).isZero();
+            assertThat(phaseTimer("storage", "forcesave").count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should log per-phase timings for saves slower than the threshold")
+        void shouldLogSlowSave(CapturedOutput output) throws Exception {
+            // given
+            ReflectionTestUtils.setField(callbackQueueService, "slowSaveThresholdMs", 1L);
+
+            // when
+            callbackQueueService.submitSaveAndWait("slowDoc", SaveCallback.save("url", "key"), save -> {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                SaveTimings.record(SaveTimings.Phase.LOCK, TimeUnit.MILLISECONDS.toNanos(12));
+            });
+
+            // then
+            assertThat(output).contains("Slow callback save: fileKey=slowDoc type=save outcome=success")
+                    .contains("lockMs=12");
+        }
+
+        @Test
+        @DisplayName("should not log saves faster than the threshold")
+        void shouldNotLogFastSave(CapturedOutput output) throws Exception {
+            // when
+            callbackQueueService.submitSaveAndWait("fastDoc", SaveCallback.save("url", "key"), save -> {
+            });
+
+            // then
+            assertThat(output).doesNotContain("Slow callback save: fileKey=fastDoc");
+        }
+
+        private Timer phaseTimer(String phase, String type) {
+            return meterRegistry.get("callback.save.phase").tag("phase", phase).tag("type", type).timer();
+        }
     }
 
+    @Nested
+    @DisplayName("Admission Control")
+    class AdmissionControl {
+
+        private SimpleMeterRegistry meterRegistry;
+        private CountDownLatch gate;
+        private ExecutorService callers;
+
+        @BeforeEach
+        void setUpLimits() {
+            callbackQueueService.shutdown();
+            meterRegistry = new SimpleMeterRegistry();
+            callbackQueueService = new CallbackQueueService(meterRegistry);
+            ReflectionTestUtils.setField(callbackQueueService, "maxQueuedPerDocument", 2);
+            ReflectionTestUtils.setField(callbackQueueService, "maxQueuedTotal", 3);
+            ReflectionTestUtils.setField(callbackQueueService, "maxInflightBytesPerDocument", 100L);
+            callbackQueueService.init();
+
+            gate = new CountDownLatch(1);
+            callers = Executors.newVirtualThreadPerTaskExecutor();
+        }
+
+        @AfterEach
+        void releaseGate() {
+            gate.countDown();
+            callers.close();
+        }
+
+        @Test
+        @DisplayName("should reject immediately when document queue depth is exceeded")
+        void shouldRejectWhenDocumentDepthExceeded() throws Exception {
+            // given - one running, one queued
+            blockLane("admissionDoc");
+            Future<Object> queued = callers.submit(() -> callbackQueueService.submitAndWait("admissionDoc", () -> "queued"));
+            awaitAdmitted(2);
+
+            // when/then
+            assertThatThrownBy(() -> callbackQueueService.submitAndWait("admissionDoc", () -> "rejected"))
+                    .isInstanceOf(CallbackRejectedException.class)
+                    .hasMessageContaining("document_depth");
+            assertThat(rejections("document_depth")).isEqualTo(1.0);
+
+            // other documents are unaffected
+            assertThat(callbackQueueService.submitAndWait("otherDoc", () -> "ok")).isEqualTo("ok");
+
+            gate.countDown();
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+            assertThat(callbackQueueService.submitAndWait("admissionDoc", () -> "accepted")).isEqualTo("accepted");
+        }
+
+        @Test
+        @DisplayName("should reject when global queue depth is exceeded")
+        void shouldRejectWhenGlobalDepthExceeded() throws Exception {
+            // given
+            blockLane("globalDoc1");
+            blockLane("globalDoc2");
+            blockLane("globalDoc3");
+
+            // when/then
+            assertThatThrownBy(() -> callbackQueueService.submitAndWait("globalDoc4", () -> "rejected"))
+                    .isInstanceOf(CallbackRejectedException.class)
+                    .hasMessageContaining("global_depth");
+            assertThat(rejections("global_depth")).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("should reject when in-flight bytes for a document are exceeded")
+        void shouldRejectWhenDocumentBytesExceeded() throws Exception {
+            // given - 80 bytes in flight
+            CountDownLatch started = new CountDownLatch(1);
+            callers.submit(() -> {
+                callbackQueueService.submitSaveAndWait("bytesDoc", SaveCallback.forceSave("u1"), 80, save -> {
+                    started.countDown();
+                    awaitGate();
+                });
+                return null;
+            });
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // when/then - 80 + 40 > 100
+            assertThatThrownBy(() -> callbackQueueService.submitSaveAndWait(
+                    "bytesDoc", SaveCallback.save("u2"), 40, save -> {
+                    }))
+                    .isInstanceOf(CallbackRejectedException.class)
+                    .hasMessageContaining("document_bytes");
+        }
+
+        @Test
+        @DisplayName("should admit a single callback larger than the byte limit when nothing is in flight")
+        void shouldAdmitOversizedCallbackWhenIdle() throws Exception {
+            // when
+            List<SaveCallback> processed = new ArrayList<>();
+            callbackQueueService.submitSaveAndWait("largeDoc", SaveCallback.save("u1"), 500, processed::add);
+
+            // then
+            assertThat(processed).containsExactly(SaveCallback.save("u1"));
+        }
+
+        @Test
+        @DisplayName("should release admission when a queued task times out")
+        void shouldReleaseAdmissionOnTimeout() throws Exception {
+            // given
+            blockLane("timeoutDoc");
+
+            // when - queued task is cancelled by timeout before it runs
+            assertThatThrownBy(() -> callbackQueueService.submitAndWait("timeoutDoc", () -> "late", 50, TimeUnit.MILLISECONDS))
+                    .isInstanceOf(TimeoutException.class);
+
+            // then - only the blocking task still holds a permit
+            assertThat(meterRegistry.get("callback.queue.admitted").gauge().value()).isEqualTo(1.0);
+        }
+
+        private void blockLane(String fileKey) throws InterruptedException {
+            CountDownLatch started = new CountDownLatch(1);
+            callers.submit(() -> callbackQueueService.submitAndWait(fileKey, () -> {
+                started.countDown();
+                awaitGate();
+                return null;
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        private void awaitGate() {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void awaitAdmitted(int expected) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.get("callback.queue.admitted").gauge().value() < expected) {
+                if (System.nanoTime() > deadline) {
+                    throw new AssertionError("Tasks were not admitted");
+                }
+                Thread.sleep(1);
+            }
+        }
+
+        private double rejections(String reason) {
+            return meterRegistry.get("callback.queue.rejections").tag("reason", reason).counter().count();
+        }
+    }
+
+    @Nested
+    @DisplayName("Metrics")
+    class Metrics {
+
+        private SimpleMeterRegistry meterRegistry;
+
+        @BeforeEach
+        void setUpRegistry() {
+            callbackQueueService.shutdown();
+            meterRegistry = new SimpleMeterRegistry();
+            callbackQueueService = new CallbackQueueService(meterRegistry);
+        }
+
+        @Test
+        @DisplayName("should record wait and execution time per callback status")
+        void shouldRecordWaitAndExecutionTimePerStatus() throws Exception {
+            // when
+            callbackQueueService.submitSaveAndWait("metricsDoc", SaveCallback.forceSave("u1"), save -> sleep(20));
+            callbackQueueService.submitSaveAndWait("metricsDoc", SaveCallback.save("u2"), save -> {
+            });
+            callbackQueueService.submitAndWait("metricsDoc", () -> {
+            });
+
+            // then
+            assertThat(meterRegistry.get("callback.queue.wait").tag("status", "forcesave").timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("callback.queue.wait").tag("status", "save").timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("callback.queue.wait").tag("status", "other").timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("callback.queue.execution").tag("status", "forcesave").timer()
+                    .totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(20);
+        }
+
+        @Test
+        @DisplayName("should count timeouts and skip timing for cancelled tasks")
+        void shouldCountTimeouts() throws Exception {
+            // given - first task blocks the lane so the second one times out while queued
+            CountDownLatch release = new CountDownLatch(1);
+            try (ExecutorService caller = Executors.newVirtualThreadPerTaskExecutor()) {
+                Future<?> blocking = caller.submit(() -> callbackQueueService.submitAndWait("slowDoc", () -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return null;
+                }));
+
+                // when
+                assertThatThrownBy(() -> callbackQueueService.submitSaveAndWait("slowDoc",
+                        SaveCallback.forceSave("u1"), 0, save -> {
+                        }, 100, TimeUnit.MILLISECONDS))
+                        .isInstanceOf(TimeoutException.class);
+
+                release.countDown();
+                blocking.get(5, TimeUnit.SECONDS);
+            }
+            callbackQueueService.submitAndWait("slowDoc", () -> {
+            });
+
+            // then
+            assertThat(meterRegistry.get("callback.queue.timeouts").tag("status", "forcesave").counter().count())
+                    .isEqualTo(1);
+            assertThat(meterRegistry.find("callback.queue.execution").tag("status", "forcesave").timer()).isNull();
+        }
+
+        @Test
+        @DisplayName("should count submit retries when the executor is shutting down")
+        void shouldCountSubmitRetries() throws Exception {
+            // given - executor of the document is shut down by idle cleanup, but left in the map
+            callbackQueueService.submitAndWait("retryDoc", () -> {
+            });
+            @SuppressWarnings("unchecked")
+            Map<String, ManagedExecutor> executors = (Map<String, ManagedExecutor>)
+                    ReflectionTestUtils.getField(callbackQueueService, "documentExecutors");
+            ManagedExecutor managed = executors.get("retryDoc");
+            Thread.sleep(5);
+            assertThat(managed.tryMarkIdle(System.currentTimeMillis(), 0)).isTrue();
+            assertThat(managed.tryShutdown()).isTrue();
+
+            // when
+            callbackQueueService.submitAndWait("retryDoc", () -> {
+            });
+
+            // then
+            assertThat(meterRegistry.get("callback.queue.submit.retries").counter().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should expose executor counts per state")
+        void shouldExposeExecutorCountsPerState() throws Exception {
+            // given
+            callbackQueueService.submitAndWait("stateDoc1", () -> {
+            });
+            callbackQueueService.submitAndWait("stateDoc2", () -> {
+            });
+            @SuppressWarnings("unchecked")
+            Map<String, ManagedExecutor> executors = (Map<String, ManagedExecutor>)
+                    ReflectionTestUtils.getField(callbackQueueService, "documentExecutors");
+            Thread.sleep(5);
+            executors.get("stateDoc2").tryMarkIdle(System.currentTimeMillis(), 0);
+
+            // then
+            assertThat(executorGauge("active")).isEqualTo(1.0);
+            assertThat(executorGauge("idle")).isEqualTo(1.0);
+            assertThat(executorGauge("shutting_down")).isZero();
+        }
+
+        @Test
+        @DisplayName("should record queued tasks per document at submission")
+        void shouldRecordDocumentDepth() throws Exception {
+            // given
+            CountDownLatch release = new CountDownLatch(1);
+            try (ExecutorService caller = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    futures.add(caller.submit(() -> callbackQueueService.submitAndWait("hotDoc", () -> {
+                        release.await(5, TimeUnit.SECONDS);
+                        return null;
+                    })));
+                }
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (meterRegistry.get("callback.queue.document.depth").summary().count() < 3
+                        && System.nanoTime() < deadline) {
+                    Thread.sleep(1);
+                }
+                release.countDown();
+                for (Future<?> future : futures) {
+                    future.get(5, TimeUnit.SECONDS);
+                }
+            }
+
+            // then - depths 1, 2, 3 recorded as tasks pile up on the same document
+            var summary = meterRegistry.get("callback.queue.document.depth").summary();
+            assertThat(summary.count()).isEqualTo(3);
+            assertThat(summary.max()).isEqualTo(3.0);
+        }
+
+        private double executorGauge(String state) {
+            return meterRegistry.get("callback.queue.executors").tag("state", state).gauge().value();
+        }
+
+        private void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 
     @Nested
     @DisplayName("Retry Exhaustion")
@@ -0,0 +1,477 @@
+package com.example.onlyoffice.service;
+
+import com.example.onlyoffice.exception.CallbackRejectedException;
+import com.example.onlyoffice.exception.StorageException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DefaultUrlDownloadService 테스트")
+class DefaultUrlDownloadServiceTest {
+
+    private static final String STORAGE_PATH = "documents/sample.docx";
+    private static final byte[] CONTENT = "saved document content".getBytes(StandardCharsets.UTF_8);
+    private static final String ETAG = "\"v1\"";
+
+    @Mock
+    private MinioStorageService storageService;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private HttpClient httpClient;
+    private SimpleMeterRegistry meterRegistry;
+    private DefaultUrlDownloadService downloadService;
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<byte[]> uploaded = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(serverExecutor);
+        server.createContext("/files/ok", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            respond(exchange, 200, CONTENT);
+        });
+        server.createContext("/files/missing", exchange -> respond(exchange, 404, new byte[0]));
+        server.start();
+
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        meterRegistry = new SimpleMeterRegistry();
+        downloadService = new DefaultUrlDownloadService(storageService, httpClient, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        downloadService.shutdown();
+        httpClient.shutdownNow();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Nested
+    @DisplayName("downloadAndSave")
+    class DownloadAndSave {
+
+        @Test
+        @DisplayName("응답 본문을 Content-Type/Content-Length와 함께 스토리지에 저장")
+        void shouldStreamBodyToStorage() {
+            // given
+            captureUploads();
+
+            // when
+            UrlDownloadService.DownloadResult result = downloadService.downloadAndSave(url("/files/ok"), STORAGE_PATH);
+
+            // then
+            assertThat(result.fileSize()).isEqualTo(CONTENT.length);
+            assertThat(result.contentHash()).isEqualTo(sha256(CONTENT));
+            assertThat(uploaded.get()).isEqualTo(CONTENT);
+            verify(storageService).uploadStream(any(InputStream.class), eq((long) CONTENT.length),
+                    eq("application/vnd.openxmlformats-officedocument.wordprocessingml.document"), eq(STORAGE_PATH));
+        }
+
+        @Test
+        @DisplayName("연속된 다운로드는 같은 연결을 재사용")
+        void shouldReusePooledConnection() {
+            // given
+            captureUploads();
+
+            // when
+            for (int i = 0; i < 3; i++) {
+                downloadService.downloadAndSave(url("/files/ok"), STORAGE_PATH);
+            }
+
+            // then
+            assertThat(clientPorts).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("2xx가 아닌 응답은 저장하지 않고 실패")
+        void shouldFailOnErrorStatus() {
+            assertThatThrownBy(() -> downloadService.downloadAndSave(url("/files/missing"), STORAGE_PATH))
+                    .isInstanceOf(RuntimeException.class)
+                    .hasRootCauseInstanceOf(IOException.class)
+                    .rootCause().hasMessageContaining("404");
+            verify(storageService, never()).uploadStream(any(), anyLong(), anyString(), anyString());
+        }
+
+        @Test
+        @DisplayName("본문이 read-timeout 동안 오지 않으면 스트림을 닫고 실패")
+        void shouldAbortStalledBody() {
+            // given - 헤더와 일부 본문만 보내고 멈추는 서버
+            CountDownLatch release = new CountDownLatch(1);
+            server.createContext("/files/stalled", exchange -> {
+                exchange.sendResponseHeaders(200, CONTENT.length);
+                OutputStream body = exchange.getResponseBody();
+                body.write(CONTENT, 0, 4);
+                body.flush();
+                await(release);
+                exchange.close();
+            });
+            ReflectionTestUtils.setField(downloadService, "readTimeoutMs", 200L);
+            captureUploads();
+
+            // when / then
+            try {
+                long start = System.nanoTime();
+                assertThatThrownBy(() -> downloadService.downloadAndSave(url("/files/stalled"), STORAGE_PATH))
+                        .hasCauseInstanceOf(HttpTimeoutException.class);
+                assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+            } finally {
+                release.countDown();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Resume")
+    class Resume {
+
+        private final byte[] content = randomBytes(256 * 1024);
+        private final List<String> rangeHeaders = new CopyOnWriteArrayList<>();
+        private final List<String> ifRangeHeaders = new CopyOnWriteArrayList<>();
+
+        @BeforeEach
+        void setUp() {
+            ReflectionTestUtils.setField(downloadService, "resumeBackoffMs", 10L);
+        }
+
+        @Test
+        @DisplayName("본문 중간에 연결이 끊기면 받은 위치부터 Range 요청으로 이어 받아 한 번의 업로드로 저장")
+        void shouldResumeFromLastReceivedByte() {
+            // given - 첫 응답은 절반만 보내고 연결을 끊음
+            serveRanges("/files/flaky", 1, true, null);
+            captureUploads();
+
+            // when
+            UrlDownloadService.DownloadResult result = downloadService.downloadAndSave(url("/files/flaky"), STORAGE_PATH);
+
+            // then
+            assertThat(result.fileSize()).isEqualTo(content.length);
+            assertThat(result.contentHash()).isEqualTo(sha256(content)); // 이어 받은 구간도 한 번만 hash
+            assertThat(uploaded.get()).isEqualTo(content);
+            verify(storageService, times(1)).uploadStream(any(), eq((long) content.length), anyString(), eq(STORAGE_PATH));
+
+            assertThat(rangeHeaders).hasSize(2);
+            assertThat(rangeHeaders.get(0)).isEmpty();
+            assertThat(rangeHeaders.get(1)).matches("bytes=[1-9]\\d*-");
+            assertThat(ifRangeHeaders.get(1)).isEqualTo(ETAG);
+            assertThat(meterRegistry.get("callback.download.resumes").counter().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("본문이 멈추면 read-timeout 후 이어 받기")
+        void shouldResumeStalledBody() {
+            // given - 첫 응답은 절반을 보낸 뒤 멈춤
+            CountDownLatch release = new CountDownLatch(1);
+            serveRanges("/files/stalled-once", 1, true, release);
+            ReflectionTestUtils.setField(downloadService, "readTimeoutMs", 200L);
+            captureUploads();
+
+            // when
+            try {
+                UrlDownloadService.DownloadResult result =
+                        downloadService.downloadAndSave(url("/files/stalled-once"), STORAGE_PATH);
+
+                // then
+                assertThat(result.fileSize()).isEqualTo(content.length);
+                assertThat(uploaded.get()).isEqualTo(content);
+                assertThat(rangeHeaders).hasSize(2);
+            } finally {
+                release.countDown();
+            }
+        }
+
+        @Test
+        @DisplayName("callback이 취소되면 멈춘 본문을 닫고 이어 받지 않고 바로 실패")
+        void shouldAbortStalledBodyWhenCallbackIsCancelled() {
+            // given - read-timeout(60s)보다 훨씬 먼저 취소
+            CountDownLatch release = new CountDownLatch(1);
+            serveRanges("/files/stalled-cancel", 1, true, release);
+            captureUploads();
+            CallbackScope scope = new CallbackScope();
+            ScheduledExecutorService canceller = Executors.newSingleThreadScheduledExecutor();
+            canceller.schedule(scope::cancel, 200, TimeUnit.MILLISECONDS);
+
+            // when
+            long start = System.nanoTime();
+            try (CallbackScope.Binding binding = scope.bind()) {
+                assertThatThrownBy(() -> downloadService.downloadAndSave(url("/files/stalled-cancel"), STORAGE_PATH))
+                        .isInstanceOf(RuntimeException.class);
+            } finally {
+                release.countDown();
+                canceller.shutdownNow();
+            }
+
+            // then
+            assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+            assertThat(rangeHeaders).hasSize(1);
+            assertThat(meterRegistry.get("callback.download.resumes").counter().count()).isZero();
+            assertThat(uploaded.get()).isNull();
+        }
+
+        @Test
+        @DisplayName("끊김이 재시도 한도를 넘으면 실패")
+        void shouldFailWhenResumeBudgetIsExhausted() {
+            // given
+            ReflectionTestUtils.setField(downloadService, "maxResumeAttempts", 2);
+            serveRanges("/files/always-cut", Integer.MAX_VALUE, true, null);
+            captureUploads();
+
+            // when / then
+            assertThatThrownBy(() -> downloadService.downloadAndSave(url("/files/always-cut"), STORAGE_PATH))
+                    .isInstanceOf(RuntimeException.class);
+            assertThat(rangeHeaders).hasSize(3);
+            assertThat(uploaded.get()).isNull();
+        }
+
+        @Test
+        @DisplayName("서버가 Range를 무시하고 200으로 응답하면 이어 붙이지 않고 실패")
+        void shouldNotSpliceFullResponse() {
+            // given
+            serveRanges("/files/no-range", 1, false, null);
+            captureUploads();
+
+            // when / then
+            assertThatThrownBy(() -> downloadService.downloadAndSave(url("/files/no-range"), STORAGE_PATH))
+                    .isInstanceOf(RuntimeException.class);
+            assertThat(rangeHeaders).hasSize(2);
+            assertThat(uploaded.get()).isNull();
+        }
+
+        /**
+         * Range를 지원하는 stub. 처음 {@code failures}개의 응답은 본문 절반만 보낸 뒤 연결을 끊거나
+         * ({@code stall}이 있으면) 멈춥니다.
+         */
+        private void serveRanges(String path, int failures, boolean honorRange, CountDownLatch stall) {
+            AtomicInteger requests = new AtomicInteger();
+            server.createContext(path, exchange -> {
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                rangeHeaders.add(range == null ? "" : range);
+                String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+                ifRangeHeaders.add(ifRange == null ? "" : ifRange);
+
+                int start = 0;
+                exchange.getResponseHeaders().set("ETag", ETAG);
+                if (range != null && honorRange) {
+                    start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+                    exchange.getResponseHeaders().set("Content-Range",
+                            "bytes " + start + "-" + (content.length - 1) + "/" + content.length);
+                    exchange.sendResponseHeaders(206, content.length - start);
+                } else {
+                    exchange.sendResponseHeaders(200, content.length);
+                }
+
+                OutputStream body = exchange.getResponseBody();
+                int remaining = content.length - start;
+                if (requests.incrementAndGet() <= failures) {
+                    body.write(content, start, remaining / 2);
+                    body.flush();
+                    if (stall != null) {
+                        await(stall);
+                    }
+                    // handler가 예외로 끝나면 서버가 연결을 닫음
+                    throw new IOException("simulated connection drop");
+                }
+                body.write(content, start, remaining);
+                body.close();
+            });
+        }
+    }
+
+    @Nested
+    @DisplayName("Per-host concurrency")
+    class PerHostConcurrency {
+
+        @Test
+        @DisplayName("host의 동시 다운로드 한도를 넘으면 허용을 기다리다 거부")
+        void shouldRejectWhenHostLimitIsExhausted() throws Exception {
+            // given - 한도 1, 첫 다운로드가 응답을 붙잡고 있음
+            ReflectionTestUtils.setField(downloadService, "maxConcurrentPerHost", 1);
+            ReflectionTestUtils.setField(downloadService, "permitTimeoutMs", 100L);
+            CountDownLatch requested = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            server.createContext("/files/slow", exchange -> {
+                requested.countDown();
+                await(release);
+                respond(exchange, 200, CONTENT);
+            });
+            captureUploads();
+
+            try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+                Future<?> first = callers.submit(() -> downloadService.downloadAndSave(url("/files/slow"), STORAGE_PATH));
+                assertThat(requested.await(5, TimeUnit.SECONDS)).isTrue();
+
+                // when / then
+                assertThatThrownBy(() -> downloadService.downloadAndSave(url("/files/ok"), STORAGE_PATH))
+                        .isInstanceOf(CallbackRejectedException.class);
+
+                release.countDown();
+                first.get(5, TimeUnit.SECONDS);
+            }
+
+            // 허용이 반환되어 다음 다운로드는 성공
+            assertThat(downloadService.downloadAndSave(url("/files/ok"), STORAGE_PATH).fileSize())
+                    .isEqualTo(CONTENT.length);
+        }
+    }
+
+    @Nested
+    @DisplayName("Metrics")
+    class Metrics {
+
+        @Test
+        @DisplayName("TTFB, 전송 시간, 파일 크기를 기록")
+        void shouldRecordDownloadPhases() {
+            // given
+            captureUploads();
+
+            // when
+            downloadService.downloadAndSave(url("/files/ok"), STORAGE_PATH);
+
+            // then
+            assertThat(meterRegistry.get("callback.download.ttfb").timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("callback.download.transfer").tag("outcome", "success").timer().count())
+                    .isEqualTo(1);
+            assertThat(meterRegistry.get("callback.download.permit.wait").timer().count()).isEqualTo(1);
+            assertThat(meterRegistry.get("callback.download.size").summary().totalAmount())
+                    .isEqualTo(CONTENT.length);
+        }
+
+        @Test
+        @DisplayName("저장 실패는 failure outcome으로 기록")
+        void shouldRecordFailedTransfer() {
+            // given
+            doAnswer(invocation -> {
+                throw new StorageException("upload failed", null);
+            }).when(storageService).uploadStream(any(), anyLong(), anyString(), anyString());
+
+            // when
+            assertThatThrownBy(() -> downloadService.downloadAndSave(url("/files/ok"), STORAGE_PATH))
+                    .hasCauseInstanceOf(StorageException.class);
+
+            // then
+            assertThat(meterRegistry.get("callback.download.transfer").tag("outcome", "failure").timer().count())
+                    .isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("저장 callback 안에서는 본문 대기와 스토리지 전송 시간을 나눠 SaveTimings에 기록")
+        void shouldSplitDownloadAndStorageTimings() {
+            // given - 스토리지가 본문을 다 읽은 뒤 50ms를 더 씀
+            doAnswer(invocation -> {
+                InputStream in = invocation.getArgument(0);
+                in.readAllBytes();
+                Thread.sleep(50);
+                return null;
+            }).when(storageService).uploadStream(any(), anyLong(), anyString(), anyString());
+            SaveTimings timings = new SaveTimings();
+
+            // when
+            try (SaveTimings.Scope scope = timings.bind()) {
+                downloadService.downloadAndSave(url("/files/ok"), STORAGE_PATH);
+            }
+
+            // then
+            assertThat(timings.nanos(SaveTimings.Phase.DOWNLOAD)).isPositive();
+            assertThat(timings.nanos(SaveTimings.Phase.STORAGE)).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+    }
+
+    private void captureUploads() {
+        doAnswer(invocation -> {
+            InputStream in = invocation.getArgument(0);
+            try {
+                uploaded.set(in.readAllBytes());
+            } catch (IOException e) {
+                throw new StorageException("Failed to upload file", e);
+            }
+            return null;
+        }).when(storageService).uploadStream(any(), anyLong(), anyString(), anyString());
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type",
+                "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,575 @@
+package com.example.onlyoffice.service;
+
+import com.example.onlyoffice.entity.Document;
+import com.example.onlyoffice.exception.StorageException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DocumentContentCache")
+class DocumentContentCacheTest {
+
+    @Mock
+    private MinioStorageService storageService;
+
+    @TempDir
+    Path cacheDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private DocumentContentCache contentCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        contentCache = new DocumentContentCache(storageService, meterRegistry);
+        ReflectionTestUtils.setField(contentCache, "path", cacheDir.toString());
+        ReflectionTestUtils.setField(contentCache, "maxBytes", 10L);
+        contentCache.init();
+    }
+
+    @Nested
+    @DisplayName("open")
+    class Open {
+
+        @Test
+        @DisplayName("끝까지 읽은 miss는 캐시에 추가되고 다음 요청은 MinIO 없이 응답")
+        void shouldServeSecondReadFromDisk() throws IOException {
+            // given
+            Document document = document("doc", "documents/doc/a.docx", "hello");
+            when(storageService.downloadFile(document.getStoragePath())).thenReturn(stream("hello"));
+
+            // when
+            String first = readAll(contentCache.open(document));
+            String second = readAll(contentCache.open(document));
+
+            // then
+            assertThat(first).isEqualTo("hello");
+            assertThat(second).isEqualTo("hello");
+            verify(storageService, times(1)).downloadFile(document.getStoragePath());
+            assertThat(requests("hit")).isEqualTo(1.0);
+            assertThat(requests("miss")).isEqualTo(1.0);
+            assertThat(contentCache.cachedBytes()).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("editorVersion이 바뀌면 다른 항목으로 취급")
+        void shouldKeyOnEditorVersion() throws IOException {
+            // given
+            Document document = document("doc", "documents/doc/a.docx", "hello");
+            when(storageService.downloadFile(document.getStoragePath())).thenReturn(stream("hello"), stream("hello"));
+            readAll(contentCache.open(document));
+
+            // when
+            document.incrementEditorVersion();
+            readAll(contentCache.open(document));
+
+            // then
+            verify(storageService, times(2)).downloadFile(document.getStoragePath());
+        }
+
+        @Test
+        @DisplayName("끝까지 읽기 전에 닫아도 다운로드는 끝까지 받아 캐시에 추가")
+        void shouldKeepDownloadingAfterReaderCloses() throws IOException {
+            // given
+            Document document = document("doc", "documents/doc/a.docx", "hello");
+            when(storageService.downloadFile(document.getStoragePath())).thenReturn(stream("hello"));
+
+            // when
+            try (InputStream in = contentCache.open(document)) {
+                in.read(new byte[2]);
+            }
+            String next = readAll(contentCache.open(document));
+
+            // then
+            assertThat(next).isEqualTo("hello");
+            assertThat(contentCache.entryCount()).isEqualTo(1);
+            verify(storageService, times(1)).downloadFile(document.getStoragePath());
+        }
+
+        @Test
+        @DisplayName("받은 크기가 문서 크기와 다르면 읽기가 실패하고 캐시에 넣지 않음")
+        void shouldFailTruncatedContent() throws IOException {
+            // given
+            Document document = document("doc", "documents/doc/a.docx", "hello");
+            when(storageService.downloadFile(document.getStoragePath())).thenReturn(stream("hel"));
+
+            // when & then
+            InputStream in = contentCache.open(document);
+            assertThatThrownBy(() -> readAll(in)).isInstanceOf(IOException.class);
+            assertThat(contentCache.entryCount()).isZero();
+            assertThat(filesIn(cacheDir)).isZero();
+        }
+
+        @Test
+        @DisplayName("max-bytes보다 큰 파일은 캐시하지 않음")
+        void shouldBypassOversizedFiles() throws IOException {
+            // given
+            Document document = document("doc", "documents/doc/big.docx", "0123456789ab");
+            InputStream source = stream("0123456789ab");
+            when(storageService.downloadFile(document.getStoragePath())).thenReturn(source);
+
+            // when
+            InputStream result = contentCache.open(document);
+
+            // then
+            assertThat(result).isSameAs(source);
+        }
+
+        @Test
+        @DisplayName("용량을 넘으면 가장 오래 사용되지 않은 항목부터 삭제")
+        void shouldEvictLeastRecentlyUsed() throws IOException {
+            // given
+            Document a = document("a", "documents/a/a.docx", "aaaa");
+            Document b = document("b", "documents/b/b.docx", "bbbb");
+            Document c = document("c", "documents/c/c.docx", "cccc");
+            when(storageService.downloadFile(a.getStoragePath())).thenReturn(stream("aaaa"));
+            when(storageService.downloadFile(b.getStoragePath())).thenReturn(stream("bbbb"));
+            when(storageService.downloadFile(c.getStoragePath())).thenReturn(stream("cccc"));
+            readAll(contentCache.open(a));
+            readAll(contentCache.open(b));
+            readAll(contentCache.open(a)); // a를 최근 사용으로
+
+            // when
+            readAll(contentCache.open(c));
+
+            // then: b가 삭제되고 a, c는 남음
+            assertThat(contentCache.entryCount()).isEqualTo(2);
+            assertThat(contentCache.cachedBytes()).isEqualTo(8);
+            assertThat(meterRegistry.get("storage.cache.evictions").tag("cause", "size").counter().count())
+                    .isEqualTo(1.0);
+            readAll(contentCache.open(a));
+            verify(storageService, times(1)).downloadFile(a.getStoragePath());
+            assertThat(filesIn(cacheDir)).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("openRange")
+    class OpenRange {
+
+        @Test
+        @DisplayName("캐시된 문서의 구간은 로컬 파일에서 읽음")
+        void shouldReadRangeFromDisk() throws IOException {
+            // given
+            Document document = document("doc", "documents/doc/a.docx", "0123456789");
+            when(storageService.downloadFile(document.getStoragePath())).thenReturn(stream("0123456789"));
+            readAll(contentCache.open(document));
+
+            // when
+            String range = readAll(contentCache.openRange(document, 3, 4));
+
+            // then
+            assertThat(range).isEqualTo("3456");
+            verify(storageService, never()).downloadFile(document.getStoragePath(), 3, 4);
+        }
+
+        @Test
+        @DisplayName("캐시에 없으면 MinIO에서 구간만 읽고 캐시를 채우지 않음")
+        void shouldReadRangeFromStorageOnMiss() throws IOException {
+            // given
+            Document document = document("doc", "documents/doc/a.docx", "0123456789");
+            when(storageService.downloadFile(document.getStoragePath(), 3, 4)).thenReturn(stream("3456"));
+
+            // when
+            String range = readAll(contentCache.openRange(document, 3, 4));
+
+            // then
+            assertThat(range).isEqualTo("3456");
+            assertThat(contentCache.entryCount()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("single-flight")
+    class SingleFlight {
+
+        private final CountDownLatch gate = new CountDownLatch(1);
+
+        @Test
+        @DisplayName("동시에 여는 요청은 MinIO 다운로드 하나를 공유")
+        void shouldShareOneDownloadAcrossConcurrentReaders() throws IOException {
+            // given
+            Document document = document("doc", "documents/doc/a.docx", "hello");
+            when(storageService.downloadFile(document.getStoragePath())).thenReturn(gated(stream("hello")));
+
+            // when: 다운로드가 끝나기 전에 두 요청이 열림
+            InputStream first = contentCache.open(document);
+            InputStream second = contentCache.open(document);
+            gate.countDown();
+
+            // then
+            assertThat(readAll(first)).isEqualTo("hello");
+            assertThat(readAll(second)).isEqualTo("hello");
+            verify(storageService, times(1)).downloadFile(document.getStoragePath());
+            assertThat(requests("miss")).isEqualTo(1.0);
+            assertThat(requests("coalesced")).isEqualTo(1.0);
+            assertThat(contentCache.entryCount()).isEqualTo(1);
+            assertThat(contentCache.inflightCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("진행 중인 다운로드가 있으면 구간 요청도 거기서 읽음")
+        void shouldAttachRangeToInflightDownload() throws IOException {
+            // given
+            Document document = document("doc", "documents/doc/a.docx", "0123456789");
+            when(storageService.downloadFile(document.getStoragePath())).thenReturn(gated(stream("0123456789")));
+            InputStream full = contentCache.open(document);
+
+            // when
+            InputStream range = contentCache.openRange(document, 3, 4);
+            gate.countDown();
+
+            // then
+            assertThat(readAll(range)).isEqualTo("3456");
+            assertThat(readAll(full)).isEqualTo("0123456789");
+            verify(storageService, never()).downloadFile(document.getStoragePath(), 3, 4);
+        }
+
+        @Test
+        @DisplayName("공유 다운로드가 실패하면 붙어 있는 요청 모두 실패하고 다음 요청은 다시 다운로드")
+        void shouldFailAllReadersWhenDownloadFails() throws IOException {
+            // given
+            Document document = document("doc", "documents/doc/a.docx", "hello");
+            InputStream broken = gated(new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new IOException("connection reset");
+                }
+            });
+            when(storageService.downloadFile(document.getStoragePath())).thenReturn(broken, stream("hello"));
+            InputStream first = contentCache.open(document);
+            InputStream second = contentCache.open(document);
+
+            // when
+            gate.countDown();
+
+            // then
+            assertThatThrownBy(() -> readAll(first)).isInstanceOf(IOException.class);
+            assertThatThrownBy(() -> readAll(second)).isInstanceOf(IOException.class);
+            assertThat(contentCache.entryCount()).isZero();
+            assertThat(filesIn(cacheDir)).isZero();
+            assertThat(readAll(contentCache.open(document))).isEqualTo("hello");
+            verify(storageService, times(2)).downloadFile(document.getStoragePath());
+        }
+
+        @Test
+        @DisplayName("MinIO 객체를 열지 못하면 예외를 전달하고 다운로드 등록을 해제")
+        void shouldUnregisterWhenOpenFails() throws IOException {
+            // given
+            Document document = document("doc", "documents/doc/a.docx", "hello");
+            when(storageService.downloadFile(document.getStoragePath()))
+                    .thenThrow(new StorageException("Failed to download file: " + document.getStoragePath()))
+                    .thenReturn(stream("hello"));
+
+            // when & then
+            assertThatThrownBy(() -> contentCache.open(document)).isInstanceOf(StorageException.class);
+            assertThat(contentCache.inflightCount()).isZero();
+            assertThat(filesIn(cacheDir)).isZero();
+            assertThat(readAll(contentCache.open(document))).isEqualTo("hello");
+        }
+
+        @Test
+        @DisplayName("무효화된 다운로드는 붙어 있는 요청에 끝까지 전달하되 캐시에 넣지 않음")
+        void shouldNotCacheInflightDownloadAfterInvalidate() throws IOException {
+            // given
+            Document document = document("doc", "documents/doc/a.docx", "hello");
+            when(storageService.downloadFile(document.getStoragePath())).thenReturn(gated(stream("hello")));
+            InputStream in = contentCache.open(document);
+
+            // when
+            contentCache.invalidate("doc");
+            gate.countDown();
+
+            // then
+            assertThat(readAll(in)).isEqualTo("hello");
+            assertThat(contentCache.entryCount()).isZero();
+            assertThat(contentCache.inflightCount()).isZero();
+            assertThat(filesIn(cacheDir)).isZero();
+        }
+
+        @Test
+        @DisplayName("동시 다운로드 한도가 차면 공유 없이 MinIO에서 직접 읽음")
+        void shouldBypassWhenInflightLimitReached() throws IOException {
+            // given
+            ReflectionTestUtils.setField(contentCache, "maxInflight", 1);
+            Document a = document("a", "documents/a/a.docx", "aaaa");
+            Document b = document("b", "documents/b/b.docx", "bbbb");
+            InputStream direct = stream("bbbb");
+            when(storageService.downloadFile(a.getStoragePath())).thenReturn(gated(stream("aaaa")));
+            when(storageService.downloadFile(b.getStoragePath())).thenReturn(direct);
+            InputStream first = contentCache.open(a);
+
+            // when
+            InputStream second = contentCache.open(b);
+
+            // then
+            assertThat(second).isSameAs(direct);
+            assertThat(contentCache.inflightCount()).isEqualTo(1);
+            gate.countDown();
+            assertThat(readAll(first)).isEqualTo("aaaa");
+        }
+
+        @Test
+        @DisplayName("받고 있는 spool 파일도 max-bytes에 포함")
+        void shouldCountSpoolBytesAgainstMaxBytes() throws IOException {
+            // given - max-bytes 10, 6바이트를 받는 중
+            Document a = document("a", "documents/a/a.docx", "aaaaaa");
+            Document b = document("b", "documents/b/b.docx", "bbbbbb");
+            InputStream direct = stream("bbbbbb");
+            when(storageService.downloadFile(a.getStoragePath())).thenReturn(gated(stream("aaaaaa")));
+            when(storageService.downloadFile(b.getStoragePath())).thenReturn(direct);
+            InputStream first = contentCache.open(a);
+
+            // when
+            InputStream second = contentCache.open(b);
+
+            // then
+            assertThat(second).isSameAs(direct);
+            gate.countDown();
+            assertThat(readAll(first)).isEqualTo("aaaaaa");
+            assertThat(contentCache.cachedBytes()).isEqualTo(6);
+        }
+
+        @Test
+        @DisplayName("spool 자리가 모자라면 다운로드를 시작할 때 LRU 항목을 삭제")
+        void shouldEvictForSpool() throws IOException {
+            // given - 4바이트 항목 두 개 (합계 8)
+            Document c = document("c", "documents/c/c.docx", "cccc");
+            Document d = document("d", "documents/d/d.docx", "dddd");
+            Document a = document("a", "documents/a/a.docx", "aaaaaa");
+            when(storageService.downloadFile(c.getStoragePath())).thenReturn(stream("cccc"));
+            when(storageService.downloadFile(d.getStoragePath())).thenReturn(stream("dddd"));
+            when(storageService.downloadFile(a.getStoragePath())).thenReturn(gated(stream("aaaaaa")));
+            readAll(contentCache.open(c));
+            readAll(contentCache.open(d));
+
+            // when - 6바이트 다운로드 시작
+            InputStream in = contentCache.open(a);
+
+            // then - 가장 오래된 c만 삭제되어 4 + 6 <= 10
+            assertThat(contentCache.entryCount()).isEqualTo(1);
+            assertThat(contentCache.cachedBytes()).isEqualTo(4);
+            gate.countDown();
+            assertThat(readAll(in)).isEqualTo("aaaaaa");
+        }
+
+        @Test
+        @DisplayName("한 바이트도 받기 전에 마지막 요청이 떠나면 다운로드를 중단")
+        void shouldAbortDownloadWithoutReaders() throws Exception {
+            // given
+            Document document = document("doc", "documents/doc/a.docx", "hello");
+            CountDownLatch sourceClosed = new CountDownLatch(1);
+            InputStream source = new FilterInputStream(gated(stream("hello"))) {
+                @Override
+                public void close() throws IOException {
+                    sourceClosed.countDown();
+                    super.close();
+                }
+            };
+            when(storageService.downloadFile(document.getStoragePath())).thenReturn(source, stream("hello"));
+
+            // when
+            contentCache.open(document).close();
+
+            // then - MinIO 스트림을 닫고, 캐시에 넣지 않으며, 다음 요청은 새로 다운로드
+            assertThat(sourceClosed.await(5, TimeUnit.SECONDS)).isTrue();
+            gate.countDown();
+            awaitNoInflight();
+            assertThat(contentCache.entryCount()).isZero();
+            assertThat(filesIn(cacheDir)).isZero();
+            assertThat(readAll(contentCache.open(document))).isEqualTo("hello");
+            verify(storageService, times(2)).downloadFile(document.getStoragePath());
+        }
+
+        private void awaitNoInflight() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (contentCache.inflightCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(contentCache.inflightCount()).isZero();
+        }
+
+        private InputStream gated(InputStream content) {
+            return new FilterInputStream(content) {
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    awaitGate();
+                    return super.read(b, off, len);
+                }
+
+                @Override
+                public int read() throws IOException {
+                    awaitGate();
+                    return super.read();
+                }
+            };
+        }
+
+        private void awaitGate() throws IOException {
+            try {
+                if (!gate.await(5, TimeUnit.SECONDS)) {
+                    throw new IOException("gate not opened");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("openLocal")
+    class OpenLocal {
+
+        @Test
+        @DisplayName("캐시된 문서는 로컬 파일 channel을 반환")
+        void shouldReturnChannelForCachedDocument() throws IOException {
+            // given
+            Document document = document("doc", "documents/doc/a.docx", "hello");
+            when(storageService.downloadFile(document.getStoragePath())).thenReturn(stream("hello"));
+            readAll(contentCache.open(document));
+
+            // when
+            try (FileChannel channel = contentCache.openLocal(document)) {
+                // then
+                assertThat(channel).isNotNull();
+                ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+                channel.read(content, 0);
+                assertThat(new String(content.array(), StandardCharsets.UTF_8)).isEqualTo("hello");
+            }
+            assertThat(requests("hit")).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("캐시에 없으면 MinIO를 읽지 않고 null 반환")
+        void shouldReturnNullOnMiss() {
+            // given
+            Document document = document("doc", "documents/doc/a.docx", "hello");
+
+            // when
+            FileChannel channel = contentCache.openLocal(document);
+
+            // then
+            assertThat(channel).isNull();
+            verifyNoInteractions(storageService);
+            assertThat(requests("miss")).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("invalidate")
+    class Invalidate {
+
+        @Test
+        @DisplayName("문서의 항목과 파일을 삭제하고 다른 문서는 유지")
+        void shouldRemoveOnlyDocumentEntries() throws IOException {
+            // given
+            Document a = document("a", "documents/a/a.docx", "aaaa");
+            Document b = document("b", "documents/b/b.docx", "bbbb");
+            when(storageService.downloadFile(a.getStoragePath())).thenReturn(stream("aaaa"), stream("aaaa"));
+            when(storageService.downloadFile(b.getStoragePath())).thenReturn(stream("bbbb"));
+            readAll(contentCache.open(a));
+            readAll(contentCache.open(b));
+
+            // when
+            contentCache.invalidate("a");
+
+            // then
+            assertThat(contentCache.entryCount()).isEqualTo(1);
+            assertThat(contentCache.cachedBytes()).isEqualTo(4);
+            assertThat(filesIn(cacheDir)).isEqualTo(1);
+            readAll(contentCache.open(a));
+            verify(storageService, times(2)).downloadFile(a.getStoragePath());
+        }
+    }
+
+    @Test
+    @DisplayName("기동 시 남아 있던 캐시 파일을 삭제")
+    void shouldClearLeftoversOnInit() throws IOException {
+        // given
+        Files.writeString(cacheDir.resolve("leftover.bin"), "stale");
+
+        // when
+        contentCache.init();
+
+        // then
+        assertThat(filesIn(cacheDir)).isZero();
+    }
+
+    @Test
+    @DisplayName("비활성화하면 항상 MinIO에서 읽음")
+    void shouldPassThroughWhenDisabled() throws IOException {
+        // given
+        DocumentContentCache disabled = new DocumentContentCache(storageService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(disabled, "enabled", false);
+        disabled.init();
+        Document document = document("doc", "documents/doc/a.docx", "hello");
+        when(storageService.downloadFile(document.getStoragePath())).thenReturn(stream("hello"), stream("hello"));
+
+        // when
+        readAll(disabled.open(document));
+        readAll(disabled.open(document));
+
+        // then
+        verify(storageService, times(2)).downloadFile(document.getStoragePath());
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("storage.cache.requests").tag("result", result).counter().count();
+    }
+
+    private static Document document(String fileKey, String storagePath, String content) {
+        return Document.builder()
+                .fileKey(fileKey)
+                .fileName(storagePath.substring(storagePath.lastIndexOf('/') + 1))
+                .storagePath(storagePath)
+                .fileSize((long) content.length())
+                .build();
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static long filesIn(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+}
@@ -49,13 +49,19 @@ class DocumentServiceEndToEndTest {
     @Mock
     private DocumentManager documentManager;
 
+    @Mock
+    private DocumentRevisionService revisionService;
+
+    @Mock
+    private DocumentContentCache contentCache;
+
     private DocumentService documentService;
 
     private Document testDocument;
 
     @BeforeEach
     void setUp() {
-        documentService = new DocumentService(documentRepository, fileSecurityService, storageService, urlDownloadService, documentManager);
+        documentService = new DocumentService(documentRepository, fileSecurityService, storageService, urlDownloadService, documentManager, revisionService, contentCache);
 
         doNothing().when(storageService).deleteFile(anyString());
 
@@ -3,7 +3,9 @@ package com.example.onlyoffice.service;
 import com.example.onlyoffice.entity.Document;
 import com.example.onlyoffice.entity.DocumentStatus;
 import com.example.onlyoffice.exception.DocumentDeleteException;
+import com.example.onlyoffice.entity.OrphanedObject;
 import com.example.onlyoffice.repository.DocumentRepository;
+import com.example.onlyoffice.repository.OrphanedObjectRepository;
 import com.onlyoffice.manager.document.DocumentManager;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,6 +23,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -33,6 +36,9 @@ class DocumentServiceIntegrationTest {
     @Autowired
     private DocumentRepository documentRepository;
 
+    @Autowired
+    private OrphanedObjectRepository orphanedObjectRepository;
+
     @Autowired
     private EntityManager entityManager;
 
@@ -53,6 +59,7 @@ class DocumentServiceIntegrationTest {
     @BeforeEach
     void setUp() {
         documentRepository.deleteAll();
+        orphanedObjectRepository.deleteAll();
 
         testDocument = documentRepository.saveAndFlush(Document.builder()
                 .fileName("rollback-test.docx")
@@ -114,4 +121,30 @@ class DocumentServiceIntegrationTest {
         assertThatThrownBy(() -> documentService.deleteDocument(nonExistentId))
                 .isInstanceOf(com.example.onlyoffice.exception.DocumentNotFoundException.class);
     }
+
+    @Test
+    @DisplayName("SAVE callback은 staging 객체로 교체하고 이전 객체를 삭제 예정으로 등록한다")
+    void processCallbackSave_swapsStoragePathAndRegistersPreviousObject() {
+        // given
+        when(urlDownloadService.downloadAndSave(anyString(), anyString()))
+                .thenReturn(new UrlDownloadService.DownloadResult(4096L));
+
+        // when
+        documentService.processCallbackSave("http://docs-server/doc.docx", "rollback-test-key-001",
+                "rollback-test-key-001_v0");
+
+        // then
+        Document saved = documentRepository.findByFileKey("rollback-test-key-001").orElseThrow();
+        assertThat(saved.getEditorVersion()).isEqualTo(1);
+        assertThat(saved.getFileSize()).isEqualTo(4096L);
+        assertThat(saved.getStoragePath())
+                .startsWith("documents/rollback-test-key-001/")
+                .endsWith("/rollback-test.docx")
+                .isNotEqualTo("documents/rollback-test-key-001/rollback-test.docx");
+
+        // staging 등록은 커밋과 함께 빠지고 이전 객체만 남음
+        assertThat(orphanedObjectRepository.findAll())
+                .extracting(OrphanedObject::getStoragePath)
+                .containsExactly("documents/rollback-test-key-001/rollback-test.docx");
+    }
 }
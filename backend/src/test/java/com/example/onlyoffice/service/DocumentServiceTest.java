@@ -2,11 +2,15 @@ package com.example.onlyoffice.service;
 
 import com.example.onlyoffice.entity.Document;
 import com.example.onlyoffice.entity.DocumentStatus;
+import com.example.onlyoffice.exception.CallbackRejectedException;
 import com.example.onlyoffice.exception.DocumentDeleteException;
 import com.example.onlyoffice.exception.DocumentUploadException;
+import com.example.onlyoffice.entity.OrphanedObject;
 import com.example.onlyoffice.repository.DocumentRepository;
+import com.example.onlyoffice.repository.OrphanedObjectRepository;
 import com.onlyoffice.manager.document.DocumentManager;
 import com.onlyoffice.model.documenteditor.config.document.DocumentType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -35,6 +39,8 @@ import static org.mockito.Mockito.lenient;
 @DisplayName("DocumentService Saga 단위 테스트")
 class DocumentServiceTest {
 
+    private static final String CONTENT_HASH = "a".repeat(64);
+
     @Mock
     private DocumentRepository documentRepository;
 
@@ -53,11 +59,23 @@ class DocumentServiceTest {
     @Mock
     private MultipartFile multipartFile;
 
+    @Mock
+    private OrphanedObjectRepository orphanedObjectRepository;
+
+    @Mock
+    private DocumentContentCache contentCache;
+
     private DocumentService documentService;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() {
-        documentService = new DocumentService(documentRepository, fileSecurityService, storageService, urlDownloadService, documentManager);
+        meterRegistry = new SimpleMeterRegistry();
+        DocumentRevisionService revisionService =
+                new DocumentRevisionService(documentRepository, orphanedObjectRepository, storageService, meterRegistry);
+        documentService = new DocumentService(documentRepository, fileSecurityService, storageService, urlDownloadService,
+                documentManager, revisionService, contentCache);
         // DocumentManager mock: .docx -> WORD, .xlsx -> CELL, .pptx -> SLIDE, .pdf -> PDF
         lenient().when(documentManager.getDocumentType(argThat(name -> name != null && name.endsWith(".docx")))).thenReturn(DocumentType.WORD);
         lenient().when(documentManager.getDocumentType(argThat(name -> name != null && name.endsWith(".xlsx")))).thenReturn(DocumentType.CELL);
@@ -158,6 +176,7 @@ class DocumentServiceTest {
 
         verify(documentRepository).delete(document);
         verify(storageService).deleteFile(document.getStoragePath());
+        verify(contentCache).invalidate(document.getFileKey());
     }
 
     @Test
@@ -318,6 +337,8 @@ class DocumentServiceTest {
         // given
         Document document = buildDocument();
         document.setEditorVersion(1);
+        when(documentRepository.findByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
         when(documentRepository.findWithLockByFileKey("file-key"))
                 .thenReturn(Optional.of(document));
         when(urlDownloadService.downloadAndSave(anyString(), anyString()))
@@ -330,7 +351,8 @@ class DocumentServiceTest {
         // then
         assertThat(document.getEditorVersion()).isEqualTo(2);
         assertThat(document.getFileSize()).isEqualTo(2048L);
-        verify(documentRepository, times(2)).save(document); // saveDocumentFromUrl + incrementVersion
+        verify(documentRepository, times(1)).save(document); // 교체 트랜잭션에서 한 번에 저장
+        verify(contentCache).invalidate("file-key");
     }
 
     @Test
@@ -339,6 +361,8 @@ class DocumentServiceTest {
         // given
         Document document = buildDocument();
         document.setEditorVersion(3);
+        when(documentRepository.findByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
         when(documentRepository.findWithLockByFileKey("file-key"))
                 .thenReturn(Optional.of(document));
         when(urlDownloadService.downloadAndSave(anyString(), anyString()))
@@ -351,7 +375,7 @@ class DocumentServiceTest {
         // then
         assertThat(document.getEditorVersion()).isEqualTo(3); // 버전 유지
         assertThat(document.getFileSize()).isEqualTo(4096L);
-        verify(documentRepository, times(1)).save(document); // saveDocumentFromUrl만
+        verify(documentRepository, times(1)).save(document);
     }
 
     @Test
@@ -359,7 +383,7 @@ class DocumentServiceTest {
     void processCallbackSave_throwsWhenDownloadFails() {
         Document document = buildDocument();
         document.setEditorVersion(1);
-        when(documentRepository.findWithLockByFileKey("file-key"))
+        when(documentRepository.findByFileKey("file-key"))
                 .thenReturn(Optional.of(document));
         when(urlDownloadService.downloadAndSave(anyString(), anyString()))
                 .thenThrow(new RuntimeException("Download failed"));
@@ -368,7 +392,8 @@ class DocumentServiceTest {
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Failed to save document from URL");
 
-        verify(documentRepository).findWithLockByFileKey("file-key");
+        verify(documentRepository, never()).findWithLockByFileKey(anyString());
+        verify(storageService).deleteFile(argThat(path -> !path.equals("documents/file-key/doc.docx")));
     }
 
     @Test
@@ -376,7 +401,7 @@ class DocumentServiceTest {
     void processCallbackForceSave_throwsWhenDownloadFails() {
         Document document = buildDocument();
         document.setEditorVersion(1);
-        when(documentRepository.findWithLockByFileKey("file-key"))
+        when(documentRepository.findByFileKey("file-key"))
                 .thenReturn(Optional.of(document));
         when(urlDownloadService.downloadAndSave(anyString(), anyString()))
                 .thenThrow(new RuntimeException("Download failed"));
@@ -385,13 +410,30 @@ class DocumentServiceTest {
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Failed to save document from URL");
 
-        verify(documentRepository).findWithLockByFileKey("file-key");
+        verify(documentRepository, never()).findWithLockByFileKey(anyString());
+        verify(storageService).deleteFile(argThat(path -> !path.equals("documents/file-key/doc.docx")));
+    }
+
+    @Test
+    @DisplayName("processCallbackForceSave - 다운로드 허용 대기 초과는 감싸지 않고 그대로 전달 (503 응답 대상)")
+    void processCallbackForceSave_propagatesRejection() {
+        Document document = buildDocument();
+        document.setEditorVersion(1);
+        when(documentRepository.findByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+        when(urlDownloadService.downloadAndSave(anyString(), anyString()))
+                .thenThrow(new CallbackRejectedException("Too many concurrent downloads from docs-server:-1"));
+
+        assertThatThrownBy(() -> documentService.processCallbackForceSave("http://docs-server/doc.docx", "file-key"))
+                .isExactlyInstanceOf(CallbackRejectedException.class);
+
+        verify(documentRepository, never()).findWithLockByFileKey(anyString());
     }
 
     @Test
     @DisplayName("processCallbackSave - 존재하지 않는 문서 시 예외 발생")
     void processCallbackSave_throwsWhenDocumentNotFound() {
-        when(documentRepository.findWithLockByFileKey("non-existent"))
+        when(documentRepository.findByFileKey("non-existent"))
                 .thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> documentService.processCallbackSave("http://url/doc.docx", "non-existent"))
@@ -402,7 +444,7 @@ class DocumentServiceTest {
     @Test
     @DisplayName("processCallbackForceSave - 존재하지 않는 문서 시 예외 발생")
     void processCallbackForceSave_throwsWhenDocumentNotFound() {
-        when(documentRepository.findWithLockByFileKey("non-existent"))
+        when(documentRepository.findByFileKey("non-existent"))
                 .thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> documentService.processCallbackForceSave("http://url/doc.docx", "non-existent"))
@@ -410,6 +452,225 @@ class DocumentServiceTest {
                 .hasMessageContaining("non-existent");
     }
 
+    @Test
+    @DisplayName("processCallbackSave - 현재 editor key의 callback이면 저장 후 버전을 증가시킨다")
+    void processCallbackSave_appliesCallbackForCurrentKey() {
+        // given
+        Document document = buildDocument();
+        document.setEditorVersion(1);
+        when(documentRepository.findByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+        when(documentRepository.findWithLockByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+        when(urlDownloadService.downloadAndSave(anyString(), anyString()))
+                .thenReturn(new UrlDownloadService.DownloadResult(2048L));
+
+        // when
+        documentService.processCallbackSave("http://docs-server/doc.docx", "file-key", "file-key_v1");
+
+        // then
+        assertThat(document.getEditorVersion()).isEqualTo(2);
+        verify(urlDownloadService).downloadAndSave(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("processCallbackSave - 이미 반영된 SAVE callback은 건너뛰어 버전을 두 번 올리지 않는다")
+    void processCallbackSave_skipsAlreadyAppliedCallback() {
+        // given - v1 세션의 SAVE가 이미 커밋되어 editorVersion이 2
+        Document document = buildDocument();
+        document.setEditorVersion(2);
+        when(documentRepository.findByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+
+        // when
+        documentService.processCallbackSave("http://docs-server/doc.docx", "file-key", "file-key_v1");
+
+        // then
+        assertThat(document.getEditorVersion()).isEqualTo(2);
+        verify(urlDownloadService, never()).downloadAndSave(anyString(), anyString());
+        verify(documentRepository, never()).save(any(Document.class));
+    }
+
+    @Test
+    @DisplayName("processCallbackForceSave - 종료된 세션의 FORCESAVE는 최신 내용을 덮어쓰지 않는다")
+    void processCallbackForceSave_skipsCallbackForClosedSession() {
+        // given
+        Document document = buildDocument();
+        document.setEditorVersion(2);
+        when(documentRepository.findByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+
+        // when
+        documentService.processCallbackForceSave("http://docs-server/doc.docx", "file-key", "file-key_v1");
+
+        // then
+        verify(urlDownloadService, never()).downloadAndSave(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("processCallbackSave - 새 내용은 staging 경로로 받아 교체하고 이전 객체를 삭제 예정으로 등록한다")
+    void processCallbackSave_swapsToStagingPathAndRegistersPreviousObject() {
+        // given
+        Document document = buildDocument();
+        document.setEditorVersion(1);
+        when(documentRepository.findByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+        when(documentRepository.findWithLockByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+        when(urlDownloadService.downloadAndSave(anyString(), anyString()))
+                .thenReturn(new UrlDownloadService.DownloadResult(2048L));
+
+        // when
+        documentService.processCallbackSave("http://docs-server/doc.docx", "file-key", "file-key_v1");
+
+        // then
+        ArgumentCaptor<String> stagingPath = ArgumentCaptor.forClass(String.class);
+        verify(urlDownloadService).downloadAndSave(eq("http://docs-server/doc.docx"), stagingPath.capture());
+        assertThat(stagingPath.getValue())
+                .startsWith("documents/file-key/")
+                .endsWith("/doc.docx")
+                .isNotEqualTo("documents/file-key/doc.docx");
+        assertThat(document.getStoragePath()).isEqualTo(stagingPath.getValue());
+
+        ArgumentCaptor<OrphanedObject> orphaned = ArgumentCaptor.forClass(OrphanedObject.class);
+        verify(orphanedObjectRepository, times(2)).save(orphaned.capture());
+        assertThat(orphaned.getAllValues())
+                .extracting(OrphanedObject::getStoragePath)
+                .containsExactly(stagingPath.getValue(), "documents/file-key/doc.docx");
+        verify(orphanedObjectRepository).deleteByStoragePath(stagingPath.getValue());
+        verify(storageService, never()).deleteFile(anyString());
+    }
+
+    @Test
+    @DisplayName("processCallbackSave - 다운로드가 끝난 뒤에 행 락을 잡는다")
+    void processCallbackSave_locksOnlyAfterDownload() {
+        // given
+        Document document = buildDocument();
+        document.setEditorVersion(1);
+        when(documentRepository.findByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+        when(documentRepository.findWithLockByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+        when(urlDownloadService.downloadAndSave(anyString(), anyString()))
+                .thenReturn(new UrlDownloadService.DownloadResult(2048L));
+
+        // when
+        documentService.processCallbackSave("http://docs-server/doc.docx", "file-key", "file-key_v1");
+
+        // then
+        var inOrder = inOrder(urlDownloadService, documentRepository);
+        inOrder.verify(urlDownloadService).downloadAndSave(anyString(), anyString());
+        inOrder.verify(documentRepository).findWithLockByFileKey("file-key");
+        inOrder.verify(documentRepository).save(document);
+    }
+
+    @Test
+    @DisplayName("processCallbackForceSave - 다운로드 중 다른 SAVE가 커밋되면 staging 객체를 버린다")
+    void processCallbackForceSave_discardsStagingWhenSupersededDuringDownload() {
+        // given - 다운로드 전에는 v1, 커밋 시점에는 이미 v2
+        Document beforeDownload = buildDocument();
+        beforeDownload.setEditorVersion(1);
+        Document atCommit = buildDocument();
+        atCommit.setEditorVersion(2);
+        when(documentRepository.findByFileKey("file-key"))
+                .thenReturn(Optional.of(beforeDownload));
+        when(documentRepository.findWithLockByFileKey("file-key"))
+                .thenReturn(Optional.of(atCommit));
+        when(urlDownloadService.downloadAndSave(anyString(), anyString()))
+                .thenReturn(new UrlDownloadService.DownloadResult(2048L));
+
+        // when
+        documentService.processCallbackForceSave("http://docs-server/doc.docx", "file-key", "file-key_v1");
+
+        // then
+        ArgumentCaptor<String> stagingPath = ArgumentCaptor.forClass(String.class);
+        verify(urlDownloadService).downloadAndSave(anyString(), stagingPath.capture());
+        assertThat(atCommit.getStoragePath()).isEqualTo("documents/file-key/doc.docx");
+        assertThat(atCommit.getFileSize()).isEqualTo(128L);
+        verify(documentRepository, never()).save(any(Document.class));
+        verify(storageService).deleteFile(stagingPath.getValue());
+        verify(orphanedObjectRepository).deleteByStoragePath(stagingPath.getValue());
+        verify(contentCache, never()).invalidate(anyString());
+    }
+
+    @Test
+    @DisplayName("processCallbackForceSave - 내용이 같으면 객체와 행을 바꾸지 않고 staging 객체를 버린다")
+    void processCallbackForceSave_skipsUnchangedContent() {
+        // given
+        Document document = buildDocument();
+        document.setEditorVersion(1);
+        document.setContentHash(CONTENT_HASH);
+        when(documentRepository.findByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+        when(documentRepository.findWithLockByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+        when(urlDownloadService.downloadAndSave(anyString(), anyString()))
+                .thenReturn(new UrlDownloadService.DownloadResult(2048L, CONTENT_HASH));
+
+        // when
+        documentService.processCallbackForceSave("http://docs-server/doc.docx", "file-key", "file-key_v1");
+
+        // then
+        ArgumentCaptor<String> stagingPath = ArgumentCaptor.forClass(String.class);
+        verify(urlDownloadService).downloadAndSave(anyString(), stagingPath.capture());
+        assertThat(document.getStoragePath()).isEqualTo("documents/file-key/doc.docx");
+        assertThat(document.getEditorVersion()).isEqualTo(1);
+        verify(documentRepository, never()).save(any(Document.class));
+        verify(storageService).deleteFile(stagingPath.getValue());
+        assertThat(meterRegistry.get("callback.save.unchanged").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("callback.save.unchanged.bytes").counter().count()).isEqualTo(2048);
+    }
+
+    @Test
+    @DisplayName("processCallbackSave - 내용이 같아도 세션 종료를 반영해 버전만 증가시킨다")
+    void processCallbackSave_bumpsVersionOnlyForUnchangedContent() {
+        // given
+        Document document = buildDocument();
+        document.setEditorVersion(1);
+        document.setContentHash(CONTENT_HASH);
+        when(documentRepository.findByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+        when(documentRepository.findWithLockByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+        when(urlDownloadService.downloadAndSave(anyString(), anyString()))
+                .thenReturn(new UrlDownloadService.DownloadResult(2048L, CONTENT_HASH));
+
+        // when
+        documentService.processCallbackSave("http://docs-server/doc.docx", "file-key", "file-key_v1");
+
+        // then
+        assertThat(document.getEditorVersion()).isEqualTo(2);
+        assertThat(document.getStoragePath()).isEqualTo("documents/file-key/doc.docx");
+        assertThat(document.getFileSize()).isEqualTo(128L);
+        verify(documentRepository).save(document);
+        verify(storageService).deleteFile(argThat(path -> !path.equals("documents/file-key/doc.docx")));
+    }
+
+    @Test
+    @DisplayName("processCallbackForceSave - 내용이 바뀌면 교체하면서 새 hash를 저장한다")
+    void processCallbackForceSave_storesHashOfNewContent() {
+        // given
+        Document document = buildDocument();
+        document.setEditorVersion(1);
+        document.setContentHash(CONTENT_HASH);
+        String changedHash = "b".repeat(64);
+        when(documentRepository.findByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+        when(documentRepository.findWithLockByFileKey("file-key"))
+                .thenReturn(Optional.of(document));
+        when(urlDownloadService.downloadAndSave(anyString(), anyString()))
+                .thenReturn(new UrlDownloadService.DownloadResult(2048L, changedHash));
+
+        // when
+        documentService.processCallbackForceSave("http://docs-server/doc.docx", "file-key", "file-key_v1");
+
+        // then
+        assertThat(document.getContentHash()).isEqualTo(changedHash);
+        assertThat(document.getStoragePath()).isNotEqualTo("documents/file-key/doc.docx");
+        verify(documentRepository).save(document);
+        assertThat(meterRegistry.get("callback.save.unchanged").counter().count()).isZero();
+    }
+
     private Document buildDocument() {
         Document document = Document.builder()
                 .id(10L)
@@ -0,0 +1,105 @@
+package com.example.onlyoffice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("EditingSessionRegistry")
+class EditingSessionRegistryTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private EditingSessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        registry = new EditingSessionRegistry(meterRegistry);
+    }
+
+    @Nested
+    @DisplayName("open/close")
+    class OpenClose {
+
+        @Test
+        @DisplayName("다시 열면 시작 시각과 캐시된 크기는 유지하고 editor key와 사용자만 갱신")
+        void shouldKeepCachedMetadataWhenReopened() {
+            // given
+            EditingSessionRegistry.Session first = registry.open("doc", "doc_v0", 2048L, List.of("a"));
+
+            // when
+            EditingSessionRegistry.Session second = registry.open("doc", "doc_v0", 9999L, List.of("a", "b"));
+
+            // then
+            assertThat(second.openedAt()).isEqualTo(first.openedAt());
+            assertThat(second.fileSize()).isEqualTo(2048L);
+            assertThat(second.users()).containsExactly("a", "b");
+            assertThat(registry.activeSessions()).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("닫으면 목록과 gauge에서 빠짐")
+        void shouldRemoveClosedSession() {
+            // given
+            registry.open("doc1", "doc1_v0", 1L, null);
+            registry.open("doc2", "doc2_v0", 1L, null);
+
+            // when
+            boolean closed = registry.close("doc1");
+
+            // then
+            assertThat(closed).isTrue();
+            assertThat(registry.close("doc1")).isFalse();
+            assertThat(registry.isEditing("doc2")).isTrue();
+            assertThat(registry.find("doc2")).hasValueSatisfying(session -> assertThat(session.users()).isEmpty());
+            assertThat(meterRegistry.get("callback.sessions.active").gauge().value()).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("FORCESAVE 후 크기를 갱신하고, 열린 세션이 없으면 새로 열지 않음")
+        void shouldUpdateFileSizeOfOpenSessionOnly() {
+            // given
+            EditingSessionRegistry.Session opened = registry.open("doc", "doc_v0", 2048L, List.of("a"));
+
+            // when
+            boolean updated = registry.updateFileSize("doc", 4096L);
+            boolean missing = registry.updateFileSize("other", 1L);
+
+            // then
+            assertThat(updated).isTrue();
+            assertThat(missing).isFalse();
+            assertThat(registry.find("doc")).hasValueSatisfying(session -> {
+                assertThat(session.fileSize()).isEqualTo(4096L);
+                assertThat(session.openedAt()).isEqualTo(opened.openedAt());
+                assertThat(session.users()).containsExactly("a");
+            });
+            assertThat(registry.isEditing("other")).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("expireStale")
+    class ExpireStale {
+
+        @Test
+        @DisplayName("max-age 동안 EDITING이 없던 세션만 정리")
+        void shouldExpireOnlyStaleSessions() {
+            // given
+            registry.open("doc", "doc_v0", 1L, null);
+
+            // when & then
+            assertThat(registry.expireStale()).isZero();
+            assertThat(registry.isEditing("doc")).isTrue();
+
+            ReflectionTestUtils.setField(registry, "maxAgeHours", -1L);
+            assertThat(registry.expireStale()).isEqualTo(1);
+            assertThat(registry.isEditing("doc")).isFalse();
+        }
+    }
+}
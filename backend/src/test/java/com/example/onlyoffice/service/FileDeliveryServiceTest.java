@@ -0,0 +1,155 @@
+package com.example.onlyoffice.service;
+
+import com.example.onlyoffice.entity.Document;
+import com.example.onlyoffice.exception.StorageException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FileDeliveryService")
+class FileDeliveryServiceTest {
+
+    @Mock
+    private MinioStorageService storageService;
+
+    private FileDeliveryService fileDeliveryService;
+
+    private static final String STORAGE_PATH = "documents/doc/test.docx";
+
+    @BeforeEach
+    void setUp() {
+        fileDeliveryService = new FileDeliveryService(storageService);
+        lenient().when(storageService.getPresignedUrlExpiry()).thenReturn(3600);
+    }
+
+    @Nested
+    @DisplayName("delivery mode")
+    class Mode {
+
+        @Test
+        @DisplayName("stream 모드는 redirect도 presign도 하지 않음")
+        void shouldStreamByDefault() {
+            assertThat(fileDeliveryService.redirectsDownloads()).isFalse();
+            assertThat(fileDeliveryService.presignsEditorUrls()).isFalse();
+        }
+
+        @Test
+        @DisplayName("redirect 모드는 /files만 redirect, direct 모드는 editor URL도 presign")
+        void shouldRedirectInRedirectAndDirectModes() {
+            ReflectionTestUtils.setField(fileDeliveryService, "mode", FileDeliveryService.DeliveryMode.REDIRECT);
+            assertThat(fileDeliveryService.redirectsDownloads()).isTrue();
+            assertThat(fileDeliveryService.presignsEditorUrls()).isFalse();
+
+            ReflectionTestUtils.setField(fileDeliveryService, "mode", FileDeliveryService.DeliveryMode.DIRECT);
+            assertThat(fileDeliveryService.redirectsDownloads()).isTrue();
+            assertThat(fileDeliveryService.presignsEditorUrls()).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("presignedUrl")
+    class PresignedUrlCache {
+
+        @Test
+        @DisplayName("같은 storage 경로는 캐시된 URL을 재사용")
+        void shouldReuseCachedUrl() {
+            // given
+            Document document = document(STORAGE_PATH);
+            when(storageService.generatePresignedUrl(STORAGE_PATH, "test.docx")).thenReturn("http://minio/url-1");
+
+            // when
+            String first = fileDeliveryService.presignedUrl(document).orElseThrow();
+            String second = fileDeliveryService.presignedUrl(document).orElseThrow();
+
+            // then
+            assertThat(first).isEqualTo("http://minio/url-1");
+            assertThat(second).isEqualTo(first);
+            verify(storageService, times(1)).generatePresignedUrl(STORAGE_PATH, "test.docx");
+        }
+
+        @Test
+        @DisplayName("저장으로 storage 경로가 바뀌면 새 URL 생성")
+        void shouldGenerateNewUrlForNewStoragePath() {
+            // given
+            when(storageService.generatePresignedUrl(STORAGE_PATH, "test.docx")).thenReturn("http://minio/url-1");
+            when(storageService.generatePresignedUrl("documents/doc/rev-1/test.docx", "test.docx"))
+                    .thenReturn("http://minio/url-2");
+
+            // when
+            fileDeliveryService.presignedUrl(document(STORAGE_PATH));
+            String afterSave = fileDeliveryService.presignedUrl(document("documents/doc/rev-1/test.docx")).orElseThrow();
+
+            // then
+            assertThat(afterSave).isEqualTo("http://minio/url-2");
+            assertThat(fileDeliveryService.cacheSize()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("만료까지 refresh margin보다 적게 남은 URL은 다시 생성")
+        void shouldRegenerateUrlCloseToExpiry() {
+            // given: 유효 시간 0초 -> 생성 즉시 재사용 불가
+            when(storageService.getPresignedUrlExpiry()).thenReturn(0);
+            when(storageService.generatePresignedUrl(STORAGE_PATH, "test.docx"))
+                    .thenReturn("http://minio/url-1", "http://minio/url-2");
+            Document document = document(STORAGE_PATH);
+
+            // when
+            fileDeliveryService.presignedUrl(document);
+            String second = fileDeliveryService.presignedUrl(document).orElseThrow();
+
+            // then
+            assertThat(second).isEqualTo("http://minio/url-2");
+            verify(storageService, times(2)).generatePresignedUrl(STORAGE_PATH, "test.docx");
+        }
+
+        @Test
+        @DisplayName("캐시가 가득 차면 캐시 없이 생성")
+        void shouldSkipCacheWhenFull() {
+            // given
+            ReflectionTestUtils.setField(fileDeliveryService, "cacheMaxEntries", 1);
+            when(storageService.generatePresignedUrl(STORAGE_PATH, "test.docx")).thenReturn("http://minio/url-1");
+            when(storageService.generatePresignedUrl("documents/other/test.docx", "test.docx"))
+                    .thenReturn("http://minio/url-2");
+
+            // when
+            fileDeliveryService.presignedUrl(document(STORAGE_PATH));
+            String uncached = fileDeliveryService.presignedUrl(document("documents/other/test.docx")).orElseThrow();
+
+            // then
+            assertThat(uncached).isEqualTo("http://minio/url-2");
+            assertThat(fileDeliveryService.cacheSize()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("URL 생성 실패 시 빈 값 반환")
+        void shouldReturnEmptyWhenPresigningFails() {
+            // given
+            when(storageService.generatePresignedUrl(STORAGE_PATH, "test.docx"))
+                    .thenThrow(new StorageException("Failed to generate presigned URL: " + STORAGE_PATH));
+
+            // when & then
+            assertThat(fileDeliveryService.presignedUrl(document(STORAGE_PATH))).isEmpty();
+            assertThat(fileDeliveryService.cacheSize()).isZero();
+        }
+    }
+
+    private Document document(String storagePath) {
+        return Document.builder()
+                .fileKey("doc")
+                .fileName("test.docx")
+                .storagePath(storagePath)
+                .build();
+    }
+}
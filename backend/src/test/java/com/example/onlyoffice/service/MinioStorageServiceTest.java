@@ -14,17 +14,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.resilience.annotation.EnableResilientMethods;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +41,9 @@ class MinioStorageServiceTest {
     @Mock
     private MinioClient minioClient;
 
+    @Mock
+    private PipelinedMultipartUploader multipartUploader;
+
     @InjectMocks
     private MinioStorageService storageService;
 
@@ -135,6 +145,66 @@ class MinioStorageServiceTest {
                     .isInstanceOf(StorageException.class)
                     .hasMessageContaining("Failed to upload file");
         }
+
+        @Test
+        @DisplayName("크기를 모르는 스트림은 병렬 multipart 업로더로 올린다")
+        void uploadStream_UsesPipelinedUploader_WhenSizeUnknown() throws Exception {
+            // given
+            InputStream inputStream = new ByteArrayInputStream("streamed".getBytes());
+            when(multipartUploader.upload(inputStream, "text/plain", "documents/streamed.txt")).thenReturn(8L);
+
+            // when
+            storageService.uploadStream(inputStream, -1, "text/plain", "documents/streamed.txt");
+
+            // then
+            verify(multipartUploader).upload(inputStream, "text/plain", "documents/streamed.txt");
+            verify(minioClient, never()).putObject(any(PutObjectArgs.class));
+        }
+
+        @Test
+        @DisplayName("part 업로드가 실패하면 남은 스트림으로 다시 올리지 않고 실패를 전달한다")
+        void uploadStream_DoesNotRetry_WhenPartFails() throws Exception {
+            // given: 재시도 proxy가 적용된 서비스, 첫 part를 읽은 뒤 업로드가 실패
+            ByteArrayInputStream inputStream = new ByteArrayInputStream(new byte[16]);
+            when(multipartUploader.upload(inputStream, "text/plain", "documents/streamed.txt")).thenAnswer(invocation -> {
+                inputStream.readNBytes(8);
+                throw new IOException("part 1 failed");
+            });
+
+            try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+                context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+                        Map.of("minio.bucket", TEST_BUCKET, "minio.presigned-url-expiry", TEST_EXPIRY)));
+                context.register(ResilientMethodsConfig.class);
+                context.registerBean(MinioClient.class, () -> minioClient);
+                context.registerBean(PipelinedMultipartUploader.class, () -> multipartUploader);
+                context.registerBean(MinioStorageService.class);
+                context.refresh();
+                MinioStorageService proxied = context.getBean(MinioStorageService.class);
+
+                // when & then
+                assertThatThrownBy(() -> proxied.uploadStream(inputStream, -1, "text/plain", "documents/streamed.txt"))
+                        .isInstanceOf(StorageException.class);
+            }
+
+            // then: 앞부분이 빠진 나머지 8바이트로 객체를 만들지 않음
+            verify(multipartUploader, times(1)).upload(any(), any(), any());
+            verify(minioClient, never()).putObject(any(PutObjectArgs.class));
+            assertThat(inputStream.available()).isEqualTo(8);
+        }
+
+        @Test
+        @DisplayName("크기를 알면 단일 putObject로 올린다")
+        void uploadStream_UsesPutObject_WhenSizeKnown() throws Exception {
+            // given
+            InputStream inputStream = new ByteArrayInputStream("streamed".getBytes());
+
+            // when
+            storageService.uploadStream(inputStream, 8, "text/plain", "documents/streamed.txt");
+
+            // then
+            verify(minioClient).putObject(any(PutObjectArgs.class));
+            verifyNoInteractions(multipartUploader);
+        }
     }
 
     @Nested
@@ -158,6 +228,24 @@ class MinioStorageServiceTest {
             verify(minioClient).getObject(any(GetObjectArgs.class));
         }
 
+        @Test
+        @DisplayName("요청한 구간만 MinIO에서 다운로드할 수 있다")
+        void downloadFile_Range_PassesOffsetAndLength() throws Exception {
+            // given
+            String objectName = "documents/test.docx";
+            GetObjectResponse mockResponse = mock(GetObjectResponse.class);
+
+            when(minioClient.getObject(any(GetObjectArgs.class))).thenReturn(mockResponse);
+
+            // when
+            InputStream result = storageService.downloadFile(objectName, 100L, 50L);
+
+            // then
+            assertThat(result).isSameAs(mockResponse);
+            verify(minioClient).getObject(argThat((GetObjectArgs args) ->
+                    args.object().equals(objectName) && args.offset() == 100L && args.length() == 50L));
+        }
+
         @Test
         @DisplayName("존재하지 않는 파일 다운로드 시 StorageException을 던진다")
         void downloadFile_ThrowsStorageException_WhenFileNotFound() throws Exception {
@@ -306,4 +394,9 @@ class MinioStorageServiceTest {
             assertThat(result).isFalse();
         }
     }
+
+    @Configuration
+    @EnableResilientMethods
+    static class ResilientMethodsConfig {
+    }
 }
@@ -0,0 +1,69 @@
+package com.example.onlyoffice.service;
+
+import com.example.onlyoffice.entity.OrphanedObject;
+import com.example.onlyoffice.exception.StorageException;
+import com.example.onlyoffice.repository.OrphanedObjectRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OrphanedObjectCollector 단위 테스트")
+class OrphanedObjectCollectorTest {
+
+    @Mock
+    private OrphanedObjectRepository orphanedObjectRepository;
+
+    @Mock
+    private MinioStorageService storageService;
+
+    private OrphanedObjectCollector collector;
+
+    @BeforeEach
+    void setUp() {
+        collector = new OrphanedObjectCollector(orphanedObjectRepository, storageService);
+    }
+
+    @Test
+    @DisplayName("삭제 시각이 지난 객체를 스토리지와 테이블에서 삭제한다")
+    void collect_deletesDueObjects() {
+        OrphanedObject first = new OrphanedObject("documents/a/old/a.docx", LocalDateTime.now().minusMinutes(1));
+        OrphanedObject second = new OrphanedObject("documents/b/old/b.docx", LocalDateTime.now().minusMinutes(1));
+        when(orphanedObjectRepository.findDue(any(), any())).thenReturn(List.of(first, second));
+
+        int deleted = collector.collect();
+
+        assertThat(deleted).isEqualTo(2);
+        verify(storageService).deleteFile("documents/a/old/a.docx");
+        verify(storageService).deleteFile("documents/b/old/b.docx");
+        verify(orphanedObjectRepository).delete(first);
+        verify(orphanedObjectRepository).delete(second);
+    }
+
+    @Test
+    @DisplayName("스토리지 삭제에 실패한 객체는 행을 남기고 다음 시도로 미룬다")
+    void collect_postponesObjectWhenStorageFails() {
+        LocalDateTime due = LocalDateTime.now().minusMinutes(1);
+        OrphanedObject object = new OrphanedObject("documents/a/old/a.docx", due);
+        when(orphanedObjectRepository.findDue(any(), any())).thenReturn(List.of(object));
+        doThrow(new StorageException("Failed to delete file", new RuntimeException("unavailable")))
+                .when(storageService).deleteFile("documents/a/old/a.docx");
+
+        int deleted = collector.collect();
+
+        assertThat(deleted).isZero();
+        assertThat(object.getDeleteAfter()).isAfter(LocalDateTime.now());
+        verify(orphanedObjectRepository, never()).delete(any(OrphanedObject.class));
+        verify(orphanedObjectRepository).save(object);
+    }
+}
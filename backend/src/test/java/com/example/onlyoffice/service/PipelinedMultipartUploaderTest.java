@@ -0,0 +1,348 @@
+package com.example.onlyoffice.service;
+
+import io.minio.CreateMultipartUploadResponse;
+import io.minio.MinioAsyncClient;
+import io.minio.PutObjectArgs;
+import io.minio.UploadPartResponse;
+import io.minio.messages.InitiateMultipartUploadResult;
+import io.minio.messages.Part;
+import okhttp3.Headers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PipelinedMultipartUploader 테스트")
+class PipelinedMultipartUploaderTest {
+
+    private static final int PART_SIZE = 1024;
+    private static final String BUCKET = "test-bucket";
+    private static final String OBJECT_NAME = "documents/large.pptx";
+    private static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.presentationml.presentation";
+    private static final String UPLOAD_ID = "upload-1";
+
+    @Mock
+    private MinioAsyncClient minioAsyncClient;
+
+    private PipelinedMultipartUploader uploader;
+
+    /** part 번호별로 업로드 호출 시점에 복사한 내용 */
+    private final Map<Integer, byte[]> uploadedParts = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        uploader = new PipelinedMultipartUploader(minioAsyncClient, new PartBufferPool(PART_SIZE, 4));
+        ReflectionTestUtils.setField(uploader, "bucket", BUCKET);
+        ReflectionTestUtils.setField(uploader, "parallelism", 2);
+    }
+
+    @Nested
+    @DisplayName("upload")
+    class Upload {
+
+        @Test
+        @DisplayName("첫 part 안에서 끝나는 스트림은 multipart 없이 단일 PUT")
+        void shouldPutSmallStreamAsSingleObject() throws Exception {
+            // given
+            when(minioAsyncClient.putObject(any(PutObjectArgs.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+            // when
+            long uploaded = uploader.upload(new ByteArrayInputStream(randomBytes(100)), CONTENT_TYPE, OBJECT_NAME);
+
+            // then
+            assertThat(uploaded).isEqualTo(100);
+            ArgumentCaptor<PutObjectArgs> args = ArgumentCaptor.forClass(PutObjectArgs.class);
+            verify(minioAsyncClient).putObject(args.capture());
+            assertThat(args.getValue().objectSize()).isEqualTo(100);
+            assertThat(args.getValue().contentType()).isEqualTo(CONTENT_TYPE);
+            verify(minioAsyncClient, never()).createMultipartUploadAsync(any(), any(), any(), any(), any());
+            assertThat(uploader.pooledBufferCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("큰 스트림은 part로 나누어 올리고 part 순서대로 complete")
+        void shouldUploadPartsAndComplete() throws Exception {
+            // given - 3.5개 part 분량
+            byte[] content = randomBytes(PART_SIZE * 3 + PART_SIZE / 2);
+            stubCreate();
+            stubUploadPart();
+            stubComplete();
+
+            // when
+            long uploaded = uploader.upload(new ByteArrayInputStream(content), CONTENT_TYPE, OBJECT_NAME);
+
+            // then
+            assertThat(uploaded).isEqualTo(content.length);
+            assertThat(reassemble(4)).isEqualTo(content);
+
+            ArgumentCaptor<Part[]> parts = ArgumentCaptor.forClass(Part[].class);
+            verify(minioAsyncClient).completeMultipartUploadAsync(eq(BUCKET), isNull(), eq(OBJECT_NAME), eq(UPLOAD_ID),
+                    parts.capture(), isNull(), isNull());
+            assertThat(parts.getValue()).extracting(Part::partNumber).containsExactly(1, 2, 3, 4);
+            assertThat(parts.getValue()).extracting(Part::etag).containsExactly("etag-1", "etag-2", "etag-3", "etag-4");
+            verify(minioAsyncClient, never()).abortMultipartUploadAsync(any(), any(), any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("앞선 part가 올라가는 동안 다음 part를 채워 parallelism만큼 동시에 업로드")
+        void shouldPipelinePartsUpToParallelism() throws Exception {
+            // given - part 업로드가 테스트가 완료시킬 때까지 끝나지 않음
+            byte[] content = randomBytes(PART_SIZE * 4);
+            BlockingQueue<CompletableFuture<UploadPartResponse>> pending = new LinkedBlockingQueue<>();
+            stubCreate();
+            when(minioAsyncClient.uploadPartAsync(eq(BUCKET), isNull(), eq(OBJECT_NAME), any(), anyLong(),
+                    eq(UPLOAD_ID), anyInt(), isNull(), isNull()))
+                    .thenAnswer(invocation -> {
+                        int partNumber = invocation.getArgument(6);
+                        CompletableFuture<UploadPartResponse> future = new CompletableFuture<>();
+                        pending.add(future);
+                        return future.thenApply(ignored -> partResponse(partNumber));
+                    });
+            stubComplete();
+
+            try (ExecutorService caller = Executors.newVirtualThreadPerTaskExecutor()) {
+                Future<Long> upload = caller.submit(
+                        () -> uploader.upload(new ByteArrayInputStream(content), CONTENT_TYPE, OBJECT_NAME));
+
+                // when / then - 두 part가 동시에 진행 중이고 세 번째는 대기
+                CompletableFuture<UploadPartResponse> first = pending.poll(5, TimeUnit.SECONDS);
+                CompletableFuture<UploadPartResponse> second = pending.poll(5, TimeUnit.SECONDS);
+                assertThat(first).isNotNull();
+                assertThat(second).isNotNull();
+                assertThat(pending.poll(200, TimeUnit.MILLISECONDS)).isNull();
+
+                // 하나가 끝나면 다음 part가 시작됨
+                first.complete(null);
+                CompletableFuture<UploadPartResponse> third = pending.poll(5, TimeUnit.SECONDS);
+                assertThat(third).isNotNull();
+
+                second.complete(null);
+                third.complete(null);
+                CompletableFuture<UploadPartResponse> fourth = pending.poll(5, TimeUnit.SECONDS);
+                assertThat(fourth).isNotNull();
+                fourth.complete(null);
+
+                assertThat(upload.get(5, TimeUnit.SECONDS)).isEqualTo(content.length);
+            }
+            verify(minioAsyncClient, times(4)).uploadPartAsync(eq(BUCKET), isNull(), eq(OBJECT_NAME), any(), anyLong(),
+                    eq(UPLOAD_ID), anyInt(), isNull(), isNull());
+        }
+    }
+
+    @Nested
+    @DisplayName("Failure")
+    class Failure {
+
+        @Test
+        @DisplayName("part 업로드가 실패하면 complete하지 않고 abort")
+        void shouldAbortWhenPartFails() throws Exception {
+            // given
+            stubCreate();
+            when(minioAsyncClient.uploadPartAsync(eq(BUCKET), isNull(), eq(OBJECT_NAME), any(), anyLong(),
+                    eq(UPLOAD_ID), anyInt(), isNull(), isNull()))
+                    .thenAnswer(invocation -> {
+                        int partNumber = invocation.getArgument(6);
+                        return partNumber == 2
+                                ? CompletableFuture.failedFuture(new IOException("part 2 failed"))
+                                : CompletableFuture.completedFuture(partResponse(partNumber));
+                    });
+            stubAbort();
+
+            // when / then
+            assertThatThrownBy(() -> uploader.upload(new ByteArrayInputStream(randomBytes(PART_SIZE * 4)),
+                    CONTENT_TYPE, OBJECT_NAME))
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("part 2 failed");
+            verify(minioAsyncClient).abortMultipartUploadAsync(BUCKET, null, OBJECT_NAME, UPLOAD_ID, null, null);
+            verify(minioAsyncClient, never()).completeMultipartUploadAsync(any(), any(), any(), any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("원본 스트림 읽기가 실패하면 abort")
+        void shouldAbortWhenSourceFails() throws Exception {
+            // given - 두 part를 보낸 뒤 끊기는 스트림
+            InputStream broken = new SequenceInputStream(
+                    new ByteArrayInputStream(randomBytes(PART_SIZE * 2)),
+                    new InputStream() {
+                        @Override
+                        public int read() throws IOException {
+                            throw new IOException("connection reset");
+                        }
+                    });
+            stubCreate();
+            stubUploadPart();
+            stubAbort();
+
+            // when / then
+            assertThatThrownBy(() -> uploader.upload(broken, CONTENT_TYPE, OBJECT_NAME))
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("connection reset");
+            verify(minioAsyncClient).abortMultipartUploadAsync(BUCKET, null, OBJECT_NAME, UPLOAD_ID, null, null);
+            verify(minioAsyncClient, never()).completeMultipartUploadAsync(any(), any(), any(), any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("callback이 취소되면 진행 중인 part를 기다리지 않고 반환하고, part가 끝난 뒤 abort")
+        void shouldReturnAtOnceAndAbortLaterWhenCancelled() throws Exception {
+            // given - part 1은 끝나지 않고, 원본은 part 2를 읽는 중 멈춤 (닫히면 실패)
+            CompletableFuture<UploadPartResponse> part1 = new CompletableFuture<>();
+            stubCreate();
+            when(minioAsyncClient.uploadPartAsync(eq(BUCKET), isNull(), eq(OBJECT_NAME), any(), anyLong(),
+                    eq(UPLOAD_ID), anyInt(), isNull(), isNull()))
+                    .thenReturn(part1);
+            stubAbort();
+            CountDownLatch closed = new CountDownLatch(1);
+            InputStream stalled = new SequenceInputStream(
+                    new ByteArrayInputStream(randomBytes(PART_SIZE)),
+                    new InputStream() {
+                        @Override
+                        public int read() throws IOException {
+                            try {
+                                closed.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            throw new IOException("stream closed");
+                        }
+                    });
+            CallbackScope scope = new CallbackScope();
+
+            try (ExecutorService caller = Executors.newVirtualThreadPerTaskExecutor()) {
+                Future<Long> upload = caller.submit(() -> {
+                    try (CallbackScope.Binding binding = scope.bind()) {
+                        CallbackScope.onCancel(closed::countDown);
+                        return uploader.upload(stalled, CONTENT_TYPE, OBJECT_NAME);
+                    }
+                });
+                verify(minioAsyncClient, timeout(5000)).uploadPartAsync(eq(BUCKET), isNull(), eq(OBJECT_NAME), any(),
+                        anyLong(), eq(UPLOAD_ID), eq(1), isNull(), isNull());
+
+                // when
+                scope.cancel();
+
+                // then - part 1이 끝나지 않았어도 바로 반환
+                assertThatThrownBy(() -> upload.get(5, TimeUnit.SECONDS))
+                        .hasCauseInstanceOf(IOException.class);
+                verify(minioAsyncClient, never()).abortMultipartUploadAsync(any(), any(), any(), any(), any(), any());
+
+                part1.complete(partResponse(1));
+                verify(minioAsyncClient, timeout(5000))
+                        .abortMultipartUploadAsync(BUCKET, null, OBJECT_NAME, UPLOAD_ID, null, null);
+            }
+        }
+
+        @Test
+        @DisplayName("실패한 업로드도 버퍼를 모두 pool에 반환")
+        void shouldReturnBuffersAfterFailure() throws Exception {
+            // given - 반환되지 않으면 두 번째 업로드가 버퍼를 얻지 못해 멈춤
+            stubCreate();
+            when(minioAsyncClient.uploadPartAsync(eq(BUCKET), isNull(), eq(OBJECT_NAME), any(), anyLong(),
+                    eq(UPLOAD_ID), anyInt(), isNull(), isNull()))
+                    .thenReturn(CompletableFuture.failedFuture(new IOException("storage unavailable")));
+            stubAbort();
+            for (int i = 0; i < 3; i++) {
+                assertThatThrownBy(() -> uploader.upload(new ByteArrayInputStream(randomBytes(PART_SIZE * 6)),
+                        CONTENT_TYPE, OBJECT_NAME)).isInstanceOf(IOException.class);
+            }
+
+            // when
+            when(minioAsyncClient.putObject(any(PutObjectArgs.class))).thenReturn(CompletableFuture.completedFuture(null));
+            try (ExecutorService caller = Executors.newVirtualThreadPerTaskExecutor()) {
+                Future<Long> upload = caller.submit(
+                        () -> uploader.upload(new ByteArrayInputStream(randomBytes(10)), CONTENT_TYPE, OBJECT_NAME));
+
+                // then
+                assertThat(upload.get(5, TimeUnit.SECONDS)).isEqualTo(10);
+            }
+        }
+    }
+
+    private void stubCreate() throws Exception {
+        InitiateMultipartUploadResult result = mock(InitiateMultipartUploadResult.class);
+        when(result.uploadId()).thenReturn(UPLOAD_ID);
+        CreateMultipartUploadResponse response = mock(CreateMultipartUploadResponse.class);
+        when(response.result()).thenReturn(result);
+        when(minioAsyncClient.createMultipartUploadAsync(eq(BUCKET), isNull(), eq(OBJECT_NAME), any(), isNull()))
+                .thenReturn(CompletableFuture.completedFuture(response));
+    }
+
+    private void stubUploadPart() throws Exception {
+        when(minioAsyncClient.uploadPartAsync(eq(BUCKET), isNull(), eq(OBJECT_NAME), any(), anyLong(),
+                eq(UPLOAD_ID), anyInt(), isNull(), isNull()))
+                .thenAnswer(invocation -> {
+                    byte[] buffer = invocation.getArgument(3);
+                    long length = invocation.getArgument(4);
+                    int partNumber = invocation.getArgument(6);
+                    uploadedParts.put(partNumber, Arrays.copyOf(buffer, (int) length));
+                    return CompletableFuture.completedFuture(partResponse(partNumber));
+                });
+    }
+
+    private void stubComplete() throws Exception {
+        when(minioAsyncClient.completeMultipartUploadAsync(eq(BUCKET), isNull(), eq(OBJECT_NAME), eq(UPLOAD_ID),
+                any(), isNull(), isNull()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private void stubAbort() throws Exception {
+        lenient().when(minioAsyncClient.abortMultipartUploadAsync(BUCKET, null, OBJECT_NAME, UPLOAD_ID, null, null))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private byte[] reassemble(int partCount) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+            out.writeBytes(uploadedParts.get(partNumber));
+        }
+        return out.toByteArray();
+    }
+
+    private static UploadPartResponse partResponse(int partNumber) {
+        return new UploadPartResponse(Headers.of(), BUCKET, null, OBJECT_NAME, UPLOAD_ID, partNumber, "etag-" + partNumber);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.onlyoffice.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 부하 테스트용 ONLYOFFICE Document Server 대역.
+ *
+ * <p>실제 Document Server 없이 저장 경로 전체(JWT 검증 → queue → 다운로드 → 스토리지 → DB)를 돌리기 위해:</p>
+ * <ul>
+ *   <li>편집 결과 파일을 내려주는 내장 HTTP 서버 (파일 크기, 첫 바이트 지연 설정)</li>
+ *   <li>Document Server와 같은 형식으로 서명한 callback(status 1/2/4/6)을 backend의 {@code /callback}으로 전송</li>
+ *   <li>편집 세션 패턴: EDITING → 주기적인 FORCESAVE(앞선 응답을 기다리지 않음) → SAVE 또는 CLOSED</li>
+ * </ul>
+ *
+ * <p>파일 내용은 fileKey와 revision으로 정해지므로 revision마다 content hash가 다릅니다
+ * (변경 없는 저장 건너뛰기에 걸리지 않고 매번 실제로 저장됨).</p>
+ */
+public class DocumentServerSimulator implements AutoCloseable {
+
+    public static final int EDITING = 1;
+    public static final int SAVE = 2;
+    public static final int CLOSED = 4;
+    public static final int FORCESAVE = 6;
+
+    private static final String SECURITY_HEADER = "Authorization";
+    private static final String SECURITY_PREFIX = "Bearer ";
+    private static final String DOWNLOAD_PATH = "/cache/files/";
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final String backendUrl;
+    private final SecretKey signingKey;
+    private final byte[] payload;
+    private final Duration firstByteLatency;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final AtomicLong downloads = new AtomicLong();
+
+    /**
+     * @param backendUrl       callback을 받을 backend 주소 (예: {@code http://127.0.0.1:8080})
+     * @param secret           {@code onlyoffice.secret}과 같은 JWT 서명 키
+     * @param payloadBytes     내려줄 파일 크기
+     * @param firstByteLatency 다운로드 요청부터 응답 헤더까지의 지연 (Document Server의 파일 조립 시간)
+     */
+    public DocumentServerSimulator(String backendUrl, String secret, int payloadBytes,
+                                   Duration firstByteLatency) throws IOException {
+        this.backendUrl = backendUrl;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.payload = new byte[payloadBytes];
+        new SplittableRandom(payloadBytes).nextBytes(payload);
+        this.firstByteLatency = firstByteLatency;
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext(DOWNLOAD_PATH, this::serveFile);
+        server.start();
+
+        this.httpClient = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * 편집 결과 파일 URL. 같은 fileKey/revision은 항상 같은 내용을 내려줍니다.
+     */
+    public String downloadUrl(String fileKey, int revision) {
+        return "http://127.0.0.1:" + server.getAddress().getPort()
+                + DOWNLOAD_PATH + fileKey + "/" + revision + "/output.docx";
+    }
+
+    /**
+     * 편집 세션 하나를 재현합니다.
+     *
+     * <p>EDITING 후 {@code thinkTime} 간격으로 FORCESAVE {@code forceSaves}개를 보냅니다.
+     * Document Server의 forcesave 타이머처럼 앞선 응답을 기다리지 않으므로 같은 문서의 저장이 queue에서 겹칩니다.
+     * 모든 FORCESAVE 응답을 받은 뒤 {@code closeWithChanges}면 SAVE, 아니면 CLOSED로 세션을 닫습니다.</p>
+     *
+     * @param fileKey     backend의 fileKey ({@code /callback?fileKey=})
+     * @param documentKey 세션의 document.key (현재 editor key)
+     * @return 보낸 순서대로의 callback 결과
+     */
+    public List<CallbackResult> runSession(String fileKey, String documentKey, int forceSaves,
+                                           boolean closeWithChanges, Duration thinkTime)
+            throws InterruptedException, ExecutionException {
+        List<CallbackResult> results = new ArrayList<>();
+        results.add(sendCallback(fileKey, documentKey, EDITING, null));
+
+        List<Future<CallbackResult>> pending = new ArrayList<>();
+        for (int revision = 1; revision <= forceSaves; revision++) {
+            Thread.sleep(thinkTime);
+            String url = downloadUrl(fileKey, revision);
+            pending.add(executor.submit(() -> sendCallback(fileKey, documentKey, FORCESAVE, url)));
+        }
+        for (Future<CallbackResult> future : pending) {
+            results.add(future.get());
+        }
+
+        Thread.sleep(thinkTime);
+        results.add(closeWithChanges
+                ? sendCallback(fileKey, documentKey, SAVE, downloadUrl(fileKey, forceSaves + 1))
+                : sendCallback(fileKey, documentKey, CLOSED, null));
+        return results;
+    }
+
+    /**
+     * 서명한 callback 하나를 보내고 응답을 기다립니다. 전송 실패도 결과로 반환합니다 (httpStatus 0).
+     */
+    public CallbackResult sendCallback(String fileKey, String documentKey, int status, String url) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("key", documentKey);
+        body.put("status", status);
+        if (url != null) {
+            body.put("url", url);
+        }
+        body.put("users", List.of("load-user"));
+
+        long start = System.nanoTime();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(backendUrl + "/callback?fileKey="
+                            + URLEncoder.encode(fileKey, StandardCharsets.UTF_8)))
+                    .timeout(Duration.ofMinutes(2))
+                    .header("Content-Type", "application/json")
+                    .header(SECURITY_HEADER, SECURITY_PREFIX + sign(body))
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            JsonNode json = objectMapper.readTree(response.body());
+            return new CallbackResult(status, response.statusCode(), json.path("error").asInt(-1),
+                    json.path("message").asText(null), System.nanoTime() - start);
+        } catch (IOException e) {
+            return new CallbackResult(status, 0, -1, e.toString(), System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new CallbackResult(status, 0, -1, e.toString(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Document Server와 같이 callback 본문을 {@code payload} claim에 담아 서명합니다.
+     */
+    private String sign(Map<String, Object> body) {
+        return Jwts.builder()
+                .claim("payload", body)
+                .expiration(new Date(System.currentTimeMillis() + Duration.ofMinutes(5).toMillis()))
+                .signWith(signingKey)
+                .compact();
+    }
+
+    private void serveFile(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            // /cache/files/{fileKey}/{revision}/output.docx
+            String[] segments = exchange.getRequestURI().getPath().substring(DOWNLOAD_PATH.length()).split("/");
+            if (segments.length != 3) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            Thread.sleep(firstByteLatency);
+
+            // 앞부분만 fileKey/revision으로 바꿔 revision마다 다른 내용(hash)을 만듦
+            byte[] marker = (segments[0] + "/" + segments[1] + "/").getBytes(StandardCharsets.UTF_8);
+            int markerLength = Math.min(marker.length, payload.length);
+            exchange.getResponseHeaders().set("Content-Type",
+                    "application/vnd.openxmlformats-officedocument.wordprocessingml.document");
+            exchange.sendResponseHeaders(200, payload.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(marker, 0, markerLength);
+                for (int offset = markerLength; offset < payload.length; offset += CHUNK_SIZE) {
+                    out.write(payload, offset, Math.min(CHUNK_SIZE, payload.length - offset));
+                }
+            }
+            downloads.incrementAndGet();
+            bytesServed.addAndGet(payload.length);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return 끝까지 내려준 파일 수
+     */
+    public long downloads() {
+        return downloads.get();
+    }
+
+    /**
+     * @return 끝까지 내려준 바이트 수
+     */
+    public long bytesServed() {
+        return bytesServed.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        httpClient.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * callback 하나의 결과.
+     *
+     * @param status       보낸 callback status
+     * @param httpStatus   응답 HTTP status (전송 실패 시 0)
+     * @param error        응답 본문의 {@code error} (읽지 못하면 -1)
+     * @param message      응답 본문의 {@code message} 또는 전송 오류
+     * @param latencyNanos 전송부터 응답 수신까지
+     */
+    public record CallbackResult(int status, int httpStatus, int error, String message, long latencyNanos) {
+
+        public boolean succeeded() {
+            return httpStatus == 200 && error == 0;
+        }
+
+        /**
+         * 문서 lock을 기다리다 503으로 거절됨 (Document Server가 재시도해야 함)
+         */
+        public boolean lockTimeout() {
+            return httpStatus == 503 && message != null && message.contains("locked");
+        }
+
+        /**
+         * queue가 가득 차 503으로 거절됨
+         */
+        public boolean rejected() {
+            return httpStatus == 503 && !lockTimeout();
+        }
+    }
+}